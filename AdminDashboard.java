@@ -20,6 +20,7 @@ public class AdminDashboard extends JFrame {
         setSize(1366, 768); 
         setDefaultCloseOperation(EXIT_ON_CLOSE); 
         setLocationRelativeTo(null);
+        Archiver.startDaily(); // moves closed records past retention into the per-year archive tables
         
         JPanel mainPanel = UIUtils.createBackgroundPanel("hms.jpg"); 
         mainPanel.setLayout(new BorderLayout()); 
@@ -43,53 +44,249 @@ public class AdminDashboard extends JFrame {
         JTabbedPane tabs = new JTabbedPane(); 
         tabs.setFont(font14);
         
-        tabs.addTab("Analytics", createHomePanel());
-        tabs.addTab(" Add / Manage User", createUserPanel()); 
-        tabs.addTab("️ Doctors List", createDoctorView()); 
-        tabs.addTab(" Staff List", createStaffView()); 
-        tabs.addTab(" Patient Records", createPatientView()); 
-        tabs.addTab(" All Appointments", createApptView()); 
+        UIUtils.addLazyTab(tabs, "Analytics", this::createHomePanel);
+        UIUtils.addLazyTab(tabs, " Add / Manage User", this::createUserPanel); 
+        UIUtils.addLazyTab(tabs, "️ Doctors List", this::createDoctorView); 
+        UIUtils.addLazyTab(tabs, " Staff List", this::createStaffView); 
+        UIUtils.addLazyTab(tabs, " Patient Records", this::createPatientView); 
+        UIUtils.addLazyTab(tabs, " All Appointments", this::createApptView); 
+        UIUtils.addLazyTab(tabs, " Service Revenue", this::createRevenueView);
+        UIUtils.addLazyTab(tabs, " Ward Report", WardCensus::createPanel);
+        UIUtils.addLazyTab(tabs, " Audit Log", AuditLog::createPanel);
+        UIUtils.addLazyTab(tabs, " Diagnostics", EdtMonitor::createPanel);
         
         mainPanel.add(tabs, BorderLayout.CENTER);
+        Warmup.trackUsable(this, "admin");
+    }
+
+    // Started from Login right after the credentials check, in parallel with building this window
+    static void prefetch() {
+        for (String[] card : CARDS) DashboardPrefetch.submit("admin.card." + card[0], cardQuery(card));
+        DashboardPrefetch.submit("admin.users", AdminDashboard::queryUsers);
+        DashboardPrefetch.submit("admin.doctors", AdminDashboard::queryDoctors);
+        DashboardPrefetch.submit("admin.staff", AdminDashboard::queryStaff);
+        DashboardPrefetch.submit("admin.patients", AdminDashboard::queryPatients);
+        DashboardPrefetch.submit("admin.appts", AdminDashboard::queryAppts);
+    }
+
+    private static final String[] DEPARTMENTS = { "Primary Care", "OPD", "IPD", "Emergency", "Cardiology", "Dermatology", "Neurology", "General Surgery", "Orthopedics", "ENT", "Radiology", "Pharmacy", "ICU" };
+
+    private static final String[][] CARDS = {
+        {"Total Patients", "SELECT COUNT(*) FROM patients WHERE {own}"}, // {own}: ShardRouter.ownPatients
+        {"Active Doctors", "SELECT COUNT(*) FROM users WHERE role='doctor' AND is_active=TRUE"},
+        {"Active Staff", "SELECT COUNT(*) FROM users WHERE role='staff' AND is_active=TRUE"},
+        {"Total Revenue", "SELECT SUM(total_amount) FROM bills", "bills"} // third value: also sum the archive tables
+    };
+
+    private static DashboardPrefetch.Query cardQuery(String[] card) {
+        if (card[1].contains("{own}")) return con -> DashboardPrefetch.scalar(card[1].replace("{own}", ShardRouter.ownPatients(con))).run(con);
+        if (card.length < 3) return DashboardPrefetch.scalar(card[1]);
+        return con -> java.util.Collections.singletonList(new Object[]{Archiver.sumAcross(con, card[2], card[1]).toPlainString()});
+    }
+
+    static java.util.List<Object[]> queryUsers(Connection con) throws SQLException {
+        java.util.List<Object[]> rows = new java.util.ArrayList<>();
+        ResultSet rs=con.createStatement().executeQuery("SELECT id,name,role,username,phone,email,is_active FROM users");
+        while(rs.next()) rows.add(new Object[]{ rs.getInt("id"), rs.getString("name"), rs.getString("role"), rs.getString("username"), rs.getString("phone"), rs.getString("email"), rs.getBoolean("is_active")?"Active":"Disabled" });
+        return rows;
+    }
+
+    static java.util.List<Object[]> queryStaff(Connection con) throws SQLException {
+        java.util.List<Object[]> rows = new java.util.ArrayList<>();
+        ResultSet rs=con.createStatement().executeQuery("SELECT id, name, phone, email, address, is_active FROM users WHERE role='staff'");
+        while(rs.next()) rows.add(new Object[]{rs.getInt("id"), rs.getString("name"), rs.getString("phone"), rs.getString("email"), rs.getString("address"), rs.getBoolean("is_active")?"Active":"Disabled"});
+        return rows;
+    }
+
+    static java.util.List<Object[]> queryDoctors(Connection con) throws SQLException {
+        java.util.List<Object[]> rows = new java.util.ArrayList<>();
+        ResultSet rs=con.createStatement().executeQuery("SELECT id, name, nmc_number, department, phone, email, is_active FROM users WHERE role='doctor'");
+        while(rs.next()) rows.add(new Object[]{rs.getInt("id"), rs.getString("name"), rs.getString("nmc_number"), rs.getString("department"), rs.getString("phone"), rs.getString("email"), rs.getBoolean("is_active")?"Active":"Disabled"});
+        return rows;
+    }
+
+    static java.util.List<Object[]> queryPatients(Connection con) throws SQLException {
+        java.util.List<Object[]> rows = new java.util.ArrayList<>();
+        ResultSet rs=con.createStatement().executeQuery("SELECT patient_code, name, phone, age, sex, address, email FROM patients WHERE " + ShardRouter.ownPatients(con));
+        while(rs.next()) rows.add(new Object[]{rs.getString("patient_code"), rs.getString("name"), rs.getString("phone"), rs.getString("age"), rs.getString("sex"), rs.getString("address"), rs.getString("email")});
+        return rows;
+    }
+
+    static java.util.List<Object[]> queryAppts(Connection con) throws SQLException {
+        java.util.List<Object[]> rows = new java.util.ArrayList<>();
+        ResultSet rs=con.createStatement().executeQuery("SELECT id, patient_name, doctor_name, appt_date, status FROM appointments ORDER BY appt_date DESC");
+        while(rs.next()) rows.add(new Object[]{rs.getInt("id"), rs.getString("patient_name"), rs.getString("doctor_name"), rs.getString("appt_date"), rs.getString("status")});
+        return rows;
     }
 
     // --- HELPER: Create Glass Panel ---
     private JPanel createGlassPanel(LayoutManager layout) {
-        JPanel p = new JPanel(layout) {
-            @Override
-            protected void paintComponent(Graphics g) {
-                super.paintComponent(g);
-                Graphics2D g2 = (Graphics2D) g.create();
-                g2.setColor(new Color(255, 255, 255, 170));
-                g2.fillRect(0, 0, getWidth(), getHeight());
-                g2.dispose();
-            }
-        };
-        p.setOpaque(false);
-        return p;
+        return UIUtils.createGlassPanel(layout, new Color(255, 255, 255, 170));
     }
 
     // 1. HOME
     private JPanel createHomePanel() {
         JPanel p = new JPanel(new FlowLayout(FlowLayout.CENTER, 30, 30)); p.setOpaque(false);
-        p.add(createCard("Total Patients", "SELECT COUNT(*) FROM patients", new Color(23, 162, 184)));
-        p.add(createCard("Active Doctors", "SELECT COUNT(*) FROM users WHERE role='doctor' AND is_active=TRUE", new Color(40, 167, 69)));
-        p.add(createCard("Active Staff", "SELECT COUNT(*) FROM users WHERE role='staff' AND is_active=TRUE", new Color(108, 117, 125)));
-        p.add(createCard("Total Revenue", "SELECT SUM(total_amount) FROM bills", new Color(220, 53, 69)));
+        Color[] colors = { new Color(23, 162, 184), new Color(40, 167, 69), new Color(108, 117, 125), new Color(220, 53, 69) };
+        for(int i = 0; i < CARDS.length; i++) p.add(createCard(CARDS[i], colors[i]));
+
+        JButton bExport = new JButton("Export Month Statement"); UIUtils.styleButton(bExport, UIUtils.COLOR_TEAL);
+        bExport.addActionListener(e -> exportStatement(bExport));
+        p.add(bExport);
+        JButton bTables = new JButton("Export Tables"); UIUtils.styleButton(bTables, UIUtils.COLOR_TEAL);
+        bTables.addActionListener(e -> exportTables(bTables));
+        p.add(bTables);
         return p;
     }
 
-    private JPanel createCard(String title, String query, Color bg) {
+    // Bulk patient import; re-running on the same file resumes after the last committed batch
+    private void importPatients(JButton btn, JButton refresh) {
+        JFileChooser fc = new JFileChooser(); fc.setDialogTitle("Patient CSV (name, phone, age, sex, address, national_id, email)");
+        if(fc.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        java.nio.file.Path csv = fc.getSelectedFile().toPath();
+
+        String orig = btn.getText(); btn.setEnabled(false);
+        new Thread(() -> {
+            try {
+                PatientImporter.Summary s = PatientImporter.importFile(csv, 5000, 4,
+                        (done, bad) -> SwingUtilities.invokeLater(() -> btn.setText("Importing... " + done)));
+                SwingUtilities.invokeLater(() -> { JOptionPane.showMessageDialog(this, "✅ " + s + (s.rejected > 0 ? "\nSee " + csv + ".errors.csv" : "")); refresh.doClick(); });
+            } catch(Exception ex) {
+                ex.printStackTrace();
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this, "Import Failed: " + ex.getMessage() + "\nRun it again to resume."));
+            } finally {
+                SwingUtilities.invokeLater(() -> { btn.setText(orig); btn.setEnabled(true); });
+            }
+        }).start();
+    }
+
+    // Scans all patients for likely duplicates in the background, then lets the admin merge the chosen pairs
+    private void findDuplicates(JButton btn, JButton refresh) {
+        String orig = btn.getText(); btn.setEnabled(false);
+        new Thread(() -> {
+            try {
+                java.util.List<DuplicateDetector.Proposal> found = DuplicateDetector.proposeMerges(
+                        (stage, done) -> SwingUtilities.invokeLater(() -> btn.setText(stage + "... " + done)));
+                SwingUtilities.invokeLater(() -> showMergeProposals(found, refresh));
+            } catch(Exception ex) {
+                ex.printStackTrace();
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this, "Duplicate Scan Failed: " + ex.getMessage()));
+            } finally {
+                SwingUtilities.invokeLater(() -> { btn.setText(orig); btn.setEnabled(true); });
+            }
+        }).start();
+    }
+
+    private void showMergeProposals(java.util.List<DuplicateDetector.Proposal> found, JButton refresh) {
+        if(found.isEmpty()) { JOptionPane.showMessageDialog(this, "No likely duplicates found."); return; }
+        DefaultTableModel m = new DefaultTableModel(new String[]{"Keep", "Name", "Merge Into It", "Name", "Score", "Why"}, 0) {
+            public boolean isCellEditable(int r, int c) { return false; }
+        };
+        for(DuplicateDetector.Proposal pr : found) m.addRow(new Object[]{pr.keep, pr.keepName, pr.duplicate, pr.duplicateName, String.format("%.2f", pr.score), pr.reasons});
+        JTable t = new JTable(m); UIUtils.styleTable(t);
+        JDialog d = new JDialog(this, "Possible Duplicates (" + found.size() + ")", true);
+        d.setSize(1000, 550); d.setLocationRelativeTo(this); d.setLayout(new BorderLayout());
+        d.add(new JScrollPane(t), BorderLayout.CENTER);
+        JButton bMerge = new JButton("Merge Selected"); UIUtils.styleButton(bMerge, UIUtils.COLOR_RED);
+        JPanel acts = new JPanel(); acts.add(new JLabel("Appointments, admissions, prescriptions and bills move to the kept record.")); acts.add(bMerge);
+        d.add(acts, BorderLayout.SOUTH);
+        bMerge.addActionListener(e -> {
+            int[] rows = t.getSelectedRows();
+            if(rows.length == 0 || JOptionPane.showConfirmDialog(d, "Merge " + rows.length + " pair(s)? This cannot be undone.", "Confirm", JOptionPane.YES_NO_OPTION) != JOptionPane.YES_OPTION) return;
+            java.util.Set<Long> gone = new java.util.HashSet<>();
+            StringBuilder failed = new StringBuilder();
+            for(int r : rows) {
+                long keep = (Long) m.getValueAt(t.convertRowIndexToModel(r), 0), dup = (Long) m.getValueAt(t.convertRowIndexToModel(r), 2);
+                if(gone.contains(keep) || gone.contains(dup)) continue; // already merged away by an earlier pair
+                try { DuplicateDetector.merge(keep, dup); gone.add(dup); }
+                catch(Exception ex) { failed.append("\n").append(dup).append(" -> ").append(keep).append(": ").append(ex.getMessage()); }
+            }
+            for(int i = m.getRowCount() - 1; i >= 0; i--) if(gone.contains((Long) m.getValueAt(i, 0)) || gone.contains((Long) m.getValueAt(i, 2))) m.removeRow(i);
+            JOptionPane.showMessageDialog(d, "Merged " + gone.size() + " record(s)." + (failed.length() > 0 ? "\nFailed:" + failed : ""));
+            refresh.doClick();
+        });
+        d.setVisible(true);
+    }
+
+    // Streams the chosen tables to CSV / JSONL files in a folder, in the background
+    private void exportTables(JButton btn) {
+        JPanel f = new JPanel(new GridLayout(0, 2, 8, 8));
+        JCheckBox[] checks = new JCheckBox[TableExporter.TABLES.length];
+        for(int i = 0; i < checks.length; i++) { checks[i] = new JCheckBox(TableExporter.TABLES[i][0], i < 3); f.add(checks[i]); }
+        if(checks.length % 2 == 1) f.add(new JLabel());
+        JComboBox<String> cFmt = new JComboBox<>(new String[]{"CSV", "JSONL"}); JCheckBox chkGz = new JCheckBox("gzip");
+        JTextField tFrom = new JTextField(), tTo = new JTextField();
+        f.add(new JLabel("Format:")); f.add(cFmt); f.add(new JLabel("Compress:")); f.add(chkGz);
+        f.add(new JLabel("From (YYYY-MM-DD, optional):")); f.add(tFrom); f.add(new JLabel("To (YYYY-MM-DD, optional):")); f.add(tTo);
+        if(JOptionPane.showConfirmDialog(this, f, "Export Tables", JOptionPane.OK_CANCEL_OPTION) != JOptionPane.OK_OPTION) return;
+        java.time.LocalDate from, to;
+        try {
+            from = tFrom.getText().trim().isEmpty() ? null : java.time.LocalDate.parse(tFrom.getText().trim());
+            to = tTo.getText().trim().isEmpty() ? null : java.time.LocalDate.parse(tTo.getText().trim());
+        } catch(Exception ex) { JOptionPane.showMessageDialog(this, "Dates must be YYYY-MM-DD"); return; }
+
+        JFileChooser fc = new JFileChooser(); fc.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY); fc.setDialogTitle("Export To");
+        if(fc.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        java.nio.file.Path dir = fc.getSelectedFile().toPath();
+        boolean jsonl = cFmt.getSelectedIndex() == 1, gzip = chkGz.isSelected();
+
+        String orig = btn.getText(); btn.setEnabled(false);
+        new Thread(() -> {
+            StringBuilder done = new StringBuilder();
+            try {
+                for(JCheckBox c : checks) {
+                    if(!c.isSelected()) continue;
+                    String table = c.getText();
+                    long n = TableExporter.export(table, dir.resolve(TableExporter.fileName(table, jsonl, gzip)), jsonl, gzip, from, to,
+                            rows -> SwingUtilities.invokeLater(() -> btn.setText(table + "... " + rows)));
+                    done.append(table).append(": ").append(n).append(" rows").append(TableExporter.dateColumn(table) == null && (from != null || to != null) ? " (no date column, all rows)" : "").append("\n");
+                }
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this, "✅ Exported to " + dir + "\n" + done));
+            } catch(Exception ex) {
+                ex.printStackTrace();
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this, "Export Failed: " + ex.getMessage()));
+            } finally {
+                SwingUtilities.invokeLater(() -> { btn.setText(orig); btn.setEnabled(true); });
+            }
+        }).start();
+    }
+
+    private void exportStatement(JButton btn) {
+        String month = JOptionPane.showInputDialog(this, "Statement Month (YYYY-MM):", java.time.YearMonth.now().minusMonths(1).toString());
+        if(month == null || month.trim().isEmpty()) return;
+        java.time.YearMonth ym;
+        try { ym = java.time.YearMonth.parse(month.trim()); } catch(Exception ex) { JOptionPane.showMessageDialog(this, "Invalid month format!"); return; }
+
+        JFileChooser fc = new JFileChooser(); fc.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY); fc.setDialogTitle("Save Statement To");
+        if(fc.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        java.nio.file.Path dir = fc.getSelectedFile().toPath();
+
+        String orig = btn.getText(); btn.setEnabled(false);
+        new Thread(() -> {
+            try {
+                long n = StatementExporter.export(ym.atDay(1), ym.atEndOfMonth(), dir.resolve("statement-" + ym + ".pdf"), dir.resolve("ledger-" + ym + ".csv"),
+                        done -> SwingUtilities.invokeLater(() -> btn.setText("Exporting... " + done)));
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this, "✅ Exported " + n + " bills to " + dir));
+            } catch(Exception ex) {
+                ex.printStackTrace();
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this, "Export Failed: " + ex.getMessage()));
+            } finally {
+                SwingUtilities.invokeLater(() -> { btn.setText(orig); btn.setEnabled(true); });
+            }
+        }).start();
+    }
+
+    private JPanel createCard(String[] card, Color bg) {
+        String title = card[0];
         JPanel c = new JPanel(new BorderLayout()); c.setPreferredSize(new Dimension(250, 150)); c.setBackground(bg);
         c.setBorder(BorderFactory.createLineBorder(Color.WHITE, 2));
         JLabel lT = new JLabel(title, SwingConstants.CENTER); lT.setFont(new Font("Segoe UI", Font.BOLD, 18)); lT.setForeground(Color.WHITE);
         JLabel lV = new JLabel("...", SwingConstants.CENTER); lV.setFont(new Font("Segoe UI", Font.BOLD, 36)); lV.setForeground(Color.WHITE);
         c.add(lT, BorderLayout.NORTH); c.add(lV, BorderLayout.CENTER);
-        new Thread(() -> {
-            try { Connection con=DBConnection.connect(); ResultSet rs=con.createStatement().executeQuery(query);
-                if(rs.next()) { String val=rs.getString(1); lV.setText(val==null?"0":val); } con.close();
-            } catch(Exception e){ lV.setText("0"); }
-        }).start();
+        DashboardPrefetch.take("admin.card." + title, cardQuery(card)).whenComplete((rows, ex) -> SwingUtilities.invokeLater(() -> {
+            Object val = (ex == null && !rows.isEmpty()) ? rows.get(0)[0] : null;
+            lV.setText(val == null ? "0" : val.toString());
+        }));
         return c;
     }
 
@@ -112,8 +309,7 @@ public class AdminDashboard extends JFrame {
 
         cRole = new JComboBox<>(new String[]{"Staff", "Doctor"});
         tNMC = new JTextField(15);
-        String[] departments = { "Primary Care", "OPD", "IPD", "Emergency", "Cardiology", "Dermatology", "Neurology", "General Surgery", "Orthopedics", "ENT", "Radiology", "Pharmacy", "ICU" }; 
-        cDept = new JComboBox<>(departments);
+        cDept = new JComboBox<>(DEPARTMENTS);
         lNMC = new JLabel("NMC ID:"); lDept = new JLabel("Department:");
 
         gbc.gridx=0; gbc.gridy=0; form.add(new JLabel("Role:"), gbc); gbc.gridx=1; form.add(cRole, gbc);
@@ -160,6 +356,7 @@ public class AdminDashboard extends JFrame {
                 else { pst.setNull(8, Types.VARCHAR); pst.setNull(9, Types.VARCHAR); }
 
                 pst.executeUpdate(); 
+                AuditLog.record("user.create", "user", tUser.getText(), role);
                 JOptionPane.showMessageDialog(this, "✅ User Created!\nPass: " + pass + "\n(Email Sending...)"); 
                 new Thread(()->Email.sendPasswordEmail(fullEmail, tName.getText(), tUser.getText(), pass)).start();
                 con.close(); clearForm();
@@ -184,6 +381,7 @@ public class AdminDashboard extends JFrame {
                 pst.setInt(9, Integer.parseInt(tId.getText()));
 
                 pst.executeUpdate(); con.close();
+                AuditLog.record("user.update", "user", tId.getText(), role + " " + tUser.getText());
                 JOptionPane.showMessageDialog(this, " User Updated Successfully!");
                 clearForm();
             } catch(Exception ex) { JOptionPane.showMessageDialog(this, "Error: " + ex.getMessage()); }
@@ -202,18 +400,12 @@ public class AdminDashboard extends JFrame {
         JPanel acts = new JPanel(); acts.setOpaque(false);
         JButton bRef = new JButton("Refresh"); UIUtils.styleButton(bRef, UIUtils.COLOR_BLUE);
         JButton bEdit = new JButton("Edit Selected"); UIUtils.styleButton(bEdit, UIUtils.COLOR_ORANGE); bEdit.setForeground(Color.BLACK);
-        JButton bDel = new JButton("Delete Selected"); UIUtils.styleButton(bDel, UIUtils.COLOR_RED);
-        JButton bTog = new JButton("Toggle Active"); UIUtils.styleButton(bTog, Color.GRAY);
-        
-        acts.add(bRef); acts.add(bEdit); acts.add(bDel); acts.add(bTog);
+        acts.add(bRef); acts.add(bEdit);
+        acts.add(UserBatch.actions(this, userTable, userModel, 0, 6, -1, DEPARTMENTS)); // on every selected row
         tableP.add(acts, BorderLayout.SOUTH);
         p.add(tableP, BorderLayout.CENTER);
 
-        Runnable load = () -> {
-            userModel.setRowCount(0);
-            try { Connection con=DBConnection.connect(); ResultSet rs=con.createStatement().executeQuery("SELECT id,name,role,username,phone,email,is_active FROM users");
-            while(rs.next()) userModel.addRow(new Object[]{ rs.getInt("id"), rs.getString("name"), rs.getString("role"), rs.getString("username"), rs.getString("phone"), rs.getString("email"), rs.getBoolean("is_active")?"Active":"Disabled" }); con.close(); } catch(Exception e){}
-        };
+        Runnable load = () -> DashboardPrefetch.fill(userModel, "admin.users", AdminDashboard::queryUsers);
         bRef.addActionListener(e -> load.run()); load.run();
 
         bEdit.addActionListener(e -> {
@@ -243,14 +435,6 @@ public class AdminDashboard extends JFrame {
             } catch(Exception ex) { ex.printStackTrace(); }
         });
 
-        bDel.addActionListener(e -> { 
-            if(userTable.getSelectedRow()!=-1 && JOptionPane.showConfirmDialog(this,"Delete User?")==0) try{ Connection con=DBConnection.connect(); con.createStatement().executeUpdate("DELETE FROM users WHERE id="+userTable.getValueAt(userTable.getSelectedRow(),0)); con.close(); load.run(); }catch(Exception ex){} 
-        });
-        
-        bTog.addActionListener(e -> { 
-            if(userTable.getSelectedRow()!=-1) try{ Connection con=DBConnection.connect(); con.createStatement().executeUpdate("UPDATE users SET is_active=NOT is_active WHERE id="+userTable.getValueAt(userTable.getSelectedRow(),0)); con.close(); load.run(); }catch(Exception ex){} 
-        });
-
         return p;
     }
 
@@ -258,17 +442,14 @@ public class AdminDashboard extends JFrame {
     private JPanel createStaffView() {
         JPanel p = new JPanel(new BorderLayout(10,10)); p.setOpaque(false);
         p.setBorder(BorderFactory.createEmptyBorder(20,20,20,20));
-        DefaultTableModel m = new DefaultTableModel(new String[]{"Name", "Phone", "Email", "Address", "Status"}, 0);
+        DefaultTableModel m = new DefaultTableModel(new String[]{"ID", "Name", "Phone", "Email", "Address", "Status"}, 0);
         JTable t = new JTable(m); UIUtils.styleTable(t);
         JPanel c = new JPanel(new BorderLayout()); c.setBorder(BorderFactory.createTitledBorder("Registered Staff Members"));
         addSearch(c, t, m); c.add(new JScrollPane(t), BorderLayout.CENTER);
         JButton bRef = new JButton("Refresh Staff"); UIUtils.styleButton(bRef, UIUtils.COLOR_TEAL);
-        c.add(bRef, BorderLayout.SOUTH); p.add(c, BorderLayout.CENTER);
-        bRef.addActionListener(e -> {
-            m.setRowCount(0);
-            try { Connection con=DBConnection.connect(); ResultSet rs=con.createStatement().executeQuery("SELECT name, phone, email, address, is_active FROM users WHERE role='staff'");
-            while(rs.next()) m.addRow(new Object[]{rs.getString("name"), rs.getString("phone"), rs.getString("email"), rs.getString("address"), rs.getBoolean("is_active")?"Active":"Disabled"}); con.close(); } catch(Exception ex){}
-        });
+        JPanel acts = new JPanel(); acts.add(bRef); acts.add(UserBatch.actions(this, t, m, 0, 5, -1, DEPARTMENTS));
+        c.add(acts, BorderLayout.SOUTH); p.add(c, BorderLayout.CENTER);
+        bRef.addActionListener(e -> DashboardPrefetch.fill(m, "admin.staff", AdminDashboard::queryStaff));
         bRef.doClick(); return p;
     }
 
@@ -276,17 +457,14 @@ public class AdminDashboard extends JFrame {
     private JPanel createDoctorView() {
         JPanel p = new JPanel(new BorderLayout(10,10)); p.setOpaque(false);
         p.setBorder(BorderFactory.createEmptyBorder(20,20,20,20));
-        DefaultTableModel m = new DefaultTableModel(new String[]{"Name", "NMC ID", "Department", "Phone", "Email", "Status"}, 0);
+        DefaultTableModel m = new DefaultTableModel(new String[]{"ID", "Name", "NMC ID", "Department", "Phone", "Email", "Status"}, 0);
         JTable t = new JTable(m); UIUtils.styleTable(t);
         JPanel c = new JPanel(new BorderLayout()); c.setBorder(BorderFactory.createTitledBorder("Registered Doctors"));
         addSearch(c, t, m); c.add(new JScrollPane(t), BorderLayout.CENTER);
         JButton bRef = new JButton("Refresh Doctors"); UIUtils.styleButton(bRef, UIUtils.COLOR_TEAL);
-        c.add(bRef, BorderLayout.SOUTH); p.add(c, BorderLayout.CENTER);
-        bRef.addActionListener(e -> {
-            m.setRowCount(0);
-            try { Connection con=DBConnection.connect(); ResultSet rs=con.createStatement().executeQuery("SELECT name, nmc_number, department, phone, email, is_active FROM users WHERE role='doctor'");
-            while(rs.next()) m.addRow(new Object[]{rs.getString("name"), rs.getString("nmc_number"), rs.getString("department"), rs.getString("phone"), rs.getString("email"), rs.getBoolean("is_active")?"Active":"Disabled"}); con.close(); } catch(Exception ex){}
-        });
+        JPanel acts = new JPanel(); acts.add(bRef); acts.add(UserBatch.actions(this, t, m, 0, 6, 3, DEPARTMENTS));
+        c.add(acts, BorderLayout.SOUTH); p.add(c, BorderLayout.CENTER);
+        bRef.addActionListener(e -> DashboardPrefetch.fill(m, "admin.doctors", AdminDashboard::queryDoctors));
         bRef.doClick(); return p;
     }
 
@@ -299,12 +477,13 @@ public class AdminDashboard extends JFrame {
         JPanel c = new JPanel(new BorderLayout()); c.setBorder(BorderFactory.createTitledBorder("Patient Records"));
         addSearch(c, t, m); c.add(new JScrollPane(t), BorderLayout.CENTER);
         JButton bRef = new JButton("Refresh Patients"); UIUtils.styleButton(bRef, UIUtils.COLOR_TEAL);
-        c.add(bRef, BorderLayout.SOUTH); p.add(c, BorderLayout.CENTER);
-        bRef.addActionListener(e -> {
-            m.setRowCount(0);
-            try { Connection con=DBConnection.connect(); ResultSet rs=con.createStatement().executeQuery("SELECT patient_code, name, phone, age, sex, address, email FROM patients");
-            while(rs.next()) m.addRow(new Object[]{rs.getString("patient_code"), rs.getString("name"), rs.getString("phone"), rs.getString("age"), rs.getString("sex"), rs.getString("address"), rs.getString("email")}); con.close(); } catch(Exception ex){}
-        });
+        JButton bImp = new JButton("Import CSV"); UIUtils.styleButton(bImp, UIUtils.COLOR_BLUE);
+        JButton bDup = new JButton("Find Duplicates"); UIUtils.styleButton(bDup, UIUtils.COLOR_ORANGE); bDup.setForeground(Color.BLACK);
+        JPanel acts = new JPanel(); acts.add(bRef); acts.add(bImp); acts.add(bDup);
+        c.add(acts, BorderLayout.SOUTH); p.add(c, BorderLayout.CENTER);
+        bRef.addActionListener(e -> DashboardPrefetch.fill(m, "admin.patients", AdminDashboard::queryPatients));
+        bImp.addActionListener(e -> importPatients(bImp, bRef));
+        bDup.addActionListener(e -> findDuplicates(bDup, bRef));
         bRef.doClick(); return p;
     }
 
@@ -318,10 +497,30 @@ public class AdminDashboard extends JFrame {
         addSearch(c, t, m); c.add(new JScrollPane(t), BorderLayout.CENTER);
         JButton bRef = new JButton("Refresh Appointments"); UIUtils.styleButton(bRef, UIUtils.COLOR_TEAL);
         c.add(bRef, BorderLayout.SOUTH); p.add(c, BorderLayout.CENTER);
+        bRef.addActionListener(e -> DashboardPrefetch.fill(m, "admin.appts", AdminDashboard::queryAppts));
+        bRef.doClick(); return p;
+    }
+
+    // 7. REVENUE PER SERVICE (from bill_items)
+    private JPanel createRevenueView() {
+        JPanel p = new JPanel(new BorderLayout(10,10)); p.setOpaque(false);
+        p.setBorder(BorderFactory.createEmptyBorder(20,20,20,20));
+        DefaultTableModel m = new DefaultTableModel(new String[]{"Item / Service", "Qty Sold", "Bills", "Revenue (before discount)"}, 0);
+        JTable t = new JTable(m); UIUtils.styleTable(t);
+        JPanel c = new JPanel(new BorderLayout()); c.setBorder(BorderFactory.createTitledBorder("Revenue per Service (gross, bill discounts not applied)"));
+        addSearch(c, t, m); c.add(new JScrollPane(t), BorderLayout.CENTER);
+
+        JPanel range = new JPanel(); range.setOpaque(false);
+        java.time.LocalDate today = java.time.LocalDate.now();
+        JTextField tFrom = new JTextField(today.withDayOfMonth(1).toString(), 10), tTo = new JTextField(today.toString(), 10);
+        JButton bRef = new JButton("Refresh Revenue"); UIUtils.styleButton(bRef, UIUtils.COLOR_TEAL);
+        range.add(new JLabel("From:")); range.add(tFrom); range.add(new JLabel("To:")); range.add(tTo); range.add(bRef);
+        c.add(range, BorderLayout.SOUTH); p.add(c, BorderLayout.CENTER);
         bRef.addActionListener(e -> {
-            m.setRowCount(0);
-            try { Connection con=DBConnection.connect(); ResultSet rs=con.createStatement().executeQuery("SELECT id, patient_name, doctor_name, appt_date, status FROM appointments ORDER BY appt_date DESC");
-            while(rs.next()) m.addRow(new Object[]{rs.getInt("id"), rs.getString("patient_name"), rs.getString("doctor_name"), rs.getString("appt_date"), rs.getString("status")}); con.close(); } catch(Exception ex){}
+            java.sql.Date from, to;
+            try { from = java.sql.Date.valueOf(tFrom.getText().trim()); to = java.sql.Date.valueOf(tTo.getText().trim()); }
+            catch(IllegalArgumentException ex) { JOptionPane.showMessageDialog(this, "Dates must be YYYY-MM-DD"); return; }
+            DashboardPrefetch.fill(m, "admin.revenue", con -> BillItems.revenueByItem(con, from, to));
         });
         bRef.doClick(); return p;
     }
@@ -334,8 +533,9 @@ public class AdminDashboard extends JFrame {
         panel.add(sp, BorderLayout.NORTH);
         TableRowSorter<DefaultTableModel> sorter = new TableRowSorter<>(model);
         table.setRowSorter(sorter);
+        int nameCol = UIUtils.nameColumn(model);
         txt.addKeyListener(new KeyAdapter() { public void keyReleased(KeyEvent e) {
-            sorter.setRowFilter(RowFilter.regexFilter("(?i)" + txt.getText()));
+            sorter.setRowFilter(UIUtils.searchFilter(txt.getText(), nameCol));
         }});
     }
 
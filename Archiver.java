@@ -0,0 +1,218 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Moves closed records past their retention window out of the hot tables into per-year archive tables
+// (<table>_archive_<year>, created LIKE the original and given any column added to it since). Rows are
+// copied with an explicit column list and only deleted when every one of them was copied. Work is done in
+// small id batches, one short transaction each, with a pause after every batch that is twice as long as the batch took, so desk
+// queries never queue behind it. A MySQL named lock keeps two admin sessions from archiving at once.
+// Readers that need the full history (patient history, revenue, statements) use tablesFor()/archives().
+public class Archiver {
+
+    private static final int BATCH = 500;
+    private static final long MIN_PAUSE_MS = 200;
+    private static final long TABLE_LIST_TTL_MS = 10 * 60 * 1000;
+
+    // {table, date column, closed condition, retention days, child table keyed by this table's id or null, child key column}
+    private static final String[][] RULES = {
+        {"appointments", "appt_date", "status IN ('Advised','Completed','Cancelled')", "180", "appointment_slots", "appointment_id"},
+        {"admissions", "discharge_date", "status='Discharged' AND discharge_date IS NOT NULL", "365", null, null},
+        {"prescriptions", "prescribed_date", "1=1", "730", "prescription_items", "prescription_id"},
+        {"bills", "bill_date", "1=1", "1095", "bill_items", "bill_id"},
+    };
+    // Child rows that are only bookkeeping for live records are dropped instead of archived
+    private static final Set<String> DROP_CHILDREN = Collections.singleton("appointment_slots");
+
+    private static final Map<String, List<String>> archiveTables = new ConcurrentHashMap<>();
+    private static volatile long archiveTablesAt = 0;
+    private static volatile ScheduledExecutorService daily;
+
+    // Archive tables of 'base', oldest year first (cached; refreshed after an archive run)
+    public static List<String> archives(Connection con, String base) throws SQLException {
+        if (System.currentTimeMillis() - archiveTablesAt > TABLE_LIST_TTL_MS) { archiveTables.clear(); archiveTablesAt = System.currentTimeMillis(); }
+        List<String> cached = archiveTables.get(base);
+        if (cached != null) return cached;
+        List<String> names = new ArrayList<>();
+        DatabaseMetaData md = con.getMetaData();
+        try (ResultSet rs = md.getTables(con.getCatalog(), null, pattern(md, base + "_archive_") + "%", null)) {
+            while (rs.next()) names.add(rs.getString("TABLE_NAME"));
+        }
+        Collections.sort(names);
+        names = Collections.unmodifiableList(names);
+        archiveTables.put(base, names);
+        return names;
+    }
+
+    // Forgets the cached table lists (a different database was installed)
+    static void clearTableCache() { archiveTables.clear(); }
+
+    // Archive tables whose year overlaps [from, to], oldest first, followed by the hot table itself
+    public static List<String> tablesFor(Connection con, String base, LocalDate from, LocalDate to) throws SQLException {
+        List<String> tables = new ArrayList<>();
+        for (String t : archives(con, base)) {
+            int year = Integer.parseInt(t.substring(t.lastIndexOf('_') + 1));
+            if ((from == null || year >= from.getYear()) && (to == null || year <= to.getYear())) tables.add(t);
+        }
+        tables.add(base);
+        return tables;
+    }
+
+    // Sum of an additive single-value query (SUM / COUNT over 'base') across the hot table and its archives
+    public static java.math.BigDecimal sumAcross(Connection con, String base, String sql) throws SQLException {
+        java.math.BigDecimal total = java.math.BigDecimal.ZERO;
+        for (String table : tablesFor(con, base, null, null)) {
+            ResultSet rs = con.createStatement().executeQuery(sql.replace(" FROM " + base, " FROM " + table));
+            if (rs.next() && rs.getBigDecimal(1) != null) total = total.add(rs.getBigDecimal(1));
+        }
+        return total;
+    }
+
+    // Runs once a little after the admin logs in and then daily, in the background
+    public static synchronized void startDaily() {
+        if (daily != null) return;
+        daily = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "archiver"); t.setDaemon(true); t.setPriority(Thread.MIN_PRIORITY); return t;
+        });
+        daily.scheduleWithFixedDelay(() -> {
+            try { run(false); } catch (Exception e) { e.printStackTrace(); }
+        }, 2, 24 * 60, TimeUnit.MINUTES);
+    }
+
+    // Returns rows moved per table (or, for a dry run, rows that would move)
+    public static Map<String, Long> run(boolean dryRun) throws Exception {
+        Map<String, Long> moved = new LinkedHashMap<>();
+        try (Connection con = DBConnection.connect()) {
+            if (con == null) throw new SQLException("Database not reachable");
+            ResultSet lock = con.createStatement().executeQuery("SELECT GET_LOCK('hms_archiver', 0)");
+            if (!lock.next() || lock.getInt(1) != 1) return moved; // another session is archiving
+            try {
+                BillItems.ensureSchema(con);
+                MedicineCatalog.ensureSchema(con); // makes sure prescription_items exists
+                SlotScheduler.load(); // makes sure appointment_slots exists
+                for (String[] rule : RULES) moved.put(rule[0], dryRun ? count(con, rule) : archive(con, rule));
+            } finally {
+                con.createStatement().executeQuery("SELECT RELEASE_LOCK('hms_archiver')");
+                archiveTables.clear();
+            }
+        }
+        return moved;
+    }
+
+    private static String where(String[] rule) {
+        return rule[2] + " AND " + rule[1] + " < CURDATE() - INTERVAL '" + Integer.parseInt(rule[3]) + "' DAY";
+    }
+
+    private static long count(Connection con, String[] rule) throws SQLException {
+        ResultSet rs = con.createStatement().executeQuery("SELECT COUNT(*) FROM " + rule[0] + " WHERE " + where(rule));
+        return rs.next() ? rs.getLong(1) : 0;
+    }
+
+    // One table's rule, for tests and the command line
+    static long archive(Connection con, String table) throws Exception {
+        for (String[] rule : RULES) if (rule[0].equals(table)) return archive(con, rule);
+        throw new IllegalArgumentException("No archive rule for " + table);
+    }
+
+    private static long archive(Connection con, String[] rule) throws Exception {
+        String table = rule[0], child = rule[4], childKey = rule[5];
+        Map<String, String> columns = new HashMap<>(); // archive table -> column list to copy
+        long total = 0;
+        while (true) {
+            long t0 = System.nanoTime();
+            // Next batch of ids, grouped by archive year
+            Map<Integer, List<Long>> byYear = new TreeMap<>();
+            ResultSet rs = con.createStatement().executeQuery("SELECT id, YEAR(" + rule[1] + ") FROM " + table + " WHERE " + where(rule) + " ORDER BY id LIMIT " + BATCH);
+            while (rs.next()) byYear.computeIfAbsent(rs.getInt(2), y -> new ArrayList<>()).add(rs.getLong(1));
+            if (byYear.isEmpty()) return total;
+
+            // DDL commits implicitly, so the archive tables are made before the transaction
+            for (int year : byYear.keySet()) {
+                prepare(con, table, year, columns);
+                if (child != null && !DROP_CHILDREN.contains(child)) prepare(con, child, year, columns);
+            }
+            con.setAutoCommit(false);
+            try {
+                Statement st = con.createStatement();
+                for (Map.Entry<Integer, List<Long>> e : byYear.entrySet()) {
+                    String ids = idList(e.getValue()), suffix = "_archive_" + e.getKey();
+                    if (child != null) {
+                        if (DROP_CHILDREN.contains(child)) st.executeUpdate("DELETE FROM " + child + " WHERE " + childKey + " IN (" + ids + ")");
+                        else move(st, child, suffix, columns.get(child + suffix), childKey + " IN (" + ids + ")");
+                    }
+                    total += move(st, table, suffix, columns.get(table + suffix), "id IN (" + ids + ")");
+                }
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            } finally {
+                con.setAutoCommit(true);
+            }
+            Thread.sleep(Math.max(MIN_PAUSE_MS, 2 * (System.nanoTime() - t0) / 1_000_000));
+        }
+    }
+
+    // Copies the matching rows into the archive table, then deletes them; fails (and the caller rolls back)
+    // unless the delete removes exactly the rows that were copied
+    private static long move(Statement st, String table, String suffix, String cols, String match) throws SQLException {
+        long copied = st.executeUpdate("INSERT INTO " + table + suffix + " (" + cols + ") SELECT " + cols + " FROM " + table + " WHERE " + match);
+        long deleted = st.executeUpdate("DELETE FROM " + table + " WHERE " + match);
+        if (copied != deleted) throw new SQLException(table + ": copied " + copied + " rows to " + table + suffix + " but " + deleted + " matched for delete, batch rolled back");
+        return deleted;
+    }
+
+    // Creates <table>_archive_<year> like the live table, or adds the live columns it lacks (nullable, older
+    // rows have no value), and remembers the live column list used to copy rows across
+    private static void prepare(Connection con, String table, int year, Map<String, String> columns) throws SQLException {
+        String name = table + "_archive_" + year;
+        if (columns.containsKey(name)) return;
+        DatabaseMetaData md = con.getMetaData();
+        Set<String> archived = new HashSet<>();
+        try (ResultSet rs = md.getColumns(con.getCatalog(), null, pattern(md, name), null)) {
+            while (rs.next()) archived.add(rs.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+        }
+        if (archived.isEmpty()) { con.createStatement().executeUpdate("CREATE TABLE IF NOT EXISTS " + name + " LIKE " + table); archiveTables.remove(table); }
+        List<String> live = new ArrayList<>();
+        try (ResultSet rs = md.getColumns(con.getCatalog(), null, pattern(md, table), null)) {
+            while (rs.next()) {
+                String col = rs.getString("COLUMN_NAME");
+                live.add(col);
+                if (!archived.isEmpty() && !archived.contains(col.toLowerCase(Locale.ROOT)))
+                    con.createStatement().executeUpdate("ALTER TABLE " + name + " ADD COLUMN " + col + " " + columnType(rs) + " NULL");
+            }
+        }
+        columns.put(name, String.join(", ", live));
+    }
+
+    private static String columnType(ResultSet col) throws SQLException {
+        String type = col.getString("TYPE_NAME");
+        switch (col.getInt("DATA_TYPE")) {
+            case Types.CHAR: case Types.VARCHAR: return type + "(" + col.getInt("COLUMN_SIZE") + ")";
+            case Types.DECIMAL: case Types.NUMERIC: return type + "(" + col.getInt("COLUMN_SIZE") + "," + col.getInt("DECIMAL_DIGITS") + ")";
+            default: return type;
+        }
+    }
+
+    // '_' is a wildcard in metadata name patterns
+    private static String pattern(DatabaseMetaData md, String name) throws SQLException { return name.replace("_", md.getSearchStringEscape() + "_"); }
+
+    private static String idList(List<Long> ids) {
+        StringBuilder sb = new StringBuilder();
+        for (long id : ids) sb.append(sb.length() > 0 ? "," : "").append(id);
+        return sb.toString();
+    }
+
+    //   java -cp "lib/*:out" com.mycompany.hospitalmanagementsystem.Archiver [--dry-run]
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        boolean dryRun = Arrays.asList(args).contains("--dry-run");
+        System.out.println((dryRun ? "Would move " : "Moved ") + run(dryRun));
+    }
+}
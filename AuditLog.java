@@ -0,0 +1,333 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+// Who did what: user / patient / appointment / admission / bill changes made from the dashboards.
+// record() only encodes the entry and drops it into a lock-free ring (CAS on the tail, no locks, no I/O), so
+// the action it audits does not wait for any write. One writer thread appends the entries to memory-mapped
+// 4 MB segments in ~/.hms/audit (audit-<n>.seg), opened in the background as soon as a user logs in; a
+// shipper thread reads them with plain file reads (no mapping, so a shipped segment can be deleted on Windows
+// too), copies them into audit_log in batches and deletes segments once fully shipped. Entries reach the journal even while MySQL is down and are shipped
+// when it is back; (terminal, segment, offset) is unique in audit_log, so a re-shipped batch is ignored.
+// Segment header: MAGIC, VERSION, end offset (8), shipped offset (16). Entry: int length, long time, then
+// user, action, entity, entity id, details as short length + UTF-8.
+public class AuditLog {
+
+    private static final Path DIR = Paths.get(System.getProperty("user.home"), ".hms", "audit");
+    private static final int MAGIC = 0x484D5341, VERSION = 1, HEADER = 64, H_END = 8, H_SHIPPED = 16;
+    private static final int SEGMENT_SIZE = 4 << 20;
+    private static final int RING = 1 << 13;           // entries; a full ring means the disk is stuck
+    private static final int MAX_DETAILS = 500, SHIP_BATCH = 1000;
+    private static final long SHIP_EVERY_MS = 3000, FORCE_EVERY_MS = 1000, FULL_WAIT_MS = 100;
+
+    private static final AtomicReferenceArray<byte[]> ring = new AtomicReferenceArray<>(RING);
+    private static final AtomicLong tail = new AtomicLong();   // next slot to claim (producers)
+    private static volatile long head = 0;                     // next slot to drain (writer only)
+    private static final AtomicLong dropped = new AtomicLong();
+
+    private static volatile String user = "system";
+    private static volatile boolean started = false, failed = false;
+    private static final AtomicBoolean starting = new AtomicBoolean();
+    private static volatile int segment = 0;                   // the writer's current segment
+    private static MappedByteBuffer out;                       // writer thread only
+    private static String terminal;
+
+    public static void setUser(String username) {
+        user = username == null ? "system" : username;
+        startInBackground();
+    }
+
+    // ---------------------------------------------------------------- record
+
+    // Never blocks for I/O. If the writer is down or the ring stays full the entry is dropped (and counted).
+    // Entries recorded before the journal is open wait in the ring.
+    public static void record(String action, String entity, Object entityId, String details) {
+        if (!started) startInBackground();
+        if (failed) { System.err.println("AUDIT (not journaled): " + user + " " + action + " " + entity + " " + entityId + " " + details); dropped.incrementAndGet(); return; }
+        byte[] e = encode(System.currentTimeMillis(), user, action, entity, entityId == null ? "" : entityId.toString(), details);
+        long giveUpAt = 0;
+        while (true) {
+            long t = tail.get();
+            if (t - head >= RING) { // full: give the writer up to FULL_WAIT_MS to catch up
+                if (giveUpAt == 0) giveUpAt = System.nanoTime() + FULL_WAIT_MS * 1_000_000;
+                else if (System.nanoTime() > giveUpAt) { dropped.incrementAndGet(); return; }
+                Thread.yield();
+            } else if (tail.compareAndSet(t, t + 1)) {
+                ring.set((int) (t & (RING - 1)), e);
+                return;
+            }
+        }
+    }
+
+    public static long dropped() { return dropped.get(); }
+
+    private static byte[] encode(long time, String... f) {
+        byte[][] b = new byte[f.length][];
+        int len = 8;
+        for (int i = 0; i < f.length; i++) {
+            String s = f[i] == null ? "" : f[i];
+            if (s.length() > MAX_DETAILS) s = s.substring(0, MAX_DETAILS);
+            b[i] = s.getBytes(StandardCharsets.UTF_8);
+            len += 2 + b[i].length;
+        }
+        java.nio.ByteBuffer buf = java.nio.ByteBuffer.allocate(4 + len);
+        buf.putInt(len).putLong(time);
+        for (byte[] x : b) { buf.putShort((short) x.length); buf.put(x); }
+        return buf.array();
+    }
+
+    // ---------------------------------------------------------------- writer
+
+    // Segment files are created and mapped on the prefetch pool, never on the caller's (EDT) thread
+    public static void startInBackground() { if (starting.compareAndSet(false, true)) DashboardPrefetch.submit(AuditLog::start); }
+
+    public static synchronized void start() {
+        if (started) return;
+        started = true;
+        try {
+            Files.createDirectories(DIR);
+            terminal = LocalStore.terminalId();
+            List<Integer> segs = segments();
+            openSegment(segs.isEmpty() ? 1 : segs.get(segs.size() - 1));
+        } catch (IOException e) {
+            e.printStackTrace();
+            failed = true;
+            return;
+        }
+        Thread w = new Thread(AuditLog::writeLoop, "audit-writer"); w.setDaemon(true); w.start();
+        Thread s = new Thread(AuditLog::shipLoop, "audit-shipper"); s.setDaemon(true); s.setPriority(Thread.MIN_PRIORITY); s.start();
+    }
+
+    private static List<Integer> segments() throws IOException {
+        List<Integer> segs = new ArrayList<>();
+        try (Stream<Path> files = Files.list(DIR)) {
+            files.map(p -> p.getFileName().toString()).filter(n -> n.matches("audit-\\d+\\.seg"))
+                 .forEach(n -> segs.add(Integer.parseInt(n.substring(6, n.length() - 4))));
+        }
+        segs.sort(null);
+        return segs;
+    }
+
+    private static Path file(int seg) { return DIR.resolve(String.format("audit-%010d.seg", seg)); }
+
+    private static MappedByteBuffer map(int seg) throws IOException {
+        try (FileChannel ch = FileChannel.open(file(seg), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer m = ch.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_SIZE); // the mapping outlives the channel
+            if (m.getInt(0) != MAGIC) { m.putInt(0, MAGIC); m.putInt(4, VERSION); m.putLong(H_END, HEADER); m.putLong(H_SHIPPED, HEADER); m.force(); }
+            return m;
+        }
+    }
+
+    private static void openSegment(int seg) throws IOException {
+        out = map(seg);
+        segment = seg;
+    }
+
+    private static void writeLoop() {
+        long lastForce = System.currentTimeMillis();
+        boolean dirty = false;
+        while (true) {
+            try {
+                int idx = (int) (head & (RING - 1));
+                byte[] e = ring.get(idx);
+                if (e == null) {
+                    if (tail.get() != head) { Thread.onSpinWait(); continue; } // claimed, about to be published
+                    if (dirty && System.currentTimeMillis() - lastForce >= FORCE_EVERY_MS) { out.force(); dirty = false; lastForce = System.currentTimeMillis(); }
+                    LockSupport.parkNanos(1_000_000);
+                    continue;
+                }
+                ring.set(idx, null);
+                head = head + 1;
+                long end = out.getLong(H_END);
+                if (end + e.length > SEGMENT_SIZE) { out.force(); openSegment(segment + 1); end = HEADER; }
+                out.put((int) end, e);
+                out.putLong(H_END, end + e.length); // written last: the entry only exists once the end moves past it
+                dirty = true;
+            } catch (Throwable t) {
+                t.printStackTrace();
+                failed = true; // record() stops queueing; entries go to stderr
+                return;
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- shipper
+
+    private static void shipLoop() {
+        while (true) {
+            try { Thread.sleep(SHIP_EVERY_MS); ship(); }
+            catch (InterruptedException e) { return; }
+            catch (Exception e) { System.err.println("AUDIT: shipping deferred: " + e.getMessage()); }
+        }
+    }
+
+    static void ensureSchema(Connection con) throws SQLException {
+        con.createStatement().executeUpdate("CREATE TABLE IF NOT EXISTS audit_log ("
+                + "id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "at DATETIME(3) NOT NULL, "
+                + "username VARCHAR(100) NOT NULL, "
+                + "action VARCHAR(40) NOT NULL, "
+                + "entity VARCHAR(40) NOT NULL, "
+                + "entity_id VARCHAR(40), "
+                + "details VARCHAR(500), "
+                + "terminal VARCHAR(40) NOT NULL, "
+                + "segment INT NOT NULL, "
+                + "seg_offset INT NOT NULL, "
+                + "UNIQUE KEY uq_audit_origin (terminal, segment, seg_offset), "
+                + "INDEX idx_audit_user (username, at), "
+                + "INDEX idx_audit_entity (entity, entity_id, at), "
+                + "INDEX idx_audit_at (at))");
+    }
+
+    private static synchronized void ship() throws Exception {
+        List<Integer> segs = segments();
+        if (segs.isEmpty()) return;
+        try (Connection con = DBConnection.connectQuietly()) {
+            if (con == null) return; // offline: the journal keeps everything
+            ensureSchema(con);
+            for (int seg : segs) {
+                try { shipSegment(con, seg); }
+                catch (IOException e) { System.err.println("AUDIT: segment " + seg + " left for the next round: " + e.getMessage()); }
+            }
+        }
+    }
+
+    private static void shipSegment(Connection con, int seg) throws IOException, SQLException {
+        boolean finished;
+        try (FileChannel ch = FileChannel.open(file(seg), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            java.nio.ByteBuffer header = read(ch, 0, HEADER);
+            if (header.getInt(0) != MAGIC) return; // being created
+            long pos = header.getLong(H_SHIPPED), end = header.getLong(H_END);
+            if (pos < end) {
+                java.nio.ByteBuffer data = read(ch, pos, (int) (end - pos));
+                long base = pos;
+                while (pos < end) {
+                    pos = shipBatch(con, data, base, seg, pos, end);
+                    ch.write(java.nio.ByteBuffer.allocate(8).putLong(0, pos), H_SHIPPED);
+                }
+            }
+            // the writer has moved on, so the end read after that is final
+            finished = seg != segment && pos >= read(ch, 0, HEADER).getLong(H_END);
+        }
+        // fails on Windows while the writer's old mapping of it is still alive; tried again next round
+        if (finished) Files.deleteIfExists(file(seg));
+    }
+
+    private static java.nio.ByteBuffer read(FileChannel ch, long at, int len) throws IOException {
+        java.nio.ByteBuffer b = java.nio.ByteBuffer.allocate(len);
+        while (b.hasRemaining() && ch.read(b, at + b.position()) >= 0) { }
+        return b;
+    }
+
+    // One batch from 'pos' (data holds the segment from offset 'base'); returns the offset after it once committed
+    private static long shipBatch(Connection con, java.nio.ByteBuffer m, long base, int seg, long pos, long end) throws SQLException {
+        con.setAutoCommit(false);
+        try (PreparedStatement pst = con.prepareStatement("INSERT IGNORE INTO audit_log (at, username, action, entity, entity_id, details, terminal, segment, seg_offset) VALUES (?,?,?,?,?,?,?,?,?)")) {
+            int n = 0;
+            while (pos < end && n < SHIP_BATCH) {
+                int p = (int) (pos - base), len = m.getInt(p);
+                long time = m.getLong(p + 4);
+                String[] f = new String[5];
+                int q = p + 12;
+                for (int i = 0; i < f.length; i++) {
+                    int l = m.getShort(q) & 0xFFFF;
+                    byte[] b = new byte[l];
+                    m.get(q + 2, b);
+                    f[i] = new String(b, StandardCharsets.UTF_8);
+                    q += 2 + l;
+                }
+                pst.setTimestamp(1, new Timestamp(time));
+                for (int i = 0; i < f.length; i++) pst.setString(i + 2, f[i]);
+                pst.setString(7, terminal); pst.setInt(8, seg); pst.setInt(9, (int) pos);
+                pst.addBatch();
+                pos += 4 + len;
+                n++;
+            }
+            pst.executeBatch();
+            con.commit();
+        } catch (SQLException e) {
+            con.rollback();
+            throw e;
+        } finally {
+            con.setAutoCommit(true);
+        }
+        return pos;
+    }
+
+    // ---------------------------------------------------------------- viewer
+
+    private static final String[] ENTITIES = {"All", "user", "patient", "appointment", "admission", "bill", "prescription"};
+
+    // Admin tab: newest first, filtered by user, entity (+ id) and date range; each filter has its own index
+    public static JPanel createPanel() {
+        JPanel p = new JPanel(new BorderLayout(10, 10)); p.setOpaque(false);
+        p.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+        DefaultTableModel m = new DefaultTableModel(new String[]{"Time", "User", "Action", "Entity", "ID", "Details", "Terminal"}, 0) {
+            @Override public boolean isCellEditable(int r, int c) { return false; }
+        };
+        JTable t = new JTable(m); UIUtils.styleTable(t);
+        t.getColumnModel().getColumn(5).setPreferredWidth(400);
+
+        JTextField tUser = new JTextField(10), tId = new JTextField(8), tFrom = new JTextField(9), tTo = new JTextField(9);
+        JComboBox<String> cEntity = new JComboBox<>(ENTITIES);
+        JButton bSearch = new JButton("Search"); UIUtils.styleButton(bSearch, UIUtils.COLOR_TEAL);
+        JLabel lInfo = new JLabel(" ");
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 5)); top.setOpaque(false);
+        top.add(new JLabel("User:")); top.add(tUser); top.add(new JLabel("Entity:")); top.add(cEntity); top.add(new JLabel("ID:")); top.add(tId);
+        top.add(new JLabel("From (YYYY-MM-DD):")); top.add(tFrom); top.add(new JLabel("To:")); top.add(tTo); top.add(bSearch);
+        JPanel c = new JPanel(new BorderLayout()); c.setBorder(BorderFactory.createTitledBorder("Audit Log (latest 1000 matches)"));
+        c.add(top, BorderLayout.NORTH); c.add(new JScrollPane(t), BorderLayout.CENTER); c.add(lInfo, BorderLayout.SOUTH);
+        p.add(c, BorderLayout.CENTER);
+
+        bSearch.addActionListener(e -> {
+            StringBuilder sql = new StringBuilder("SELECT at, username, action, entity, entity_id, details, terminal FROM audit_log WHERE 1=1");
+            List<Object> args = new ArrayList<>();
+            if (!tUser.getText().trim().isEmpty()) { sql.append(" AND username=?"); args.add(tUser.getText().trim()); }
+            if (cEntity.getSelectedIndex() > 0) { sql.append(" AND entity=?"); args.add(cEntity.getSelectedItem().toString()); }
+            if (!tId.getText().trim().isEmpty()) { sql.append(" AND entity_id=?"); args.add(tId.getText().trim()); }
+            try {
+                if (!tFrom.getText().trim().isEmpty()) { sql.append(" AND at >= ?"); args.add(Date.valueOf(tFrom.getText().trim())); }
+                if (!tTo.getText().trim().isEmpty()) { sql.append(" AND at < ?"); args.add(Date.valueOf(java.time.LocalDate.parse(tTo.getText().trim()).plusDays(1))); }
+            } catch (IllegalArgumentException | java.time.DateTimeException ex) { JOptionPane.showMessageDialog(p, "Dates must be YYYY-MM-DD"); return; }
+            sql.append(" ORDER BY at DESC LIMIT 1000");
+            bSearch.setEnabled(false);
+            new Thread(() -> {
+                List<Object[]> rows = new ArrayList<>();
+                String info;
+                try (Connection con = DBConnection.connect()) {
+                    if (con == null) throw new SQLException("Database not reachable");
+                    ensureSchema(con);
+                    PreparedStatement pst = con.prepareStatement(sql.toString());
+                    for (int i = 0; i < args.size(); i++) pst.setObject(i + 1, args.get(i));
+                    ResultSet rs = pst.executeQuery();
+                    while (rs.next()) rows.add(new Object[]{rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5), rs.getString(6), rs.getString(7)});
+                    info = rows.size() + " entries" + (dropped() > 0 ? "   (" + dropped() + " entries on this terminal could not be journaled)" : "");
+                } catch (SQLException ex) { ex.printStackTrace(); info = "Search failed: " + ex.getMessage(); }
+                String msg = info;
+                SwingUtilities.invokeLater(() -> {
+                    m.setRowCount(0);
+                    for (Object[] r : rows) m.addRow(r);
+                    lInfo.setText(msg); bSearch.setEnabled(true);
+                });
+            }).start();
+        });
+        bSearch.doClick();
+        return p;
+    }
+}
@@ -0,0 +1,184 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Ward/bed occupancy held as one bitset per ward (bit set = occupied). Loaded once from bed_occupancy and
+// updated by admit / discharge / transfer. The (ward, bed) primary key of bed_occupancy is what makes a
+// claim final across desks: a bed another desk took first fails the insert and is marked occupied here.
+public class BedRegistry {
+
+    public static class Ward {
+        public final String name; public final int beds;
+        final AtomicLongArray bits;
+        Ward(String name, int beds) { this.name = name; this.beds = beds; this.bits = new AtomicLongArray((beds + 63) / 64); }
+    }
+
+    private static final Map<String, Ward> wards = new LinkedHashMap<>();
+    private static volatile boolean loaded = false;
+    private static volatile List<String> ignored = new ArrayList<>();   // bed rows skipped by the last load
+
+    public static synchronized void load() {
+        if (loaded) return;
+        reload();
+    }
+
+    // Re-reads the small bed_occupancy table (picks up other desks' admissions); never touches admissions
+    public static synchronized void reload() {
+        try (Connection con = DBConnection.connect()) {
+            if (con == null) return;
+            ensureSchema(con);
+            Map<String, Ward> fresh = new LinkedHashMap<>();
+            ResultSet rs = con.createStatement().executeQuery("SELECT name, bed_count FROM wards ORDER BY name");
+            while (rs.next()) fresh.put(rs.getString(1), new Ward(rs.getString(1), rs.getInt(2)));
+            rs = con.createStatement().executeQuery("SELECT ward, bed FROM bed_occupancy");
+            List<String> skipped = new ArrayList<>();
+            while (rs.next()) {
+                Ward w = fresh.get(rs.getString(1));
+                int bed = rs.getInt(2);
+                if (w == null) continue;
+                // Backfilled WARD-N labels can point past the ward (ICU-12 in an 8-bed ICU, General-0); listed
+                // on the Diagnostics tab so the admissions can be moved to real beds
+                if (bed < 1 || bed > w.beds) { skipped.add(bedLabel(w.name, bed) + " (outside 1.." + w.beds + ")"); continue; }
+                mark(w, bed);
+            }
+            synchronized (wards) { wards.clear(); wards.putAll(fresh); }
+            ignored = skipped;
+            loaded = true;
+        } catch (SQLException e) { e.printStackTrace(); }
+    }
+
+    private static void ensureSchema(Connection con) throws SQLException {
+        Statement st = con.createStatement();
+        st.executeUpdate("CREATE TABLE IF NOT EXISTS wards (name VARCHAR(40) PRIMARY KEY, bed_count INT NOT NULL)");
+        ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM wards");
+        if (rs.next() && rs.getInt(1) == 0) {
+            st.executeUpdate("INSERT IGNORE INTO wards (name, bed_count) VALUES ('General', 30), ('Female', 20), ('Maternity', 12), ('Pediatric', 15), ('ICU', 8), ('Private', 10)");
+        }
+        boolean existed = con.getMetaData().getTables(con.getCatalog(), null, "bed_occupancy", null).next();
+        st.executeUpdate("CREATE TABLE IF NOT EXISTS bed_occupancy (ward VARCHAR(40) NOT NULL, bed INT NOT NULL, admission_id INT NOT NULL, "
+                + "PRIMARY KEY (ward, bed), UNIQUE KEY uq_bed_occupancy_admission (admission_id))");
+        if (!existed) {
+            // One-time backfill of current admissions whose bed_no already follows the WARD-BED format
+            st.executeUpdate("INSERT IGNORE INTO bed_occupancy (ward, bed, admission_id) "
+                    + "SELECT SUBSTRING_INDEX(bed_no, '-', 1), CAST(SUBSTRING_INDEX(bed_no, '-', -1) AS UNSIGNED), id "
+                    + "FROM admissions WHERE status='Admitted' AND bed_no REGEXP '^[A-Za-z]+-[0-9]+$'");
+        }
+    }
+
+    public static List<String> ignoredBeds() { return new ArrayList<>(ignored); }
+
+    public static List<Ward> wards() { load(); synchronized (wards) { return new ArrayList<>(wards.values()); } }
+
+    public static Ward ward(String name) { load(); synchronized (wards) { return wards.get(name); } }
+
+    public static String bedLabel(String ward, int bed) { return ward + "-" + bed; }
+
+    public static boolean isFree(Ward w, int bed) { return bed >= 1 && bed <= w.beds && (w.bits.get((bed - 1) >> 6) & (1L << ((bed - 1) & 63))) == 0; }
+
+    public static int freeCount(Ward w) {
+        int used = 0;
+        for (int i = 0; i < w.bits.length(); i++) used += Long.bitCount(w.bits.get(i));
+        return w.beds - used;
+    }
+
+    // First free bed at or after 'from' (wrapping around), or -1 when the ward is full
+    public static int nextFree(Ward w, int from) {
+        if (w.beds == 0) return -1;
+        int start = Math.max(0, Math.min(w.beds - 1, from - 1));
+        int found = scan(w, start, w.beds);
+        if (found < 0) found = scan(w, 0, start);
+        return found < 0 ? -1 : found + 1;
+    }
+
+    private static int scan(Ward w, int from, int to) {
+        for (int i = from; i < to; ) {
+            long free = ~w.bits.get(i >> 6) >>> (i & 63);
+            if (free != 0) {
+                int bit = i + Long.numberOfTrailingZeros(free);
+                return bit < to ? bit : -1;
+            }
+            i = ((i >> 6) + 1) << 6;
+        }
+        return -1;
+    }
+
+    // Sets the occupied bit; false when it was already set
+    private static boolean mark(Ward w, int bed) {
+        int idx = (bed - 1) >> 6; long bit = 1L << ((bed - 1) & 63);
+        while (true) {
+            long cur = w.bits.get(idx);
+            if ((cur & bit) != 0) return false;
+            if (w.bits.compareAndSet(idx, cur, cur | bit)) return true;
+        }
+    }
+
+    private static void clear(Ward w, int bed) {
+        if (bed < 1 || bed > w.beds) return;
+        int idx = (bed - 1) >> 6; long bit = 1L << ((bed - 1) & 63);
+        while (true) {
+            long cur = w.bits.get(idx);
+            if (w.bits.compareAndSet(idx, cur, cur & ~bit)) return;
+        }
+    }
+
+    // Claims the bed for an admission inside the caller's transaction. Returns false if the bed is taken
+    // (here or, via the primary key, by another desk); the caller should roll back in that case.
+    public static boolean claim(Connection con, Ward w, int bed, long admissionId) throws SQLException {
+        if (bed < 1 || bed > w.beds || !mark(w, bed)) return false;
+        try {
+            PreparedStatement pst = con.prepareStatement("INSERT INTO bed_occupancy (ward, bed, admission_id) VALUES (?,?,?)");
+            pst.setString(1, w.name); pst.setInt(2, bed); pst.setLong(3, admissionId);
+            pst.executeUpdate();
+            return true;
+        } catch (SQLIntegrityConstraintViolationException taken) {
+            return false; // occupied by another desk, keep the bit set
+        } catch (SQLException e) {
+            clear(w, bed); throw e;
+        }
+    }
+
+    // Moves an admission to another bed inside the caller's transaction
+    public static boolean transfer(Connection con, long admissionId, String fromLabel, Ward to, int bed) throws SQLException {
+        if (bed < 1 || bed > to.beds || !mark(to, bed)) return false;
+        try {
+            PreparedStatement pst = con.prepareStatement("UPDATE bed_occupancy SET ward=?, bed=? WHERE admission_id=?");
+            pst.setString(1, to.name); pst.setInt(2, bed); pst.setLong(3, admissionId);
+            if (pst.executeUpdate() == 0) {
+                pst = con.prepareStatement("INSERT INTO bed_occupancy (ward, bed, admission_id) VALUES (?,?,?)");
+                pst.setString(1, to.name); pst.setInt(2, bed); pst.setLong(3, admissionId);
+                pst.executeUpdate();
+            }
+        } catch (SQLIntegrityConstraintViolationException taken) {
+            return false;
+        } catch (SQLException e) {
+            clear(to, bed); throw e;
+        }
+        release(fromLabel);
+        return true;
+    }
+
+    // Discharge / delete: frees the bed row for the admission and the in-memory bit
+    public static void vacate(Connection con, long admissionId, String bedLabel) throws SQLException {
+        PreparedStatement pst = con.prepareStatement("DELETE FROM bed_occupancy WHERE admission_id=?");
+        pst.setLong(1, admissionId);
+        pst.executeUpdate();
+        release(bedLabel);
+    }
+
+    // Marks a bed taken on this terminal only (offline admission queued in LocalStore); false if not free
+    static boolean hold(Ward w, int bed) { return bed >= 1 && bed <= w.beds && mark(w, bed); }
+
+    // Undo for a claim whose surrounding transaction was rolled back
+    public static void release(String bedLabel) {
+        if (bedLabel == null) return;
+        int dash = bedLabel.lastIndexOf('-');
+        if (dash < 0) return;
+        Ward w = ward(bedLabel.substring(0, dash));
+        try { if (w != null) clear(w, Integer.parseInt(bedLabel.substring(dash + 1).trim())); } catch (NumberFormatException ignored) {}
+    }
+}
@@ -0,0 +1,82 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.table.DefaultTableModel;
+
+// Line items of a bill (qty, rate, total per item) so revenue can be reported per service. line_total is the
+// cart amount before the bill's discount, so per-service revenue is gross and its sum can exceed
+// bills.total_amount for discounted bills.
+public class BillItems {
+
+    private static volatile boolean schemaReady = false;
+
+    public static void ensureSchema(Connection con) throws SQLException {
+        if (schemaReady) return;
+        con.createStatement().executeUpdate("CREATE TABLE IF NOT EXISTS bill_items ("
+                + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                + "bill_id INT NOT NULL, "
+                + "bill_date DATE NOT NULL, "
+                + "item_name VARCHAR(100) NOT NULL, "
+                + "qty INT NOT NULL, "
+                + "rate DECIMAL(12,2) NOT NULL, "
+                + "line_total DECIMAL(12,2) NOT NULL, "
+                + "INDEX idx_bill_items_bill (bill_id), "
+                + "INDEX idx_bill_items_item_date (item_name, bill_date), "
+                + "INDEX idx_bill_items_date_item (bill_date, item_name, bill_id, qty, line_total))");
+        // Tables created before bill_id was part of the covering index get it rebuilt once
+        boolean covered = false;
+        try (ResultSet rs = con.getMetaData().getIndexInfo(con.getCatalog(), null, "bill_items", false, false)) {
+            while (rs.next()) covered |= "idx_bill_items_date_item".equalsIgnoreCase(rs.getString("INDEX_NAME")) && "bill_id".equalsIgnoreCase(rs.getString("COLUMN_NAME"));
+        }
+        if (!covered) con.createStatement().executeUpdate("ALTER TABLE bill_items DROP INDEX idx_bill_items_date_item, "
+                + "ADD INDEX idx_bill_items_date_item (bill_date, item_name, bill_id, qty, line_total)");
+        schemaReady = true;
+    }
+
+    // Adds every row of the billing cart (Item, Qty, Rate, Total) to one batch. Caller owns the transaction.
+    public static void insertBatch(Connection con, long billId, DefaultTableModel cart) throws SQLException { insertBatch(con, billId, null, cart); }
+
+    // billDate null = today on the database clock; set when a bill made offline is synced later
+    public static void insertBatch(Connection con, long billId, Date billDate, DefaultTableModel cart) throws SQLException {
+        ensureSchema(con);
+        try (PreparedStatement pst = con.prepareStatement("INSERT INTO bill_items (bill_id, bill_date, item_name, qty, rate, line_total) VALUES (?,COALESCE(?,CURDATE()),?,?,?,?)")) {
+            for (int i = 0; i < cart.getRowCount(); i++) {
+                pst.setLong(1, billId);
+                pst.setDate(2, billDate);
+                pst.setString(3, cart.getValueAt(i, 0).toString().trim());
+                pst.setInt(4, Integer.parseInt(cart.getValueAt(i, 1).toString()));
+                pst.setDouble(5, Double.parseDouble(cart.getValueAt(i, 2).toString()));
+                pst.setDouble(6, Double.parseDouble(cart.getValueAt(i, 3).toString()));
+                pst.addBatch();
+            }
+            pst.executeBatch();
+        }
+    }
+
+    // Gross revenue per service for a date range: {Item, Qty Sold, Bills, Revenue before discount}. Covered by
+    // idx_bill_items_date_item (range on bill_date, then item_name, bill_id, qty, line_total from the index).
+    public static List<Object[]> revenueByItem(Connection con, Date from, Date to) throws SQLException {
+        ensureSchema(con);
+        // {qty, bills, revenue} per item, merged over the archive years the range touches
+        Map<String, double[]> items = new HashMap<>();
+        for (String table : Archiver.tablesFor(con, "bill_items", from.toLocalDate(), to.toLocalDate())) {
+            try (PreparedStatement pst = con.prepareStatement("SELECT item_name, SUM(qty) AS qty, COUNT(DISTINCT bill_id) AS bills, SUM(line_total) AS revenue "
+                    + "FROM " + table + " WHERE bill_date BETWEEN ? AND ? GROUP BY item_name")) {
+                pst.setDate(1, from); pst.setDate(2, to);
+                ResultSet rs = pst.executeQuery();
+                while (rs.next()) {
+                    double[] t = items.computeIfAbsent(rs.getString("item_name"), k -> new double[3]);
+                    t[0] += rs.getLong("qty"); t[1] += rs.getLong("bills"); t[2] += rs.getDouble("revenue");
+                }
+            }
+        }
+        List<Object[]> rows = new ArrayList<>();
+        items.entrySet().stream().sorted((a, b) -> Double.compare(b.getValue()[2], a.getValue()[2]))
+                .forEach(e -> rows.add(new Object[]{e.getKey(), (long) e.getValue()[0], (long) e.getValue()[1], String.format("%.2f", e.getValue()[2])}));
+        return rows;
+    }
+}
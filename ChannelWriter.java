@@ -0,0 +1,75 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+// Buffered writer over a FileChannel (or any channel, e.g. gzip). Keeps one direct buffer, so memory
+// stays the same for any file size.
+public class ChannelWriter implements AutoCloseable {
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buf;
+    private long written = 0;
+
+    public ChannelWriter(Path file) throws IOException { this(file, 64 * 1024); }
+
+    public ChannelWriter(Path file, int bufferSize) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        buf = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    public ChannelWriter(WritableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        buf = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    // Gzip-compressed file; position() then counts uncompressed bytes
+    public static ChannelWriter gzip(Path file) throws IOException {
+        return new ChannelWriter(Channels.newChannel(new GZIPOutputStream(Files.newOutputStream(file), 64 * 1024)), 64 * 1024);
+    }
+
+    public void write(byte[] b) throws IOException {
+        int off = 0;
+        while (off < b.length) {
+            if (!buf.hasRemaining()) flush();
+            int n = Math.min(buf.remaining(), b.length - off);
+            buf.put(b, off, n);
+            off += n;
+        }
+        written += b.length;
+    }
+
+    public void write(String s) throws IOException { write(s.getBytes(StandardCharsets.UTF_8)); }
+
+    // Bytes handed to this writer so far (PDF xref offsets depend on it)
+    public long position() { return written; }
+
+    // Appends a whole file (e.g. a temp side file) without pulling it through the heap
+    public void append(Path file) throws IOException {
+        flush();
+        try (FileChannel src = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = src.size(), pos = 0;
+            while (pos < size) pos += src.transferTo(pos, size - pos, channel);
+            written += size;
+        }
+    }
+
+    public void flush() throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) channel.write(buf);
+        buf.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try { flush(); } finally { channel.close(); }
+    }
+}
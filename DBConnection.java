@@ -2,19 +2,94 @@ package com.mycompany.hospitalmanagementsystem;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import javax.swing.JOptionPane;
 
 public class DBConnection {
-    public static Connection connect() {
+    // Single-database defaults; with several branches each one's URL / login comes from ShardRouter
+    static final String DEFAULT_URL = "jdbc:mysql://localhost:3306/hospital_db";
+    static final String DEFAULT_USER = "root";
+    static final String DEFAULT_PASS = "MYsql@69";
+
+    // Connections opened ahead of time (see Warmup), handed out once each; callers still close() them
+    private static final long IDLE_MAX_MS = 10 * 60 * 1000;
+    private static final ConcurrentLinkedQueue<Idle> warm = new ConcurrentLinkedQueue<>();
+
+    private static class Idle {
+        final Connection con; final long since = System.currentTimeMillis();
+        Idle(Connection con) { this.con = con; }
+    }
+
+    // Where connections come from; headless tools (LoadSimulator) can swap in a stand-in
+    private static volatile Callable<Connection> factory = DBConnection::open;
+
+    static void useFactory(Callable<Connection> f) { factory = f; warm.clear(); }
+
+    // While the database is down, connect() fails fast between retries and only the first failure shows a dialog
+    private static final long RETRY_MS = 5000;
+    private static volatile long downSince = 0, lastAttempt = 0;
+
+    public static boolean isOffline() { return downSince != 0; }
+
+    public static Connection connect() { return connect(false); }
+
+    // Same as connect() but never shows a dialog (LocalStore falls back to its journal instead)
+    static Connection connectQuietly() { return connect(true); }
+
+    private static Connection connect(boolean quiet) {
+        Idle w;
+        while ((w = warm.poll()) != null) {
+            try {
+                if (System.currentTimeMillis() - w.since < IDLE_MAX_MS && !w.con.isClosed()) return w.con;
+                w.con.close();
+            } catch (SQLException ignored) {}
+        }
+        long now = System.currentTimeMillis();
+        if (downSince != 0 && now - lastAttempt < RETRY_MS) return null;
+        lastAttempt = now;
         try {
-            // Load Driver
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            // Connect to database (Adjust user/password if yours is different)
-            Connection con = DriverManager.getConnection("jdbc:mysql://localhost:3306/hospital_db", "root", "MYsql@69");
+            Connection con = factory.call();
+            downSince = 0;
             return con;
         } catch (Exception e) {
-            JOptionPane.showMessageDialog(null, "Database Connection Failed: " + e.getMessage());
+            boolean first = downSince == 0;
+            if (first) downSince = now;
+            if (quiet || !first || java.awt.GraphicsEnvironment.isHeadless()) System.err.println("Database Connection Failed: " + e.getMessage());
+            else JOptionPane.showMessageDialog(null, "Database Connection Failed: " + e.getMessage());
             return null;
         }
     }
+
+    // This terminal's home branch
+    static Connection open() throws Exception { return open(ShardRouter.home(), ""); }
+
+    // Separate connection for bulk loads: the driver rewrites batched INSERTs into multi-row statements
+    static Connection openBatched() throws Exception { return open(ShardRouter.home(), "&rewriteBatchedStatements=true"); }
+
+    static Connection open(ShardRouter.Branch b, String extraParams) throws Exception {
+        // Load Driver
+        Class.forName("com.mysql.cj.jdbc.Driver");
+        return DriverManager.getConnection(b.url + (b.url.contains("?") ? "&" : "?") + "connectTimeout=5000" + extraParams, b.user, b.pass);
+    }
+
+    // Streams the statement's rows instead of buffering the whole result (MySQL's row-by-row mode; other
+    // drivers, e.g. the embedded test database, get a plain fetch size)
+    static void streamRows(Statement st) throws SQLException {
+        st.setFetchSize(st.getConnection().getMetaData().getDriverName().startsWith("MySQL") ? Integer.MIN_VALUE : 1000);
+    }
+
+    // Opens connections in the calling (background) thread so the next connect() calls skip the handshake
+    public static void warm(int count) {
+        for (int i = warm.size(); i < count; i++) {
+            try { release(factory.call()); } catch (Exception e) { System.err.println("Warm-up connection failed: " + e.getMessage()); return; }
+        }
+    }
+
+    // Returns a still-open connection to the warm queue instead of closing it
+    public static void release(Connection con) {
+        if (con != null) warm.add(new Idle(con));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,77 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.swing.SwingUtilities;
+import javax.swing.table.DefaultTableModel;
+
+// Table data a dashboard is about to show, started in parallel while the login is being handled.
+// Each result is taken once by the tab that needs it; later refreshes run their query again.
+public class DashboardPrefetch {
+
+    public interface Query { List<Object[]> run(Connection con) throws SQLException; }
+
+    private static final ExecutorService POOL = Executors.newFixedThreadPool(4, r -> {
+        Thread t = new Thread(r, "dashboard-prefetch"); t.setDaemon(true); return t;
+    });
+    private static final Map<String, CompletableFuture<List<Object[]>>> pending = new ConcurrentHashMap<>();
+    // Latest fill() per table model; an older fill that finishes later is dropped
+    private static final Map<DefaultTableModel, AtomicLong> fills = Collections.synchronizedMap(new WeakHashMap<>());
+
+    // Drops whatever the previous session left unclaimed
+    public static void reset() {
+        pending.values().forEach(f -> f.cancel(true));
+        pending.clear();
+    }
+
+    public static void submit(String key, Query q) { pending.put(key, CompletableFuture.supplyAsync(() -> run(q), POOL)); }
+
+    public static void submit(Runnable warmUp) { POOL.execute(warmUp); }
+
+    // The prefetched result for 'key' if there is one, otherwise a fresh background run of 'q'
+    public static CompletableFuture<List<Object[]>> take(String key, Query q) {
+        CompletableFuture<List<Object[]>> f = pending.remove(key);
+        return f != null ? f : CompletableFuture.supplyAsync(() -> run(q), POOL);
+    }
+
+    // Replaces the model's rows once the data is there, without blocking the EDT. Fills run in parallel, so
+    // only the most recent fill of a model is applied (a slow earlier one must not overwrite fresher rows).
+    public static void fill(DefaultTableModel m, String key, Query q) {
+        AtomicLong latest = fills.computeIfAbsent(m, x -> new AtomicLong());
+        long seq = latest.incrementAndGet();
+        take(key, q).whenComplete((rows, ex) -> {
+            if (ex != null) { ex.printStackTrace(); return; }
+            SwingUtilities.invokeLater(() -> {
+                if (latest.get() != seq) return;
+                m.setRowCount(0); for (Object[] row : rows) m.addRow(row);
+            });
+        });
+    }
+
+    // Single value queries such as the analytics cards
+    public static Query scalar(String sql) {
+        return con -> {
+            List<Object[]> rows = new ArrayList<>();
+            ResultSet rs = con.createStatement().executeQuery(sql);
+            if (rs.next()) rows.add(new Object[]{rs.getString(1)});
+            return rows;
+        };
+    }
+
+    private static List<Object[]> run(Query q) {
+        try (Connection con = DBConnection.connect()) {
+            if (con == null) throw new SQLException("Database not reachable");
+            return q.run(con);
+        } catch (SQLException e) {
+            throw new CompletionException(e);
+        }
+    }
+}
@@ -13,6 +13,8 @@ public class DoctorDashboard extends JFrame {
     public DoctorDashboard(int id, String username) {
         this.docId = id; 
         this.docName = username;
+        HistoryCache.clear(); // per-session cache
+        DashboardPrefetch.submit(() -> MedicineCatalog.load(username)); // Rx autocomplete
         
         setTitle("Doctor Dashboard"); 
         setSize(1280, 750); 
@@ -46,8 +48,7 @@ public class DoctorDashboard extends JFrame {
         content.setOpaque(false); 
         content.setBorder(BorderFactory.createEmptyBorder(20,20,20,20));
         
-        JPanel glass = new JPanel(new BorderLayout()); 
-        glass.setBackground(new Color(255,255,255,220)); 
+        JPanel glass = UIUtils.createGlassPanel(new BorderLayout(), new Color(255,255,255,220)); 
         glass.setBorder(BorderFactory.createTitledBorder("My Appointments (Sorted by Date)"));
         
         model = new DefaultTableModel(new String[]{"Appt ID", "Patient ID", "Name", "Age / Sex", "Phone", "Date", "Status"}, 0);
@@ -61,14 +62,17 @@ public class DoctorDashboard extends JFrame {
         JPanel bP = new JPanel(); bP.setOpaque(false);
         JButton bRefresh = new JButton("Refresh List"); UIUtils.styleButton(bRefresh, new Color(0,102,204));
         JButton bHistory = new JButton("📜 Patient History"); UIUtils.styleButton(bHistory, UIUtils.COLOR_ORANGE); bHistory.setForeground(Color.BLACK);
+        JButton bTimeline = new JButton("🗂 Timeline"); UIUtils.styleButton(bTimeline, UIUtils.COLOR_TEAL);
         JButton bPrescribe = new JButton("💊 Prescribe"); UIUtils.styleButton(bPrescribe, new Color(40,167,69));
         
         bP.add(bRefresh); 
         bP.add(bHistory); 
+        bP.add(bTimeline); 
         bP.add(bPrescribe); 
         content.add(bP, BorderLayout.SOUTH);
         
         mainPanel.add(content, BorderLayout.CENTER);
+        Warmup.trackUsable(this, "doctor");
 
         loadMyData();
 
@@ -83,6 +87,12 @@ public class DoctorDashboard extends JFrame {
             } else JOptionPane.showMessageDialog(this, "Select a patient first.");
         });
 
+        bTimeline.addActionListener(e -> {
+            int r = table.getSelectedRow();
+            if(r != -1) PatientTimeline.show(this, table.getValueAt(r, 1).toString(), table.getValueAt(r, 2).toString());
+            else JOptionPane.showMessageDialog(this, "Select a patient first.");
+        });
+
         bPrescribe.addActionListener(e -> {
             int r = table.getSelectedRow();
             if(r != -1) {
@@ -107,44 +117,60 @@ public class DoctorDashboard extends JFrame {
     void loadMyData() {
         try { 
             Connection con = DBConnection.connect();
-            String sql = "SELECT a.id AS appt_id, a.patient_code, a.patient_name, a.appt_date, a.status, " +
-                         "p.age, p.sex, p.phone " +
-                         "FROM appointments a " +
-                         "LEFT JOIN patients p ON a.patient_code = p.patient_code " +
-                         "WHERE a.doctor_name=? " +
-                         "ORDER BY a.appt_date DESC";
-
-            PreparedStatement pst = con.prepareStatement(sql);
-            pst.setString(1, this.docName); 
-            ResultSet rs = pst.executeQuery();
-            
+            java.util.List<Object[]> rows = queryMyAppointments(con, this.docName);
+            con.close();
+
             model.setRowCount(0);
-            while(rs.next()) {
-                String ageSex = (rs.getString("age") != null ? rs.getString("age") : "N/A") + " / " + (rs.getString("sex") != null ? rs.getString("sex") : "N/A");
-                
-                model.addRow(new Object[]{ 
-                    rs.getString("appt_id"), 
-                    rs.getString("patient_code"), 
-                    rs.getString("patient_name"), 
-                    ageSex,                       
-                    rs.getString("phone"),        
-                    rs.getString("appt_date"), 
-                    rs.getString("status") 
-                });
+            java.util.Set<String> todayPending = new java.util.LinkedHashSet<>();
+            String today = new java.text.SimpleDateFormat("yyyy-MM-dd").format(new java.util.Date());
+            for(Object[] row : rows) {
+                model.addRow(row);
+                if(today.equals(row[5]) && !"Advised".equalsIgnoreCase((String) row[6])) todayPending.add((String) row[1]);
             }
-            con.close();
+            HistoryCache.prefetch(todayPending);
         } catch(Exception e) { e.printStackTrace(); }
     }
 
+    // {Appt ID, Patient ID, Name, Age / Sex, Phone, Date, Status} for one doctor, newest first
+    static java.util.List<Object[]> queryMyAppointments(Connection con, String docName) throws SQLException {
+        String sql = "SELECT a.id AS appt_id, a.patient_code, a.patient_name, a.appt_date, a.status, " +
+                     "p.age, p.sex, p.phone " +
+                     "FROM appointments a " +
+                     "LEFT JOIN patients p ON a.patient_code = p.patient_code " +
+                     "WHERE a.doctor_name=? " +
+                     "ORDER BY a.appt_date DESC";
+
+        PreparedStatement pst = con.prepareStatement(sql);
+        pst.setString(1, docName); 
+        ResultSet rs = pst.executeQuery();
+        java.util.List<Object[]> rows = new java.util.ArrayList<>();
+        while(rs.next()) {
+            String ageSex = (rs.getString("age") != null ? rs.getString("age") : "N/A") + " / " + (rs.getString("sex") != null ? rs.getString("sex") : "N/A");
+            rows.add(new Object[]{ 
+                rs.getString("appt_id"), 
+                rs.getString("patient_code"), 
+                rs.getString("patient_name"), 
+                ageSex,                       
+                rs.getString("phone"),        
+                rs.getString("appt_date"), 
+                rs.getString("status") 
+            });
+        }
+        return rows;
+    }
+
     private void viewHistory(String pid, String pname) {
         JDialog d = new JDialog(this, "Medical History: " + pname, true);
         d.setSize(700, 450); d.setLocationRelativeTo(this);
         DefaultTableModel hm = new DefaultTableModel(new String[]{"Date", "Doctor", "Diagnosis", "Medicines"}, 0);
         JTable ht = new JTable(hm); UIUtils.styleTable(ht);
-        try { Connection con=DBConnection.connect(); 
-            ResultSet rs=con.createStatement().executeQuery("SELECT * FROM prescriptions WHERE patient_code="+pid+" ORDER BY prescribed_date DESC");
-            while(rs.next()) hm.addRow(new Object[]{rs.getString("prescribed_date"), rs.getString("doctor_name"), rs.getString("diagnosis"), rs.getString("medicines")}); con.close();
-        } catch(Exception e){}
+        java.util.List<Object[]> cached = HistoryCache.cached(pid);
+        if(cached != null) for(Object[] row : cached) hm.addRow(row);
+        else { // not prefetched yet: load in the background, the dialog fills in when it arrives
+            d.setTitle("Medical History: " + pname + " (loading...)");
+            DashboardPrefetch.submit(() -> { java.util.List<Object[]> rows = HistoryCache.get(pid);
+                SwingUtilities.invokeLater(() -> { for(Object[] row : rows) hm.addRow(row); d.setTitle("Medical History: " + pname); }); });
+        }
         d.add(new JScrollPane(ht)); d.setVisible(true);
     }
 }
\ No newline at end of file
@@ -0,0 +1,306 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+// Spots patients that are probably already registered under another code. Candidates come from blocking keys
+// instead of a scan: the phone number, the national ID, and the name's phonetic keys (see NameIndex) with the
+// age in 5-year bands. The keys of every patient are held in memory as one sorted long[] of
+// (34-bit key hash << 30 | patient code), about 24 bytes per patient; a check is a few binary searches plus one
+// small query for the candidates' details, which are then scored. Hash collisions only add candidates that
+// score low. The batch mode does the same over the whole table in parallel and proposes merges for an admin.
+public class DuplicateDetector {
+
+    public static class Candidate {
+        public final long code; public final String name, phone, nationalId, age, sex, reasons; public final double score;
+        Candidate(long code, String name, String phone, String nationalId, String age, String sex, double score, String reasons) {
+            this.code = code; this.name = name; this.phone = phone; this.nationalId = nationalId; this.age = age; this.sex = sex; this.score = score; this.reasons = reasons;
+        }
+        public String toString() { return code + "  " + name + "  (" + phone + ", age " + age + ")  " + reasons; }
+    }
+
+    public static class Proposal {
+        public final long keep, duplicate; public final String keepName, duplicateName, reasons; public final double score;
+        Proposal(long keep, String keepName, long duplicate, String duplicateName, double score, String reasons) {
+            this.keep = keep; this.keepName = keepName; this.duplicate = duplicate; this.duplicateName = duplicateName; this.score = score; this.reasons = reasons;
+        }
+    }
+
+    public interface Progress { void update(String stage, long done); }
+
+    public static final double LIKELY = 0.6, ALMOST_CERTAIN = 0.85;
+    private static final int AGE_BAND = 5, AGE_SLACK = 2;
+    private static final int MAX_CANDIDATES = 50;
+    private static final int BATCH_WINDOW = 100; // big blocks (a family sharing a phone) are compared within a sliding window
+    private static final long CODE_MASK = (1L << 30) - 1;
+
+    private static volatile long[] entries = new long[0];                         // sorted
+    private static final Map<Long, Set<Long>> added = new ConcurrentHashMap<>();   // registered / edited since the load
+    private static volatile boolean loaded = false, loading = false;
+
+    // ---------------------------------------------------------------- keys
+
+    static String normalPhone(String phone) {
+        if (phone == null) return "";
+        String d = phone.replaceAll("[^0-9]", "");
+        if (d.length() == 13 && d.startsWith("977")) d = d.substring(3);
+        return d.length() >= 7 ? d : "";
+    }
+
+    static String normalNid(String nid) { return nid == null ? "" : nid.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", ""); }
+
+    // Phonetic keys of the whole name (sorted, so word order does not matter) and of first + last word
+    private static List<String> nameKeys(String name) {
+        String folded = name == null ? "" : NameIndex.fold(name);
+        if (folded.isEmpty()) return Collections.emptyList();
+        String[] words = folded.split(" ");
+        String[] k = new String[words.length];
+        for (int i = 0; i < words.length; i++) k[i] = NameIndex.key(words[i]);
+        String firstLast = k[0] + " " + k[k.length - 1];
+        Arrays.sort(k);
+        String all = String.join(" ", k);
+        return all.equals(firstLast) || words.length <= 2 ? Collections.singletonList(all) : Arrays.asList(all, firstLast);
+    }
+
+    // Keys a patient is stored under; with 'slack' also the neighbouring age bands (for lookups)
+    private static Set<Long> keys(String name, String phone, String nid, int age, boolean slack) {
+        Set<Long> out = new HashSet<>();
+        String p = normalPhone(phone), n = normalNid(nid);
+        if (!p.isEmpty()) out.add(hash("p|" + p));
+        if (!n.isEmpty()) out.add(hash("n|" + n));
+        if (age >= 0) {
+            Set<Integer> bands = new HashSet<>();
+            bands.add(age / AGE_BAND);
+            if (slack) { bands.add(Math.max(0, age - AGE_SLACK) / AGE_BAND); bands.add((age + AGE_SLACK) / AGE_BAND); }
+            for (String nk : nameKeys(name)) for (int b : bands) out.add(hash("a|" + nk + "|" + b));
+        }
+        return out;
+    }
+
+    // FNV-1a, top 34 bits
+    private static long hash(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) { h ^= s.charAt(i); h *= 0x100000001b3L; }
+        return h >>> 30;
+    }
+
+    private static int age(String age) {
+        try { return age == null || age.trim().isEmpty() ? -1 : Integer.parseInt(age.trim()); } catch (NumberFormatException e) { return -1; }
+    }
+
+    // ---------------------------------------------------------------- index
+
+    public static void load() {
+        synchronized (DuplicateDetector.class) { if (loaded || loading) return; loading = true; }
+        try (Connection con = DBConnection.connect()) {
+            if (con == null) return;
+            long[] buf = new long[1 << 16];
+            int n = 0;
+            Statement st = con.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            st.setFetchSize(Integer.MIN_VALUE); // MySQL: stream rows instead of buffering the result
+            ResultSet rs = st.executeQuery("SELECT patient_code, name, phone, national_id, age FROM patients");
+            while (rs.next()) {
+                long code = rs.getLong(1);
+                for (long k : keys(rs.getString(2), rs.getString(3), rs.getString(4), age(rs.getString(5)), false)) {
+                    if (n == buf.length) buf = Arrays.copyOf(buf, n * 2);
+                    buf[n++] = (k << 30) | (code & CODE_MASK);
+                }
+            }
+            long[] sorted = Arrays.copyOf(buf, n);
+            Arrays.parallelSort(sorted);
+            entries = sorted;
+            loaded = true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally { loading = false; }
+    }
+
+    // Registration / edit on this desk (the sorted array is only rebuilt on the next start)
+    public static void add(long code, String name, String phone, String nid, int age) {
+        for (long k : keys(name, phone, nid, age, false)) added.computeIfAbsent(k, x -> ConcurrentHashMap.newKeySet()).add(code);
+    }
+
+    private static Set<Long> lookup(Set<Long> keys) {
+        long[] e = entries;
+        Set<Long> out = new LinkedHashSet<>();
+        for (long k : keys) {
+            long lo = k << 30;
+            int i = Arrays.binarySearch(e, lo);
+            if (i < 0) i = -i - 1;
+            for (; i < e.length && (e[i] >>> 30) == k && out.size() < MAX_CANDIDATES; i++) out.add(e[i] & CODE_MASK);
+            Set<Long> recent = added.get(k);
+            if (recent != null) out.addAll(recent);
+        }
+        return out;
+    }
+
+    // ---------------------------------------------------------------- check
+
+    // Likely existing records for a patient being registered (or edited: 'self' is left out), best first
+    public static List<Candidate> check(long self, String name, String phone, String nid, String age, String sex) {
+        Set<Long> codes = lookup(keys(name, phone, nid, age(age), true));
+        codes.remove(self);
+        if (codes.isEmpty()) return Collections.emptyList();
+        List<Candidate> out = new ArrayList<>();
+        for (Map<String, String> p : details(codes)) {
+            StringBuilder why = new StringBuilder();
+            double s = score(name, phone, nid, age(age), sex, p.get("name"), p.get("phone"), p.get("national_id"), age(p.get("age")), p.get("sex"), why);
+            if (s >= LIKELY) out.add(new Candidate(Long.parseLong(p.get("patient_code")), p.get("name"), p.get("phone"), p.get("national_id"), p.get("age"), p.get("sex"), s, why.toString()));
+        }
+        out.sort((a, b) -> Double.compare(b.score, a.score));
+        return out;
+    }
+
+    private static List<Map<String, String>> details(Set<Long> codes) {
+        List<Map<String, String>> out = new ArrayList<>();
+        StringBuilder in = new StringBuilder();
+        for (long c : codes) in.append(in.length() > 0 ? "," : "").append(c);
+        try (Connection con = DBConnection.connectQuietly()) {
+            if (con != null) {
+                ResultSet rs = con.createStatement().executeQuery("SELECT patient_code, name, phone, national_id, age, sex FROM patients WHERE patient_code IN (" + in + ")");
+                while (rs.next()) {
+                    Map<String, String> p = new HashMap<>();
+                    for (String col : new String[]{"patient_code", "name", "phone", "national_id", "age", "sex"}) p.put(col, rs.getString(col));
+                    out.add(p);
+                }
+                return out;
+            }
+        } catch (SQLException e) { e.printStackTrace(); }
+        for (long c : codes) { // offline: whatever LocalStore has
+            Map<String, String> p = LocalStore.findPatient(String.valueOf(c));
+            if (p != null) out.add(p);
+        }
+        return out;
+    }
+
+    // 0..1; phone and national ID weigh most, then the name, with age and sex as tie-breakers / vetoes
+    static double score(String nameA, String phoneA, String nidA, int ageA, String sexA,
+                        String nameB, String phoneB, String nidB, int ageB, String sexB, StringBuilder why) {
+        double s = 0;
+        String pa = normalPhone(phoneA), na = normalNid(nidA);
+        if (!pa.isEmpty() && pa.equals(normalPhone(phoneB))) { s += 0.35; why.append("same phone; "); }
+        if (!na.isEmpty() && na.equals(normalNid(nidB))) { s += 0.5; why.append("same national ID; "); }
+        double ns = nameSimilarity(nameA, nameB);
+        s += 0.4 * ns;
+        if (ns >= 0.85) why.append(NameIndex.fold(nameA).equals(NameIndex.fold(nameB)) ? "same name; " : "similar name; ");
+        if (ageA >= 0 && ageB >= 0) {
+            int d = Math.abs(ageA - ageB);
+            if (d <= 1) { s += 0.1; why.append("same age; "); }
+            else if (d <= 3) s += 0.05;
+            else if (d > 10) s -= 0.2;
+        }
+        if (sexA != null && sexB != null && !sexA.isEmpty() && !sexB.isEmpty() && !sexA.equalsIgnoreCase(sexB)) s -= 0.2;
+        if (why.length() > 2) why.setLength(why.length() - 2);
+        return Math.max(0, Math.min(1, s));
+    }
+
+    // Mean over the words of the shorter name of its best match among the other name's words: 1 for the same
+    // phonetic key or an initial ("B" for Bahadur), else 1 - distance / length
+    static double nameSimilarity(String a, String b) {
+        if (a == null || b == null) return 0;
+        String[] wa = NameIndex.fold(a).split(" "), wb = NameIndex.fold(b).split(" ");
+        if (wa.length > wb.length) { String[] t = wa; wa = wb; wb = t; }
+        if (wa[0].isEmpty()) return 0;
+        double total = 0;
+        for (String x : wa) {
+            double best = 0;
+            for (String y : wb) {
+                int len = Math.max(x.length(), y.length());
+                if (x.isEmpty() || y.isEmpty()) continue;
+                if (NameIndex.key(x).equals(NameIndex.key(y)) || (Math.min(x.length(), y.length()) == 1 && x.charAt(0) == y.charAt(0))) { best = 1; break; }
+                best = Math.max(best, 1 - (double) NameIndex.distance(x, y, len) / len);
+            }
+            total += best;
+        }
+        return total / wa.length;
+    }
+
+    // ---------------------------------------------------------------- batch
+
+    // Streams the whole table, blocks it by the same keys and scores the pairs inside each block in parallel.
+    // The older record (lower code) is proposed as the one to keep.
+    public static List<Proposal> proposeMerges(Progress progress) throws SQLException {
+        List<String[]> rows = new ArrayList<>(); // {code, name, phone, nid, age, sex}
+        long[] buf = new long[1 << 16];
+        int n = 0;
+        try (Connection con = DBConnection.connect()) {
+            if (con == null) throw new SQLException("Database not reachable");
+            Statement st = con.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            st.setFetchSize(Integer.MIN_VALUE);
+            ResultSet rs = st.executeQuery("SELECT patient_code, name, phone, national_id, age, sex FROM patients ORDER BY patient_code");
+            while (rs.next()) {
+                int row = rows.size();
+                String[] r = {rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5), rs.getString(6)};
+                rows.add(r);
+                for (long k : keys(r[1], r[2], r[3], age(r[4]), false)) {
+                    if (n == buf.length) buf = Arrays.copyOf(buf, n * 2);
+                    buf[n++] = (k << 30) | row; // row index instead of the code here
+                }
+                if (progress != null && row % 10000 == 0) progress.update("Reading", row);
+            }
+        }
+        long[] sorted = Arrays.copyOf(buf, n);
+        Arrays.parallelSort(sorted);
+
+        // Block boundaries, then every block scored on the common pool
+        List<Integer> starts = new ArrayList<>();
+        for (int i = 0; i < sorted.length; i++) if (i == 0 || (sorted[i] >>> 30) != (sorted[i - 1] >>> 30)) starts.add(i);
+        starts.add(sorted.length);
+        Map<Long, Proposal> found = new ConcurrentHashMap<>();
+        AtomicInteger blocksDone = new AtomicInteger();
+        IntStream.range(0, starts.size() - 1).parallel().forEach(b -> {
+            int from = starts.get(b), to = starts.get(b + 1);
+            for (int i = from; i < to; i++) {
+                for (int j = i + 1; j < Math.min(to, i + 1 + BATCH_WINDOW); j++) {
+                    int x = (int) (sorted[i] & CODE_MASK), y = (int) (sorted[j] & CODE_MASK);
+                    if (x == y) continue;
+                    String[] a = rows.get(Math.min(x, y)), c = rows.get(Math.max(x, y));
+                    long pairKey = ((long) Math.min(x, y) << 32) | Math.max(x, y);
+                    if (found.containsKey(pairKey)) continue;
+                    StringBuilder why = new StringBuilder();
+                    double s = score(a[1], a[2], a[3], age(a[4]), a[5], c[1], c[2], c[3], age(c[4]), c[5], why);
+                    if (s >= LIKELY) found.put(pairKey, new Proposal(Long.parseLong(a[0]), a[1], Long.parseLong(c[0]), c[1], s, why.toString()));
+                }
+            }
+            int done = blocksDone.incrementAndGet();
+            if (progress != null && done % 5000 == 0) progress.update("Comparing", done);
+        });
+        List<Proposal> out = new ArrayList<>(found.values());
+        out.sort((a, b) -> a.score != b.score ? Double.compare(b.score, a.score) : Long.compare(a.keep, b.keep));
+        return out;
+    }
+
+    // Moves the duplicate's appointments, admissions, prescriptions and bills (archives included) to the kept
+    // record and deletes the duplicate, in one transaction
+    public static void merge(long keep, long duplicate) throws SQLException {
+        try (Connection con = DBConnection.connect()) {
+            if (con == null) throw new SQLException("Database not reachable");
+            List<String> tables = new ArrayList<>();
+            for (String base : new String[]{"appointments", "admissions", "prescriptions", "bills"}) tables.addAll(Archiver.tablesFor(con, base, null, null));
+            con.setAutoCommit(false);
+            try {
+                for (String t : tables) {
+                    PreparedStatement pst = con.prepareStatement("UPDATE " + t + " SET patient_code=? WHERE patient_code=?");
+                    pst.setLong(1, keep); pst.setLong(2, duplicate);
+                    pst.executeUpdate();
+                }
+                PreparedStatement pst = con.prepareStatement("DELETE FROM patients WHERE patient_code=?");
+                pst.setLong(1, duplicate);
+                pst.executeUpdate();
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            }
+        }
+        NameIndex.remove(duplicate);
+        LocalStore.forget(String.valueOf(duplicate));
+        HistoryCache.refresh(String.valueOf(keep)); // now includes the duplicate's prescriptions
+        PatientTimeline.invalidate(String.valueOf(keep));
+        PatientTimeline.invalidate(String.valueOf(duplicate));
+        AuditLog.record("patient.merge", "patient", keep, "merged " + duplicate);
+    }
+}
@@ -0,0 +1,256 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+
+// EDT responsiveness monitor. A pushed EventQueue times every dispatch into a latency histogram; a watchdog
+// thread notices dispatches that run past STALL_MS, captures the EDT stack while it is still stuck and
+// records what the user last did (button, menu item or tab). Stalls go to a rolling log under
+// ~/.hms/logs and to the Diagnostics tab of the admin dashboard.
+public class EdtMonitor {
+
+    public static final long STALL_MS = 300;
+    private static final long WATCH_INTERVAL_MS = 50;
+    private static final int KEEP_STALLS = 100;
+    private static final long LOG_MAX_BYTES = 1024 * 1024;
+    private static final int LOG_FILES = 3;
+    private static final Path LOG_DIR = Paths.get(System.getProperty("user.home"), ".hms", "logs");
+    private static final DateTimeFormatter TS = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // Histogram buckets: <1ms, <2, <4, ... <4096, >=4096
+    public static final int BUCKETS = 14;
+    private static final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+    public static class Stall {
+        public final String at, action, stack; public volatile long millis;
+        Stall(String at, String action, String stack, long millis) { this.at = at; this.action = action; this.stack = stack; this.millis = millis; }
+    }
+
+    private static final ArrayDeque<Stall> stalls = new ArrayDeque<>();
+    private static volatile Thread edt;
+    // One frame per dispatch depth: {start, busy nanos so far, start of the running stretch or 0 while paused}.
+    // A modal dialog dispatches from inside the outer event; the outer frame is paused while the dialog's
+    // loop waits for events and while the nested events run (those are timed on their own), so only the
+    // EDT's busy time counts, before the dialog opens and after it closes. EDT only.
+    private static final ArrayDeque<long[]> frames = new ArrayDeque<>();
+    // Copy of the innermost frame for the watchdog, null while the EDT is idle
+    private static volatile long[] watched = null;
+    private static volatile long endedStart = 0, endedMillis = 0;   // last dispatch that finished
+    private static volatile String lastAction = "-";
+    private static volatile boolean installed = false;
+
+    public static synchronized void install() {
+        if (installed || GraphicsEnvironment.isHeadless()) return;
+        installed = true;
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(new EventQueue() {
+            @Override
+            protected void dispatchEvent(AWTEvent event) {
+                if (edt == null) edt = Thread.currentThread();
+                noteAction(event);
+                long now = System.nanoTime();
+                if (!frames.isEmpty()) pause(frames.peek(), now);
+                long[] f = {now, 0, now};
+                frames.push(f);
+                publish();
+                try {
+                    super.dispatchEvent(event);
+                } finally {
+                    long end = System.nanoTime();
+                    frames.pop();
+                    pause(f, end);
+                    long ms = f[1] / 1_000_000;
+                    endedMillis = ms; endedStart = f[0];
+                    record(ms);
+                    if (!frames.isEmpty()) frames.peek()[2] = end;
+                    publish();
+                }
+            }
+
+            // Called by a modal dialog's loop inside a dispatch: waiting here is not busy time
+            @Override
+            public AWTEvent getNextEvent() throws InterruptedException {
+                if (Thread.currentThread() != edt || frames.isEmpty()) return super.getNextEvent();
+                long[] outer = frames.peek();
+                pause(outer, System.nanoTime());
+                publish();
+                try {
+                    return super.getNextEvent();
+                } finally {
+                    outer[2] = System.nanoTime();
+                    publish();
+                }
+            }
+        });
+        Thread w = new Thread(EdtMonitor::watch, "edt-watchdog");
+        w.setDaemon(true);
+        w.start();
+    }
+
+    private static void pause(long[] f, long now) {
+        if (f[2] != 0) { f[1] += now - f[2]; f[2] = 0; }
+    }
+
+    private static void publish() {
+        long[] top = frames.peek();
+        watched = top == null ? null : top.clone();
+    }
+
+    // Remembers the control behind user input so a stall can name it
+    private static void noteAction(AWTEvent event) {
+        if (!(event instanceof ActionEvent) && !(event instanceof InputEvent && ((InputEvent) event).getID() == java.awt.event.MouseEvent.MOUSE_RELEASED)) return;
+        Object src = event.getSource();
+        if (src instanceof AbstractButton && ((AbstractButton) src).getText() != null && !((AbstractButton) src).getText().isEmpty()) {
+            lastAction = "button \"" + ((AbstractButton) src).getText().trim() + "\"";
+        } else if (src instanceof JTabbedPane) {
+            JTabbedPane tabs = (JTabbedPane) src;
+            int i = tabs.getSelectedIndex();
+            lastAction = "tab \"" + (i < 0 ? "?" : tabs.getTitleAt(i).trim()) + "\"";
+        } else if (src instanceof Component) {
+            lastAction = src.getClass().getSimpleName() + " in " + windowTitle((Component) src);
+        }
+    }
+
+    private static String windowTitle(Component c) {
+        Window w = c instanceof Window ? (Window) c : SwingUtilities.getWindowAncestor(c);
+        if (w instanceof Frame) return "\"" + ((Frame) w).getTitle() + "\"";
+        if (w instanceof Dialog) return "\"" + ((Dialog) w).getTitle() + "\"";
+        return "window";
+    }
+
+    private static void record(long millis) {
+        int b = millis <= 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(millis));
+        histogram.incrementAndGet(b);
+    }
+
+    private static void watch() {
+        long reportedFor = 0;
+        Stall current = null;
+        while (true) {
+            try { Thread.sleep(WATCH_INTERVAL_MS); } catch (InterruptedException e) { return; }
+            long[] w = watched;
+            long start = w == null ? 0 : w[0];
+            if (start == 0 || start != reportedFor) {
+                if (current != null) { finish(current, reportedFor); current = null; }
+                if (start == 0) continue;
+            }
+            long ms = (w[1] + (w[2] == 0 ? 0 : System.nanoTime() - w[2])) / 1_000_000;
+            if (current == null && ms >= STALL_MS && start != reportedFor) {
+                reportedFor = start;
+                current = new Stall(LocalDateTime.now().format(TS), lastAction, stackOf(edt), ms);
+                synchronized (stalls) { stalls.addFirst(current); if (stalls.size() > KEEP_STALLS) stalls.removeLast(); }
+            } else if (current != null) {
+                current.millis = ms;
+            }
+        }
+    }
+
+    // Logged once the dispatch is over, with the total time it blocked
+    private static void finish(Stall s, long start) {
+        if (endedStart == start) s.millis = Math.max(s.millis, endedMillis);
+        log(s);
+    }
+
+    private static String stackOf(Thread t) {
+        if (t == null) return "";
+        StringWriter sw = new StringWriter();
+        PrintWriter pw = new PrintWriter(sw);
+        for (StackTraceElement e : t.getStackTrace()) pw.println("\tat " + e);
+        pw.flush();
+        return sw.toString();
+    }
+
+    private static synchronized void log(Stall s) {
+        try {
+            Files.createDirectories(LOG_DIR);
+            Path log = LOG_DIR.resolve("edt-stalls.log");
+            if (Files.exists(log) && Files.size(log) > LOG_MAX_BYTES) {
+                for (int i = LOG_FILES - 1; i >= 1; i--) {
+                    Path from = i == 1 ? log : LOG_DIR.resolve("edt-stalls.log." + (i - 1));
+                    if (Files.exists(from)) Files.move(from, LOG_DIR.resolve("edt-stalls.log." + i), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            String entry = s.at + " EDT blocked " + s.millis + " ms after " + s.action + System.lineSeparator() + s.stack + System.lineSeparator();
+            Files.write(log, entry.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) { System.err.println("EDT stall log failed: " + e.getMessage()); }
+    }
+
+    public static long[] histogram() {
+        long[] h = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) h[i] = histogram.get(i);
+        return h;
+    }
+
+    public static String bucketLabel(int b) {
+        if (b == 0) return "< 1 ms";
+        if (b == BUCKETS - 1) return ">= " + (1L << (b - 1)) + " ms";
+        return (1L << (b - 1)) + " - " + ((1L << b) - 1) + " ms";
+    }
+
+    public static List<Stall> stalls() { synchronized (stalls) { return new ArrayList<>(stalls); } }
+
+    // --- DIAGNOSTICS PANEL (admin) ---
+    public static JPanel createPanel() {
+        JPanel p = new JPanel(new BorderLayout(10, 10)); p.setOpaque(false);
+        p.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+
+        DefaultTableModel hm = new DefaultTableModel(new String[]{"Dispatch Time", "Events"}, 0);
+        JTable ht = new JTable(hm); UIUtils.styleTable(ht);
+        JPanel hp = new JPanel(new BorderLayout()); hp.setBorder(BorderFactory.createTitledBorder("EDT Event Latency"));
+        hp.add(new JScrollPane(ht)); hp.setPreferredSize(new Dimension(320, 0));
+
+        DefaultTableModel sm = new DefaultTableModel(new String[]{"Time", "Blocked (ms)", "Last Action"}, 0) {
+            @Override public boolean isCellEditable(int r, int c) { return false; }
+        };
+        JTable st = new JTable(sm); UIUtils.styleTable(st);
+        JTextArea stack = new JTextArea(10, 40); stack.setEditable(false); stack.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT, new JScrollPane(st), new JScrollPane(stack)); split.setResizeWeight(0.5);
+        JPanel sp = new JPanel(new BorderLayout()); sp.setBorder(BorderFactory.createTitledBorder("Stalls over " + STALL_MS + " ms (newest first)"));
+        sp.add(split);
+
+        JLabel lStartup = new JLabel(); lStartup.setFont(UIUtils.FONT_GENERAL);
+        JLabel lBeds = new JLabel(); lBeds.setFont(UIUtils.FONT_GENERAL);
+        JButton bRef = new JButton("Refresh"); UIUtils.styleButton(bRef, UIUtils.COLOR_TEAL);
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT, 15, 5)); top.setOpaque(false);
+        top.add(lStartup); top.add(bRef); top.add(new JLabel("Log: " + LOG_DIR.resolve("edt-stalls.log"))); top.add(lBeds);
+
+        List<Stall> shown = new ArrayList<>();
+        Runnable refresh = () -> {
+            long[] h = histogram();
+            hm.setRowCount(0);
+            for (int i = 0; i < BUCKETS; i++) hm.addRow(new Object[]{bucketLabel(i), h[i]});
+            shown.clear(); shown.addAll(stalls());
+            sm.setRowCount(0);
+            for (Stall s : shown) sm.addRow(new Object[]{s.at, s.millis, s.action});
+            stack.setText("");
+            long startup = Warmup.lastStartupMillis();
+            lStartup.setText("Login click -> usable dashboard: " + (startup < 0 ? "n/a" : startup + " ms"));
+            List<String> beds = BedRegistry.ignoredBeds();
+            lBeds.setText("Ignored bed rows: " + (beds.isEmpty() ? "none" : String.join(", ", beds.subList(0, Math.min(3, beds.size())))
+                    + (beds.size() > 3 ? " and " + (beds.size() - 3) + " more" : "")));
+            lBeds.setToolTipText(beds.isEmpty() ? null : String.join(", ", beds));
+        };
+        st.getSelectionModel().addListSelectionListener(e -> {
+            int r = st.getSelectedRow();
+            if (!e.getValueIsAdjusting() && r >= 0 && r < shown.size()) { stack.setText(shown.get(r).stack); stack.setCaretPosition(0); }
+        });
+        bRef.addActionListener(e -> refresh.run());
+        refresh.run();
+
+        p.add(top, BorderLayout.NORTH); p.add(hp, BorderLayout.WEST); p.add(sp, BorderLayout.CENTER);
+        return p;
+    }
+}
@@ -0,0 +1,85 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Prescription history of the patients in a doctor's queue, fetched in the background so
+// "Patient History" opens instantly. Bounded LRU; cleared when a new doctor session starts.
+public class HistoryCache {
+
+    private static final int MAX_PATIENTS = 200;
+    private static final int PREFETCH_THREADS = 2; // keep well below what booking/billing desks need
+
+    private static final Map<String, List<Object[]>> cache = Collections.synchronizedMap(new LinkedHashMap<String, List<Object[]>>(64, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<String, List<Object[]>> eldest) { return size() > MAX_PATIENTS; }
+    });
+    private static final Set<String> inFlight = Collections.synchronizedSet(new HashSet<>());
+    // Bumped by refresh(); a load that started under an older version is dropped and redone
+    private static final Map<String, Integer> versions = new ConcurrentHashMap<>();
+
+    private static final ExecutorService PREFETCH = new ThreadPoolExecutor(PREFETCH_THREADS, PREFETCH_THREADS, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+        Thread t = new Thread(r, "history-prefetch"); t.setDaemon(true); t.setPriority(Thread.MIN_PRIORITY); return t;
+    });
+
+    public static void clear() { cache.clear(); }
+
+    public static void prefetch(Collection<String> patientCodes) {
+        for (String pid : patientCodes) {
+            if (cache.containsKey(pid) || !inFlight.add(pid)) continue;
+            PREFETCH.execute(() -> {
+                int version = versions.getOrDefault(pid, 0);
+                try { store(pid, version, load(pid)); }
+                catch (SQLException e) { e.printStackTrace(); }
+                finally { inFlight.remove(pid); }
+                if (versions.getOrDefault(pid, 0) != version) prefetch(Collections.singletonList(pid)); // refreshed meanwhile
+            });
+        }
+    }
+
+    private static void store(String pid, int version, List<Object[]> rows) {
+        synchronized (cache) { if (versions.getOrDefault(pid, 0) == version) cache.put(pid, rows); }
+    }
+
+    // Cached history, or null if the prefetch has not got to this patient yet
+    public static List<Object[]> cached(String pid) { return cache.get(pid); }
+
+    // Cached history, or a direct load (call off the EDT)
+    public static List<Object[]> get(String pid) {
+        List<Object[]> rows = cache.get(pid);
+        if (rows != null) return rows;
+        int version = versions.getOrDefault(pid, 0);
+        try { rows = load(pid); store(pid, version, rows); return rows; }
+        catch (SQLException e) { e.printStackTrace(); return Collections.emptyList(); }
+    }
+
+    // Called after a new prescription is saved (or patients are merged); a load already running for the
+    // patient may have read the old rows, so it is discarded and the patient queued again
+    public static void refresh(String pid) {
+        versions.merge(pid, 1, Integer::sum);
+        cache.remove(pid);
+        prefetch(Collections.singletonList(pid));
+    }
+
+    // {Date, Doctor, Diagnosis, Medicines}, newest first
+    static List<Object[]> load(String pid) throws SQLException {
+        List<Object[]> rows = new ArrayList<>();
+        try (Connection con = DBConnection.connect()) {
+            if (con == null) throw new SQLException("Database not reachable");
+            // Live table first, then archived years newest first, so the list stays newest first
+            List<String> tables = new ArrayList<>(Archiver.tablesFor(con, "prescriptions", null, null));
+            Collections.reverse(tables);
+            for (String table : tables) {
+                PreparedStatement pst = con.prepareStatement("SELECT prescribed_date, doctor_name, diagnosis, medicines FROM " + table + " WHERE patient_code=? ORDER BY prescribed_date DESC");
+                pst.setLong(1, Long.parseLong(pid));
+                ResultSet rs = pst.executeQuery();
+                while (rs.next()) rows.add(new Object[]{rs.getString("prescribed_date"), rs.getString("doctor_name"), rs.getString("diagnosis"), rs.getString("medicines")});
+            }
+        }
+        return Collections.unmodifiableList(rows);
+    }
+}
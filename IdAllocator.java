@@ -0,0 +1,182 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import java.sql.*;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Hi/lo id allocation. Each terminal reserves a block of ids from the id_sequences table with one atomic
+// UPDATE and hands them out from memory; the next block is fetched in the background before the current
+// one runs out. Blocks never overlap, so ids are unique across terminals without insert-and-retry.
+// The sequence counts slots; ShardRouter.stripe turns a slot into an id unique across branches too
+// (slot * stride + branch number, so with a single branch id == slot). Each sequence remembers the stride its
+// slots were counted with; when that changes (sharding turned on, or more room for branches) the slot is
+// moved past every id the old stride could have handed out.
+// Patient codes registered before the allocator are random 6-digit numbers, so that sequence starts at the
+// bottom of the 6-digit range and each reserved block drops the codes already in use.
+public class IdAllocator {
+
+    public static final IdAllocator PATIENT_CODES = new IdAllocator("patient_code", "SELECT 100000",
+            "SELECT patient_code FROM patients WHERE patient_code BETWEEN ? AND ?", 20);
+    public static final IdAllocator INVOICES = new IdAllocator("bill_id", "SELECT COALESCE(MAX(id), 0) + 1 FROM bills", null, 10);
+    public static final IdAllocator APPOINTMENTS = new IdAllocator("appointment_id", "SELECT COALESCE(MAX(id), 0) + 1 FROM appointments", null, 10);
+    public static final IdAllocator ADMISSIONS = new IdAllocator("admission_id", "SELECT COALESCE(MAX(id), 0) + 1 FROM admissions", null, 5);
+
+    private static final ExecutorService PREFETCH = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "id-prefetch"); t.setDaemon(true); return t;
+    });
+
+    private static class Block {
+        final long[] ids; final AtomicInteger next = new AtomicInteger();
+        Block(long[] ids) { this.ids = ids; }
+    }
+
+    private final String name, seedQuery, takenQuery;
+    private final int blockSize, lowWater;
+    private final AtomicReference<Block> current = new AtomicReference<>(new Block(new long[0]));
+    private final AtomicReference<Block> standby = new AtomicReference<>();
+    private final AtomicBoolean fetching = new AtomicBoolean();   // a prefetch is queued or running
+    private volatile boolean seeded = false;
+
+    // takenQuery (may be null): ids BETWEEN ? AND ? that already exist without having come from this sequence
+    public IdAllocator(String name, String seedQuery, String takenQuery, int blockSize) {
+        this.name = name;
+        this.seedQuery = seedQuery;
+        this.takenQuery = takenQuery;
+        this.blockSize = blockSize;
+        this.lowWater = Math.max(1, blockSize / 4);
+    }
+
+    public long next() {
+        while (true) {
+            Block b = current.get();
+            int i = b.next.getAndIncrement();
+            if (i < b.ids.length) {
+                if (b.ids.length - i <= lowWater) requestPrefetch(); // also for blocks that start short (taken ids dropped)
+                return b.ids[i];
+            }
+            advance(b);
+        }
+    }
+
+    // Fetches the first block in the background so the first next() does not wait on the database
+    public void prime() { requestPrefetch(); }
+
+    private void requestPrefetch() {
+        if (standby.get() == null && fetching.compareAndSet(false, true)) PREFETCH.execute(this::prefetch);
+    }
+
+    // Cold path: only taken when a block is used up
+    private synchronized void advance(Block exhausted) {
+        if (current.get() != exhausted) return;
+        Block s = standby.getAndSet(null);
+        Block b = s != null ? s : reserve();
+        current.set(b);
+        if (b.ids.length <= lowWater) requestPrefetch();
+    }
+
+    // A prefetched block is waiting to take over (tests)
+    boolean hasStandby() { return standby.get() != null; }
+
+    private void prefetch() {
+        try {
+            if (standby.get() == null) standby.compareAndSet(null, reserve());
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        } finally {
+            fetching.set(false);
+        }
+    }
+
+    private Block reserve() { return reserve(blockSize); }
+
+    // 'count' ids for bulk work (PatientImporter), reserved in as few round trips as possible
+    public long[] reserveRange(int count) {
+        long[] ids = new long[count];
+        int n = 0;
+        while (n < count) {
+            long[] got = reserve(count - n).ids;
+            System.arraycopy(got, 0, ids, n, got.length);
+            n += got.length;
+        }
+        return ids;
+    }
+
+    private Block reserve(int size) {
+        try (Connection con = DBConnection.connect()) {
+            if (con == null) throw new IllegalStateException("Database not reachable");
+            ensureSequence(con);
+            PreparedStatement pst = con.prepareStatement("UPDATE id_sequences SET next_val = LAST_INSERT_ID(next_val + ?) WHERE name=?");
+            pst.setInt(1, size); pst.setString(2, name);
+            pst.executeUpdate();
+            ResultSet rs = con.createStatement().executeQuery("SELECT LAST_INSERT_ID()");
+            rs.next();
+            long end = rs.getLong(1);
+            long[] ids = new long[size];
+            for (int i = 0; i < size; i++) ids[i] = ShardRouter.stripe(end - size + i);
+            return new Block(withoutTaken(con, ids));
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not reserve ids for " + name + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Drops ids already in use on any branch. Only patient codes have a taken query (legacy random codes, which
+    // may sit at any branch), so this is the one place where branches coordinate: a branch that does not answer
+    // fails the reservation, since its codes cannot be ruled out, and new registrations get provisional codes
+    // until it is back or removed from branches.properties.
+    private long[] withoutTaken(Connection con, long[] ids) throws SQLException {
+        if (takenQuery == null || ids.length == 0) return ids;
+        Set<Long> taken = new HashSet<>();
+        if (!ShardRouter.isSharded()) taken.addAll(taken(con, ids));
+        else {
+            List<Set<Long>> parts = ShardRouter.fanOut((c, b) -> taken(c, ids));
+            if (parts.size() < ShardRouter.branches().size()) throw new SQLException("not every branch answered the taken-id check");
+            for (Set<Long> part : parts) taken.addAll(part);
+        }
+        return taken.isEmpty() ? ids : Arrays.stream(ids).filter(id -> !taken.contains(id)).toArray();
+    }
+
+    private Set<Long> taken(Connection con, long[] ids) throws SQLException {
+        Set<Long> taken = new HashSet<>();
+        try (PreparedStatement pst = con.prepareStatement(takenQuery)) {
+            pst.setLong(1, ids[0]); pst.setLong(2, ids[ids.length - 1]);
+            ResultSet rs = pst.executeQuery();
+            while (rs.next()) taken.add(rs.getLong(1));
+        }
+        return taken;
+    }
+
+    private void ensureSequence(Connection con) throws SQLException {
+        if (seeded) return;
+        ensureTable(con);
+        ResultSet rs = con.createStatement().executeQuery(seedQuery);
+        long seed = rs.next() ? ShardRouter.firstSlotAfter(rs.getLong(1) - 1) : 1;
+        // First terminal to get here seeds the sequence, everyone else is ignored
+        PreparedStatement pst = con.prepareStatement("INSERT IGNORE INTO id_sequences (name, next_val, stride) VALUES (?, ?, ?)");
+        pst.setString(1, name); pst.setLong(2, seed); pst.setInt(3, ShardRouter.stride());
+        pst.executeUpdate();
+        restride(con, name, ShardRouter.stride());
+        seeded = true;
+    }
+
+    static void ensureTable(Connection con) throws SQLException {
+        con.createStatement().executeUpdate("CREATE TABLE IF NOT EXISTS id_sequences (name VARCHAR(40) PRIMARY KEY, next_val BIGINT NOT NULL, stride INT NOT NULL DEFAULT 1)");
+        if (!con.getMetaData().getColumns(con.getCatalog(), null, "id_sequences", "stride").next())
+            con.createStatement().executeUpdate("ALTER TABLE id_sequences ADD COLUMN stride INT NOT NULL DEFAULT 1"); // sequences from before sharding
+    }
+
+    // Counted with another stride: the highest id handed out so far is below next_val * old stride, so restart
+    // at the first new slot above it. The stride check makes this happen once even with several terminals.
+    static int restride(Connection con, String name, int stride) throws SQLException {
+        try (PreparedStatement pst = con.prepareStatement("UPDATE id_sequences SET next_val = FLOOR((next_val * stride - 1) / ?) + 1, stride = ? WHERE name = ? AND stride <> ?")) {
+            pst.setInt(1, stride); pst.setInt(2, stride); pst.setString(3, name); pst.setInt(4, stride);
+            return pst.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.imageio.ImageIO;
+
+// Decoded and pre-scaled copies of the resources/images backgrounds, so painting never decodes a JPEG.
+public class ImageCache {
+
+    private static final BufferedImage MISSING = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+    private static final Map<String, BufferedImage> decoded = new ConcurrentHashMap<>();
+    private static final Map<String, BufferedImage> scaled = new ConcurrentHashMap<>();
+
+    // Decoded full-size image, or null if the asset is not on the classpath
+    public static BufferedImage get(String name) {
+        BufferedImage img = decoded.computeIfAbsent(name, n -> {
+            try {
+                URL url = ImageCache.class.getResource("/images/" + n);
+                return url == null ? MISSING : ImageIO.read(url);
+            } catch (Exception e) { e.printStackTrace(); return MISSING; }
+        });
+        return img == MISSING ? null : img;
+    }
+
+    // Screen-compatible copy scaled to w x h (the last requested size per image is kept)
+    public static BufferedImage scaled(String name, int w, int h) {
+        BufferedImage src = get(name);
+        if (src == null || w <= 0 || h <= 0) return null;
+        BufferedImage cur = scaled.get(name);
+        if (cur != null && cur.getWidth() == w && cur.getHeight() == h) return cur;
+        BufferedImage out = compatible(w, h, Transparency.OPAQUE);
+        Graphics2D g = out.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(src, 0, 0, w, h, null);
+        g.dispose();
+        scaled.put(name, out);
+        return out;
+    }
+
+    static BufferedImage compatible(int w, int h, int transparency) {
+        if (GraphicsEnvironment.isHeadless()) return new BufferedImage(w, h, transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration().createCompatibleImage(w, h, transparency);
+    }
+}
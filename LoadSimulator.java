@@ -0,0 +1,405 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.swing.table.DefaultTableModel;
+
+// Headless OPD load generator. N simulated terminals each loop over a weighted mix of desk operations
+// (registration, lookup, booking, billing, doctor queue refresh, prescription, history), calling the same
+// static SQL paths the dashboards use, with a random think time between operations. Reports throughput and
+// p50/p99 latency per operation. Ramp mode adds terminals step by step and reports where throughput stops
+// growing or p99 blows up.
+//
+//   java -cp "lib/*:out" com.mycompany.hospitalmanagementsystem.LoadSimulator [options]
+//     --terminals 30          simulated terminals (fixed mode)
+//     --duration 60           seconds to run (fixed mode)
+//     --think 1000            mean think time between operations, ms (exponential)
+//     --mix register=10,lookup=20,...   operation weights (see MIX)
+//     --ramp 10:10:100:30     start:step:max:secondsPerStep
+//     --url jdbc:mysql://... --user u --pass p   database (default: the app's own DBConnection settings)
+//     --stub --stub-latency 2 in-memory stand-in with a fixed per-statement delay instead of MySQL
+//
+// Against MySQL this WRITES patients, appointments, bills and prescriptions. Use a test database.
+// In fixed mode the exit status is 1 when any operation failed.
+public class LoadSimulator {
+
+    static final String[] OPS = {"register", "lookup", "book", "apptRefresh", "bill", "doctorRefresh", "prescribe", "history"};
+    static final int[] MIX = {10, 20, 20, 10, 10, 20, 7, 3};
+
+    // --- LATENCY HISTOGRAM: microseconds, 16 sub-buckets per power of two (~6% precision) ---
+    static class Histogram {
+        final AtomicLongArray counts = new AtomicLongArray(64 * 16);
+        final AtomicLong errors = new AtomicLong(), skipped = new AtomicLong();
+        void record(long micros) { counts.incrementAndGet(index(Math.max(0, micros))); }
+        static int index(long v) {
+            if (v < 16) return (int) v;
+            int exp = 63 - Long.numberOfLeadingZeros(v);
+            return (exp - 3) * 16 + (int) ((v >> (exp - 4)) & 15);
+        }
+        static long value(int idx) {
+            if (idx < 16) return idx;
+            int exp = idx / 16 + 3;
+            return (16L + idx % 16) << (exp - 4);
+        }
+        long count() { long n = 0; for (int i = 0; i < counts.length(); i++) n += counts.get(i); return n; }
+        double percentileMs(double q) {
+            long total = count(), seen = 0;
+            if (total == 0) return 0;
+            for (int i = 0; i < counts.length(); i++) {
+                seen += counts.get(i);
+                if (seen >= Math.ceil(q * total)) return value(i) / 1000.0;
+            }
+            return 0;
+        }
+    }
+
+    static class Stats {
+        final Histogram[] ops = new Histogram[OPS.length];
+        final long startNanos = System.nanoTime();
+        Stats() { for (int i = 0; i < ops.length; i++) ops[i] = new Histogram(); }
+        long total() { long n = 0; for (Histogram h : ops) n += h.count(); return n; }
+        double seconds() { return (System.nanoTime() - startNanos) / 1e9; }
+    }
+
+    private static volatile Stats stats = new Stats();
+    private static volatile boolean running = true;
+    private static final List<String> doctors = new CopyOnWriteArrayList<>();
+    private static final List<Long> patients = Collections.synchronizedList(new ArrayList<>());
+    private static final ConcurrentLinkedQueue<long[]> pendingAppointments = new ConcurrentLinkedQueue<>(); // {apptId, pid}
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        Map<String, String> opt = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) continue;
+            String key = args[i].substring(2);
+            opt.put(key, i + 1 < args.length && !args[i + 1].startsWith("--") ? args[++i] : "true");
+        }
+        int terminals = Integer.parseInt(opt.getOrDefault("terminals", "30"));
+        int duration = Integer.parseInt(opt.getOrDefault("duration", "60"));
+        long thinkMs = Long.parseLong(opt.getOrDefault("think", "1000"));
+        int[] mix = parseMix(opt.get("mix"));
+
+        if (opt.containsKey("stub")) {
+            long latency = Long.parseLong(opt.getOrDefault("stub-latency", "2"));
+            DBConnection.useFactory(() -> Stub.connection(latency));
+        } else if (opt.containsKey("url")) {
+            String url = opt.get("url"), user = opt.getOrDefault("user", "root"), pass = opt.getOrDefault("pass", "");
+            DBConnection.useFactory(() -> DriverManager.getConnection(url, user, pass));
+        }
+        if (!seed()) { System.err.println("Could not reach the database."); return; }
+        System.out.println("Seeded " + doctors.size() + " doctors, " + patients.size() + " patients, " + pendingAppointments.size() + " pending appointments");
+
+        // One platform thread per terminal; they spend nearly all their time in think time or JDBC I/O
+        ExecutorService pool = Executors.newCachedThreadPool(r -> { Thread t = new Thread(r, "terminal"); t.setDaemon(true); return t; });
+        if (opt.containsKey("ramp")) {
+            String[] r = opt.get("ramp").split(":");
+            ramp(pool, Integer.parseInt(r[0]), Integer.parseInt(r[1]), Integer.parseInt(r[2]), Integer.parseInt(r[3]), thinkMs, mix);
+        } else {
+            stats = new Stats();
+            for (int i = 0; i < terminals; i++) pool.execute(terminal(thinkMs, mix));
+            Thread.sleep(duration * 1000L);
+            report(stats, terminals);
+        }
+        running = false;
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+        if (!opt.containsKey("ramp") && merged(stats).errors.get() > 0) System.exit(1);
+    }
+
+    private static void ramp(ExecutorService pool, int start, int step, int max, int seconds, long thinkMs, int[] mix) throws InterruptedException {
+        int active = 0;
+        double baseP99 = -1, lastRate = 0;
+        System.out.printf("%10s %12s %12s %12s %12s%n", "terminals", "ops/s", "p50 ms", "p99 ms", "errors");
+        for (int target = start; target <= max; target += step) {
+            for (; active < target; active++) pool.execute(terminal(thinkMs, mix));
+            Thread.sleep(1000); // let the new terminals get going before measuring
+            Stats s = new Stats();
+            stats = s;
+            Thread.sleep(seconds * 1000L);
+            Histogram all = merged(s);
+            double rate = s.total() / s.seconds(), p99 = all.percentileMs(0.99);
+            System.out.printf("%10d %12.1f %12.2f %12.2f %12d%n", active, rate, all.percentileMs(0.50), p99, all.errors.get());
+            if (baseP99 < 0) baseP99 = p99;
+            // Offered load grows with the terminal count; once the rate stops following it we are saturated
+            double expectedGrowth = (double) active / Math.max(1, active - step);
+            if (lastRate > 0 && (rate < lastRate * (1 + (expectedGrowth - 1) / 4) || p99 > baseP99 * 4)) {
+                System.out.println("Saturation at about " + (active - step) + "-" + active + " terminals (" + String.format("%.1f", lastRate) + " ops/s)");
+                report(s, active);
+                return;
+            }
+            lastRate = rate;
+        }
+        System.out.println("No saturation up to " + max + " terminals");
+        report(stats, active);
+    }
+
+    private static Histogram merged(Stats s) {
+        Histogram all = new Histogram();
+        for (Histogram h : s.ops) {
+            for (int i = 0; i < h.counts.length(); i++) all.counts.addAndGet(i, h.counts.get(i));
+            all.errors.addAndGet(h.errors.get());
+        }
+        return all;
+    }
+
+    private static void report(Stats s, int terminals) {
+        double secs = s.seconds();
+        System.out.printf("%n%d terminals, %.1f s%n", terminals, secs);
+        System.out.printf("%-14s %10s %10s %10s %10s %10s %8s %8s%n", "operation", "count", "ops/s", "p50 ms", "p99 ms", "max ms", "errors", "skipped");
+        for (int i = 0; i < OPS.length; i++) {
+            Histogram h = s.ops[i];
+            System.out.printf("%-14s %10d %10.1f %10.2f %10.2f %10.2f %8d %8d%n", OPS[i], h.count(), h.count() / secs,
+                    h.percentileMs(0.50), h.percentileMs(0.99), h.percentileMs(1.0), h.errors.get(), h.skipped.get());
+        }
+        System.out.printf("%-14s %10d %10.1f%n", "total", s.total(), s.total() / secs);
+    }
+
+    private static int[] parseMix(String spec) {
+        if (spec == null) return MIX;
+        int[] mix = new int[OPS.length];
+        for (String part : spec.split(",")) {
+            String[] kv = part.split("=");
+            int op = Arrays.asList(OPS).indexOf(kv[0].trim());
+            if (op < 0) throw new IllegalArgumentException("Unknown operation " + kv[0] + ", expected one of " + Arrays.toString(OPS));
+            mix[op] = Integer.parseInt(kv[1].trim());
+        }
+        return mix;
+    }
+
+    // Doctors, some existing patients and pending appointments to work with
+    private static boolean seed() {
+        try (Connection con = DBConnection.connect()) {
+            if (con == null) return false;
+            ResultSet rs = con.createStatement().executeQuery("SELECT name FROM users WHERE role='doctor'");
+            while (rs.next()) doctors.add(rs.getString(1));
+            rs = con.createStatement().executeQuery("SELECT patient_code FROM patients ORDER BY patient_code DESC LIMIT 2000");
+            while (rs.next()) patients.add(rs.getLong(1));
+            rs = con.createStatement().executeQuery("SELECT id, patient_code FROM appointments WHERE status='Pending' ORDER BY id DESC LIMIT 2000");
+            while (rs.next()) pendingAppointments.add(new long[]{rs.getLong(1), rs.getLong(2)});
+        } catch (SQLException e) { System.err.println("Seed failed: " + e.getMessage()); return false; }
+        if (doctors.isEmpty()) for (int i = 1; i <= 12; i++) doctors.add("Dr. Load " + i);
+        return true;
+    }
+
+    private static Runnable terminal(long thinkMs, int[] mix) {
+        int total = Arrays.stream(mix).sum();
+        return () -> {
+            ThreadLocalRandom r = ThreadLocalRandom.current();
+            while (running) {
+                try { Thread.sleep((long) (-Math.log(1 - r.nextDouble()) * thinkMs)); } catch (InterruptedException e) { return; }
+                int pick = r.nextInt(total), op = 0;
+                while (pick >= mix[op]) pick -= mix[op++];
+                Histogram h = stats.ops[op];
+                long t0 = System.nanoTime();
+                try {
+                    if (run(op, r)) h.record((System.nanoTime() - t0) / 1000);
+                    else h.skipped.incrementAndGet();
+                } catch (Exception e) {
+                    h.errors.incrementAndGet();
+                    if (h.errors.get() <= 3) System.err.println(OPS[op] + " failed: " + e);
+                }
+            }
+        };
+    }
+
+    // One desk operation over its own connection, as the dashboards do; false when it had nothing to act on
+    private static boolean run(int op, ThreadLocalRandom r) throws Exception {
+        try (Connection con = DBConnection.connect()) {
+            if (con == null) throw new SQLException("Database not reachable");
+            switch (OPS[op]) {
+                case "register": {
+                    long code = IdAllocator.PATIENT_CODES.next();
+                    StaffDashboard.insertPatient(con, code, "Load Patient " + code, "Kathmandu", "9779800000000", "", 1 + r.nextInt(90), r.nextBoolean() ? "Male" : "Female", "");
+                    StaffDashboard.queryPatients(con); // table refresh after save
+                    patients.add(code);
+                    return true;
+                }
+                case "lookup": {
+                    Long pid = anyPatient(r);
+                    if (pid == null) return false;
+                    StaffDashboard.findPatient(con, String.valueOf(pid));
+                    return true;
+                }
+                case "book": {
+                    Long pid = anyPatient(r);
+                    if (pid == null) return false;
+                    String doctor = doctors.get(r.nextInt(doctors.size()));
+                    LocalDate date = LocalDate.now().plusDays(1 + r.nextInt(7));
+                    int slot = SlotScheduler.nextFree(doctor, date);
+                    if (slot < 0) return false;
+                    long id = StaffDashboard.bookAppointment(con, pid, "Load Patient " + pid, doctor, date, slot);
+                    if (id < 0) return false;
+                    pendingAppointments.add(new long[]{id, pid});
+                    return true;
+                }
+                case "apptRefresh":
+                    StaffDashboard.queryAppts(con);
+                    return true;
+                case "bill": {
+                    Long pid = anyPatient(r);
+                    if (pid == null) return false;
+                    DefaultTableModel items = new DefaultTableModel(new String[]{"Item", "Qty", "Rate", "Total"}, 0);
+                    items.addRow(new Object[]{"OPD Ticket", "1", "100.0", "100.0"});
+                    items.addRow(new Object[]{"CBC Test", "1", "450.0", "450.0"});
+                    items.addRow(new Object[]{"X-Ray", "1", "800.0", "800.0"});
+                    StaffDashboard.saveBill(con, IdAllocator.INVOICES.next(), pid, "Load Patient " + pid, "OPD Ticket, CBC Test, X-Ray, ", 1350.0, items);
+                    return true;
+                }
+                case "doctorRefresh":
+                    DoctorDashboard.queryMyAppointments(con, doctors.get(r.nextInt(doctors.size())));
+                    return true;
+                case "prescribe": {
+                    long[] appt = pendingAppointments.poll();
+                    if (appt == null) return false;
+                    PrescriptionDialog.save(con, String.valueOf(appt[1]), doctors.get(r.nextInt(doctors.size())), "Viral fever", "Paracetamol 500mg 1-1-1 x 3 days", "Rest, fluids", String.valueOf(appt[0]));
+                    return true;
+                }
+                case "history": {
+                    Long pid = anyPatient(r);
+                    if (pid == null) return false;
+                    HistoryCache.load(String.valueOf(pid));
+                    return true;
+                }
+                default: return false;
+            }
+        }
+    }
+
+    private static Long anyPatient(ThreadLocalRandom r) {
+        synchronized (patients) { return patients.isEmpty() ? null : patients.get(r.nextInt(patients.size())); }
+    }
+
+    // --- IN-MEMORY STAND-IN ---
+    // Accepts every statement after a fixed delay (the "round trip"), hands out generated keys and
+    // id_sequences blocks, and answers other queries with no rows. Metadata describes a schema that is already
+    // current, so the lazy schema checks do no DDL. Good for checking client-side costs
+    // (allocators, slot bitmaps, row mapping) and the simulator itself; it says nothing about MySQL.
+    static class Stub {
+        private static final AtomicLong keys = new AtomicLong(1);
+        private static final ConcurrentHashMap<String, AtomicLong> sequences = new ConcurrentHashMap<>();
+
+        static Connection connection(long latencyMs) {
+            long[] lastInsertId = {0};
+            boolean[] closed = {false};
+            return proxy(Connection.class, (m, a) -> {
+                switch (m) {
+                    case "createStatement": return statement("", latencyMs, lastInsertId);
+                    case "prepareStatement": return statement((String) a[0], latencyMs, lastInsertId);
+                    case "getMetaData": return metaData();
+                    case "close": closed[0] = true; return null;
+                    case "isClosed": return closed[0];
+                    default: return null;
+                }
+            });
+        }
+
+        private static PreparedStatement statement(String prepared, long latencyMs, long[] lastInsertId) {
+            Object[] params = new Object[16];
+            int[] batch = {0};
+            long[] generated = {0};
+            return proxy(PreparedStatement.class, (m, a) -> {
+                if (m.startsWith("set") && a != null && a.length == 2 && a[0] instanceof Integer) { params[(Integer) a[0]] = a[1]; return null; }
+                switch (m) {
+                    case "addBatch": batch[0]++; return null;
+                    case "executeBatch": pause(latencyMs); int[] res = new int[batch[0]]; Arrays.fill(res, 1); batch[0] = 0; return res;
+                    case "executeUpdate": {
+                        pause(latencyMs);
+                        String sql = a != null && a.length > 0 ? (String) a[0] : prepared;
+                        if (sql.contains("LAST_INSERT_ID(next_val")) {
+                            long size = ((Number) params[1]).longValue();
+                            lastInsertId[0] = sequences.computeIfAbsent((String) params[2], k -> new AtomicLong(200000)).addAndGet(size);
+                        } else if (sql.startsWith("INSERT")) {
+                            generated[0] = keys.getAndIncrement();
+                        }
+                        return 1;
+                    }
+                    case "executeQuery": {
+                        pause(latencyMs);
+                        String sql = a != null && a.length > 0 ? (String) a[0] : prepared;
+                        if (sql.contains("LAST_INSERT_ID()")) return rows(lastInsertId[0]);
+                        if (sql.contains("COALESCE(MAX(")) return rows(100000L);
+                        if (sql.contains("FROM patients ORDER BY patient_code DESC LIMIT 2000")) {
+                            List<Object> codes = new ArrayList<>();
+                            for (long c = 100000; c < 102000; c++) codes.add(c);
+                            return rows(codes.toArray());
+                        }
+                        return rows();
+                    }
+                    case "getGeneratedKeys": return rows(generated[0]);
+                    default: return null;
+                }
+            });
+        }
+
+        // Every table asked for by name exists (no archive tables), every column asked for by name exists, and the bill_items covering index includes bill_id
+        private static DatabaseMetaData metaData() {
+            return proxy(DatabaseMetaData.class, (m, a) -> {
+                switch (m) {
+                    case "getTables": return String.valueOf(a[2]).contains("%") ? named() : named(Map.of("TABLE_NAME", String.valueOf(a[2]))); // no archives
+                    case "getColumns": return a[3] == null ? named() : named(Map.of("TABLE_NAME", String.valueOf(a[2]), "COLUMN_NAME", String.valueOf(a[3])));
+                    case "getIndexInfo": return named(Map.of("INDEX_NAME", "idx_bill_items_date_item", "COLUMN_NAME", "bill_id"));
+                    case "getSearchStringEscape": return "\\";
+                    case "getDriverName": return "Stub";
+                    default: return null;
+                }
+            });
+        }
+
+        // Result set of rows read by column label
+        @SafeVarargs
+        private static ResultSet named(Map<String, Object>... values) {
+            int[] at = {-1};
+            return proxy(ResultSet.class, (m, a) -> {
+                switch (m) {
+                    case "next": return ++at[0] < values.length;
+                    case "getString": { Object v = a[0] instanceof String ? values[at[0]].get(a[0]) : null; return v == null ? null : String.valueOf(v); }
+                    default: return null;
+                }
+            });
+        }
+
+        // Single-column result set (each value is one row); other columns read as null
+        private static ResultSet rows(Object... values) {
+            int[] at = {-1};
+            return proxy(ResultSet.class, (m, a) -> {
+                switch (m) {
+                    case "next": return ++at[0] < values.length;
+                    case "getLong": case "getInt": return a[0] instanceof Integer && (Integer) a[0] == 1 ? ((Number) values[at[0]]).longValue() : 0L;
+                    case "getString": return a[0] instanceof Integer && (Integer) a[0] == 1 ? String.valueOf(values[at[0]]) : null;
+                    case "wasNull": return true;
+                    default: return null;
+                }
+            });
+        }
+
+        private static void pause(long ms) {
+            if (ms <= 0) return;
+            try { Thread.sleep(ms); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+        }
+
+        interface Handler { Object call(String method, Object[] args) throws Exception; }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, Handler h) {
+            return (T) Proxy.newProxyInstance(LoadSimulator.class.getClassLoader(), new Class<?>[]{type}, (p, method, args) -> {
+                Object v = h.call(method.getName(), args);
+                Class<?> rt = method.getReturnType();
+                if (v == null && rt.isPrimitive() && rt != void.class) {
+                    if (rt == boolean.class) return false;
+                    if (rt == int.class) return 0;
+                    if (rt == long.class) return 0L;
+                    if (rt == double.class) return 0.0;
+                    return 0;
+                }
+                if (v instanceof Long && rt == int.class) return ((Long) v).intValue();
+                return v;
+            });
+        }
+    }
+}
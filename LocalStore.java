@@ -0,0 +1,591 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.*;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import javax.swing.table.DefaultTableModel;
+
+// Keeps a desk terminal working while the LAN or the MySQL host is down. Everything lives in ~/.hms/local:
+//  - journal.dat: memory-mapped write-behind journal of registrations, bookings, admissions and bills that
+//    could not reach the database. A background thread replays it in order once the database answers.
+//  - snapshot.dat: the doctor lists and the most recent patients, so lookups are answered from memory
+//    (and still work offline). Online, a remembered patient older than a minute is re-read first.
+// The directory can be moved with -Dhms.local=<dir>.
+// Replays are idempotent: each entry is recorded in sync_log (terminal, seq) in the same transaction as the
+// write, so a crash between commit and journal update never applies an entry twice. Conflicts are resolved
+// on replay and listed for the desk: provisional patient codes / invoice numbers get real ones, a slot or
+// bed someone else took meanwhile is swapped for the next free one.
+public class LocalStore {
+
+    public static final long QUEUED = 0; // returned instead of an id when the write went to the journal
+    static final long PROVISIONAL_BASE = 900_000_000L; // offline ids at or above this are always replaced on sync
+
+    private static final Path DIR = Paths.get(System.getProperty("hms.local", Paths.get(System.getProperty("user.home"), ".hms", "local").toString()));
+    private static final int MAGIC = 0x484D534A, VERSION = 1, HEADER = 64, INITIAL_SIZE = 1 << 20;
+    // header longs: synced offset, end offset, next provisional patient code, next provisional invoice, next entry seq
+    private static final int H_SYNCED = 8, H_END = 16, H_PATIENT = 24, H_INVOICE = 32, H_SEQ = 40;
+    private static final long SYNC_EVERY_MS = 5000, SNAPSHOT_EVERY_MS = 10 * 60 * 1000, PATIENT_TTL_MS = 60 * 1000;
+    private static final int RECENT_PATIENTS = 2000;
+    private static final String[] PATIENT_COLS = {"patient_code", "name", "phone", "age", "sex", "national_id", "address", "email"};
+
+    private static FileChannel journalFile;
+    private static MappedByteBuffer journal;
+    private static String terminal;
+    private static volatile boolean schemaReady = false;
+    private static volatile long snapshotAt = 0;
+    private static volatile long pendingCount = 0; // entries between the synced and end offsets
+    private static ScheduledExecutorService syncer;
+
+    private static final Map<String, Long> remaps = new ConcurrentHashMap<>(); // "p|<offline code>" / "b|<offline invoice>" -> real
+    private static final List<String> conflicts = new CopyOnWriteArrayList<>();
+    private static final Map<String, Map<String, String>> patients = Collections.synchronizedMap(new LinkedHashMap<String, Map<String, String>>(256, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<String, Map<String, String>> eldest) {
+            if (size() <= RECENT_PATIENTS) return false;
+            rememberedAt.remove(eldest.getKey());
+            return true;
+        }
+    });
+    private static final Map<String, Long> rememberedAt = new ConcurrentHashMap<>();
+
+    private static class Entry {
+        final List<String> f; final long next;
+        Entry(List<String> f, long next) { this.f = f; this.next = next; }
+    }
+
+    // Opens the journal and snapshot and starts the sync thread; safe to call from every dashboard
+    public static synchronized void start() {
+        if (syncer != null) return;
+        open();
+        syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "local-sync"); t.setDaemon(true); t.setPriority(Thread.MIN_PRIORITY); return t;
+        });
+        syncer.scheduleWithFixedDelay(LocalStore::tick, 0, SYNC_EVERY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // Journal, remaps and snapshot, without the sync thread
+    static synchronized void open() {
+        if (journal != null) return;
+        try {
+            Files.createDirectories(DIR);
+            terminal = terminalId();
+            openJournal();
+            loadRemaps();
+            loadSnapshot();
+        } catch (IOException e) {
+            System.err.println("Local store unavailable, working online only: " + e.getMessage());
+            journal = null;
+        }
+    }
+
+    // ---------------------------------------------------------------- reads
+
+    // Patient by code: from memory when recently read (or when offline), else the database (and remembered);
+    // the remembered copy is still the answer when the database cannot be asked
+    public static Map<String, String> findPatient(String code) { return findPatient(code, null); }
+
+    // 'chooser' picks when the code belongs to different patients at several branches (null: not found)
+    public static Map<String, String> findPatient(String code, ShardRouter.Chooser chooser) {
+        code = code.trim();
+        Long real = remaps.get("p|" + code);
+        if (real != null) code = String.valueOf(real);
+        Map<String, String> local = patients.get(code);
+        if (local != null && (DBConnection.isOffline() || System.currentTimeMillis() - rememberedAt.getOrDefault(code, 0L) < PATIENT_TTL_MS)) return local;
+        try (Connection con = DBConnection.connectQuietly()) {
+            if (con == null) return local;
+            Map<String, String> p = StaffDashboard.findPatient(con, code);
+            if (ShardRouter.isSharded() && (p == null || ShardRouter.isCopy(con, code))) { // registered at another branch
+                Map<String, String> owner = ShardRouter.findPatient(code, chooser);
+                if (owner != null) p = owner;
+            }
+            if (p != null) { remember(p); return p; }
+            if (pendingCount > 0) return local; // may be a registration still waiting in the journal
+            if (local != null) forget(code); // deleted meanwhile
+            return null;
+        } catch (SQLException e) { e.printStackTrace(); return local; }
+    }
+
+    public static void remember(Map<String, String> p) { remember(p, System.currentTimeMillis()); }
+
+    private static void remember(Map<String, String> p, long at) {
+        patients.put(p.get("patient_code"), Collections.unmodifiableMap(new HashMap<>(p)));
+        rememberedAt.put(p.get("patient_code"), at);
+    }
+
+    public static void forget(String code) { patients.remove(code); rememberedAt.remove(code); }
+
+
+    // ---------------------------------------------------------------- writes
+
+    // true = saved in the database, false = queued for sync
+    public static boolean registerPatient(long code, String name, String address, String phone, String nationalId, int age, String sex, String email) throws SQLException {
+        Map<String, String> p = new HashMap<>();
+        String[] v = {String.valueOf(code), name, phone, String.valueOf(age), sex, nationalId, address, email};
+        for (int i = 0; i < PATIENT_COLS.length; i++) p.put(PATIENT_COLS[i], v[i]);
+        Connection con = onlineOrNull();
+        if (con != null) {
+            try (Connection c = con) {
+                StaffDashboard.insertPatient(c, code, name, address, phone, nationalId, age, sex, email);
+                remember(p);
+                return true;
+            } catch (SQLException e) { if (!isConnectivity(e)) throw e; }
+        }
+        queue("patient", String.valueOf(code), name, address, phone, nationalId, String.valueOf(age), sex, email);
+        remember(p);
+        return false;
+    }
+
+    // Appointment id, -1 when the slot is taken, or QUEUED
+    public static long bookAppointment(long pid, String name, String doctor, LocalDate date, int slot) throws SQLException {
+        Connection con = onlineOrNull();
+        if (con != null) {
+            try (Connection c = con) { return StaffDashboard.bookAppointment(c, pid, name, doctor, date, slot); }
+            catch (SQLException e) { if (!isConnectivity(e)) throw e; }
+        }
+        if (!SlotScheduler.hold(doctor, date, slot)) return -1;
+        queue("appt", String.valueOf(pid), name, doctor, date.toString(), String.valueOf(slot));
+        return QUEUED;
+    }
+
+    // Admission id, -1 when the bed is taken, or QUEUED
+    public static long admitPatient(long pid, String name, BedRegistry.Ward w, int bed, String disease) throws SQLException {
+        Connection con = onlineOrNull();
+        if (con != null) {
+            try (Connection c = con) { return StaffDashboard.admitPatient(c, pid, name, w, bed, disease, null); }
+            catch (SQLException e) { BedRegistry.release(BedRegistry.bedLabel(w.name, bed)); if (!isConnectivity(e)) throw e; }
+        }
+        if (!BedRegistry.hold(w, bed)) return -1;
+        queue("admit", String.valueOf(pid), name, w.name, String.valueOf(bed), disease, LocalDate.now().toString());
+        return QUEUED;
+    }
+
+    // true = saved in the database, false = queued for sync
+    public static boolean saveBill(long invoiceId, long pid, String name, String particulars, double total, DefaultTableModel items) throws SQLException {
+        Connection con = onlineOrNull();
+        if (con != null) {
+            try (Connection c = con) {
+                try { StaffDashboard.saveBill(c, invoiceId, pid, name, particulars, total, items); return true; }
+                catch (SQLException e) { c.rollback(); throw e; }
+            } catch (SQLException e) { if (!isConnectivity(e)) throw e; }
+        }
+        List<String> f = new ArrayList<>(Arrays.asList(String.valueOf(invoiceId), String.valueOf(pid), name, LocalDate.now().toString(), particulars, String.valueOf(total)));
+        for (int r = 0; r < items.getRowCount(); r++) for (int c = 0; c < 4; c++) f.add(String.valueOf(items.getValueAt(r, c)));
+        queue("bill", f.toArray(new String[0]));
+        return false;
+    }
+
+    // Ids handed out while the allocators cannot reach the database; replaced with real ones on sync
+    public static long provisionalPatientCode() { return nextProvisional(H_PATIENT); }
+
+    public static long provisionalInvoice() { return nextProvisional(H_INVOICE); }
+
+    // Direct connection only when nothing is waiting in the journal, so entries always reach the database in order
+    private static Connection onlineOrNull() throws SQLException {
+        if (journal != null && pending() > 0) { syncNow(); return null; }
+        Connection con = DBConnection.connectQuietly();
+        if (con == null && journal == null) throw new SQLException("Database not reachable");
+        return con;
+    }
+
+    private static boolean isConnectivity(SQLException e) {
+        return e instanceof SQLRecoverableException || e instanceof SQLNonTransientConnectionException || e instanceof SQLTransientConnectionException
+                || (e.getSQLState() != null && e.getSQLState().startsWith("08"));
+    }
+
+    // ---------------------------------------------------------------- status (staff header)
+
+    public static long pending() { return pendingCount; }
+
+    // Short text for the header, or "" when online with nothing queued
+    public static String status() {
+        long n = pending();
+        String s = DBConnection.isOffline() ? "Offline" + (n > 0 ? " · " + n + " queued" : "") : n > 0 ? "Syncing · " + n + " queued" : "";
+        if (!conflicts.isEmpty()) s += (s.isEmpty() ? "" : " · ") + conflicts.size() + " sync notice" + (conflicts.size() == 1 ? "" : "s");
+        return s;
+    }
+
+    // Returns and clears the notices collected during sync (changed ids, moved slots/beds, failed entries)
+    public static List<String> takeConflicts() {
+        List<String> out = new ArrayList<>(conflicts);
+        conflicts.removeAll(out);
+        return out;
+    }
+
+    private static void conflict(String message) {
+        conflicts.add(message);
+        System.err.println("SYNC: " + message);
+        try { Files.write(DIR.resolve("conflicts.log"), (java.time.LocalDateTime.now() + "  " + message + "\n").getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND); }
+        catch (IOException ignored) {}
+    }
+
+    // ---------------------------------------------------------------- journal
+
+    private static void openJournal() throws IOException {
+        journalFile = FileChannel.open(DIR.resolve("journal.dat"), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        journal = journalFile.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(INITIAL_SIZE, journalFile.size()));
+        if (journal.getInt(0) != MAGIC) {
+            journal.putInt(0, MAGIC); journal.putInt(4, VERSION);
+            journal.putLong(H_SYNCED, HEADER); journal.putLong(H_END, HEADER);
+            journal.putLong(H_PATIENT, PROVISIONAL_BASE); journal.putLong(H_INVOICE, PROVISIONAL_BASE); journal.putLong(H_SEQ, 1);
+            journal.force();
+        }
+        long n = 0;
+        for (long pos = journal.getLong(H_SYNCED), end = journal.getLong(H_END); pos < end; pos += 4 + journal.getInt((int) pos)) n++;
+        pendingCount = n;
+    }
+
+    private static synchronized long nextProvisional(int slot) {
+        if (journal == null) throw new IllegalStateException("Database not reachable");
+        long v = journal.getLong(slot);
+        journal.putLong(slot, v + 1);
+        journal.force();
+        return v;
+    }
+
+    // Record: int length, then {seq, type, fields...} each as int length + UTF-8
+    static synchronized void queue(String type, String... fields) throws SQLException {
+        if (journal == null) throw new SQLException("Database not reachable");
+        long seq = journal.getLong(H_SEQ);
+        List<byte[]> enc = new ArrayList<>();
+        enc.add(String.valueOf(seq).getBytes(StandardCharsets.UTF_8));
+        enc.add(type.getBytes(StandardCharsets.UTF_8));
+        for (String f : fields) enc.add((f == null ? "" : f).getBytes(StandardCharsets.UTF_8));
+        int len = 0;
+        for (byte[] b : enc) len += 4 + b.length;
+        long end = journal.getLong(H_END);
+        try { ensureCapacity(end + 4 + len); } catch (IOException e) { throw new SQLException("Local journal full: " + e.getMessage(), e); }
+        int pos = (int) end + 4;
+        for (byte[] b : enc) { journal.putInt(pos, b.length); pos += 4; journal.put(pos, b); pos += b.length; }
+        journal.putInt((int) end, len);
+        journal.putLong(H_SEQ, seq + 1);
+        journal.putLong(H_END, end + 4 + len); // written last: the entry only exists once the end moves past it
+        journal.force();
+        pendingCount++;
+    }
+
+    private static void ensureCapacity(long needed) throws IOException {
+        if (needed <= journal.capacity()) return;
+        long size = journal.capacity();
+        while (size < needed) size *= 2;
+        if (size > Integer.MAX_VALUE) throw new IOException("journal over 2 GB");
+        journal.force();
+        journal = journalFile.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private static synchronized Entry peek() {
+        long pos = journal.getLong(H_SYNCED);
+        if (pos >= journal.getLong(H_END)) return null;
+        int len = journal.getInt((int) pos), p = (int) pos + 4, stop = p + len;
+        List<String> f = new ArrayList<>();
+        while (p < stop) {
+            int n = journal.getInt(p); p += 4;
+            byte[] b = new byte[n];
+            journal.get(p, b); p += n;
+            f.add(new String(b, StandardCharsets.UTF_8));
+        }
+        return new Entry(f, pos + 4 + len);
+    }
+
+    private static synchronized void advance(long to) {
+        journal.putLong(H_SYNCED, to);
+        pendingCount = Math.max(0, pendingCount - 1);
+        if (to == journal.getLong(H_END)) { journal.putLong(H_END, HEADER); journal.putLong(H_SYNCED, HEADER); pendingCount = 0; } // drained: start over at the top
+        journal.force();
+    }
+
+    // ---------------------------------------------------------------- sync
+
+    private static void syncNow() { if (syncer != null) syncer.execute(LocalStore::tick); }
+
+    private static void tick() {
+        boolean snapshotDue = System.currentTimeMillis() - snapshotAt > SNAPSHOT_EVERY_MS;
+        if (!snapshotDue && pending() == 0 && !DBConnection.isOffline()) return;
+        try (Connection con = DBConnection.connectQuietly()) {
+            if (con == null) return;
+            if (journal != null) drain(con);
+            if (snapshotDue) refreshSnapshot(con);
+        } catch (SQLException e) {
+            if (!isConnectivity(e)) e.printStackTrace();
+        } catch (Exception e) { e.printStackTrace(); }
+    }
+
+    static void drain(Connection con) throws SQLException {
+        Entry e;
+        while ((e = peek()) != null) {
+            try { apply(con, e.f); }
+            catch (SQLException ex) {
+                if (isConnectivity(ex)) throw ex;
+                try { con.rollback(); con.setAutoCommit(true); } catch (SQLException ignored) {}
+                conflict("Could not sync " + e.f.get(1) + " " + e.f.subList(2, Math.min(4, e.f.size())) + ": " + ex.getMessage());
+            }
+            advance(e.next);
+        }
+    }
+
+    private static void ensureSchema(Connection con) throws SQLException {
+        if (schemaReady) return;
+        con.createStatement().executeUpdate("CREATE TABLE IF NOT EXISTS sync_log (terminal VARCHAR(40) NOT NULL, seq BIGINT NOT NULL, result BIGINT NOT NULL, "
+                + "synced_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, PRIMARY KEY (terminal, seq))");
+        BillItems.ensureSchema(con);
+        schemaReady = true;
+    }
+
+    static void apply(Connection con, List<String> f) throws SQLException {
+        ensureSchema(con); // DDL commits implicitly, so it stays out of the entry's transaction
+        long seq = Long.parseLong(f.get(0));
+        String type = f.get(1);
+        PreparedStatement pst = con.prepareStatement("SELECT result FROM sync_log WHERE terminal=? AND seq=?");
+        pst.setString(1, terminal); pst.setLong(2, seq);
+        ResultSet rs = pst.executeQuery();
+        if (rs.next()) { // applied before the journal could record it
+            if (type.equals("patient")) remap("p", f.get(2), rs.getLong(1));
+            if (type.equals("bill")) remap("b", f.get(2), rs.getLong(1));
+            return;
+        }
+        try {
+            switch (type) {
+                case "patient": syncPatient(con, seq, f); break;
+                case "appt": syncAppointment(con, seq, f); break;
+                case "admit": syncAdmission(con, seq, f); break;
+                case "bill": syncBill(con, seq, f); break;
+                default: conflict("Unknown journal entry " + type);
+            }
+        } finally { con.setAutoCommit(true); }
+    }
+
+    // Inside the entry's transaction, before the write itself (the write helpers commit)
+    private static void logEntry(Connection con, long seq, long result) throws SQLException {
+        con.setAutoCommit(false);
+        PreparedStatement pst = con.prepareStatement("INSERT INTO sync_log (terminal, seq, result) VALUES (?,?,?)");
+        pst.setString(1, terminal); pst.setLong(2, seq); pst.setLong(3, result);
+        pst.executeUpdate();
+    }
+
+    private static void syncPatient(Connection con, long seq, List<String> f) throws SQLException {
+        String offline = f.get(2);
+        long code = mapped("p", offline);
+        if (code >= PROVISIONAL_BASE) code = IdAllocator.PATIENT_CODES.next();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                logEntry(con, seq, code);
+                StaffDashboard.insertPatient(con, code, f.get(3), f.get(4), f.get(5), f.get(6), Integer.parseInt(f.get(7)), f.get(8), f.get(9));
+                con.commit();
+                break;
+            } catch (SQLIntegrityConstraintViolationException taken) {
+                con.rollback();
+                if (code == Long.parseLong(offline) && code < PROVISIONAL_BASE && existing(con, "SELECT name FROM patients WHERE patient_code=?", code, f.get(3))) {
+                    logEntry(con, seq, code); con.commit(); // saved online before the connection dropped: already applied
+                    break;
+                }
+                if (attempt > 0) throw taken;
+                code = IdAllocator.PATIENT_CODES.next(); // code used meanwhile: take a fresh one
+            }
+        }
+        if (code != Long.parseLong(offline)) {
+            remap("p", offline, code);
+            NameIndex.remove(Long.parseLong(offline));
+            NameIndex.put(code, f.get(3));
+            conflict("Patient " + f.get(3) + " registered offline as " + offline + " now has ID " + code);
+        }
+        DuplicateDetector.add(code, f.get(3), f.get(5), f.get(6), Integer.parseInt(f.get(7)));
+        Map<String, String> p = patients.remove(offline);
+        if (p != null) { p = new HashMap<>(p); p.put("patient_code", String.valueOf(code)); remember(p); }
+    }
+
+    private static void syncAppointment(Connection con, long seq, List<String> f) throws SQLException {
+        long pid = patientFor(f.get(2));
+        String doctor = f.get(4);
+        LocalDate date = LocalDate.parse(f.get(5));
+        int slot = Integer.parseInt(f.get(6));
+        SlotScheduler.unmark(doctor, date, slot); // drop this terminal's offline hold, the database decides now
+        logEntry(con, seq, 0);
+        if (StaffDashboard.bookAppointment(con, pid, f.get(3), doctor, date, slot) >= 0) return;
+        // the failed booking rolled back its log row; log again only when there is another attempt
+        int alt = SlotScheduler.nextFree(doctor, date);
+        if (alt >= 0) {
+            logEntry(con, seq, 0);
+            if (StaffDashboard.bookAppointment(con, pid, f.get(3), doctor, date, alt) >= 0) {
+                conflict("Appointment of " + f.get(3) + " with " + doctor + " on " + date + " moved from " + SlotScheduler.label(slot) + " to " + SlotScheduler.label(alt));
+                return;
+            }
+        }
+        logEntry(con, seq, -1); con.commit();
+        conflict("Appointment of " + f.get(3) + " with " + doctor + " on " + date + " at " + SlotScheduler.label(slot) + " could not be booked: no free slot left");
+    }
+
+    private static void syncAdmission(Connection con, long seq, List<String> f) throws SQLException {
+        long pid = patientFor(f.get(2));
+        String name = f.get(3), ward = f.get(4), disease = f.get(6);
+        int bed = Integer.parseInt(f.get(5));
+        Date admitted = Date.valueOf(f.get(7));
+        BedRegistry.release(BedRegistry.bedLabel(ward, bed)); // drop this terminal's offline hold
+        BedRegistry.reload();
+        BedRegistry.Ward w = BedRegistry.ward(ward);
+        if (w == null) throw new SQLException("ward " + ward + " no longer exists");
+        logEntry(con, seq, 0);
+        if (StaffDashboard.admitPatient(con, pid, name, w, bed, disease, admitted) >= 0) return;
+        int alt = BedRegistry.nextFree(w, bed);
+        if (alt > 0) {
+            logEntry(con, seq, 0);
+            if (StaffDashboard.admitPatient(con, pid, name, w, alt, disease, admitted) >= 0) {
+                conflict("Bed " + BedRegistry.bedLabel(ward, bed) + " was taken meanwhile: " + name + " is now in " + BedRegistry.bedLabel(ward, alt));
+                return;
+            }
+        }
+        logEntry(con, seq, -1); con.commit();
+        conflict("Admission of " + name + " to " + BedRegistry.bedLabel(ward, bed) + " could not be saved: " + ward + " ward is full");
+    }
+
+    private static void syncBill(Connection con, long seq, List<String> f) throws SQLException {
+        String offline = f.get(2);
+        long invoice = mapped("b", offline), pid = patientFor(f.get(3));
+        if (invoice >= PROVISIONAL_BASE) invoice = IdAllocator.INVOICES.next();
+        DefaultTableModel items = new DefaultTableModel(new Object[]{"Item", "Qty", "Rate", "Total"}, 0);
+        for (int i = 8; i + 3 < f.size(); i += 4) items.addRow(new Object[]{f.get(i), f.get(i + 1), f.get(i + 2), f.get(i + 3)});
+        for (int attempt = 0; ; attempt++) {
+            try {
+                logEntry(con, seq, invoice);
+                StaffDashboard.saveBill(con, invoice, pid, f.get(4), Date.valueOf(f.get(5)), f.get(6), Double.parseDouble(f.get(7)), items);
+                break;
+            } catch (SQLIntegrityConstraintViolationException taken) {
+                con.rollback();
+                if (invoice == Long.parseLong(offline) && invoice < PROVISIONAL_BASE && existing(con, "SELECT patient_code FROM bills WHERE id=?", invoice, String.valueOf(pid))) {
+                    logEntry(con, seq, invoice); con.commit(); // saved online before the connection dropped: already applied
+                    break;
+                }
+                if (attempt > 0) throw taken;
+                invoice = IdAllocator.INVOICES.next();
+            }
+        }
+        if (invoice != Long.parseLong(offline)) {
+            remap("b", offline, invoice);
+            conflict("Invoice " + offline + " for " + f.get(4) + " (made offline) is now invoice " + invoice);
+        }
+    }
+
+    // Whether the row with this id is the one the entry would have written (same patient name / patient code)
+    private static boolean existing(Connection con, String sql, long id, String expected) throws SQLException {
+        PreparedStatement pst = con.prepareStatement(sql);
+        pst.setLong(1, id);
+        ResultSet rs = pst.executeQuery();
+        return rs.next() && expected.trim().equalsIgnoreCase(String.valueOf(rs.getString(1)).trim());
+    }
+
+    private static long mapped(String kind, String id) {
+        Long real = remaps.get(kind + "|" + id);
+        return real != null ? real : Long.parseLong(id);
+    }
+
+    // Patient code for a queued booking / admission / bill; a patient that never reached the database stops it
+    private static long patientFor(String id) throws SQLException {
+        long pid = mapped("p", id);
+        if (pid >= PROVISIONAL_BASE) throw new SQLException("patient " + id + " was never registered");
+        return pid;
+    }
+
+    private static void remap(String kind, String from, long to) {
+        if (remaps.put(kind + "|" + from, to) != null) return;
+        try { Files.write(DIR.resolve("remaps.txt"), (kind + " " + from + " " + to + "\n").getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND); }
+        catch (IOException e) { e.printStackTrace(); }
+    }
+
+    private static void loadRemaps() throws IOException {
+        Path file = DIR.resolve("remaps.txt");
+        if (!Files.exists(file)) return;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String[] p = line.trim().split(" ");
+            if (p.length == 3) remaps.put(p[0] + "|" + p[1], Long.parseLong(p[2]));
+        }
+    }
+
+    // Stable id of this desk (also used by AuditLog)
+    static String terminalId() throws IOException {
+        Files.createDirectories(DIR);
+        Path file = DIR.resolve("terminal.id");
+        if (Files.exists(file)) return new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+        String id = UUID.randomUUID().toString().substring(0, 18);
+        Files.write(file, id.getBytes(StandardCharsets.UTF_8));
+        return id;
+    }
+
+    // ---------------------------------------------------------------- snapshot
+
+    private static void refreshSnapshot(Connection con) throws SQLException {
+        ReferenceData.load(con);
+        ResultSet rs = con.createStatement().executeQuery("SELECT * FROM patients ORDER BY patient_code DESC LIMIT " + RECENT_PATIENTS);
+        List<Map<String, String>> recent = new ArrayList<>();
+        while (rs.next()) {
+            Map<String, String> p = new HashMap<>();
+            for (String col : PATIENT_COLS) p.put(col, rs.getString(col));
+            recent.add(p);
+        }
+        for (int i = recent.size() - 1; i >= 0; i--) remember(recent.get(i)); // newest ends up most recently used
+        snapshotAt = System.currentTimeMillis();
+        try { saveSnapshot(); } catch (IOException e) { e.printStackTrace(); }
+    }
+
+    // Layout: int dept count, {dept, int n, names}; int patient count, {8 columns}; strings as writeUTF
+    private static void saveSnapshot() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 * 1024);
+        DataOutputStream out = new DataOutputStream(bytes);
+        Map<String, List<String>> doctors = ReferenceData.current();
+        if (doctors == null) doctors = Collections.emptyMap();
+        out.writeInt(doctors.size());
+        for (Map.Entry<String, List<String>> d : doctors.entrySet()) {
+            out.writeUTF(String.valueOf(d.getKey()));
+            out.writeInt(d.getValue().size());
+            for (String n : d.getValue()) out.writeUTF(n);
+        }
+        List<Map<String, String>> recent;
+        synchronized (patients) { recent = new ArrayList<>(patients.values()); }
+        out.writeInt(recent.size());
+        for (Map<String, String> p : recent) for (String col : PATIENT_COLS) out.writeUTF(p.get(col) == null ? "" : p.get(col));
+        out.flush();
+
+        Path tmp = DIR.resolve("snapshot.tmp");
+        Files.deleteIfExists(tmp);
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_WRITE, 0, bytes.size());
+            map.put(bytes.toByteArray());
+            map.force();
+        }
+        Files.move(tmp, DIR.resolve("snapshot.dat"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void loadSnapshot() throws IOException {
+        Path file = DIR.resolve("snapshot.dat");
+        if (!Files.exists(file)) return;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            Map<String, List<String>> doctors = new HashMap<>();
+            for (int d = map.getInt(); d > 0; d--) {
+                String dept = utf(map);
+                List<String> names = new ArrayList<>();
+                for (int n = map.getInt(); n > 0; n--) names.add(utf(map));
+                doctors.put(dept, names);
+            }
+            ReferenceData.restore(doctors);
+            for (int n = map.getInt(); n > 0; n--) {
+                Map<String, String> p = new HashMap<>();
+                for (String col : PATIENT_COLS) p.put(col, utf(map));
+                remember(p, 0); // may be old: re-read on first lookup while online
+            }
+        } catch (java.nio.BufferUnderflowException e) {
+            System.err.println("Ignoring damaged local snapshot");
+        }
+    }
+
+    private static String utf(MappedByteBuffer map) {
+        byte[] b = new byte[map.getShort() & 0xFFFF];
+        map.get(b);
+        return new String(b, StandardCharsets.UTF_8); // writeUTF's modified UTF-8 equals UTF-8 outside NUL / surrogates
+    }
+}
@@ -28,18 +28,8 @@ public class Login extends JFrame {
         setContentPane(mainPanel);
 
        //card panel
-        JPanel card = new JPanel(null) {
-            @Override
-            protected void paintComponent(Graphics g) {
-                super.paintComponent(g);
-                Graphics2D g2 = (Graphics2D) g.create();
-                // Semi-transparent white (170 alpha)
-                g2.setColor(new Color(255, 255, 255, 170)); 
-                g2.fillRect(0, 0, getWidth(), getHeight());
-                g2.dispose();
-            }
-        };
-        card.setOpaque(false); 
+        // Semi-transparent white (170 alpha)
+        JPanel card = UIUtils.createGlassPanel(null, new Color(255, 255, 255, 170));
         card.setSize(550, 750); 
         card.setBorder(BorderFactory.createLineBorder(new Color(200, 200, 200), 2));
         mainPanel.add(card);
@@ -151,6 +141,8 @@ public class Login extends JFrame {
             passText.setText("");
         }
         roleCombo.getActionListeners()[0].actionPerformed(null);
+
+        Warmup.start();
     }
 
     private void centerCard(JPanel card) { card.setLocation((getWidth() - card.getWidth()) / 2, (getHeight() - card.getHeight()) / 2); }
@@ -175,6 +167,7 @@ public class Login extends JFrame {
 
     // --- HANDLE LOGIN ---
     private void handleLogin() {
+        Warmup.markClick();
         String u = userText.getText().trim();
         String p = new String(passText.getPassword()).trim();
         String role = roleCombo.getSelectedItem().toString().toLowerCase();
@@ -225,6 +218,8 @@ public class Login extends JFrame {
                 } else { prefs.remove("user"); prefs.remove("pass"); prefs.remove("role"); }
 
                 int uid = rs.getInt("id");
+                AuditLog.setUser(u);
+                AuditLog.record("login", "user", uid, role);
                 String fullName = rs.getString("name"); 
                 
                 // --- AUTO CLEAR FIELDS AFTER LOGIN ---
@@ -233,6 +228,11 @@ public class Login extends JFrame {
                 captchaInput.setText("");
                 chkNewUser.setSelected(false);
                 
+                // Start loading the dashboard's data in parallel with building its window
+                DashboardPrefetch.reset();
+                if (role.equals("admin")) AdminDashboard.prefetch();
+                else if (role.equals("staff")) StaffDashboard.prefetch();
+
                 dispose();
                 if (role.equals("admin")) new AdminDashboard().setVisible(true);
                 else if (role.equals("doctor")) new DoctorDashboard(uid, fullName).setVisible(true);
@@ -384,6 +384,7 @@ public class Login extends JFrame {
             // FLATLAF THEME SETUP
             com.formdev.flatlaf.FlatIntelliJLaf.setup();
         } catch (Exception e) { e.printStackTrace(); }
+        EdtMonitor.install();
 
         java.awt.EventQueue.invokeLater(() -> {
             new Login().setVisible(true);
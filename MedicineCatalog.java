@@ -0,0 +1,368 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import javax.swing.*;
+import javax.swing.text.BadLocationException;
+import java.awt.Rectangle;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Drug master (medicines) with autocomplete for the Rx box of PrescriptionDialog.
+// The catalog is held as a radix trie over the lower-cased names. Names are inserted in sorted order, so every
+// node covers a contiguous range [lo, hi) of the sorted array, and every node keeps its TOP most used entries
+// precomputed. A suggestion is a walk down the prefix plus a merge of the doctor's own favourites that fall in
+// the node's range with the node's top list: no scan of the subtree, whatever the formulary size.
+// Prescriptions are also stored as line items (prescription_items) next to the free text; usage counts per
+// doctor (doctor_medicine_usage) drive the ranking.
+public class MedicineCatalog {
+
+    public static class Medicine {
+        public final int id; public final String name, form, dosage, duration; int uses;
+        Medicine(int id, String name, String form, String dosage, String duration, int uses) {
+            this.id = id; this.name = name; this.form = form; this.dosage = dosage; this.duration = duration; this.uses = uses;
+        }
+        // Rx line template: "Name - dosage - duration"
+        public String line() { return name + " - " + (dosage == null ? "" : dosage) + " - " + (duration == null ? "" : duration); }
+        public String toString() { return name + (form == null || form.isEmpty() ? "" : "  (" + form + ")") + "   " + dosage + ", " + duration; }
+    }
+
+    private static final int TOP = 10;
+
+    private static final class Node {
+        final char[] label; Node[] kids = new Node[0]; int lo, hi; int[] top;
+        Node(char[] label) { this.label = label; }
+    }
+
+    // Immutable once built; swapped in whole
+    private static final class Trie {
+        final Medicine[] sorted; final Node root = new Node(new char[0]); final Map<Integer, Integer> posById = new HashMap<>();
+        Trie(List<Medicine> meds) {
+            sorted = meds.toArray(new Medicine[0]);
+            Arrays.sort(sorted, (a, b) -> a.name.toLowerCase(Locale.ROOT).compareTo(b.name.toLowerCase(Locale.ROOT)));
+            for (int i = 0; i < sorted.length; i++) { insert(sorted[i].name.toLowerCase(Locale.ROOT).toCharArray(), i); posById.put(sorted[i].id, i); }
+            finish(root);
+        }
+
+        private void insert(char[] key, int pos) {
+            Node n = root;
+            int at = 0;
+            while (true) {
+                n.hi = pos + 1;
+                if (at == key.length) return;
+                Node child = n.kids.length == 0 ? null : n.kids[n.kids.length - 1]; // sorted input: only the last child can share a prefix
+                int common = 0;
+                if (child != null) while (common < child.label.length && at + common < key.length && child.label[common] == key[at + common]) common++;
+                if (child == null || common == 0) {
+                    Node leaf = new Node(Arrays.copyOfRange(key, at, key.length));
+                    leaf.lo = pos; leaf.hi = pos + 1;
+                    n.kids = Arrays.copyOf(n.kids, n.kids.length + 1);
+                    n.kids[n.kids.length - 1] = leaf;
+                    return;
+                }
+                if (common < child.label.length) { // split the edge
+                    Node mid = new Node(Arrays.copyOf(child.label, common));
+                    mid.lo = child.lo; mid.hi = child.hi;
+                    Node rest = new Node(Arrays.copyOfRange(child.label, common, child.label.length));
+                    rest.kids = child.kids; rest.lo = child.lo; rest.hi = child.hi;
+                    mid.kids = new Node[]{rest};
+                    n.kids[n.kids.length - 1] = mid;
+                    child = mid;
+                }
+                n = child;
+                at += common;
+            }
+        }
+
+        // Precomputes each node's most used entries from its children's lists
+        private void finish(Node n) {
+            List<Integer> cand = new ArrayList<>();
+            int covered = n.lo;
+            for (Node k : n.kids) {
+                finish(k);
+                for (int i = covered; i < k.lo; i++) cand.add(i); // names ending at this node
+                for (int p : k.top) cand.add(p);
+                covered = k.hi;
+            }
+            for (int i = covered; i < n.hi; i++) cand.add(i);
+            cand.sort((a, b) -> sorted[b].uses != sorted[a].uses ? Integer.compare(sorted[b].uses, sorted[a].uses) : Integer.compare(a, b));
+            n.top = new int[Math.min(TOP, cand.size())];
+            for (int i = 0; i < n.top.length; i++) n.top[i] = cand.get(i);
+        }
+
+        Node find(String prefix) {
+            char[] p = prefix.toLowerCase(Locale.ROOT).toCharArray();
+            Node n = root;
+            int at = 0;
+            while (at < p.length) {
+                Node next = null;
+                for (Node k : n.kids) if (k.label[0] == p[at]) { next = k; break; }
+                if (next == null) return null;
+                int i = 0;
+                while (i < next.label.length && at < p.length) { if (next.label[i] != p[at]) return null; i++; at++; }
+                n = next;
+            }
+            return n;
+        }
+    }
+
+    private static volatile Trie trie = new Trie(Collections.emptyList());
+    private static volatile boolean schemaReady = false, loaded = false;
+    // Per doctor: medicine id -> uses, plus the ids ranked by uses (rebuilt when a prescription is saved)
+    private static final Map<String, Map<Integer, Integer>> doctorUses = new ConcurrentHashMap<>();
+    private static final Map<String, int[]> doctorRanked = new ConcurrentHashMap<>();
+
+    // Starter formulary for an empty table: {name, form, dosage, duration}
+    private static final String[][] SEED = {
+        {"Paracetamol 500mg", "Tablet", "1-1-1", "3 days"}, {"Paracetamol 250mg/5ml", "Syrup", "5ml TDS", "3 days"},
+        {"Ibuprofen 400mg", "Tablet", "1-0-1 after food", "3 days"}, {"Diclofenac 50mg", "Tablet", "1-0-1 after food", "5 days"},
+        {"Amoxicillin 500mg", "Capsule", "1-1-1", "5 days"}, {"Amoxicillin + Clavulanate 625mg", "Tablet", "1-0-1", "5 days"},
+        {"Azithromycin 500mg", "Tablet", "1-0-0", "3 days"}, {"Cefixime 200mg", "Tablet", "1-0-1", "7 days"},
+        {"Ciprofloxacin 500mg", "Tablet", "1-0-1", "5 days"}, {"Doxycycline 100mg", "Capsule", "1-0-1", "7 days"},
+        {"Metronidazole 400mg", "Tablet", "1-1-1", "5 days"}, {"Albendazole 400mg", "Tablet", "0-0-1", "1 day"},
+        {"Fluconazole 150mg", "Capsule", "1-0-0", "1 day"}, {"Clotrimazole 1% cream", "Cream", "Apply twice daily", "14 days"},
+        {"Omeprazole 20mg", "Capsule", "1-0-0 before breakfast", "14 days"}, {"Pantoprazole 40mg", "Tablet", "1-0-0 before breakfast", "14 days"},
+        {"Ranitidine 150mg", "Tablet", "1-0-1", "14 days"}, {"Domperidone 10mg", "Tablet", "1-1-1 before food", "5 days"},
+        {"Ondansetron 4mg", "Tablet", "SOS", "3 days"}, {"Loperamide 2mg", "Capsule", "SOS", "2 days"},
+        {"ORS", "Sachet", "After each loose stool", "3 days"}, {"Zinc 20mg", "Tablet", "1-0-0", "14 days"},
+        {"Cetirizine 10mg", "Tablet", "0-0-1", "5 days"}, {"Levocetirizine 5mg", "Tablet", "0-0-1", "5 days"},
+        {"Chlorpheniramine 4mg", "Tablet", "1-0-1", "5 days"}, {"Montelukast 10mg", "Tablet", "0-0-1", "14 days"},
+        {"Salbutamol 100mcg", "Inhaler", "2 puffs SOS", "30 days"}, {"Prednisolone 5mg", "Tablet", "As directed", "5 days"},
+        {"Metformin 500mg", "Tablet", "1-0-1 after food", "30 days"}, {"Glimepiride 1mg", "Tablet", "1-0-0 before breakfast", "30 days"},
+        {"Amlodipine 5mg", "Tablet", "1-0-0", "30 days"}, {"Losartan 50mg", "Tablet", "1-0-0", "30 days"},
+        {"Telmisartan 40mg", "Tablet", "1-0-0", "30 days"}, {"Atorvastatin 10mg", "Tablet", "0-0-1", "30 days"},
+        {"Aspirin 75mg", "Tablet", "0-1-0 after food", "30 days"}, {"Furosemide 40mg", "Tablet", "1-0-0", "7 days"},
+        {"Iron + Folic Acid", "Tablet", "0-1-0", "30 days"}, {"Calcium + Vitamin D3", "Tablet", "0-0-1", "30 days"},
+        {"Vitamin B Complex", "Tablet", "1-0-0", "30 days"}, {"Multivitamin", "Tablet", "1-0-0", "30 days"},
+    };
+
+    public static void ensureSchema(Connection con) throws SQLException {
+        if (schemaReady) return;
+        Statement st = con.createStatement();
+        st.executeUpdate("CREATE TABLE IF NOT EXISTS medicines ("
+                + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                + "name VARCHAR(150) NOT NULL UNIQUE, "
+                + "form VARCHAR(40), "
+                + "default_dosage VARCHAR(60), "
+                + "default_duration VARCHAR(40), "
+                + "active TINYINT NOT NULL DEFAULT 1)");
+        st.executeUpdate("CREATE TABLE IF NOT EXISTS doctor_medicine_usage ("
+                + "doctor_name VARCHAR(100) NOT NULL, "
+                + "medicine_id INT NOT NULL, "
+                + "uses INT NOT NULL DEFAULT 0, "
+                + "PRIMARY KEY (doctor_name, medicine_id))");
+        st.executeUpdate("CREATE TABLE IF NOT EXISTS prescription_items ("
+                + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                + "prescription_id INT NOT NULL, "
+                + "line_no INT NOT NULL, "
+                + "medicine_id INT NULL, "
+                + "medicine_name VARCHAR(150) NOT NULL, "
+                + "dosage VARCHAR(60), "
+                + "duration VARCHAR(40), "
+                + "INDEX idx_prescription_items_rx (prescription_id), "
+                + "INDEX idx_prescription_items_med (medicine_id))");
+        ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM medicines");
+        if (rs.next() && rs.getLong(1) == 0) {
+            try (PreparedStatement pst = con.prepareStatement("INSERT IGNORE INTO medicines (name, form, default_dosage, default_duration) VALUES (?,?,?,?)")) {
+                for (String[] m : SEED) { for (int i = 0; i < 4; i++) pst.setString(i + 1, m[i]); pst.addBatch(); }
+                pst.executeBatch();
+            }
+        }
+        schemaReady = true;
+    }
+
+    // Catalog with overall usage, then the doctor's own counts. Run in the background when the doctor logs in;
+    // a second caller (the Rx box opening early) waits for the first instead of loading it again.
+    public static synchronized void load(String doctor) {
+        try (Connection con = DBConnection.connect()) {
+            if (con == null) return;
+            ensureSchema(con);
+            if (!loaded) {
+                List<Medicine> meds = new ArrayList<>();
+                ResultSet rs = con.createStatement().executeQuery("SELECT m.id, m.name, m.form, m.default_dosage, m.default_duration, COALESCE(SUM(u.uses),0) AS uses "
+                        + "FROM medicines m LEFT JOIN doctor_medicine_usage u ON u.medicine_id=m.id WHERE m.active=1 GROUP BY m.id");
+                while (rs.next()) meds.add(new Medicine(rs.getInt("id"), rs.getString("name"), rs.getString("form"), rs.getString("default_dosage"), rs.getString("default_duration"), rs.getInt("uses")));
+                install(meds);
+            }
+            if (doctor != null && !doctorUses.containsKey(doctor)) {
+                Map<Integer, Integer> uses = new ConcurrentHashMap<>();
+                PreparedStatement pst = con.prepareStatement("SELECT medicine_id, uses FROM doctor_medicine_usage WHERE doctor_name=?");
+                pst.setString(1, doctor);
+                ResultSet rs = pst.executeQuery();
+                while (rs.next()) uses.put(rs.getInt(1), rs.getInt(2));
+                doctorUses.put(doctor, uses);
+                rank(doctor);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    static void install(List<Medicine> meds) { trie = new Trie(meds); loaded = true; }
+
+    public static boolean isLoaded() { return loaded; }
+
+    private static void rank(String doctor) {
+        Map<Integer, Integer> uses = doctorUses.get(doctor);
+        doctorRanked.put(doctor, uses.entrySet().stream().sorted((a, b) -> Integer.compare(b.getValue(), a.getValue())).mapToInt(Map.Entry::getKey).toArray());
+    }
+
+    // Medicines whose name starts with 'prefix': the doctor's most used first, then the most used overall
+    public static List<Medicine> suggest(String doctor, String prefix, int limit) {
+        Trie t = trie;
+        List<Medicine> out = new ArrayList<>(limit);
+        if (prefix == null || prefix.trim().isEmpty()) return out;
+        Node n = t.find(prefix.trim());
+        if (n == null) return out;
+        int[] mine = doctor == null ? null : doctorRanked.get(doctor);
+        Set<Integer> seen = new HashSet<>();
+        if (mine != null) {
+            for (int id : mine) {
+                Integer pos = t.posById.get(id);
+                if (pos != null && pos >= n.lo && pos < n.hi && seen.add(pos)) { out.add(t.sorted[pos]); if (out.size() == limit) return out; }
+            }
+        }
+        for (int pos : n.top) if (seen.add(pos)) { out.add(t.sorted[pos]); if (out.size() == limit) break; }
+        return out;
+    }
+
+    // Exact catalog entry for a name typed or picked in the Rx box, or null
+    public static Medicine find(String name) {
+        Trie t = trie;
+        Node n = t.find(name.trim());
+        if (n == null) return null;
+        for (int i = n.lo; i < n.hi; i++) if (t.sorted[i].name.equalsIgnoreCase(name.trim())) return t.sorted[i];
+        return null;
+    }
+
+    // ---------------------------------------------------------------- line items
+
+    private static final Pattern RX_LINE = Pattern.compile("^\\s*(\\d+)[.)]\\s*(\\S.*?)\\s*$"), RX_EMPTY = Pattern.compile("^\\s*\\d+[.)]\\s*$");
+
+    // "1. Name - dosage - duration" lines of the Rx text: {line no, name, dosage, duration}; a number with
+    // nothing after it is not an item
+    static List<String[]> parse(String medicines) {
+        List<String[]> items = new ArrayList<>();
+        for (String line : medicines.split("\n")) {
+            Matcher m = RX_LINE.matcher(line);
+            if (!m.matches()) continue;
+            String[] parts = m.group(2).split("\\s+-\\s+", 3);
+            items.add(new String[]{m.group(1), parts[0].trim(), parts.length > 1 ? parts[1].trim() : "", parts.length > 2 ? parts[2].trim() : ""});
+        }
+        return items;
+    }
+
+    // Stores the Rx lines of a saved prescription and counts the doctor's use of each catalog medicine.
+    // Caller owns the transaction.
+    public static void saveItems(Connection con, long prescriptionId, String doctor, String medicines) throws SQLException {
+        ensureSchema(con);
+        List<String[]> items = parse(medicines);
+        if (items.isEmpty()) return;
+        List<Integer> used = new ArrayList<>();
+        try (PreparedStatement pst = con.prepareStatement("INSERT INTO prescription_items (prescription_id, line_no, medicine_id, medicine_name, dosage, duration) VALUES (?,?,?,?,?,?)");
+             PreparedStatement usage = con.prepareStatement("INSERT INTO doctor_medicine_usage (doctor_name, medicine_id, uses) VALUES (?,?,1) ON DUPLICATE KEY UPDATE uses=uses+1")) {
+            for (String[] it : items) {
+                Medicine m = find(it[1]);
+                pst.setLong(1, prescriptionId); pst.setInt(2, Integer.parseInt(it[0]));
+                if (m == null) pst.setNull(3, Types.INTEGER); else pst.setInt(3, m.id);
+                pst.setString(4, it[1]); pst.setString(5, it[2]); pst.setString(6, it[3]);
+                pst.addBatch();
+                if (m != null) { usage.setString(1, doctor); usage.setInt(2, m.id); usage.addBatch(); used.add(m.id); }
+            }
+            pst.executeBatch();
+            if (!used.isEmpty()) usage.executeBatch();
+        }
+        Map<Integer, Integer> uses = doctorUses.get(doctor);
+        if (uses != null && !used.isEmpty()) { for (int id : used) uses.merge(id, 1, Integer::sum); rank(doctor); }
+    }
+
+    // ---------------------------------------------------------------- autocomplete
+
+    // Suggestion popup for the Rx text area: opens while typing a medicine name on a numbered line,
+    // Up/Down to choose, Enter/Tab to insert "Name - dosage - duration", Esc to close.
+    // Enter on a numbered line otherwise starts the next number; Enter on an empty numbered line ends the list.
+    public static void attach(JTextArea area, String doctor) {
+        if (!loaded || !doctorUses.containsKey(doctor)) DashboardPrefetch.submit(() -> load(doctor));
+        DefaultListModel<Medicine> model = new DefaultListModel<>();
+        JList<Medicine> list = new JList<>(model);
+        list.setFont(area.getFont()); list.setFocusable(false);
+        JPopupMenu popup = new JPopupMenu(); popup.setFocusable(false);
+        popup.add(new JScrollPane(list));
+
+        Runnable accept = () -> {
+            Medicine m = list.getSelectedValue();
+            popup.setVisible(false);
+            if (m == null) return;
+            try {
+                int[] q = query(area);
+                if (q != null) area.getDocument().remove(q[0], q[1] - q[0]);
+                area.insert(m.line(), q != null ? q[0] : area.getCaretPosition());
+            } catch (BadLocationException ex) { ex.printStackTrace(); }
+        };
+        list.addMouseListener(new MouseAdapter() {
+            public void mouseClicked(MouseEvent e) { if (e.getClickCount() == 2) accept.run(); }
+        });
+
+        area.addKeyListener(new KeyAdapter() {
+            public void keyPressed(KeyEvent e) {
+                if (popup.isVisible()) {
+                    int i = list.getSelectedIndex();
+                    switch (e.getKeyCode()) {
+                        case KeyEvent.VK_DOWN: list.setSelectedIndex(Math.min(model.size() - 1, i + 1)); e.consume(); return;
+                        case KeyEvent.VK_UP: list.setSelectedIndex(Math.max(0, i - 1)); e.consume(); return;
+                        case KeyEvent.VK_ENTER: case KeyEvent.VK_TAB: accept.run(); e.consume(); return;
+                        case KeyEvent.VK_ESCAPE: popup.setVisible(false); e.consume(); return;
+                        default: return;
+                    }
+                }
+                if (e.getKeyCode() == KeyEvent.VK_ENTER) { // auto-number the next line
+                    try {
+                        int line = area.getLineOfOffset(area.getCaretPosition());
+                        String text = area.getText(area.getLineStartOffset(line), area.getCaretPosition() - area.getLineStartOffset(line));
+                        Matcher m = RX_LINE.matcher(text);
+                        if (m.matches()) { area.insert("\n" + (Integer.parseInt(m.group(1)) + 1) + ". ", area.getCaretPosition()); e.consume(); }
+                        else if (RX_EMPTY.matcher(text).matches()) { area.getDocument().remove(area.getLineStartOffset(line), text.length()); e.consume(); }
+                    } catch (BadLocationException ex) { ex.printStackTrace(); }
+                }
+            }
+
+            public void keyReleased(KeyEvent e) {
+                int k = e.getKeyCode();
+                if (k == KeyEvent.VK_UP || k == KeyEvent.VK_DOWN || k == KeyEvent.VK_ENTER || k == KeyEvent.VK_TAB || k == KeyEvent.VK_ESCAPE) return;
+                int[] q = query(area);
+                List<Medicine> found = Collections.emptyList();
+                if (q != null && q[1] - q[0] >= 2) {
+                    try { found = suggest(doctor, area.getText(q[0], q[1] - q[0]), 8); } catch (BadLocationException ex) { ex.printStackTrace(); }
+                }
+                if (found.isEmpty()) { popup.setVisible(false); return; }
+                model.clear();
+                for (Medicine m : found) model.addElement(m);
+                list.setSelectedIndex(0);
+                list.setVisibleRowCount(found.size());
+                try {
+                    Rectangle r = area.modelToView2D(q[0]).getBounds();
+                    popup.pack();
+                    popup.show(area, r.x, r.y + r.height);
+                    area.requestFocusInWindow();
+                } catch (BadLocationException ex) { ex.printStackTrace(); }
+            }
+        });
+    }
+
+    // Offsets [start, caret) of the medicine name being typed: after "N. " on the caret's line, before any " - "
+    private static int[] query(JTextArea area) {
+        try {
+            int caret = area.getCaretPosition();
+            int start = area.getLineStartOffset(area.getLineOfOffset(caret));
+            String line = area.getText(start, caret - start);
+            Matcher m = Pattern.compile("^\\s*\\d+[.)]\\s*").matcher(line);
+            if (!m.find() || line.contains(" - ")) return null;
+            return new int[]{start + m.end(), caret};
+        } catch (BadLocationException e) { return null; }
+    }
+}
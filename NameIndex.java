@@ -0,0 +1,392 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import java.awt.*;
+import java.awt.event.*;
+import java.sql.*;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+
+// Fuzzy patient lookup by name. Nepali names are romanised many ways ("Shrestha"/"Shreshta", "Laxmi"/"Lakshmi",
+// "Bishnu"/"Vishnu"), so every name word is folded to one spelling (ksh/x, sh/s, aspirates, long vowels, v/w/b,
+// doubled letters) and reduced to a key: its first letter plus the consonants after it. Distinct keys sit in a
+// BK-tree; each query word matches keys within edit distance 1 (exact for short keys, prefix for the word being
+// typed). Patients behind those keys are ranked by the words they match and how closely, and only the best
+// ranked are scored by edit distance on the folded spelling. Loaded in the background at login, kept current by
+// register / update / delete and by LocalStore when offline registrations get their real codes.
+public class NameIndex {
+
+    public static class Match {
+        public final long code; public final String name; public final double score;
+        Match(long code, String name, double score) { this.code = code; this.name = name; this.score = score; }
+    }
+
+    private static final int MAX_SCORED = 2000;  // candidates that get the edit-distance score
+    private static final int MAX_QUERY_WORDS = 6;
+    private static final int PREFIX_KEYS = 400;   // keys followed for the unfinished last word
+
+    private static volatile Index index = new Index();
+    private static List<Object[]> changesDuringLoad = null; // {code, name or null} seen while a load is running
+    private static volatile boolean loaded = false;
+
+    // ---------------------------------------------------------------- public API
+
+    // Streams code + name of every patient; safe to call more than once (e.g. from each desk's prefetch)
+    public static void load() {
+        synchronized (NameIndex.class) {
+            if (loaded || changesDuringLoad != null) return;
+            changesDuringLoad = new ArrayList<>();
+        }
+        Index fresh = new Index();
+        try (Connection con = DBConnection.connect()) {
+            if (con == null) return;
+            Statement st = con.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            st.setFetchSize(Integer.MIN_VALUE); // MySQL: stream rows instead of buffering the result
+            ResultSet rs = st.executeQuery("SELECT patient_code, name FROM patients");
+            while (rs.next()) fresh.put(rs.getLong(1), rs.getString(2));
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return;
+        } finally {
+            synchronized (NameIndex.class) {
+                if (fresh.size > 0 || loaded) {
+                    for (Object[] c : changesDuringLoad) { if (c[1] == null) fresh.remove((Long) c[0]); else fresh.put((Long) c[0], (String) c[1]); }
+                    index = fresh;
+                    loaded = true;
+                }
+                changesDuringLoad = null;
+            }
+        }
+    }
+
+    public static synchronized void put(long code, String name) {
+        index.put(code, name);
+        if (changesDuringLoad != null) changesDuringLoad.add(new Object[]{code, name});
+    }
+
+    public static synchronized void remove(long code) {
+        index.remove(code);
+        if (changesDuringLoad != null) changesDuringLoad.add(new Object[]{code, null});
+    }
+
+    public static boolean isLoaded() { return loaded; }
+
+    public static int size() { return index.live; }
+
+    // Best matches first; empty for a blank query
+    public static List<Match> search(String query, int limit) { return index.search(query, limit); }
+
+    // ---------------------------------------------------------------- folding
+
+    // One spelling per romanisation: lower case letters only, words separated by a space
+    static String fold(String name) {
+        StringBuilder out = new StringBuilder(name.length());
+        int n = name.length();
+        char last = ' ';
+        for (int i = 0; i < n; i++) {
+            char c = Character.toLowerCase(name.charAt(i));
+            if (!Character.isLetter(c)) {
+                if (last != ' ' && out.length() > 0) { out.append(' '); last = ' '; }
+                continue;
+            }
+            char next = i + 1 < n ? Character.toLowerCase(name.charAt(i + 1)) : ' ';
+            char emit = c;
+            boolean wordStart = last == ' ';
+            switch (c) {
+                case 'x': if (wordStart || last != 'k') out.append('k'); last = 'k'; emit = 's'; break;
+                case 'k':
+                    if (next == 's' && i + 2 < n && Character.toLowerCase(name.charAt(i + 2)) == 'h') { out.append('k'); last = 'k'; emit = 's'; i += 2; }
+                    else if (next == 'h') i++;
+                    break;
+                case 'c':
+                    if (next == 'h') { while (i + 1 < n && Character.toLowerCase(name.charAt(i + 1)) == 'h') i++; }
+                    else if (next == 'k') { emit = 'k'; i++; }
+                    break;
+                case 's': if (next == 'h') i++; break;
+                case 'p': if (next == 'h') { emit = 'f'; i++; } break;
+                case 'b': case 'd': case 't': case 'g': case 'j': if (next == 'h') i++; break;
+                case 'v': case 'w': emit = 'b'; break;
+                case 'z': emit = 'j'; break;
+                case 'q': emit = 'k'; break;
+                case 'e': if (next == 'e') { emit = 'i'; i++; } break;
+                case 'o': if (next == 'o') { emit = 'u'; i++; } break;
+                case 'y': if (!wordStart) emit = 'i'; break;
+                default: break;
+            }
+            if (emit == last && !wordStart) continue; // doubled letters and long vowels (aa, ii, uu) fold to one
+            out.append(emit);
+            last = emit;
+        }
+        int len = out.length();
+        if (len > 0 && out.charAt(len - 1) == ' ') out.setLength(len - 1);
+        return out.toString();
+    }
+
+    // First letter plus the consonants after it: "srestha" -> "srst", "laksmi" -> "lksm"
+    static String key(String foldedWord) {
+        if (foldedWord.isEmpty()) return foldedWord;
+        StringBuilder k = new StringBuilder(foldedWord.length());
+        k.append(foldedWord.charAt(0));
+        for (int i = 1; i < foldedWord.length(); i++) {
+            char c = foldedWord.charAt(i);
+            if ("aeiouh".indexOf(c) < 0) k.append(c);
+        }
+        return k.toString();
+    }
+
+    // Levenshtein distance, giving up (returning max + 1) once it must exceed max
+    static int distance(CharSequence a, CharSequence b, int max) {
+        int la = a.length(), lb = b.length();
+        if (Math.abs(la - lb) > max) return max + 1;
+        int[] prev = new int[lb + 1], cur = new int[lb + 1];
+        for (int j = 0; j <= lb; j++) prev[j] = j;
+        for (int i = 1; i <= la; i++) {
+            cur[0] = i;
+            int rowMin = cur[0];
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= lb; j++) {
+                int d = Math.min(Math.min(cur[j - 1] + 1, prev[j] + 1), prev[j - 1] + (ca == b.charAt(j - 1) ? 0 : 1));
+                cur[j] = d;
+                if (d < rowMin) rowMin = d;
+            }
+            if (rowMin > max) return max + 1;
+            int[] t = prev; prev = cur; cur = t;
+        }
+        return prev[lb];
+    }
+
+    // ---------------------------------------------------------------- index
+
+    private static class IntList {
+        int[] a = new int[4]; int n;
+        void add(int v) { if (n == a.length) a = Arrays.copyOf(a, n * 2); a[n++] = v; }
+    }
+
+    private static class BkNode {
+        final String key; final Map<Integer, BkNode> children = new HashMap<>(4);
+        BkNode(String key) { this.key = key; }
+    }
+
+    private static class Index {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private long[] codes = new long[1024];
+        private String[] names = new String[1024];
+        private int size = 0, live = 0;
+        private final Map<Long, Integer> slotOf = new HashMap<>();
+        private final Map<String, IntList> postings = new HashMap<>();
+        private final TreeSet<String> sortedKeys = new TreeSet<>();
+        private BkNode root;
+
+        void put(long code, String name) {
+            if (name == null) return;
+            lock.writeLock().lock();
+            try {
+                removeLocked(code); // an update leaves the old slot behind as a tombstone
+                if (size == codes.length) { codes = Arrays.copyOf(codes, size * 2); names = Arrays.copyOf(names, size * 2); }
+                int slot = size++;
+                codes[slot] = code; names[slot] = name;
+                slotOf.put(code, slot);
+                live++;
+                for (String w : fold(name).split(" ")) {
+                    if (w.isEmpty()) continue;
+                    String k = key(w);
+                    IntList list = postings.get(k);
+                    if (list == null) { postings.put(k, list = new IntList()); sortedKeys.add(k); addKey(k); }
+                    if (list.n == 0 || list.a[list.n - 1] != slot) list.add(slot);
+                }
+            } finally { lock.writeLock().unlock(); }
+        }
+
+        void remove(long code) {
+            lock.writeLock().lock();
+            try { removeLocked(code); } finally { lock.writeLock().unlock(); }
+        }
+
+        private void removeLocked(long code) {
+            Integer old = slotOf.remove(code);
+            if (old != null) { names[old] = null; live--; }
+        }
+
+        private void addKey(String k) {
+            if (root == null) { root = new BkNode(k); return; }
+            BkNode node = root;
+            while (true) {
+                int d = distance(k, node.key, Integer.MAX_VALUE - 1);
+                BkNode child = node.children.get(d);
+                if (child == null) { node.children.put(d, new BkNode(k)); return; }
+                node = child;
+            }
+        }
+
+        private void near(BkNode node, String k, int radius, List<String> out) {
+            int d = distance(k, node.key, Integer.MAX_VALUE - 1);
+            if (d <= radius) out.add(node.key);
+            for (Map.Entry<Integer, BkNode> c : node.children.entrySet()) {
+                if (c.getKey() >= d - radius && c.getKey() <= d + radius) near(c.getValue(), k, radius, out);
+            }
+        }
+
+        List<Match> search(String query, int limit) {
+            String[] words = fold(query).split(" ");
+            int nw = Math.min(MAX_QUERY_WORDS, words.length);
+            if (nw == 0 || words[0].isEmpty()) return Collections.emptyList();
+            lock.readLock().lock();
+            try {
+                if (root == null) return Collections.emptyList();
+                // 1. per query word, the patients behind every key it matches; count words matched per patient
+                byte[] rank = new byte[size], seenWord = new byte[size];
+                IntList touched = new IntList();
+                for (int w = 0; w < nw; w++) {
+                    // exact key first (weight 3), then keys one edit away (2), then keys it is a prefix of (1)
+                    String k = key(words[w]);
+                    List<String> near = new ArrayList<>();
+                    if (k.length() >= 4) near(root, k, 1, near);
+                    near.remove(k);
+                    List<String> prefix = new ArrayList<>();
+                    if (w == nw - 1 && k.length() >= 2) { // still typing
+                        for (String p : sortedKeys.subSet(k, false, k + Character.MAX_VALUE, false)) {
+                            if (prefix.size() >= PREFIX_KEYS) break;
+                            if (!near.contains(p)) prefix.add(p);
+                        }
+                    }
+                    List<List<String>> tiers = Arrays.asList(Collections.singletonList(k), near, prefix);
+                    for (int t = 0; t < 3; t++) {
+                        for (String key : tiers.get(t)) {
+                            IntList list = postings.get(key);
+                            if (list == null) continue;
+                            for (int i = 0; i < list.n; i++) {
+                                int s = list.a[i];
+                                if (names[s] == null || seenWord[s] == w + 1) continue;
+                                seenWord[s] = (byte) (w + 1);
+                                if (rank[s] == 0) touched.add(s);
+                                rank[s] += 3 - t;
+                            }
+                        }
+                    }
+                }
+                if (touched.n == 0) return Collections.emptyList();
+
+                // 2. score only the best-ranked candidates (more words matched, closer keys), up to MAX_SCORED
+                int[] perRank = new int[3 * MAX_QUERY_WORDS + 1];
+                for (int i = 0; i < touched.n; i++) perRank[rank[touched.a[i]]]++;
+                int cut = perRank.length - 1;
+                for (int taken = perRank[cut]; cut > 1 && taken + perRank[cut - 1] <= MAX_SCORED; ) taken += perRank[--cut];
+                List<Match> scored = new ArrayList<>();
+                for (int i = 0; i < touched.n && scored.size() < MAX_SCORED; i++) {
+                    int s = touched.a[i];
+                    if (rank[s] >= cut) scored.add(new Match(codes[s], names[s], score(words, nw, fold(names[s]).split(" "))));
+                }
+                scored.sort((a, b) -> Double.compare(b.score, a.score));
+                return new ArrayList<>(scored.subList(0, Math.min(limit, scored.size())));
+            } finally { lock.readLock().unlock(); }
+        }
+
+        // Sum over query words of the best similarity (1 - distance / length) to any name word; the last query
+        // word also counts as a match when a name word starts with it
+        private static double score(String[] q, int nq, String[] name) {
+            double total = 0;
+            for (int i = 0; i < nq; i++) {
+                double bestSim = 0;
+                for (String w : name) {
+                    int len = Math.max(q[i].length(), w.length());
+                    double sim = 1 - (double) distance(q[i], w, len) / len;
+                    if (i == nq - 1 && w.startsWith(q[i])) sim = Math.max(sim, 0.9);
+                    if (sim > bestSim) bestSim = sim;
+                }
+                total += bestSim;
+            }
+            return total - 0.01 * Math.max(0, name.length - nq); // extra name words rank a little lower
+        }
+    }
+
+    // ---------------------------------------------------------------- picker
+
+    // Search-as-you-type dialog; returns the chosen patient code or null
+    public static String pick(Component parent) {
+        Window owner = parent == null ? null : SwingUtilities.getWindowAncestor(parent);
+        JDialog dlg = new JDialog(owner, "Find Patient by Name", Dialog.ModalityType.APPLICATION_MODAL);
+        JTextField txt = new JTextField(30);
+        JLabel info = new JLabel(loaded ? " " : "Name index still loading, results may be incomplete");
+        DefaultTableModel model = new DefaultTableModel(new String[]{"Patient Code", "Name", "Phone", "Age"}, 0) {
+            @Override public boolean isCellEditable(int r, int c) { return false; }
+        };
+        JTable table = new JTable(model);
+        UIUtils.styleTable(table);
+        String[] chosen = {null};
+        int[] generation = {0};
+
+        javax.swing.Timer debounce = new javax.swing.Timer(120, e -> {
+            long t0 = System.nanoTime();
+            List<Match> found = search(txt.getText(), 30);
+            info.setText(found.size() + " match" + (found.size() == 1 ? "" : "es") + String.format(" in %.1f ms", (System.nanoTime() - t0) / 1e6) + (loaded ? "" : " (index still loading)"));
+            model.setRowCount(0);
+            for (Match m : found) model.addRow(new Object[]{String.valueOf(m.code), m.name, "", ""});
+            int gen = ++generation[0];
+            if (!found.isEmpty()) new Thread(() -> {
+                Map<String, Map<String, String>> details = details(found);
+                SwingUtilities.invokeLater(() -> {
+                    if (gen != generation[0]) return; // typed on meanwhile
+                    for (int r = 0; r < model.getRowCount(); r++) {
+                        Map<String, String> p = details.get(String.valueOf(model.getValueAt(r, 0)));
+                        if (p != null) { model.setValueAt(p.get("phone"), r, 2); model.setValueAt(p.get("age"), r, 3); }
+                    }
+                });
+            }, "name-pick-details").start();
+        });
+        debounce.setRepeats(false);
+        txt.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            public void insertUpdate(javax.swing.event.DocumentEvent e) { debounce.restart(); }
+            public void removeUpdate(javax.swing.event.DocumentEvent e) { debounce.restart(); }
+            public void changedUpdate(javax.swing.event.DocumentEvent e) { debounce.restart(); }
+        });
+
+        Runnable choose = () -> {
+            int r = table.getSelectedRow() >= 0 ? table.getSelectedRow() : (model.getRowCount() > 0 ? 0 : -1);
+            if (r < 0) return;
+            chosen[0] = String.valueOf(model.getValueAt(table.convertRowIndexToModel(r), 0));
+            dlg.dispose();
+        };
+        txt.addActionListener(e -> choose.run());
+        txt.addKeyListener(new KeyAdapter() { public void keyPressed(KeyEvent e) {
+            if (e.getKeyCode() == KeyEvent.VK_DOWN && model.getRowCount() > 0) { table.requestFocus(); table.setRowSelectionInterval(0, 0); }
+        }});
+        table.addMouseListener(new MouseAdapter() { public void mouseClicked(MouseEvent e) { if (e.getClickCount() == 2) choose.run(); } });
+        table.getInputMap(JComponent.WHEN_ANCESTOR_OF_FOCUSED_COMPONENT).put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "choose");
+        table.getActionMap().put("choose", new AbstractAction() { public void actionPerformed(ActionEvent e) { choose.run(); } });
+
+        JPanel top = new JPanel(new BorderLayout(8, 8));
+        top.setBorder(BorderFactory.createEmptyBorder(10, 10, 0, 10));
+        top.add(new JLabel("Name:"), BorderLayout.WEST); top.add(txt, BorderLayout.CENTER); top.add(info, BorderLayout.SOUTH);
+        dlg.add(top, BorderLayout.NORTH);
+        dlg.add(new JScrollPane(table), BorderLayout.CENTER);
+        dlg.setSize(640, 420);
+        dlg.setLocationRelativeTo(parent);
+        dlg.setVisible(true);
+        return chosen[0];
+    }
+
+    // Phone / age of the matches in one query; falls back to LocalStore's copy when the database is away
+    private static Map<String, Map<String, String>> details(List<Match> found) {
+        Map<String, Map<String, String>> out = new HashMap<>();
+        StringBuilder in = new StringBuilder();
+        for (Match m : found) in.append(in.length() > 0 ? "," : "").append(m.code);
+        try (Connection con = DBConnection.connectQuietly()) {
+            if (con != null) {
+                ResultSet rs = con.createStatement().executeQuery("SELECT patient_code, phone, age FROM patients WHERE patient_code IN (" + in + ")");
+                while (rs.next()) {
+                    Map<String, String> p = new HashMap<>();
+                    p.put("phone", rs.getString(2)); p.put("age", rs.getString(3));
+                    out.put(rs.getString(1), p);
+                }
+                return out;
+            }
+        } catch (SQLException e) { e.printStackTrace(); }
+        for (Match m : found) {
+            Map<String, String> p = LocalStore.findPatient(String.valueOf(m.code));
+            if (p != null) out.put(String.valueOf(m.code), p);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,288 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bulk import of historical patient records from CSV. The file is split into fixed batches of source lines;
+// batches are parsed and validated in parallel with the registration form's rules, then checked for
+// duplicates (same phone + name, or same national ID, in the file or already in the database) in file
+// order, and written by a few writer threads as JDBC batches, one transaction per batch, over connections
+// that let the driver rewrite them into multi-row INSERTs. Patient codes come from IdAllocator in one
+// range per batch. Each batch is recorded in patient_import_batches in the same transaction as its rows, so
+// a re-run of the same file skips exactly the batches that were committed. The batch rows also keep the batch
+// size and a fingerprint of the file (its size and a hash of the first lines), and a re-run with a different
+// --batch or an edited file is refused, since its batch numbers would no longer cover the same lines. Rejected
+// rows go to <file>.errors.csv with their line number and reason (started afresh unless the run is a resume).
+//
+// Expected header (any order, case-insensitive): name, phone, age, sex, address, national_id, email.
+// Quoted fields may contain commas and doubled quotes but not line breaks.
+//   java -cp "lib/*:out" com.mycompany.hospitalmanagementsystem.PatientImporter patients.csv [--batch 5000] [--writers 4]
+public class PatientImporter {
+
+    public interface Progress { void update(long imported, long rejected); }
+
+    public static class Summary {
+        public long imported, rejected, skippedBatches;
+        public String toString() { return imported + " imported, " + rejected + " rejected" + (skippedBatches > 0 ? ", " + skippedBatches + " batches already done" : ""); }
+    }
+
+    private static final String[] COLUMNS = {"name", "phone", "age", "sex", "address", "national_id", "email"};
+
+    private static class Record {
+        final int line; final String name, phone, sex, address, nationalId, email; final int age;
+        Record(int line, String name, String phone, int age, String sex, String address, String nationalId, String email) {
+            this.line = line; this.name = name; this.phone = phone; this.age = age; this.sex = sex; this.address = address; this.nationalId = nationalId; this.email = email;
+        }
+    }
+
+    private static class Parsed {
+        final List<Record> ok = new ArrayList<>(); final List<String> errors = new ArrayList<>();
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) { System.err.println("Usage: PatientImporter <file.csv> [--batch 5000] [--writers 4]"); return; }
+        int batch = 5000, writers = 4;
+        for (int i = 1; i < args.length - 1; i++) {
+            if (args[i].equals("--batch")) batch = Integer.parseInt(args[i + 1]);
+            if (args[i].equals("--writers")) writers = Integer.parseInt(args[i + 1]);
+        }
+        System.setProperty("java.awt.headless", "true");
+        long t0 = System.nanoTime();
+        Summary s = importFile(Paths.get(args[0]), batch, writers, (done, bad) -> System.out.printf("\r%,d imported, %,d rejected", done, bad));
+        System.out.printf("%n%s in %.1f s%n", s, (System.nanoTime() - t0) / 1e9);
+    }
+
+    public static Summary importFile(Path csv, int batchSize, int writers, Progress progress) throws Exception {
+        List<String> lines = Files.readAllLines(csv, StandardCharsets.UTF_8);
+        if (lines.isEmpty()) return new Summary();
+        int[] col = headerIndex(parse(lines.get(0)));
+        String source = sourceKey(csv), print = fingerprint(csv, lines);
+        Set<Integer> done = doneBatches(source, batchSize, print);
+
+        int batches = (lines.size() - 1 + batchSize - 1) / batchSize;
+        Summary summary = new Summary();
+        summary.skippedBatches = done.size();
+
+        // 1. Parse + validate all pending batches in parallel
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        ExecutorService parsers = Executors.newFixedThreadPool(threads);
+        List<Future<Parsed>> parsed = new ArrayList<>();
+        for (int b = 0; b < batches; b++) {
+            int from = 1 + b * batchSize, to = Math.min(lines.size(), from + batchSize);
+            parsed.add(done.contains(b) ? null : parsers.submit(() -> parseRange(lines, from, to, col)));
+        }
+
+        // 2. Duplicates against the database and earlier lines, in file order; 3. write batches as they clear
+        Set<String> seen = existingKeys();
+        ExecutorService writerPool = Executors.newFixedThreadPool(Math.max(1, writers));
+        List<Future<?>> writes = new ArrayList<>();
+        AtomicLong imported = new AtomicLong(), rejected = new AtomicLong();
+        // a resume keeps the rejections of the batches it skips; a fresh run starts the file over
+        OpenOption mode = done.isEmpty() ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND;
+        try (BufferedWriter errors = Files.newBufferedWriter(Paths.get(csv + ".errors.csv"), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode)) {
+            for (int b = 0; b < batches; b++) {
+                if (parsed.get(b) == null) continue;
+                Parsed p = parsed.get(b).get();
+                List<Record> fresh = new ArrayList<>(p.ok.size());
+                for (Record r : p.ok) {
+                    String dup = null;
+                    if (!seen.add("p|" + r.phone + "|" + nameKey(r.name))) dup = "duplicate phone + name";
+                    else if (!r.nationalId.isEmpty() && !seen.add("n|" + r.nationalId)) dup = "duplicate national ID";
+                    if (dup != null) p.errors.add(r.line + "," + dup + "," + StatementExporter.csvEscape(lines.get(r.line - 1)));
+                    else fresh.add(r);
+                }
+                synchronized (errors) { for (String e : p.errors) { errors.write(e); errors.newLine(); } }
+                rejected.addAndGet(p.errors.size());
+                int batchNo = b;
+                writes.add(writerPool.submit(() -> {
+                    insert(fresh, source, batchNo, batchSize, print);
+                    if (progress != null) progress.update(imported.addAndGet(fresh.size()), rejected.get());
+                    return null;
+                }));
+            }
+            for (Future<?> w : writes) w.get();
+            errors.flush();
+        } finally {
+            parsers.shutdownNow();
+            writerPool.shutdownNow();
+        }
+        summary.imported = imported.get();
+        summary.rejected = rejected.get();
+        return summary;
+    }
+
+    private static int[] headerIndex(List<String> header) {
+        int[] col = new int[COLUMNS.length];
+        for (int i = 0; i < COLUMNS.length; i++) {
+            col[i] = -1;
+            for (int h = 0; h < header.size(); h++) if (header.get(h).trim().equalsIgnoreCase(COLUMNS[i])) col[i] = h;
+        }
+        if (col[0] < 0 || col[1] < 0 || col[2] < 0) throw new IllegalArgumentException("CSV header needs at least name, phone and age columns");
+        return col;
+    }
+
+    private static Parsed parseRange(List<String> lines, int from, int to, int[] col) {
+        Parsed p = new Parsed();
+        for (int i = from; i < to; i++) {
+            String raw = lines.get(i);
+            if (raw.trim().isEmpty()) continue;
+            List<String> f = parse(raw);
+            String problem = null;
+            String name = field(f, col[0]).replaceAll("\\s+", " ");
+            String phone = field(f, col[1]).replaceAll("[\\s-]", "");
+            String ageText = field(f, col[2]);
+            String sex = sex(field(f, col[3]));
+            String email = field(f, col[6]);
+            if (phone.length() == 13 && phone.startsWith("977")) phone = phone.substring(3);
+
+            // Same rules as the registration form
+            if (name.isEmpty() || phone.isEmpty() || ageText.isEmpty()) problem = "name, phone and age are required";
+            else if (!name.chars().allMatch(c -> Character.isLetter(c) || Character.isSpaceChar(c))) problem = "name must contain letters only";
+            else if (phone.length() != 10 || !phone.chars().allMatch(Character::isDigit)) problem = "phone must be 10 digits";
+            else if (ageText.length() > 3 || !ageText.chars().allMatch(Character::isDigit)) problem = "age must be a number";
+            else if (sex == null) problem = "sex must be Male, Female or Other";
+            else if (!email.isEmpty() && !UIUtils.isValidEmail(email)) problem = "invalid email";
+
+            if (problem != null) p.errors.add((i + 1) + "," + problem + "," + StatementExporter.csvEscape(raw));
+            else p.ok.add(new Record(i + 1, name, "977" + phone, Integer.parseInt(ageText), sex, field(f, col[4]), field(f, col[5]), email));
+        }
+        return p;
+    }
+
+    private static String field(List<String> f, int idx) { return idx < 0 || idx >= f.size() ? "" : f.get(idx).trim(); }
+
+    private static String sex(String s) {
+        if (s.isEmpty()) return "Other";
+        switch (Character.toUpperCase(s.charAt(0))) {
+            case 'M': return "Male";
+            case 'F': return "Female";
+            case 'O': return "Other";
+            default: return null;
+        }
+    }
+
+    private static String nameKey(String name) { return name.toLowerCase(Locale.ROOT); }
+
+    // Fields of one CSV line; quotes may wrap commas and "" stands for a quote
+    static List<String> parse(String line) {
+        List<String> out = new ArrayList<>();
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') { cur.append('"'); i++; }
+                else if (c == '"') quoted = false;
+                else cur.append(c);
+            } else if (c == '"') quoted = true;
+            else if (c == ',') { out.add(cur.toString()); cur.setLength(0); }
+            else cur.append(c);
+        }
+        out.add(cur.toString());
+        return out;
+    }
+
+    // Dedupe keys of the patients already in the database, streamed
+    private static Set<String> existingKeys() throws SQLException {
+        Set<String> keys = ConcurrentHashMap.newKeySet();
+        try (Connection con = DBConnection.connect()) {
+            if (con == null) throw new SQLException("Database not reachable");
+            Statement st = con.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            DBConnection.streamRows(st);
+            ResultSet rs = st.executeQuery("SELECT name, phone, national_id FROM patients");
+            while (rs.next()) {
+                String name = rs.getString(1), phone = rs.getString(2), nid = rs.getString(3);
+                if (name != null && phone != null) keys.add("p|" + phone + "|" + nameKey(name.trim().replaceAll("\\s+", " ")));
+                if (nid != null && !nid.trim().isEmpty()) keys.add("n|" + nid.trim());
+            }
+        }
+        return keys;
+    }
+
+    // Identifies the file across runs; long paths are hashed to fit the key column
+    private static String sourceKey(Path csv) {
+        String key = csv.toAbsolutePath().normalize().toString();
+        return key.length() <= 255 ? key : key.substring(0, 200) + "#" + Integer.toHexString(key.hashCode());
+    }
+
+    private static final int FINGERPRINT_LINES = 100;
+
+    // File size and a SHA-256 of the header and the first lines: a resume must see the same file
+    static String fingerprint(Path csv, List<String> lines) throws Exception {
+        java.security.MessageDigest md = java.security.MessageDigest.getInstance("SHA-256");
+        for (String l : lines.subList(0, Math.min(lines.size(), FINGERPRINT_LINES + 1))) md.update((l + "\n").getBytes(StandardCharsets.UTF_8));
+        StringBuilder hex = new StringBuilder();
+        for (byte b : md.digest()) hex.append(String.format("%02x", b));
+        return Files.size(csv) + ":" + hex;
+    }
+
+    static void ensureSchema(Connection con) throws SQLException {
+        con.createStatement().executeUpdate("CREATE TABLE IF NOT EXISTS patient_import_batches (source VARCHAR(255) NOT NULL, batch INT NOT NULL, "
+                + "rows_imported INT NOT NULL, batch_size INT, fingerprint VARCHAR(90), imported_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, PRIMARY KEY (source, batch))");
+        if (!con.getMetaData().getColumns(con.getCatalog(), null, "patient_import_batches", "fingerprint").next()) {
+            con.createStatement().executeUpdate("ALTER TABLE patient_import_batches ADD COLUMN batch_size INT");
+            con.createStatement().executeUpdate("ALTER TABLE patient_import_batches ADD COLUMN fingerprint VARCHAR(90)");
+        }
+    }
+
+    private static Set<Integer> doneBatches(String source, int batchSize, String print) throws SQLException {
+        try (Connection con = DBConnection.connect()) {
+            if (con == null) throw new SQLException("Database not reachable");
+            ensureSchema(con);
+            return doneBatches(con, source, batchSize, print);
+        }
+    }
+
+    // Batches already committed for this file; refuses a resume whose batches would not line up with them
+    // (rows from before the fingerprint was kept have neither and are refused too)
+    static Set<Integer> doneBatches(Connection con, String source, int batchSize, String print) throws SQLException {
+        Set<Integer> done = new HashSet<>();
+        try (PreparedStatement pst = con.prepareStatement("SELECT batch, batch_size, fingerprint FROM patient_import_batches WHERE source=?")) {
+            pst.setString(1, source);
+            ResultSet rs = pst.executeQuery();
+            while (rs.next()) {
+                int size = rs.getInt(2);
+                boolean old = rs.wasNull();
+                if (old || size != batchSize)
+                    throw new IllegalStateException(source + " was partly imported " + (old ? "by an older version" : "with --batch " + size)
+                            + "; resume with the same batch size, or delete its rows from patient_import_batches to start over");
+                if (!print.equals(rs.getString(3)))
+                    throw new IllegalStateException(source + " has changed since it was partly imported; restore the original file to resume, "
+                            + "or delete its rows from patient_import_batches to start over");
+                done.add(rs.getInt(1));
+            }
+        }
+        return done;
+    }
+
+    // One transaction per batch, including its patient_import_batches row; the batch's codes are reserved together
+    private static void insert(List<Record> batch, String source, int batchNo, int batchSize, String print) throws Exception {
+        long[] codes = batch.isEmpty() ? new long[0] : IdAllocator.PATIENT_CODES.reserveRange(batch.size());
+        int c = 0;
+        try (Connection con = DBConnection.openBatched()) {
+            con.setAutoCommit(false);
+            try {
+                PreparedStatement mark = con.prepareStatement("INSERT INTO patient_import_batches (source, batch, rows_imported, batch_size, fingerprint) VALUES (?,?,?,?,?)");
+                mark.setString(1, source); mark.setInt(2, batchNo); mark.setInt(3, batch.size()); mark.setInt(4, batchSize); mark.setString(5, print);
+                mark.executeUpdate();
+                PreparedStatement pst = con.prepareStatement("INSERT INTO patients (patient_code, name, address, phone, national_id, age, sex, email) VALUES (?,?,?,?,?,?,?,?)");
+                for (Record r : batch) {
+                    pst.setLong(1, codes[c++]); pst.setString(2, r.name); pst.setString(3, r.address);
+                    pst.setString(4, r.phone); pst.setString(5, r.nationalId); pst.setInt(6, r.age);
+                    pst.setString(7, r.sex); pst.setString(8, r.email);
+                    pst.addBatch();
+                }
+                if (!batch.isEmpty()) pst.executeBatch();
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Font;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+// Everything recorded for one patient - appointments, admissions, prescriptions and bills, archives included -
+// as one list, newest first. The four sources are queried at the same time, each on its own connection, and
+// the dialog fills in as each one returns. Complete timelines are cached per patient (LRU, 5 min); the code
+// paths that write one of the sources call invalidate(pid).
+public class PatientTimeline {
+
+    public static class Event {
+        public final String date, type, details, by;
+        Event(String date, String type, String details, String by) { this.date = date == null ? "" : date; this.type = type; this.details = details; this.by = by == null ? "" : by; }
+        Object[] row() { return new Object[]{date, type, details, by}; }
+    }
+
+    private static final int MAX_PATIENTS = 100;
+    private static final long TTL_MS = 5 * 60 * 1000;
+    private static final Comparator<Event> NEWEST_FIRST = (a, b) -> b.date.compareTo(a.date);
+
+    // {label, base table, query (FROM the base table)}; archive tables are queried with the same SQL
+    private static final String[][] SOURCES = {
+        {"Appointment", "appointments", "SELECT appt_date, doctor_name, status FROM appointments WHERE patient_code=?"},
+        {"Admission", "admissions", "SELECT admit_date, bed_no, disease, status, discharge_date FROM admissions WHERE patient_code=?"},
+        {"Prescription", "prescriptions", "SELECT prescribed_date, doctor_name, diagnosis, medicines FROM prescriptions WHERE patient_code=?"},
+        {"Bill", "bills", "SELECT bill_date, id, particulars, total_amount FROM bills WHERE patient_code=?"},
+    };
+
+    private static final ExecutorService POOL = Executors.newFixedThreadPool(SOURCES.length, r -> {
+        Thread t = new Thread(r, "patient-timeline"); t.setDaemon(true); return t;
+    });
+
+    private static final class Cached { final List<Event> events; final long at = System.currentTimeMillis(); Cached(List<Event> e) { events = e; } }
+    private static final Map<String, Cached> cache = Collections.synchronizedMap(new LinkedHashMap<String, Cached>(32, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) { return size() > MAX_PATIENTS; }
+    });
+    // Bumped by invalidate(), so a load that raced with a write is not cached
+    private static final Map<String, Integer> generation = new ConcurrentHashMap<>();
+
+    public static void invalidate(String pid) {
+        generation.merge(pid, 1, Integer::sum);
+        cache.remove(pid);
+    }
+
+    // Fetches all sources in parallel. 'onSource' gets each source's events as it arrives (on a pool thread);
+    // the returned future completes with the merged, sorted timeline. A source that fails becomes one
+    // "unavailable" entry instead of failing the whole timeline.
+    public static CompletableFuture<List<Event>> load(String pid, Consumer<List<Event>> onSource) {
+        Cached c = cache.get(pid);
+        if (c != null && System.currentTimeMillis() - c.at < TTL_MS) {
+            if (onSource != null) onSource.accept(c.events);
+            return CompletableFuture.completedFuture(c.events);
+        }
+        int gen = generation.getOrDefault(pid, 0);
+        java.util.concurrent.atomic.AtomicBoolean failed = new java.util.concurrent.atomic.AtomicBoolean();
+        List<CompletableFuture<List<Event>>> parts = new ArrayList<>();
+        for (String[] src : SOURCES) {
+            parts.add(CompletableFuture.supplyAsync(() -> {
+                List<Event> events;
+                try { events = fetch(src, pid); }
+                catch (SQLException e) { e.printStackTrace(); failed.set(true); events = Collections.singletonList(new Event("", src[0], "Unavailable: " + e.getMessage(), "")); }
+                if (onSource != null) onSource.accept(events);
+                return events;
+            }, POOL));
+        }
+        return CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            List<Event> all = new ArrayList<>();
+            for (CompletableFuture<List<Event>> f : parts) all.addAll(f.join());
+            all.sort(NEWEST_FIRST);
+            all = Collections.unmodifiableList(all);
+            if (!failed.get() && generation.getOrDefault(pid, 0) == gen) cache.put(pid, new Cached(all)); // an incomplete timeline is not kept
+            return all;
+        });
+    }
+
+    private static List<Event> fetch(String[] src, String pid) throws SQLException {
+        List<Event> events = new ArrayList<>();
+        try (Connection con = DBConnection.connect()) {
+            if (con == null) throw new SQLException("Database not reachable");
+            for (String table : Archiver.tablesFor(con, src[1], null, null)) {
+                PreparedStatement pst = con.prepareStatement(src[2].replace(" FROM " + src[1], " FROM " + table));
+                pst.setLong(1, Long.parseLong(pid));
+                ResultSet rs = pst.executeQuery();
+                while (rs.next()) events.add(event(src[0], rs));
+            }
+        }
+        return events;
+    }
+
+    private static Event event(String type, ResultSet rs) throws SQLException {
+        switch (type) {
+            case "Appointment":
+                return new Event(rs.getString(1), type, "Status: " + rs.getString(3), rs.getString(2));
+            case "Admission":
+                return new Event(rs.getString(1), type, "Bed " + rs.getString(2) + " - " + rs.getString(3) + " (" + rs.getString(4)
+                        + (rs.getString(5) != null ? ", discharged " + rs.getString(5) : "") + ")", "");
+            case "Prescription":
+                return new Event(rs.getString(1), type, rs.getString(3) + " | " + String.valueOf(rs.getString(4)).replace("\n", " "), rs.getString(2));
+            default:
+                return new Event(rs.getString(1), type, "Invoice #" + rs.getString(2) + ": " + rs.getString(3) + " = Rs. " + rs.getString(4), "");
+        }
+    }
+
+    // Timeline dialog; rows appear as each source returns
+    public static void show(Component parent, String pid, String name) {
+        JDialog d = new JDialog(SwingUtilities.getWindowAncestor(parent), "Patient Timeline: " + name + " (" + pid + ")", java.awt.Dialog.ModalityType.MODELESS);
+        d.setSize(950, 550); d.setLocationRelativeTo(parent);
+        DefaultTableModel m = new DefaultTableModel(new String[]{"Date", "Type", "Details", "By"}, 0) {
+            public boolean isCellEditable(int r, int c) { return false; }
+        };
+        JTable t = new JTable(m); UIUtils.styleTable(t);
+        t.getColumnModel().getColumn(0).setPreferredWidth(110); t.getColumnModel().getColumn(1).setPreferredWidth(100);
+        t.getColumnModel().getColumn(2).setPreferredWidth(560); t.getColumnModel().getColumn(3).setPreferredWidth(150);
+        JLabel status = new JLabel("Loading..."); status.setFont(new Font("Segoe UI", Font.ITALIC, 13)); status.setForeground(Color.GRAY);
+        status.setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
+        d.add(new JScrollPane(t), BorderLayout.CENTER); d.add(status, BorderLayout.SOUTH);
+
+        List<Event> shown = new ArrayList<>();
+        int[] sources = {0};
+        load(pid, events -> SwingUtilities.invokeLater(() -> {
+            shown.addAll(events);
+            shown.sort(NEWEST_FIRST);
+            m.setRowCount(0);
+            for (Event e : shown) m.addRow(e.row());
+            status.setText("Loading... " + (++sources[0]) + " of " + SOURCES.length + " sources");
+        })).whenComplete((all, ex) -> SwingUtilities.invokeLater(() -> {
+            if (ex != null) { status.setText("Failed: " + ex.getMessage()); return; }
+            m.setRowCount(0); // the cached / merged list is authoritative
+            for (Event e : all) m.addRow(e.row());
+            status.setText(all.size() + " entries");
+        }));
+        d.setVisible(true);
+    }
+}
@@ -47,6 +47,7 @@ public class PrescriptionDialog extends JDialog {
         
         JTextArea tM = new JTextArea("Rx:\n1. "); tM.setBorder(BorderFactory.createTitledBorder("2. Medicines (Name - Dosage - Duration)"));
         tM.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        MedicineCatalog.attach(tM, dName); // type 2+ letters of a medicine for suggestions
         
         JTextArea tA = new JTextArea("1. Drink plenty of water.\n2. Follow up in 7 days."); tA.setBorder(BorderFactory.createTitledBorder("3. Advice / Lab Tests"));
         tA.setFont(new Font("Segoe UI", Font.PLAIN, 14));
@@ -80,22 +81,9 @@ public class PrescriptionDialog extends JDialog {
 
             try {
                 Connection con = DBConnection.connect();
-                
-                // 1. Save to DB
-                PreparedStatement pst = con.prepareStatement("INSERT INTO prescriptions (patient_code, doctor_name, diagnosis, medicines, advice) VALUES (?,?,?,?,?)");
-                pst.setLong(1, Long.parseLong(pid)); 
-                pst.setString(2, dName);
-                pst.setString(3, tD.getText()); 
-                pst.setString(4, tM.getText()); 
-                pst.setString(5, tA.getText());
-                pst.executeUpdate();
-                
-                // 2. Update Appointment Status
-                PreparedStatement pstUpdate = con.prepareStatement("UPDATE appointments SET status='Advised' WHERE id=?");
-                pstUpdate.setInt(1, Integer.parseInt(apptId));
-                pstUpdate.executeUpdate();
-                
+                save(con, pid, dName, tD.getText(), tM.getText(), tA.getText(), apptId);
                 con.close();
+                HistoryCache.refresh(pid);
 
                 // 3. Generate Slip String
                 StringBuilder slip = new StringBuilder();
@@ -146,4 +134,34 @@ public class PrescriptionDialog extends JDialog {
             con.close();
         } catch(Exception e) { e.printStackTrace(); }
     }
+
+    // 1. Save to DB (text + line items)  2. Update Appointment Status, in one transaction
+    static void save(Connection con, String pid, String doctor, String diagnosis, String medicines, String advice, String apptId) throws SQLException {
+        MedicineCatalog.ensureSchema(con); // DDL commits implicitly, so before the transaction
+        con.setAutoCommit(false);
+        try {
+            PreparedStatement pst = con.prepareStatement("INSERT INTO prescriptions (patient_code, doctor_name, diagnosis, medicines, advice) VALUES (?,?,?,?,?)", Statement.RETURN_GENERATED_KEYS);
+            pst.setLong(1, Long.parseLong(pid)); 
+            pst.setString(2, doctor);
+            pst.setString(3, diagnosis); 
+            pst.setString(4, medicines); 
+            pst.setString(5, advice);
+            pst.executeUpdate();
+            ResultSet keys = pst.getGeneratedKeys();
+            long rxId = keys.next() ? keys.getLong(1) : 0;
+            if(rxId > 0) MedicineCatalog.saveItems(con, rxId, doctor, medicines);
+
+            PreparedStatement pstUpdate = con.prepareStatement("UPDATE appointments SET status='Advised' WHERE id=?");
+            pstUpdate.setInt(1, Integer.parseInt(apptId));
+            pstUpdate.executeUpdate();
+            con.commit();
+            PatientTimeline.invalidate(pid);
+            AuditLog.record("prescription.create", "prescription", rxId, "appointment " + apptId + ", patient " + pid + ", " + diagnosis);
+        } catch(SQLException e) {
+            con.rollback();
+            throw e;
+        } finally {
+            con.setAutoCommit(true);
+        }
+    }
 }
\ No newline at end of file
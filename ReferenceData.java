@@ -0,0 +1,44 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import java.sql.*;
+import java.util.*;
+
+// Small lookup lists that rarely change (doctors per department). Loaded once in the background at
+// the login screen and refreshed in the background after a few minutes.
+public class ReferenceData {
+
+    private static final long TTL_MS = 5 * 60 * 1000;
+    private static volatile Map<String, List<String>> doctorsByDept = null;
+    private static volatile long loadedAt = 0;
+    private static volatile boolean refreshing = false;
+
+    public static void load(Connection con) throws SQLException {
+        Map<String, List<String>> m = new HashMap<>();
+        ResultSet rs = con.createStatement().executeQuery("SELECT name, department FROM users WHERE role='doctor' ORDER BY name");
+        while (rs.next()) m.computeIfAbsent(rs.getString("department"), k -> new ArrayList<>()).add(rs.getString("name"));
+        doctorsByDept = m;
+        loadedAt = System.currentTimeMillis();
+    }
+
+    // Current lists for LocalStore's snapshot, and the way back in when the terminal starts offline
+    static Map<String, List<String>> current() { return doctorsByDept; }
+
+    static void restore(Map<String, List<String>> m) {
+        if (doctorsByDept == null) { doctorsByDept = m; loadedAt = System.currentTimeMillis(); }
+    }
+
+    public static List<String> doctorsIn(String dept) {
+        if (doctorsByDept == null) reload(); // nothing to show yet
+        else if (!refreshing && System.currentTimeMillis() - loadedAt > TTL_MS) {
+            refreshing = true; // the old lists are fine meanwhile
+            DashboardPrefetch.submit(() -> { try { reload(); } finally { refreshing = false; } });
+        }
+        Map<String, List<String>> m = doctorsByDept;
+        return m == null ? Collections.emptyList() : m.getOrDefault(dept, Collections.emptyList());
+    }
+
+    private static void reload() {
+        try (Connection con = DBConnection.connect()) { if (con != null) load(con); }
+        catch (SQLException e) { e.printStackTrace(); }
+    }
+}
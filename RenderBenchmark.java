@@ -0,0 +1,93 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.DefaultTableModel;
+
+// Frame-time benchmark for table scrolling: a 100k-row appointment-style table is scrolled a few rows per
+// frame and painted offscreen, reporting frame times and bytes allocated per frame on the painting thread.
+//   java -cp "lib/*:out" com.mycompany.hospitalmanagementsystem.RenderBenchmark [rows] [frames] [--legacy]
+// --legacy installs the old per-call allocating header/center renderers for comparison.
+public class RenderBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 && !args[0].startsWith("--") ? Integer.parseInt(args[0]) : 100_000;
+        int frames = args.length > 1 && !args[1].startsWith("--") ? Integer.parseInt(args[1]) : 2_000;
+        boolean legacy = Arrays.asList(args).contains("--legacy");
+        try { com.formdev.flatlaf.FlatIntelliJLaf.setup(); } catch (Exception e) { e.printStackTrace(); }
+
+        SwingUtilities.invokeAndWait(() -> run(rows, frames, legacy));
+    }
+
+    private static void run(int rows, int frames, boolean legacy) {
+        String[] status = {"Pending", "Advised", "Admitted", "Discharged"};
+        String[] doctors = {"Dr. Sharma", "Dr. Thapa", "Dr. Gurung", "Dr. Karki", "Dr. Shrestha"};
+        DefaultTableModel m = new DefaultTableModel(new String[]{"ID", "PID", "Patient Name", "Doctor", "Date", "Status"}, 0);
+        for (int i = 0; i < rows; i++) {
+            m.addRow(new Object[]{i + 1, 100000 + i, "Patient " + i, doctors[i % doctors.length],
+                    java.sql.Date.valueOf(java.time.LocalDate.of(2024, 1, 1).plusDays(i % 365)), status[i % status.length]});
+        }
+        JTable table = new JTable(m);
+        if (legacy) installLegacy(table); else UIUtils.styleTable(table);
+        long t0 = System.nanoTime();
+        if (!legacy) TableRenderers.autoSize(table);
+        long autoSizeMicros = (System.nanoTime() - t0) / 1000;
+
+        JScrollPane sp = new JScrollPane(table);
+        sp.setSize(1200, 800);
+        sp.doLayout(); sp.getViewport().doLayout();
+        BufferedImage frame = new BufferedImage(1200, 800, BufferedImage.TYPE_INT_RGB);
+        JViewport vp = sp.getViewport();
+        int maxY = Math.max(0, table.getPreferredSize().height - 800);
+
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long tid = Thread.currentThread().getId();
+        long[] nanos = new long[frames];
+        int warmup = Math.min(500, frames / 4);
+        long allocStart = 0;
+        for (int f = -warmup; f < frames; f++) {
+            if (f == 0) allocStart = mx.getThreadAllocatedBytes(tid);
+            int y = (int) (((long) (f + warmup) * 3 * TableRenderers.ROW_HEIGHT) % (maxY + 1));
+            long s = System.nanoTime();
+            vp.setViewPosition(new Point(0, y));
+            Graphics2D g = frame.createGraphics();
+            sp.paint(g);
+            g.dispose();
+            if (f >= 0) nanos[f] = System.nanoTime() - s;
+        }
+        long alloc = mx.getThreadAllocatedBytes(tid) - allocStart;
+
+        Arrays.sort(nanos);
+        System.out.printf("renderers=%s rows=%d frames=%d autosize=%d us%n", legacy ? "legacy" : "shared", rows, frames, autoSizeMicros);
+        System.out.printf("frame ms: p50=%.3f p90=%.3f p99=%.3f max=%.3f%n", ms(nanos, 0.50), ms(nanos, 0.90), ms(nanos, 0.99), nanos[frames - 1] / 1e6);
+        System.out.printf("allocated: %d bytes/frame%n", alloc / frames);
+    }
+
+    private static double ms(long[] sorted, double q) { return sorted[(int) Math.min(sorted.length - 1, q * sorted.length)] / 1e6; }
+
+    // The renderers styleTable used to install, kept here only as the comparison baseline
+    private static void installLegacy(JTable table) {
+        table.setRowHeight(30);
+        table.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        table.getTableHeader().setDefaultRenderer(new DefaultTableCellRenderer() {
+            @Override
+            public Component getTableCellRendererComponent(JTable t, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+                JLabel l = (JLabel) super.getTableCellRendererComponent(t, value, isSelected, hasFocus, row, column);
+                l.setBackground(UIUtils.COLOR_TEAL); l.setForeground(Color.WHITE);
+                l.setFont(new Font("Segoe UI", Font.BOLD, 14));
+                l.setHorizontalAlignment(JLabel.CENTER); l.setOpaque(true);
+                l.setBorder(BorderFactory.createMatteBorder(0, 0, 1, 1, Color.WHITE));
+                return l;
+            }
+        });
+        for (int i = 0; i < table.getColumnCount(); i++) {
+            DefaultTableCellRenderer center = new DefaultTableCellRenderer();
+            center.setHorizontalAlignment(JLabel.CENTER);
+            table.getColumnModel().getColumn(i).setCellRenderer(center);
+        }
+    }
+}
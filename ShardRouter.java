@@ -0,0 +1,253 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+// One logical system over one MySQL database per branch. Patients, appointments, admissions and bills live
+// in the shard of the branch where they were recorded; each terminal works against its home shard (the one
+// DBConnection.connect() returns). New ids stay unique across branches by striping: an IdAllocator slot s
+// becomes id s * stride + branch number, so shards need not coordinate to hand them out. The exception is
+// patient codes: those registered before the allocator are random 6-digit numbers and may exist at several
+// branches, so reserving a block of patient codes checks every branch and fails while one is unreachable
+// (registration then falls back to provisional codes, see LocalStore). Lookups of a patient code that is not
+// on the home shard are sent to all other shards at once; a code found at more than one branch is handed to
+// the caller to choose, never raced. A patient from another branch is kept on the home shard as a copy
+// (listed in patient_copies with the branch it came from) so local rows can refer to it; copies are
+// refreshed from that branch on every lookup and left out of counts and searches.
+//
+// ~/.hms/branches.properties (or -Dhms.branches=<file>); without it there is one branch and nothing changes:
+//   branches=ktm,pkr,brt
+//   home=ktm                   (or -Dhms.branch=pkr per terminal, e.g. several local databases on one machine)
+//   stride=16                  (fixed for the life of the deployment; leaves room for more branches)
+//   ktm.no=0
+//   ktm.url=jdbc:mysql://10.0.1.5:3306/hospital_db
+//   ktm.user=root / ktm.pass=...   (default to DBConnection's)
+public class ShardRouter {
+
+    public static final class Branch {
+        public final String name, url, user, pass; public final int no;
+        Branch(String name, int no, String url, String user, String pass) { this.name = name; this.no = no; this.url = url; this.user = user; this.pass = pass; }
+        @Override public String toString() { return name; }
+    }
+
+    private static final Path CONFIG = Paths.get(System.getProperty("hms.branches", Paths.get(System.getProperty("user.home"), ".hms", "branches.properties").toString()));
+    private static final long FAN_OUT_TIMEOUT_MS = 4000;
+
+    private static final List<Branch> branches = new ArrayList<>();
+    private static Branch home;
+    private static int stride = 1;
+    private static volatile boolean schemaReady = false;
+
+    static { load(); }
+
+    private static void load() {
+        Properties p = new Properties();
+        if (Files.exists(CONFIG)) {
+            try (InputStream in = Files.newInputStream(CONFIG)) { p.load(in); }
+            catch (IOException e) { System.err.println("Branch config unreadable, using the single database: " + e.getMessage()); p.clear(); }
+        }
+        String list = p.getProperty("branches", "").trim();
+        if (list.isEmpty()) {
+            home = new Branch("main", 0, DBConnection.DEFAULT_URL, DBConnection.DEFAULT_USER, DBConnection.DEFAULT_PASS);
+            branches.add(home);
+            return;
+        }
+        for (String name : list.split(",")) {
+            name = name.trim();
+            if (name.isEmpty()) continue;
+            branches.add(new Branch(name, Integer.parseInt(p.getProperty(name + ".no", String.valueOf(branches.size())).trim()),
+                    p.getProperty(name + ".url", DBConnection.DEFAULT_URL).trim(),
+                    p.getProperty(name + ".user", DBConnection.DEFAULT_USER), p.getProperty(name + ".pass", DBConnection.DEFAULT_PASS)));
+        }
+        stride = Integer.parseInt(p.getProperty("stride", "16").trim());
+        String want = System.getProperty("hms.branch", p.getProperty("home", branches.get(0).name)).trim();
+        for (Branch b : branches) {
+            if (b.no < 0 || b.no >= stride) throw new IllegalStateException("Branch " + b.name + ": no must be 0.." + (stride - 1));
+            if (b.name.equalsIgnoreCase(want)) home = b;
+        }
+        if (home == null) throw new IllegalStateException("Home branch '" + want + "' is not in " + CONFIG);
+    }
+
+    public static Branch home() { return home; }
+
+    public static List<Branch> branches() { return Collections.unmodifiableList(branches); }
+
+    public static boolean isSharded() { return branches.size() > 1; }
+
+    // ---------------------------------------------------------------- ids
+
+    public static int stride() { return stride; }
+
+    // The id for IdAllocator slot 's' on this terminal's branch
+    public static long stripe(long slot) { return slot * stride + home.no; }
+
+    // First slot whose id (on any branch) is above 'id', so a sequence seeded from existing rows never reuses one
+    public static long firstSlotAfter(long id) { return id / stride + 1; }
+
+    // ---------------------------------------------------------------- fan-out
+
+    interface ShardQuery<T> { T run(Connection con, Branch b) throws SQLException; }
+
+    private static final ExecutorService POOL = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "shard-fanout"); t.setDaemon(true); return t;
+    });
+
+    // Home shard via the warm pool, others with a fresh connection
+    static Connection connect(Branch b) throws Exception {
+        if (b == home) {
+            Connection con = DBConnection.connectQuietly();
+            if (con == null) throw new SQLException("Database not reachable");
+            return con;
+        }
+        return DBConnection.open(b, "");
+    }
+
+    private static <T> CompletableFuture<T> on(Branch b, ShardQuery<T> q) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (Connection con = connect(b)) { return q.run(con, b); }
+            catch (Exception e) { throw new CompletionException(b.name + ": " + e.getMessage(), e); }
+        }, POOL);
+    }
+
+    // Runs 'q' on every branch in parallel and returns the results in branch order. A branch that fails or
+    // does not answer within FAN_OUT_TIMEOUT_MS is left out (and logged) rather than failing the whole call.
+    public static <T> List<T> fanOut(ShardQuery<T> q) {
+        Map<Branch, CompletableFuture<T>> parts = new LinkedHashMap<>();
+        for (Branch b : branches) parts.put(b, on(b, q));
+        long deadline = System.currentTimeMillis() + FAN_OUT_TIMEOUT_MS;
+        List<T> results = new ArrayList<>();
+        for (Map.Entry<Branch, CompletableFuture<T>> e : parts.entrySet()) {
+            try {
+                T r = e.getValue().get(Math.max(1, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                if (r != null) results.add(r);
+            } catch (Exception ex) {
+                System.err.println("Shard " + e.getKey().name + " skipped: " + ex.getMessage());
+            }
+        }
+        return results;
+    }
+
+    // Picks one of several patients registered under the same code at different branches (each map has a
+    // "branch" key); null = none
+    public interface Chooser { Map<String, String> choose(List<Map<String, String>> matches); }
+
+    // Patient by code from the branch that registered it, with a "branch" key. A code already copied home is
+    // read from the branch it was copied from. Otherwise every shard is asked; one owner is the answer, several
+    // go to 'chooser' (null chooser: no answer). The owner's row is copied to the home shard so appointments,
+    // admissions and bills recorded here have their patient row locally. The home copy itself is only the
+    // answer when its branch does not.
+    public static Map<String, String> findPatient(String code, Chooser chooser) {
+        Map<String, String> copy = null;
+        Branch from = null;
+        try (Connection con = connect(home)) {
+            String name = copiedFrom(con, code);
+            if (name != null) {
+                copy = StaffDashboard.findPatient(con, code);
+                for (Branch b : branches) if (b.name.equals(name)) from = b;
+            }
+        } catch (Exception e) { System.err.println("Shard lookup failed: " + e.getMessage()); }
+        if (from != null) {
+            try {
+                Map<String, String> p = on(from, (con, b) -> StaffDashboard.findPatient(con, code)).get(FAN_OUT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (p != null) return take(p, from);
+            } catch (Exception e) { System.err.println("Shard lookup failed: " + e.getMessage()); }
+            return copy; // its branch is down (or deleted it): the last copy is all there is
+        }
+        List<Map<String, String>> matches = fanOut((con, b) -> {
+            Map<String, String> p = b == home && isCopy(con, code) ? null : StaffDashboard.findPatient(con, code);
+            if (p != null) p.put("branch", b.name);
+            return p;
+        });
+        Map<String, String> p = matches.size() == 1 ? matches.get(0) : null;
+        if (matches.size() > 1) {
+            System.err.println("Patient code " + code + " is registered at " + matches.size() + " branches");
+            p = chooser == null ? null : chooser.choose(Collections.unmodifiableList(matches));
+        }
+        if (p == null) return copy;
+        for (Branch b : branches) if (b.name.equals(p.get("branch"))) return take(p, b);
+        return p;
+    }
+
+    private static Map<String, String> take(Map<String, String> p, Branch owner) {
+        p = new HashMap<>(p);
+        p.put("branch", owner.name);
+        if (owner != home) copyHome(p, owner);
+        return p;
+    }
+
+    // Patients whose name starts with or phone ends with 'text', from every branch, merged by name:
+    // {branch, code, name, phone, age, sex}
+    public static List<String[]> searchPatients(String text, int limitPerBranch) {
+        List<String[]> all = new ArrayList<>();
+        for (List<String[]> part : fanOut((con, b) -> {
+            PreparedStatement pst = con.prepareStatement("SELECT patient_code, name, phone, age, sex FROM patients WHERE (name LIKE ? OR phone LIKE ?) AND " + ownPatients(con) + " ORDER BY name LIMIT ?");
+            pst.setString(1, text + "%"); pst.setString(2, "%" + text); pst.setInt(3, limitPerBranch);
+            ResultSet rs = pst.executeQuery();
+            List<String[]> rows = new ArrayList<>();
+            while (rs.next()) rows.add(new String[]{b.name, rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5)});
+            return rows;
+        })) all.addAll(part);
+        all.sort(Comparator.comparing((String[] r) -> r[2], String.CASE_INSENSITIVE_ORDER));
+        return all;
+    }
+
+    // ---------------------------------------------------------------- copies
+
+    private static void ensureSchema(Connection con) throws SQLException {
+        if (schemaReady) return;
+        con.createStatement().executeUpdate("CREATE TABLE IF NOT EXISTS patient_copies (patient_code BIGINT PRIMARY KEY, "
+                + "branch VARCHAR(40) NOT NULL, copied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+        schemaReady = true;
+    }
+
+    // WHERE condition for the patients registered on this shard, leaving out copies from other branches
+    public static String ownPatients(Connection con) throws SQLException {
+        if (!isSharded()) return "TRUE";
+        ensureSchema(con);
+        return "patient_code NOT IN (SELECT patient_code FROM patient_copies)";
+    }
+
+    public static boolean isCopy(Connection con, String code) throws SQLException { return copiedFrom(con, code) != null; }
+
+    // Branch the home copy of 'code' came from, null when it is not a copy
+    private static String copiedFrom(Connection con, String code) throws SQLException {
+        if (!isSharded()) return null;
+        ensureSchema(con);
+        try (PreparedStatement pst = con.prepareStatement("SELECT branch FROM patient_copies WHERE patient_code=?")) {
+            pst.setLong(1, Long.parseLong(code));
+            ResultSet rs = pst.executeQuery();
+            return rs.next() ? rs.getString(1) : null;
+        }
+    }
+
+    // Inserts or refreshes the home copy of a patient owned by 'owner'
+    private static void copyHome(Map<String, String> p, Branch owner) {
+        try (Connection con = connect(home)) {
+            ensureSchema(con);
+            con.setAutoCommit(false);
+            try {
+                long code = Long.parseLong(p.get("patient_code"));
+                PreparedStatement own = con.prepareStatement("SELECT 1 FROM patients WHERE patient_code=? AND " + ownPatients(con));
+                own.setLong(1, code);
+                if (own.executeQuery().next()) { con.rollback(); return; } // a local patient with the same code is never overwritten
+                PreparedStatement mark = con.prepareStatement("INSERT INTO patient_copies (patient_code, branch) VALUES (?, ?) "
+                        + "ON DUPLICATE KEY UPDATE branch = VALUES(branch), copied_at = CURRENT_TIMESTAMP");
+                mark.setLong(1, code); mark.setString(2, owner.name);
+                mark.executeUpdate();
+                PreparedStatement pst = con.prepareStatement("INSERT INTO patients (patient_code, name, address, phone, national_id, age, sex, email) VALUES (?,?,?,?,?,?,?,?) "
+                        + "ON DUPLICATE KEY UPDATE name = VALUES(name), address = VALUES(address), phone = VALUES(phone), national_id = VALUES(national_id), "
+                        + "age = VALUES(age), sex = VALUES(sex), email = VALUES(email)");
+                pst.setLong(1, code); pst.setString(2, p.get("name")); pst.setString(3, p.get("address"));
+                pst.setString(4, p.get("phone")); pst.setString(5, p.get("national_id")); pst.setInt(6, Integer.parseInt(p.get("age")));
+                pst.setString(7, p.get("sex")); pst.setString(8, p.get("email"));
+                pst.executeUpdate();
+                con.commit();
+            } catch (SQLException e) { con.rollback(); throw e; }
+            finally { con.setAutoCommit(true); }
+        } catch (Exception e) { System.err.println("Could not copy patient " + p.get("patient_code") + " to " + home.name + ": " + e.getMessage()); }
+    }
+}
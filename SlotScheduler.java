@@ -0,0 +1,212 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Per-doctor OPD slot calendar. A doctor's day is a single 64-bit bitmap (one bit per 10 minute slot),
+// so conflict and capacity checks for the pickers are a couple of bit operations. The bitmap is re-read in
+// the background once it is a minute old. A booking is decided by the database: it locks the doctor's
+// day (appointment_days row), re-reads that day's slots and checks slot and session capacity against them,
+// so desks booking the same doctor and day take turns and cannot overfill a session together.
+public class SlotScheduler {
+
+    public static final int SLOT_MINUTES = 10;
+    public static final String[] SESSIONS = {"Morning", "Afternoon"};
+    private static final int[] SESSION_START = {9 * 60, 14 * 60};   // minutes from midnight
+    private static final int[] SESSION_SLOTS = {24, 18};             // 09:00-13:00, 14:00-17:00
+    private static final int[] SESSION_CAPACITY = {20, 15};          // max patients per session
+    private static final long[] SESSION_MASK = new long[SESSIONS.length];
+    public static final int SLOTS_PER_DAY;
+
+    static {
+        int first = 0;
+        for (int s = 0; s < SESSIONS.length; s++) {
+            SESSION_MASK[s] = ((1L << SESSION_SLOTS[s]) - 1) << first;
+            first += SESSION_SLOTS[s];
+        }
+        SLOTS_PER_DAY = first;
+    }
+
+    public static class Suggestion {
+        public final String doctor; public final LocalDate date; public final int slot;
+        Suggestion(String doctor, LocalDate date, int slot) { this.doctor = doctor; this.date = date; this.slot = slot; }
+    }
+
+    private static final long REFRESH_MS = 60_000;
+    private static final ConcurrentHashMap<String, AtomicLong> days = new ConcurrentHashMap<>();
+    // This terminal's offline holds (LocalStore), kept across reloads until replayed
+    private static final ConcurrentHashMap<String, AtomicLong> held = new ConcurrentHashMap<>();
+    private static volatile boolean loaded = false, refreshing = false;
+    private static volatile long loadedAt = 0;
+
+    public static synchronized void load() {
+        if (loaded) {
+            if (!refreshing && System.currentTimeMillis() - loadedAt > REFRESH_MS) {
+                refreshing = true; // other desks' bookings: re-read in the background, keep answering from the old bitmap
+                DashboardPrefetch.submit(() -> { try { reload(); } finally { refreshing = false; } });
+            }
+            return;
+        }
+        reload();
+    }
+
+    static void reload() {
+        try (Connection con = DBConnection.connect()) {
+            if (con == null) return;
+            ensureSchema(con);
+            java.util.Map<String, Long> fresh = new java.util.HashMap<>();
+            ResultSet rs = con.createStatement().executeQuery("SELECT doctor_name, appt_date, slot FROM appointment_slots WHERE appt_date >= CURDATE()");
+            while (rs.next()) fresh.merge(rs.getString(1) + '|' + rs.getDate(2).toLocalDate(), bit(rs.getInt(3)), (a, b) -> a | b);
+            for (String k : days.keySet()) fresh.putIfAbsent(k, 0L);
+            fresh.forEach((k, used) -> days.computeIfAbsent(k, x -> new AtomicLong()).set(used | heldBits(k)));
+            loaded = true;
+            loadedAt = System.currentTimeMillis();
+        } catch (SQLException e) { e.printStackTrace(); }
+    }
+
+    private static void ensureSchema(Connection con) throws SQLException {
+        con.createStatement().executeUpdate("CREATE TABLE IF NOT EXISTS appointment_slots (doctor_name VARCHAR(100) NOT NULL, appt_date DATE NOT NULL, slot INT NOT NULL, "
+                + "appointment_id INT NOT NULL, PRIMARY KEY (doctor_name, appt_date, slot), UNIQUE KEY uq_appointment_slots_appt (appointment_id))");
+        // One row per doctor and day, locked by book() so bookings for that day are checked one at a time
+        con.createStatement().executeUpdate("CREATE TABLE IF NOT EXISTS appointment_days (doctor_name VARCHAR(100) NOT NULL, appt_date DATE NOT NULL, "
+                + "PRIMARY KEY (doctor_name, appt_date))");
+    }
+
+    private static long heldBits(String key) { AtomicLong h = held.get(key); return h == null ? 0 : h.get(); }
+
+    private static AtomicLong day(String doctor, LocalDate date) { return days.computeIfAbsent(doctor + '|' + date, k -> new AtomicLong()); }
+
+    private static long bit(int slot) { return 1L << slot; }
+
+    public static String label(int slot) {
+        int first = 0;
+        for (int s = 0; s < SESSIONS.length; s++) {
+            if (slot < first + SESSION_SLOTS[s]) return LocalTime.ofSecondOfDay((SESSION_START[s] + (slot - first) * SLOT_MINUTES) * 60L).toString();
+            first += SESSION_SLOTS[s];
+        }
+        return "?";
+    }
+
+    public static int slotOf(String label) {
+        for (int slot = 0; slot < SLOTS_PER_DAY; slot++) if (label(slot).equals(label)) return slot;
+        return -1;
+    }
+
+    public static int sessionOf(int slot) {
+        for (int s = 0; s < SESSIONS.length; s++) if ((SESSION_MASK[s] & bit(slot)) != 0) return s;
+        return -1;
+    }
+
+    private static boolean fits(long used, int slot) {
+        int s = sessionOf(slot);
+        return s >= 0 && (used & bit(slot)) == 0 && Long.bitCount(used & SESSION_MASK[s]) < SESSION_CAPACITY[s];
+    }
+
+    // First slot that has not started yet on 'date' (0 for future days)
+    private static int firstBookable(LocalDate date) {
+        if (!date.equals(LocalDate.now())) return 0;
+        LocalTime now = LocalTime.now();
+        for (int slot = 0; slot < SLOTS_PER_DAY; slot++) if (LocalTime.parse(label(slot)).isAfter(now)) return slot;
+        return SLOTS_PER_DAY;
+    }
+
+    public static boolean isFree(String doctor, LocalDate date, int slot) { load(); return fits(day(doctor, date).get(), slot); }
+
+    public static List<Integer> freeSlots(String doctor, LocalDate date) {
+        load();
+        long used = day(doctor, date).get();
+        List<Integer> free = new ArrayList<>();
+        for (int slot = firstBookable(date); slot < SLOTS_PER_DAY; slot++) if (fits(used, slot)) free.add(slot);
+        return free;
+    }
+
+    public static int nextFree(String doctor, LocalDate date) {
+        load();
+        long used = day(doctor, date).get();
+        for (long open = ~used & ~((1L << firstBookable(date)) - 1) & ((1L << SLOTS_PER_DAY) - 1); open != 0; open &= open - 1) {
+            int slot = Long.numberOfTrailingZeros(open);
+            if (fits(used, slot)) return slot;
+        }
+        return -1;
+    }
+
+    // Earliest open slot among the given doctors (e.g. everyone in a department) over the next 'horizon' days
+    public static Suggestion nextAvailable(List<String> doctors, LocalDate from, int horizon) {
+        for (int d = 0; d < horizon; d++) {
+            LocalDate date = from.plusDays(d);
+            Suggestion best = null;
+            for (String doc : doctors) {
+                int slot = nextFree(doc, date);
+                if (slot >= 0 && (best == null || slot < best.slot)) best = new Suggestion(doc, date, slot);
+            }
+            if (best != null) return best;
+        }
+        return null;
+    }
+
+    // Books the slot for an appointment inside the caller's transaction; false if taken or session full.
+    // The doctor's day stays locked until the caller commits or rolls back.
+    public static boolean book(Connection con, String doctor, LocalDate date, int slot, long appointmentId) throws SQLException {
+        load();
+        String key = doctor + '|' + date;
+        if (sessionOf(slot) < 0 || (heldBits(key) & bit(slot)) != 0) return false;
+        PreparedStatement pst = con.prepareStatement("INSERT INTO appointment_days (doctor_name, appt_date) VALUES (?,?) ON DUPLICATE KEY UPDATE doctor_name = doctor_name");
+        pst.setString(1, doctor); pst.setDate(2, Date.valueOf(date));
+        pst.executeUpdate();
+        // Locking read: sees every committed booking even when the transaction's snapshot is older (release()
+        // ran a plain SELECT first on the reschedule path)
+        pst = con.prepareStatement("SELECT slot FROM appointment_slots WHERE doctor_name=? AND appt_date=? FOR UPDATE");
+        pst.setString(1, doctor); pst.setDate(2, Date.valueOf(date));
+        ResultSet rs = pst.executeQuery();
+        long used = heldBits(key);
+        while (rs.next()) used |= bit(rs.getInt(1));
+        day(doctor, date).set(used); // what the database says, as of now
+        if (!fits(used, slot)) return false;
+        try {
+            pst = con.prepareStatement("INSERT INTO appointment_slots (doctor_name, appt_date, slot, appointment_id) VALUES (?,?,?,?)");
+            pst.setString(1, doctor); pst.setDate(2, Date.valueOf(date)); pst.setInt(3, slot); pst.setLong(4, appointmentId);
+            pst.executeUpdate();
+        } catch (SQLIntegrityConstraintViolationException taken) {
+            return false;
+        }
+        day(doctor, date).getAndUpdate(v -> v | bit(slot));
+        return true;
+    }
+
+    // Frees whatever slot the appointment holds (cancel / reschedule) inside the caller's transaction. The
+    // bitmap is only updated by the returned Runnable, which the caller runs once the delete is committed.
+    public static Runnable release(Connection con, long appointmentId) throws SQLException {
+        PreparedStatement pst = con.prepareStatement("SELECT doctor_name, appt_date, slot FROM appointment_slots WHERE appointment_id=?");
+        pst.setLong(1, appointmentId);
+        ResultSet rs = pst.executeQuery();
+        if (!rs.next()) return () -> {};
+        String doctor = rs.getString(1); LocalDate date = rs.getDate(2).toLocalDate(); int slot = rs.getInt(3);
+        pst = con.prepareStatement("DELETE FROM appointment_slots WHERE appointment_id=?");
+        pst.setLong(1, appointmentId);
+        pst.executeUpdate();
+        return () -> unmark(doctor, date, slot);
+    }
+
+    // Marks a slot taken on this terminal only (offline booking queued in LocalStore); false if not free
+    static boolean hold(String doctor, LocalDate date, int slot) {
+        AtomicLong day = day(doctor, date);
+        while (true) {
+            long used = day.get();
+            if (!fits(used, slot)) return false;
+            if (day.compareAndSet(used, used | bit(slot))) break;
+        }
+        held.computeIfAbsent(doctor + '|' + date, k -> new AtomicLong()).getAndUpdate(v -> v | bit(slot));
+        return true;
+    }
+
+    public static void unmark(String doctor, LocalDate date, int slot) {
+        day(doctor, date).getAndUpdate(v -> v & ~bit(slot));
+        AtomicLong h = held.get(doctor + '|' + date);
+        if (h != null) h.getAndUpdate(v -> v & ~bit(slot));
+    }
+}
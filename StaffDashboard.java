@@ -12,7 +12,6 @@ import java.awt.print.PrinterException;
 import java.sql.*;
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.Random;
 
 public class StaffDashboard extends JFrame {
     int staffId;
@@ -28,17 +27,20 @@ public class StaffDashboard extends JFrame {
 
     JTextField txtApptPid, txtApptName, txtApptAge, txtApptSex, txtApptDate, txtApptEmail;
     JTextArea txtApptAddr; 
-    JComboBox<String> cmbApptDept, cmbApptDoctor;
+    JComboBox<String> cmbApptDept, cmbApptDoctor, cmbApptSlot;
     JTable apptTable; DefaultTableModel apptModel;
 
     JTextField txtWardPid, txtWardName, txtWardAge, txtWardSex, txtWardPhone, txtWardBed;
     JTextArea txtWardAddr, txtWardDisease;
     JTable wardTable; DefaultTableModel wardModel;
+    JComboBox<String> cmbWard; JPanel bedGrid;
 
     JTextField txtBillInvoice, txtBillPid, txtBillName, txtBillItem, txtBillQty, txtBillRate, txtBillDiscount, txtBillGrandTotal, txtBillEmail, txtBillPhone;
     JTextArea txtBillAddr;
     JTable billTable; DefaultTableModel billModel;
     double subTotal = 0.0;
+    long pendingInvoiceId = -1; // reserved invoice number shown on the form, kept until a bill uses it
+    private final java.util.List<javax.swing.Timer> timers = new java.util.ArrayList<>(); // stopped in dispose()
 
     public StaffDashboard(int id, String username) {
         this.staffId = id;
@@ -47,6 +49,7 @@ public class StaffDashboard extends JFrame {
         setSize(1366, 768);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLocationRelativeTo(null);
+        LocalStore.start(); // desk keeps registering / booking / billing while the database is unreachable
         
         JPanel mainPanel = UIUtils.createBackgroundPanel("staff_bg.jpg");
         mainPanel.setLayout(new BorderLayout());
@@ -63,23 +66,50 @@ public class StaffDashboard extends JFrame {
         UIUtils.styleButton(btnLogout, UIUtils.COLOR_RED);
         btnLogout.addActionListener(e -> { dispose(); new Login().setVisible(true); });
         
-        header.add(lblTitle, BorderLayout.WEST); header.add(btnLogout, BorderLayout.EAST);
+        // Offline / queued / sync notices; click to read the notices (changed IDs, moved slots or beds)
+        JLabel lblSync = new JLabel(); lblSync.setForeground(UIUtils.COLOR_ORANGE); lblSync.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        lblSync.setHorizontalAlignment(SwingConstants.RIGHT); lblSync.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+        lblSync.addMouseListener(new MouseAdapter() { public void mouseClicked(MouseEvent e) {
+            java.util.List<String> notes = LocalStore.takeConflicts();
+            if(!notes.isEmpty()) JOptionPane.showMessageDialog(StaffDashboard.this, new JScrollPane(new JTextArea(String.join("\n", notes), Math.min(15, notes.size() + 1), 60)), "Sync Notices", JOptionPane.WARNING_MESSAGE);
+            lblSync.setText(LocalStore.status() + "   ");
+        }});
+        javax.swing.Timer syncTimer = new javax.swing.Timer(2000, e -> lblSync.setText(LocalStore.status() + "   "));
+        timers.add(syncTimer); syncTimer.start();
+
+        header.add(lblTitle, BorderLayout.WEST); header.add(lblSync, BorderLayout.CENTER); header.add(btnLogout, BorderLayout.EAST);
         mainPanel.add(header, BorderLayout.NORTH);
 
         JTabbedPane tabs = new JTabbedPane();
         tabs.setFont(new Font("Segoe UI", Font.BOLD, 14));
-        tabs.addTab(" Register Patient", createRegistrationPanel());
-        tabs.addTab(" Appointments", createAppointmentPanel());
-        tabs.addTab(" Ward / Admit", createWardPanel());
-        tabs.addTab(" Billing & Invoice", createBillingPanel());
+        UIUtils.addLazyTab(tabs, " Register Patient", this::createRegistrationPanel);
+        UIUtils.addLazyTab(tabs, " Appointments", this::createAppointmentPanel);
+        UIUtils.addLazyTab(tabs, " Ward / Admit", this::createWardPanel);
+        UIUtils.addLazyTab(tabs, " Ward Report", WardCensus::createPanel);
+        UIUtils.addLazyTab(tabs, " Billing & Invoice", this::createBillingPanel);
         mainPanel.add(tabs, BorderLayout.CENTER);
+        Warmup.trackUsable(this, "staff");
+    }
+
+    // Started from Login right after the credentials check, in parallel with building this window
+    static void prefetch() {
+        DashboardPrefetch.submit("staff.patients", StaffDashboard::queryPatients);
+        DashboardPrefetch.submit("staff.appts", StaffDashboard::queryAppts);
+        DashboardPrefetch.submit("staff.ward", StaffDashboard::queryWard);
+        DashboardPrefetch.submit(BedRegistry::load);
+        DashboardPrefetch.submit(NameIndex::load);
+        DashboardPrefetch.submit(DuplicateDetector::load);
+        IdAllocator.PATIENT_CODES.prime();
+        IdAllocator.INVOICES.prime();
+        IdAllocator.APPOINTMENTS.prime();
+        IdAllocator.ADMISSIONS.prime();
     }
 
     // 1. REGISTRATION PANEL
     private JPanel createRegistrationPanel() {
         JPanel p = new JPanel(new BorderLayout(10, 10)); p.setOpaque(false);
         p.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
-        JPanel form = new JPanel(new GridBagLayout()); form.setBackground(new Color(255,255,255,245));
+        JPanel form = UIUtils.createGlassPanel(new GridBagLayout(), new Color(255,255,255,245));
         form.setBorder(BorderFactory.createTitledBorder("New Patient Entry"));
         GridBagConstraints gbc = new GridBagConstraints();
         gbc.insets = new Insets(8, 8, 8, 8); gbc.fill = GridBagConstraints.HORIZONTAL;
@@ -137,7 +167,11 @@ public class StaffDashboard extends JFrame {
         JButton btnUpdate = new JButton(" UPDATE"); UIUtils.styleButton(btnUpdate, UIUtils.COLOR_ORANGE); btnUpdate.setForeground(Color.BLACK);
         JButton btnClear = new JButton(" CLEAR"); UIUtils.styleButton(btnClear, Color.GRAY);
         btnPanel.add(btnSave); btnPanel.add(btnUpdate); btnPanel.add(btnClear);
-        gbc.gridx=0; gbc.gridy=5; gbc.gridwidth=5; form.add(btnPanel, gbc);
+        // Likely existing records for what is being typed; click to pick one instead of registering again
+        JLabel lblDup = new JLabel(" "); lblDup.setFont(new Font("Segoe UI", Font.BOLD, 14)); lblDup.setForeground(new Color(200, 35, 51));
+        lblDup.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+        gbc.gridx=0; gbc.gridy=5; gbc.gridwidth=5; form.add(lblDup, gbc);
+        gbc.gridx=0; gbc.gridy=6; gbc.gridwidth=5; form.add(btnPanel, gbc);
 
         p.add(form, BorderLayout.NORTH);
 
@@ -148,12 +182,92 @@ public class StaffDashboard extends JFrame {
         JPanel tableActs = new JPanel();
         JButton btnEditSel = new JButton("Load Selected"); UIUtils.styleButton(btnEditSel, UIUtils.COLOR_BLUE);
         JButton btnDelSel = new JButton("Delete Selected"); UIUtils.styleButton(btnDelSel, UIUtils.COLOR_RED);
-        tableActs.add(btnEditSel); tableActs.add(btnDelSel);
+        JButton btnFindName = new JButton("Find by Name"); UIUtils.styleButton(btnFindName, UIUtils.COLOR_BLUE);
+        JButton btnTimeline = new JButton("Timeline"); UIUtils.styleButton(btnTimeline, UIUtils.COLOR_TEAL);
+        JButton btnAllBranches = new JButton("Search All Branches"); UIUtils.styleButton(btnAllBranches, UIUtils.COLOR_TEAL);
+        tableActs.add(btnEditSel); tableActs.add(btnDelSel); tableActs.add(btnFindName); tableActs.add(btnTimeline);
+        if(ShardRouter.isSharded()) tableActs.add(btnAllBranches);
         tablePanel.add(tableActs, BorderLayout.SOUTH);
         p.add(tablePanel, BorderLayout.CENTER);
 
         loadPatientTable();
 
+        // Any patient, not only the recent ones in the table; loads the record into the form for editing
+        java.util.function.Consumer<String> loadIntoForm = code -> {
+            java.util.Map<String, String> pt = code == null ? null : lookupPatient(code);
+            if(pt == null) return;
+            tId.setText(pt.get("patient_code")); tName.setText(pt.get("name"));
+            tPhone.setText(String.valueOf(pt.get("phone")).replace("977", "")); tAge.setText(pt.get("age"));
+            cSex.setSelectedItem(pt.get("sex")); tNat.setText(pt.get("national_id")); tAddr.setText(pt.get("address"));
+            String em = pt.get("email") != null ? pt.get("email") : "";
+            if(em.contains("@")) { txtRegEmailUser.setText(em.split("@")[0]); chkHasEmail.setSelected(true); txtRegEmailUser.setEnabled(true); }
+            else { txtRegEmailUser.setText(""); chkHasEmail.setSelected(false); txtRegEmailUser.setEnabled(false); }
+        };
+        btnFindName.addActionListener(e -> loadIntoForm.accept(NameIndex.pick(this)));
+
+        // Name / phone search on every branch at once; the picked patient is copied to this branch on load
+        btnAllBranches.addActionListener(e -> {
+            String q = JOptionPane.showInputDialog(this, "Name or phone (all branches):");
+            if(q == null || q.trim().isEmpty()) return;
+            btnAllBranches.setEnabled(false); btnAllBranches.setText("Searching...");
+            new Thread(() -> {
+                java.util.List<String[]> rows = ShardRouter.searchPatients(q.trim(), 50);
+                SwingUtilities.invokeLater(() -> {
+                    btnAllBranches.setEnabled(true); btnAllBranches.setText("Search All Branches");
+                    if(rows.isEmpty()) { JOptionPane.showMessageDialog(this, "No patient found in any branch."); return; }
+                    DefaultTableModel m = new DefaultTableModel(new String[]{"Branch", "Patient Code", "Name", "Phone", "Age", "Sex"}, 0) {
+                        public boolean isCellEditable(int r, int c) { return false; }
+                    };
+                    for(String[] r : rows) m.addRow(r);
+                    JTable t = new JTable(m); UIUtils.styleTable(t);
+                    JScrollPane sp = new JScrollPane(t); sp.setPreferredSize(new Dimension(750, 350));
+                    if(JOptionPane.showConfirmDialog(this, sp, rows.size() + " patient(s) across branches", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE) == JOptionPane.OK_OPTION
+                            && t.getSelectedRow() != -1) loadIntoForm.accept(String.valueOf(m.getValueAt(t.convertRowIndexToModel(t.getSelectedRow()), 1)));
+                });
+            }).start();
+        });
+
+        // Duplicate check 400 ms after typing stops, off the EDT; stale results are dropped
+        java.util.List<DuplicateDetector.Candidate> dups = new java.util.ArrayList<>();
+        java.util.concurrent.atomic.AtomicInteger dupRun = new java.util.concurrent.atomic.AtomicInteger();
+        Timer dupTimer = new Timer(400, e -> {
+            int run = dupRun.incrementAndGet();
+            long self = tId.getText().matches("\\d+") ? Long.parseLong(tId.getText()) : -1;
+            String name = tName.getText(), phone = "977" + tPhone.getText(), nat = tNat.getText(), age = tAge.getText(), sex = cSex.getSelectedItem().toString();
+            new Thread(() -> {
+                java.util.List<DuplicateDetector.Candidate> found = DuplicateDetector.check(self, name, phone, nat, age, sex);
+                SwingUtilities.invokeLater(() -> {
+                    if(run != dupRun.get()) return;
+                    dups.clear(); dups.addAll(found);
+                    lblDup.setText(found.isEmpty() ? " " : "⚠ Possibly already registered: " + found.get(0).code + " " + found.get(0).name + " (" + found.get(0).reasons + ")"
+                        + (found.size() > 1 ? " and " + (found.size() - 1) + " more" : "") + " - click to view");
+                });
+            }).start();
+        });
+        dupTimer.setRepeats(false);
+        DocumentListener dupListener = new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { dupTimer.restart(); }
+            public void removeUpdate(DocumentEvent e) { dupTimer.restart(); }
+            public void changedUpdate(DocumentEvent e) { dupTimer.restart(); }
+        };
+        for(JTextField f : new JTextField[]{tName, tPhone, tNat, tAge}) f.getDocument().addDocumentListener(dupListener);
+        lblDup.addMouseListener(new MouseAdapter() {
+            public void mouseClicked(MouseEvent e) {
+                if(dups.isEmpty()) return;
+                DuplicateDetector.Candidate c = (DuplicateDetector.Candidate) JOptionPane.showInputDialog(StaffDashboard.this, "Load an existing record instead of registering a new one:",
+                    "Possible Duplicates", JOptionPane.QUESTION_MESSAGE, null, dups.toArray(), dups.get(0));
+                if(c != null) loadIntoForm.accept(String.valueOf(c.code));
+            }
+        });
+
+        // Selected patient, or the one loaded in the form
+        btnTimeline.addActionListener(e -> {
+            int r = patientTable.getSelectedRow();
+            if(r != -1) PatientTimeline.show(this, patientTable.getValueAt(r, 0).toString(), patientTable.getValueAt(r, 1).toString());
+            else if(!tName.getText().trim().isEmpty()) PatientTimeline.show(this, tId.getText(), tName.getText());
+            else JOptionPane.showMessageDialog(this, "Select a patient first.");
+        });
+
         btnNew.addActionListener(e -> tId.setText(generateID()));
         btnClear.addActionListener(e -> {
             tId.setText(generateID()); tName.setText(""); tAddr.setText(""); tPhone.setText(""); tNat.setText(""); tAge.setText(""); 
@@ -164,19 +278,33 @@ public class StaffDashboard extends JFrame {
             if(tName.getText().trim().isEmpty() || tPhone.getText().trim().isEmpty() || tAge.getText().trim().isEmpty()) {
                 JOptionPane.showMessageDialog(this, "Please fill Name, Phone, and Age."); return;
             }
+            if(tId.getText().isEmpty()) { tId.setText(generateID()); if(tId.getText().isEmpty()) return; } // no code could be allocated earlier; retry
             if(tPhone.getText().length() != 10) { JOptionPane.showMessageDialog(this, "Phone must be 10 digits"); return; }
             
-            try { Connection con = DBConnection.connect();
-                String fullPhone = "977" + tPhone.getText();
-                String fullEmail = txtRegEmailUser.getText().isEmpty() ? "" : txtRegEmailUser.getText() + "@gmail.com";
-                PreparedStatement pst = con.prepareStatement("INSERT INTO patients (patient_code, name, address, phone, national_id, age, sex, email) VALUES (?,?,?,?,?,?,?,?)");
-                pst.setLong(1, Long.parseLong(tId.getText())); pst.setString(2, tName.getText()); pst.setString(3, tAddr.getText());
-                pst.setString(4, fullPhone); pst.setString(5, tNat.getText()); pst.setInt(6, Integer.parseInt(tAge.getText())); 
-                pst.setString(7, cSex.getSelectedItem().toString()); pst.setString(8, fullEmail);
-                pst.executeUpdate(); 
-                Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(tId.getText()), null);
-                JOptionPane.showMessageDialog(this, "✅ Saved! ID Copied."); loadPatientTable(); con.close(); btnClear.doClick();
-            } catch(Exception ex){ JOptionPane.showMessageDialog(this, "Error (Check Code): " + ex.getMessage()); }
+            String fullPhone = "977" + tPhone.getText();
+            String fullEmail = txtRegEmailUser.getText().isEmpty() ? "" : txtRegEmailUser.getText() + "@gmail.com";
+            String code = tId.getText(), name = tName.getText(), nat = tNat.getText(), age = tAge.getText(), sex = cSex.getSelectedItem().toString();
+            btnSave.setEnabled(false); // duplicate check reads the database: off the EDT, then save here
+            DashboardPrefetch.submit(() -> {
+                java.util.List<DuplicateDetector.Candidate> found = code.matches("\\d+") ? DuplicateDetector.check(Long.parseLong(code), name, fullPhone, nat, age, sex) : java.util.Collections.emptyList();
+                SwingUtilities.invokeLater(() -> {
+                    btnSave.setEnabled(true);
+                    try {
+                        if(!found.isEmpty() && found.get(0).score >= DuplicateDetector.ALMOST_CERTAIN
+                                && JOptionPane.showConfirmDialog(this, "This looks like an existing patient:\n" + found.get(0) + "\n\nRegister as a new patient anyway?", "Possible Duplicate", JOptionPane.YES_NO_OPTION) != JOptionPane.YES_OPTION) {
+                            loadIntoForm.accept(String.valueOf(found.get(0).code)); return;
+                        }
+                        boolean saved = LocalStore.registerPatient(Long.parseLong(code), name, tAddr.getText(), fullPhone, nat, Integer.parseInt(age), sex, fullEmail);
+                        NameIndex.put(Long.parseLong(code), name);
+                        DuplicateDetector.add(Long.parseLong(code), name, fullPhone, nat, Integer.parseInt(age));
+                        AuditLog.record("patient.create", "patient", code, name + (saved ? "" : " (offline)"));
+
+                        Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(code), null);
+                        JOptionPane.showMessageDialog(this, saved ? "✅ Saved! ID Copied." : "Saved offline, will sync when the database is back. ID Copied.");
+                        if(saved) loadPatientTable(); btnClear.doClick();
+                    } catch(Exception ex){ JOptionPane.showMessageDialog(this, "Error (Check Code): " + ex.getMessage()); }
+                });
+            });
         });
 
         // ... Edit/Update/Delete listeners ...
@@ -204,33 +332,35 @@ public class StaffDashboard extends JFrame {
                 pst.setString(1, tName.getText()); pst.setString(2, tAddr.getText()); pst.setString(3, fullPhone);
                 pst.setString(4, tNat.getText()); pst.setInt(5, Integer.parseInt(tAge.getText())); pst.setString(6, cSex.getSelectedItem().toString());
                 pst.setString(7, fullEmail); pst.setLong(8, Long.parseLong(tId.getText()));
-                pst.executeUpdate(); loadPatientTable(); con.close(); JOptionPane.showMessageDialog(this, "Updated!");
+                pst.executeUpdate(); AuditLog.record("patient.update", "patient", tId.getText(), tName.getText()); LocalStore.forget(tId.getText()); NameIndex.put(Long.parseLong(tId.getText()), tName.getText());
+                DuplicateDetector.add(Long.parseLong(tId.getText()), tName.getText(), fullPhone, tNat.getText(), Integer.parseInt(tAge.getText())); loadPatientTable(); con.close(); JOptionPane.showMessageDialog(this, "Updated!");
             } catch(Exception ex){ JOptionPane.showMessageDialog(this, "Error: " + ex.getMessage()); }
         });
 
         btnDelSel.addActionListener(e -> {
             int r = patientTable.getSelectedRow();
             if(r != -1 && JOptionPane.showConfirmDialog(this, "Delete?") == 0) {
-                try { Connection con = DBConnection.connect(); con.createStatement().executeUpdate("DELETE FROM patients WHERE patient_code=" + patientTable.getValueAt(r, 0)); loadPatientTable(); con.close(); } catch(Exception ex) {}
+                try { Connection con = DBConnection.connect(); con.createStatement().executeUpdate("DELETE FROM patients WHERE patient_code=" + patientTable.getValueAt(r, 0)); AuditLog.record("patient.delete", "patient", patientTable.getValueAt(r, 0), String.valueOf(patientTable.getValueAt(r, 1))); LocalStore.forget(String.valueOf(patientTable.getValueAt(r, 0))); NameIndex.remove(Long.parseLong(String.valueOf(patientTable.getValueAt(r, 0)))); loadPatientTable(); con.close(); } catch(Exception ex) {}
             }
         });
 
         return p;
     }
 
-    private void loadPatientTable() {
-        patientModel.setRowCount(0);
-        try { Connection con = DBConnection.connect(); ResultSet rs = con.createStatement().executeQuery("SELECT * FROM patients ORDER BY patient_code DESC LIMIT 50");
-            while(rs.next()) patientModel.addRow(new Object[]{rs.getString("patient_code"), rs.getString("name"), rs.getString("phone"), rs.getString("age"), rs.getString("sex"), rs.getString("national_id"), rs.getString("address"), rs.getString("email")});
-            con.close();
-        } catch(Exception e) {}
+    private void loadPatientTable() { DashboardPrefetch.fill(patientModel, "staff.patients", StaffDashboard::queryPatients); }
+
+    static java.util.List<Object[]> queryPatients(Connection con) throws SQLException {
+        java.util.List<Object[]> rows = new java.util.ArrayList<>();
+        ResultSet rs = con.createStatement().executeQuery("SELECT * FROM patients ORDER BY patient_code DESC LIMIT 50");
+        while(rs.next()) rows.add(new Object[]{rs.getString("patient_code"), rs.getString("name"), rs.getString("phone"), rs.getString("age"), rs.getString("sex"), rs.getString("national_id"), rs.getString("address"), rs.getString("email")});
+        return rows;
     }
 
     // 2. APPOINTMENTS PANEL
     private JPanel createAppointmentPanel() {
         JPanel p = new JPanel(new BorderLayout(10,10)); p.setOpaque(false);
         p.setBorder(BorderFactory.createEmptyBorder(10,10,10,10));
-        JPanel form = new JPanel(new GridBagLayout()); form.setBackground(new Color(255,255,255,245)); 
+        JPanel form = UIUtils.createGlassPanel(new GridBagLayout(), new Color(255,255,255,245)); 
         form.setBorder(BorderFactory.createTitledBorder("Book / Manage Appointment"));
         GridBagConstraints gbc = new GridBagConstraints(); gbc.insets = new Insets(8, 8, 8, 8); gbc.fill = GridBagConstraints.HORIZONTAL; gbc.weightx = 1.0;
 
@@ -241,14 +371,16 @@ public class StaffDashboard extends JFrame {
         txtApptDate = new JTextField(new SimpleDateFormat("yyyy-MM-dd").format(new Date()));
         
         // --- VALIDATION ---
-        UIUtils.setNumericOnly(txtApptPid, 6); // Patient code is 6 digits
+        UIUtils.setNumericOnly(txtApptPid, 9); // patient code, or a 9-digit provisional one from LocalStore
         // ------------------
 
         String[] depts = { "Select Department", "Primary Care", "OPD", "Emergency", "Cardiology", "Dermatology", "Neurology", "General Surgery", "Orthopedics", "ENT", "Radiology", "Pharmacy", "ICU" };
-        cmbApptDept = new JComboBox<>(depts); cmbApptDoctor = new JComboBox<>(); 
+        cmbApptDept = new JComboBox<>(depts); cmbApptDoctor = new JComboBox<>(); cmbApptSlot = new JComboBox<>();
 
         addLabel(form, "Patient Code:", 0, 0, gbc); gbc.gridx=1; form.add(txtApptPid, gbc);
         JButton btnFind = new JButton(" FIND"); UIUtils.styleButton(btnFind, UIUtils.COLOR_BLUE); gbc.gridx=2; form.add(btnFind, gbc);
+        JButton btnByName = new JButton("By Name"); UIUtils.styleButton(btnByName, UIUtils.COLOR_BLUE); gbc.gridx=3; form.add(btnByName, gbc);
+        btnByName.addActionListener(e -> { String code = NameIndex.pick(this); if(code != null) { txtApptPid.setText(code); btnFind.doClick(); } });
 
         addLabel(form, "Name:", 0, 1, gbc); gbc.gridx=1; form.add(txtApptName, gbc);
         addLabel(form, "Age/Sex:", 2, 1, gbc); 
@@ -258,14 +390,17 @@ public class StaffDashboard extends JFrame {
         addLabel(form, "Address:", 0, 2, gbc); gbc.gridx=1; gbc.gridwidth=3; form.add(new JScrollPane(txtApptAddr), gbc); gbc.gridwidth=1;
         addLabel(form, "Department:", 0, 3, gbc); gbc.gridx=1; form.add(cmbApptDept, gbc);
         addLabel(form, "Doctor:", 2, 3, gbc); gbc.gridx=3; form.add(cmbApptDoctor, gbc);
-        addLabel(form, "Date:", 0, 4, gbc); gbc.gridx=1; form.add(txtApptDate, gbc);
+        addLabel(form, "Date / Time:", 0, 4, gbc);
+        JPanel pDT = new JPanel(new GridLayout(1,2,5,0)); pDT.setOpaque(false); pDT.add(txtApptDate); pDT.add(cmbApptSlot);
+        gbc.gridx=1; form.add(pDT, gbc);
         addLabel(form, "Email (Slip):", 2, 4, gbc); gbc.gridx=3; form.add(txtApptEmail, gbc);
 
         JPanel btnPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 0)); btnPanel.setOpaque(false);
         JButton btnEmail = new JButton(" Book & Email"); UIUtils.styleButton(btnEmail, new Color(23, 162, 184));
         JButton btnPrint = new JButton(" Book & Print"); UIUtils.styleButton(btnPrint, new Color(40, 167, 69));
         JButton btnClear = new JButton(" CLEAR"); UIUtils.styleButton(btnClear, Color.GRAY);
-        btnPanel.add(btnEmail); btnPanel.add(btnPrint); btnPanel.add(btnClear);
+        JButton btnNextSlot = new JButton("Next Available"); UIUtils.styleButton(btnNextSlot, UIUtils.COLOR_TEAL);
+        btnPanel.add(btnNextSlot); btnPanel.add(btnEmail); btnPanel.add(btnPrint); btnPanel.add(btnClear);
 
         gbc.gridx=0; gbc.gridy=5; gbc.gridwidth=4; gbc.insets = new Insets(10,10,10,10); form.add(btnPanel, gbc);
         p.add(form, BorderLayout.NORTH);
@@ -284,14 +419,12 @@ public class StaffDashboard extends JFrame {
 
         // Logic
         btnFind.addActionListener(e -> {
-            try { Connection con = DBConnection.connect(); PreparedStatement pst = con.prepareStatement("SELECT * FROM patients WHERE patient_code=?");
-                pst.setString(1, txtApptPid.getText()); ResultSet rs = pst.executeQuery();
-                if(rs.next()) {
-                    txtApptName.setText(rs.getString("name")); txtApptAge.setText(rs.getString("age"));
-                    txtApptSex.setText(rs.getString("sex")); txtApptAddr.setText(rs.getString("address"));
-                    txtApptEmail.setText(rs.getString("email"));
-                } else JOptionPane.showMessageDialog(this, "Not Found"); con.close();
-            } catch(Exception ex) { ex.printStackTrace(); }
+            java.util.Map<String, String> pt = lookupPatient(txtApptPid.getText());
+            if(pt != null) {
+                txtApptName.setText(pt.get("name")); txtApptAge.setText(pt.get("age"));
+                txtApptSex.setText(pt.get("sex")); txtApptAddr.setText(pt.get("address"));
+                txtApptEmail.setText(pt.get("email"));
+            } else JOptionPane.showMessageDialog(this, "Not Found");
         });
 
         btnClear.addActionListener(e -> { txtApptPid.setText(""); txtApptName.setText(""); txtApptAge.setText(""); txtApptSex.setText(""); txtApptAddr.setText(""); txtApptEmail.setText(""); cmbApptDept.setSelectedIndex(0); });
@@ -300,15 +433,26 @@ public class StaffDashboard extends JFrame {
             cmbApptDoctor.removeAllItems();
             String dept = cmbApptDept.getSelectedItem().toString();
             if(!dept.equals("Select Department")) {
-                try { Connection con = DBConnection.connect(); 
-                    PreparedStatement pst = con.prepareStatement("SELECT name FROM users WHERE role='doctor' AND department=?");
-                    pst.setString(1, dept); ResultSet rs = pst.executeQuery();
-                    while(rs.next()) cmbApptDoctor.addItem(rs.getString("name"));
-                    con.close();
-                } catch(Exception ex) {}
+                for(String doc : ReferenceData.doctorsIn(dept)) cmbApptDoctor.addItem(doc);
             }
         });
 
+        // Slot calendar follows the selected doctor and date
+        cmbApptDoctor.addActionListener(e -> loadFreeSlots());
+        txtApptDate.addActionListener(e -> loadFreeSlots());
+        txtApptDate.addFocusListener(new FocusAdapter() { public void focusLost(FocusEvent e) { loadFreeSlots(); } });
+
+        btnNextSlot.addActionListener(e -> {
+            java.util.List<String> docs = new java.util.ArrayList<>();
+            for(int i = 0; i < cmbApptDoctor.getItemCount(); i++) docs.add(cmbApptDoctor.getItemAt(i));
+            if(docs.isEmpty()) { JOptionPane.showMessageDialog(this, "Select a Department first!"); return; }
+            SlotScheduler.Suggestion s = SlotScheduler.nextAvailable(docs, java.time.LocalDate.now(), 30);
+            if(s == null) { JOptionPane.showMessageDialog(this, "No free slot in the next 30 days."); return; }
+            txtApptDate.setText(s.date.toString());
+            cmbApptDoctor.setSelectedItem(s.doctor); loadFreeSlots();
+            cmbApptSlot.setSelectedItem(SlotScheduler.label(s.slot));
+        });
+
         ActionListener bookAction = e -> { if(!txtApptName.getText().isEmpty()) { handleBooking(e.getSource() == btnEmail); loadApptTable(); }};
         btnEmail.addActionListener(bookAction); btnPrint.addActionListener(bookAction);
 
@@ -316,11 +460,22 @@ public class StaffDashboard extends JFrame {
             int r = apptTable.getSelectedRow();
             if(r != -1) {
                 String id = apptTable.getValueAt(r, 0).toString();
-                String date = JOptionPane.showInputDialog(this, "Enter New Date (YYYY-MM-DD):", apptTable.getValueAt(r, 4));
+                String doctor = apptTable.getValueAt(r, 3).toString();
+                String date = JOptionPane.showInputDialog(this, "Enter New Date (YYYY-MM-DD):", apptTable.getValueAt(r, 4).toString().split(" ")[0]);
                 if(date != null && !date.isEmpty()) {
-                    try { Connection con = DBConnection.connect(); con.createStatement().executeUpdate("UPDATE appointments SET appt_date='" + date + "' WHERE id=" + id);
-                        loadApptTable(); con.close(); JOptionPane.showMessageDialog(this, "Rescheduled!");
-                    } catch(Exception ex) {}
+                    Connection con = null;
+                    try { java.time.LocalDate d = java.time.LocalDate.parse(date.trim());
+                        int slot = SlotScheduler.nextFree(doctor, d);
+                        if(slot == -1) { JOptionPane.showMessageDialog(this, doctor + " has no free slot on " + d); return; }
+                        con = DBConnection.connect(); con.setAutoCommit(false);
+                        Runnable freed = SlotScheduler.release(con, Long.parseLong(id));
+                        if(!SlotScheduler.book(con, doctor, d, slot, Long.parseLong(id))) { con.rollback(); con.close(); JOptionPane.showMessageDialog(this, "Slot just taken, try again."); return; }
+                        PreparedStatement pst = con.prepareStatement("UPDATE appointments SET appt_date=? WHERE id=?");
+                        pst.setString(1, d.toString()); pst.setInt(2, Integer.parseInt(id)); pst.executeUpdate();
+                        con.commit(); freed.run(); PatientTimeline.invalidate(apptTable.getValueAt(r, 1).toString());
+                        AuditLog.record("appointment.reschedule", "appointment", id, d + " " + SlotScheduler.label(slot));
+                        loadApptTable(); con.close(); JOptionPane.showMessageDialog(this, "Rescheduled to " + d + " " + SlotScheduler.label(slot));
+                    } catch(Exception ex) { try { if(con != null) { con.rollback(); con.close(); } } catch(SQLException ignored) {} }
                 }
             }
         });
@@ -328,40 +483,63 @@ public class StaffDashboard extends JFrame {
         btnDelAppt.addActionListener(e -> {
             int r = apptTable.getSelectedRow();
             if(r != -1 && JOptionPane.showConfirmDialog(this, "Cancel this appointment?") == JOptionPane.YES_OPTION) {
-                try { Connection con = DBConnection.connect(); con.createStatement().executeUpdate("DELETE FROM appointments WHERE id=" + apptTable.getValueAt(r, 0)); loadApptTable(); con.close(); } catch(Exception ex) {}
+                Connection con = null;
+                try { con = DBConnection.connect(); con.setAutoCommit(false);
+                    Runnable freed = SlotScheduler.release(con, Long.parseLong(apptTable.getValueAt(r, 0).toString()));
+                    con.createStatement().executeUpdate("DELETE FROM appointments WHERE id=" + apptTable.getValueAt(r, 0));
+                    con.commit(); freed.run(); PatientTimeline.invalidate(apptTable.getValueAt(r, 1).toString());
+                    AuditLog.record("appointment.cancel", "appointment", apptTable.getValueAt(r, 0), "patient " + apptTable.getValueAt(r, 1)); loadApptTable(); con.close();
+                } catch(Exception ex) { try { if(con != null) { con.rollback(); con.close(); } } catch(SQLException ignored) {} }
             }
         });
 
         loadApptTable();
         return p;
     }
+
+    private void loadFreeSlots() {
+        cmbApptSlot.removeAllItems();
+        if(cmbApptDoctor.getSelectedItem() == null) return;
+        try {
+            for(int slot : SlotScheduler.freeSlots(cmbApptDoctor.getSelectedItem().toString(), java.time.LocalDate.parse(txtApptDate.getText().trim())))
+                cmbApptSlot.addItem(SlotScheduler.label(slot));
+        } catch(java.time.format.DateTimeParseException ex) { /* wait for a valid date */ }
+    }
 private void handleBooking(boolean isEmail) {
         // --- 1. Validation Check (Prevents Crash) ---
         if (cmbApptDoctor.getSelectedItem() == null || cmbApptDept.getSelectedItem() == null) {
             JOptionPane.showMessageDialog(this, "Please select a Department and a Doctor first!");
             return;
         }
+        if (cmbApptSlot.getSelectedItem() == null) {
+            JOptionPane.showMessageDialog(this, "No free time slot for this doctor on that date. Try 'Next Available'.");
+            return;
+        }
 
+        String doctor = cmbApptDoctor.getSelectedItem().toString();
+        String time = cmbApptSlot.getSelectedItem().toString();
         try {
-            Connection con = DBConnection.connect();
-            PreparedStatement pst = con.prepareStatement("INSERT INTO appointments (patient_code, patient_name, doctor_name, appt_date) VALUES (?, ?, ?, ?)");
-            pst.setLong(1, Long.parseLong(txtApptPid.getText())); 
-            pst.setString(2, txtApptName.getText());
-            pst.setString(3, cmbApptDoctor.getSelectedItem().toString()); 
-            pst.setString(4, txtApptDate.getText());
-            pst.executeUpdate(); 
-            con.close();
+            java.time.LocalDate date = java.time.LocalDate.parse(txtApptDate.getText().trim());
+            long apptId = LocalStore.bookAppointment(Long.parseLong(txtApptPid.getText()), txtApptName.getText(), doctor, date, SlotScheduler.slotOf(time));
+            if (apptId < 0) {
+                loadFreeSlots();
+                JOptionPane.showMessageDialog(this, "That slot was just taken or the session is full. Pick another time.");
+                return;
+            }
+            loadFreeSlots();
+            AuditLog.record("appointment.book", "appointment", apptId == LocalStore.QUEUED ? "" : apptId, "patient " + txtApptPid.getText() + ", " + doctor + " " + date + " " + time);
 
             // --- 2. Updated Slip with Department ---
             StringBuilder slip = new StringBuilder();
             slip.append("      APPOINTMENT SLIP      \n");
             slip.append("----------------------------\n");
-            slip.append("Your booking has been confirmed!\n\n");
+            slip.append(apptId == LocalStore.QUEUED ? "Booked offline, confirmed once synced.\n\n" : "Your booking has been confirmed!\n\n");
             slip.append("PATIENT ID : ").append(txtApptPid.getText()).append("\n");
             slip.append("NAME       : ").append(txtApptName.getText()).append("\n");
             slip.append("DEPARTMENT : ").append(cmbApptDept.getSelectedItem().toString()).append("\n"); // Added Department
             slip.append("DOCTOR     : ").append(cmbApptDoctor.getSelectedItem().toString()).append("\n");
             slip.append("DATE       : ").append(txtApptDate.getText()).append("\n");
+            slip.append("TIME       : ").append(time).append("\n");
             slip.append("----------------------------\n");
 
             if(isEmail) {
@@ -388,34 +566,50 @@ private void handleBooking(boolean isEmail) {
             JOptionPane.showMessageDialog(this, "Error: " + ex.getMessage());
         }
     }
-    private void loadApptTable() {
-        apptModel.setRowCount(0);
-        try { Connection con = DBConnection.connect(); ResultSet rs = con.createStatement().executeQuery("SELECT * FROM appointments ORDER BY appt_date DESC, id DESC");
-            while(rs.next()) apptModel.addRow(new Object[]{rs.getInt("id"), rs.getString("patient_code"), rs.getString("patient_name"), rs.getString("doctor_name"), rs.getString("appt_date"), rs.getString("status")});
-            con.close();
-        } catch(Exception e) {}
+    private void loadApptTable() { DashboardPrefetch.fill(apptModel, "staff.appts", StaffDashboard::queryAppts); }
+
+    static java.util.List<Object[]> queryAppts(Connection con) throws SQLException {
+        SlotScheduler.load(); // creates appointment_slots on first run
+        try(Statement st = con.createStatement()) {
+            return apptRows(st.executeQuery("SELECT a.*, s.slot FROM appointments a LEFT JOIN appointment_slots s ON s.appointment_id = a.id ORDER BY a.appt_date DESC, s.slot DESC, a.id DESC"));
+        }
+    }
+
+    // {ID, PID, Patient Name, Doctor, Date (+ slot time), Status} for the appointment table
+    static java.util.List<Object[]> apptRows(ResultSet rs) throws SQLException {
+        java.util.List<Object[]> rows = new java.util.ArrayList<>();
+        while(rs.next()) {
+            int slot = rs.getInt("slot"); String when = rs.getString("appt_date") + (rs.wasNull() ? "" : " " + SlotScheduler.label(slot));
+            rows.add(new Object[]{rs.getInt("id"), rs.getString("patient_code"), rs.getString("patient_name"), rs.getString("doctor_name"), when, rs.getString("status")});
+        }
+        return rows;
     }
 
     // 3. WARD PANEL
     private JPanel createWardPanel() {
         JPanel p = new JPanel(new BorderLayout(10,10)); p.setOpaque(false);
         p.setBorder(BorderFactory.createEmptyBorder(10,10,10,10));
-        JPanel form = new JPanel(new GridBagLayout()); form.setBackground(new Color(255,255,255,240)); form.setBorder(BorderFactory.createTitledBorder("Admission Desk"));
+        JPanel form = UIUtils.createGlassPanel(new GridBagLayout(), new Color(255,255,255,240)); form.setBorder(BorderFactory.createTitledBorder("Admission Desk"));
         GridBagConstraints gbc = new GridBagConstraints(); gbc.insets = new Insets(8,8,8,8); gbc.fill = GridBagConstraints.HORIZONTAL;
 
         txtWardPid = new JTextField(10); txtWardName = new JTextField(15); txtWardName.setEditable(false);
         txtWardAge = new JTextField(5); txtWardAge.setEditable(false); txtWardSex = new JTextField(8); txtWardSex.setEditable(false);
         txtWardPhone = new JTextField(15); txtWardPhone.setEditable(false);
         txtWardAddr = new JTextArea(2, 15); txtWardAddr.setEditable(false); txtWardAddr.setBorder(BorderFactory.createLineBorder(Color.GRAY));
-        txtWardBed = new JTextField(10); 
+        txtWardBed = new JTextField(4); 
+        cmbWard = new JComboBox<>();
+        for(BedRegistry.Ward w : BedRegistry.wards()) cmbWard.addItem(w.name);
         txtWardDisease = new JTextArea(3, 15); txtWardDisease.setBorder(BorderFactory.createLineBorder(Color.GRAY));
 
         // --- VALIDATION ---
-        UIUtils.setNumericOnly(txtWardPid, 6);
+        UIUtils.setNumericOnly(txtWardPid, 9);
+        UIUtils.setNumericOnly(txtWardBed, 3);
         // ------------------
 
         addLabel(form, "Patient Code:", 0, 0, gbc); gbc.gridx=1; form.add(txtWardPid, gbc);
         JButton btnFind = new JButton(" Find Patient"); UIUtils.styleButton(btnFind, UIUtils.COLOR_BLUE); gbc.gridx=2; form.add(btnFind, gbc);
+        JButton btnByName = new JButton("By Name"); UIUtils.styleButton(btnByName, UIUtils.COLOR_BLUE); gbc.gridx=3; form.add(btnByName, gbc);
+        btnByName.addActionListener(e -> { String code = NameIndex.pick(this); if(code != null) { txtWardPid.setText(code); btnFind.doClick(); } });
 
         addLabel(form, "Name:", 0, 1, gbc); gbc.gridx=1; form.add(txtWardName, gbc);
         addLabel(form, "Age/Sex:", 2, 1, gbc); 
@@ -425,7 +619,17 @@ private void handleBooking(boolean isEmail) {
         addLabel(form, "Address:", 0, 2, gbc); gbc.gridx=1; gbc.gridwidth=2; form.add(new JScrollPane(txtWardAddr), gbc); gbc.gridwidth=1;
         addLabel(form, "Phone:", 3, 2, gbc); gbc.gridx=4; form.add(txtWardPhone, gbc);
 
-        addLabel(form, "Assign Bed:", 0, 3, gbc); gbc.gridx=1; form.add(txtWardBed, gbc);
+        addLabel(form, "Assign Bed:", 0, 3, gbc); gbc.gridx=1; form.add(cmbWard, gbc);
+        JPanel pBed = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0)); pBed.setOpaque(false);
+        JButton btnSuggest = new JButton("Next Free"); UIUtils.styleButton(btnSuggest, UIUtils.COLOR_TEAL);
+        pBed.add(new JLabel("Bed #")); pBed.add(txtWardBed); pBed.add(btnSuggest);
+        gbc.gridx=2; gbc.gridwidth=2; form.add(pBed, gbc); gbc.gridwidth=1;
+
+        bedGrid = new JPanel(new GridLayout(0, 6, 3, 3)); bedGrid.setOpaque(false);
+        JPanel gridBox = new JPanel(new BorderLayout()); gridBox.setOpaque(false); gridBox.setBorder(BorderFactory.createTitledBorder("Beds (green = free)"));
+        gridBox.add(bedGrid, BorderLayout.NORTH);
+        gbc.gridx=5; gbc.gridy=0; gbc.gridheight=6; gbc.fill=GridBagConstraints.BOTH; form.add(gridBox, gbc);
+        gbc.gridheight=1; gbc.fill=GridBagConstraints.HORIZONTAL;
         
         addLabel(form, "Disease/Reason:", 0, 4, gbc); gbc.gridx=1; gbc.gridwidth=3; form.add(new JScrollPane(txtWardDisease), gbc); gbc.gridwidth=1;
 
@@ -451,15 +655,21 @@ private void handleBooking(boolean isEmail) {
         p.add(tablePanel, BorderLayout.CENTER);
 
         loadWardTable();
+        refreshBedGrid();
+
+        cmbWard.addActionListener(e -> refreshBedGrid());
+        btnSuggest.addActionListener(e -> suggestBed());
+        // Other desks' admissions reach us through bed_occupancy only, a small table
+        javax.swing.Timer bedTimer = new javax.swing.Timer(60_000, e -> reloadBeds());
+        timers.add(bedTimer); bedTimer.start();
 
         btnFind.addActionListener(e -> {
-            try { Connection con = DBConnection.connect(); PreparedStatement pst = con.prepareStatement("SELECT * FROM patients WHERE patient_code=?");
-            pst.setString(1, txtWardPid.getText()); ResultSet rs = pst.executeQuery();
-            if(rs.next()) {
-                txtWardName.setText(rs.getString("name"));
-                txtWardAge.setText(rs.getString("age")); txtWardSex.setText(rs.getString("sex"));
-                txtWardPhone.setText(rs.getString("phone")); txtWardAddr.setText(rs.getString("address"));
-            } else JOptionPane.showMessageDialog(this, "Not Found"); con.close(); } catch(Exception ex){}
+            java.util.Map<String, String> pt = lookupPatient(txtWardPid.getText());
+            if(pt != null) {
+                txtWardName.setText(pt.get("name"));
+                txtWardAge.setText(pt.get("age")); txtWardSex.setText(pt.get("sex"));
+                txtWardPhone.setText(pt.get("phone")); txtWardAddr.setText(pt.get("address"));
+            } else JOptionPane.showMessageDialog(this, "Not Found");
         });
 
         btnClear.addActionListener(e -> {
@@ -469,26 +679,38 @@ private void handleBooking(boolean isEmail) {
 
         btnAdmit.addActionListener(e -> {
             if(txtWardName.getText().isEmpty()) return;
-            try { Connection con = DBConnection.connect();
-                PreparedStatement check = con.prepareStatement("SELECT * FROM admissions WHERE bed_no=? AND status='Admitted'");
-                check.setString(1, txtWardBed.getText());
-                if(check.executeQuery().next()) { JOptionPane.showMessageDialog(this, "Bed Occupied!"); con.close(); return; }
-
-                PreparedStatement pst = con.prepareStatement("INSERT INTO admissions (patient_code, patient_name, bed_no, disease, status) VALUES (?,?,?,?, 'Admitted')");
-                pst.setLong(1, Long.parseLong(txtWardPid.getText())); pst.setString(2, txtWardName.getText());
-                pst.setString(3, txtWardBed.getText()); pst.setString(4, txtWardDisease.getText());
-                pst.executeUpdate(); loadWardTable(); con.close(); JOptionPane.showMessageDialog(this, "Admitted!"); btnClear.doClick();
-            } catch(Exception ex){ JOptionPane.showMessageDialog(this, "Error: "+ex.getMessage()); }
+            BedRegistry.Ward w = BedRegistry.ward(String.valueOf(cmbWard.getSelectedItem()));
+            if(w == null || txtWardBed.getText().isEmpty()) { JOptionPane.showMessageDialog(this, "Select a ward and bed!"); return; }
+            int bed = Integer.parseInt(txtWardBed.getText());
+            if(!BedRegistry.isFree(w, bed)) { JOptionPane.showMessageDialog(this, "Bed Occupied!"); suggestBed(); return; }
+            try {
+                long admId = LocalStore.admitPatient(Long.parseLong(txtWardPid.getText()), txtWardName.getText(), w, bed, txtWardDisease.getText());
+                if(admId < 0) { refreshBedGrid(); JOptionPane.showMessageDialog(this, "Bed Occupied!"); suggestBed(); return; }
+                AuditLog.record("admission.admit", "admission", admId == LocalStore.QUEUED ? "" : admId, "patient " + txtWardPid.getText() + ", bed " + BedRegistry.bedLabel(w.name, bed));
+                if(admId != LocalStore.QUEUED) loadWardTable();
+                refreshBedGrid(); JOptionPane.showMessageDialog(this, admId == LocalStore.QUEUED ? "Admitted offline, will sync when the database is back." : "Admitted!"); btnClear.doClick();
+            } catch(Exception ex){
+                refreshBedGrid();
+                JOptionPane.showMessageDialog(this, "Error: "+ex.getMessage());
+            }
         });
 
         btnDischarge.addActionListener(e -> {
             int r = wardTable.getSelectedRow();
             if(r != -1) {
                 if(wardTable.getValueAt(r, 6).toString().equalsIgnoreCase("Discharged")) { JOptionPane.showMessageDialog(this, "Already Discharged"); return; }
-                try { Connection con = DBConnection.connect();
+                Connection con = null;
+                try { con = DBConnection.connect(); con.setAutoCommit(false); // status and bed row go together
                     con.createStatement().executeUpdate("UPDATE admissions SET status='Discharged', discharge_date=CURDATE() WHERE id=" + wardTable.getValueAt(r, 0));
-                    loadWardTable(); con.close(); JOptionPane.showMessageDialog(this, "Patient Discharged");
-                } catch(Exception ex) {}
+                    BedRegistry.vacate(con, Long.parseLong(wardTable.getValueAt(r, 0).toString()), String.valueOf(wardTable.getValueAt(r, 3)));
+                    con.commit();
+                    PatientTimeline.invalidate(String.valueOf(wardTable.getValueAt(r, 1)));
+                    AuditLog.record("admission.discharge", "admission", wardTable.getValueAt(r, 0), "patient " + wardTable.getValueAt(r, 1));
+                    loadWardTable(); refreshBedGrid(); con.close(); JOptionPane.showMessageDialog(this, "Patient Discharged");
+                } catch(Exception ex) {
+                    try { if(con != null) { con.rollback(); con.close(); } } catch(SQLException ignored) {}
+                    reloadBeds();
+                }
             }
         });
 
@@ -496,14 +718,34 @@ private void handleBooking(boolean isEmail) {
             int r = wardTable.getSelectedRow();
             if(r != -1) {
                 String id = wardTable.getValueAt(r, 0).toString();
-                String bed = JOptionPane.showInputDialog(this, "Edit Bed No:", wardTable.getValueAt(r, 3));
+                String oldBed = String.valueOf(wardTable.getValueAt(r, 3));
+                boolean admitted = wardTable.getValueAt(r, 6).toString().equalsIgnoreCase("Admitted");
+                String bed = JOptionPane.showInputDialog(this, "Edit Bed No (WARD-BED):", oldBed);
                 String dis = JOptionPane.showInputDialog(this, "Edit Disease:", wardTable.getValueAt(r, 4));
                 if(bed != null && dis != null) {
-                    try { Connection con = DBConnection.connect();
+                    bed = bed.trim();
+                    Connection con = null;
+                    try { con = DBConnection.connect(); con.setAutoCommit(false);
+                        if(admitted && !bed.equalsIgnoreCase(oldBed)) {
+                            // Transfer: the new bed must be claimed like an admission
+                            int dash = bed.lastIndexOf('-');
+                            BedRegistry.Ward w = dash < 0 ? null : BedRegistry.ward(bed.substring(0, dash));
+                            int no = w == null ? -1 : Integer.parseInt(bed.substring(dash + 1));
+                            if(w == null || !BedRegistry.transfer(con, Long.parseLong(id), oldBed, w, no)) {
+                                con.rollback(); con.close(); refreshBedGrid();
+                                JOptionPane.showMessageDialog(this, "Bed not available: " + bed); return;
+                            }
+                            bed = BedRegistry.bedLabel(w.name, no);
+                        }
                         PreparedStatement pst = con.prepareStatement("UPDATE admissions SET bed_no=?, disease=? WHERE id=?");
                         pst.setString(1, bed); pst.setString(2, dis); pst.setString(3, id);
-                        pst.executeUpdate(); loadWardTable(); con.close();
-                    } catch(Exception ex) {}
+                        pst.executeUpdate(); con.commit(); PatientTimeline.invalidate(String.valueOf(wardTable.getValueAt(r, 1)));
+                        AuditLog.record(bed.equalsIgnoreCase(oldBed) ? "admission.update" : "admission.transfer", "admission", id, oldBed + " -> " + bed + ", " + dis);
+                        loadWardTable(); refreshBedGrid(); con.close();
+                    } catch(Exception ex) {
+                        try { if(con != null) { con.rollback(); con.close(); } } catch(SQLException ignored) {}
+                        reloadBeds();
+                    }
                 }
             }
         });
@@ -511,26 +753,72 @@ private void handleBooking(boolean isEmail) {
         btnDelWard.addActionListener(e -> {
             int r = wardTable.getSelectedRow();
             if(r != -1 && JOptionPane.showConfirmDialog(this, "Delete record?") == JOptionPane.YES_OPTION) {
-                try { Connection con = DBConnection.connect(); con.createStatement().executeUpdate("DELETE FROM admissions WHERE id=" + wardTable.getValueAt(r, 0)); loadWardTable(); con.close(); } catch(Exception ex) {}
+                Connection con = null;
+                try { con = DBConnection.connect(); con.setAutoCommit(false);
+                    con.createStatement().executeUpdate("DELETE FROM admissions WHERE id=" + wardTable.getValueAt(r, 0));
+                    BedRegistry.vacate(con, Long.parseLong(wardTable.getValueAt(r, 0).toString()), String.valueOf(wardTable.getValueAt(r, 3)));
+                    con.commit();
+                    PatientTimeline.invalidate(String.valueOf(wardTable.getValueAt(r, 1)));
+                    AuditLog.record("admission.delete", "admission", wardTable.getValueAt(r, 0), "patient " + wardTable.getValueAt(r, 1));
+                    loadWardTable(); refreshBedGrid(); con.close();
+                } catch(Exception ex) {
+                    try { if(con != null) { con.rollback(); con.close(); } } catch(SQLException ignored) {}
+                    reloadBeds();
+                }
             }
         });
 
         return p;
     }
 
-    private void loadWardTable() {
-        wardModel.setRowCount(0);
-        try { Connection con = DBConnection.connect(); ResultSet rs = con.createStatement().executeQuery("SELECT * FROM admissions ORDER BY id DESC");
-            while(rs.next()) wardModel.addRow(new Object[]{ rs.getInt("id"), rs.getString("patient_code"), rs.getString("patient_name"), rs.getString("bed_no"), rs.getString("disease"), rs.getString("admit_date"), rs.getString("status") });
-            con.close();
-        } catch(Exception e) {}
+    private void loadWardTable() { DashboardPrefetch.fill(wardModel, "staff.ward", StaffDashboard::queryWard); }
+
+    static java.util.List<Object[]> queryWard(Connection con) throws SQLException {
+        java.util.List<Object[]> rows = new java.util.ArrayList<>();
+        ResultSet rs = con.createStatement().executeQuery("SELECT * FROM admissions ORDER BY id DESC");
+        while(rs.next()) rows.add(new Object[]{ rs.getInt("id"), rs.getString("patient_code"), rs.getString("patient_name"), rs.getString("bed_no"), rs.getString("disease"), rs.getString("admit_date"), rs.getString("status") });
+        return rows;
+    }
+
+    // Re-reads bed_occupancy off the EDT, then repaints the grid
+    private void reloadBeds() {
+        DashboardPrefetch.submit(() -> { BedRegistry.reload(); SwingUtilities.invokeLater(this::refreshBedGrid); });
+    }
+
+    // Free-bed grid for the selected ward, drawn from the in-memory occupancy map
+    private void refreshBedGrid() {
+        bedGrid.removeAll();
+        BedRegistry.Ward w = BedRegistry.ward(String.valueOf(cmbWard.getSelectedItem()));
+        if(w != null) {
+            for(int b = 1; b <= w.beds; b++) {
+                int bed = b; boolean free = BedRegistry.isFree(w, b);
+                JButton cell = new JButton(String.valueOf(b)); cell.setMargin(new Insets(1, 1, 1, 1));
+                cell.setBackground(free ? new Color(40, 167, 69) : UIUtils.COLOR_RED); cell.setForeground(Color.WHITE);
+                cell.setFocusPainted(false); cell.setEnabled(free);
+                cell.addActionListener(e -> txtWardBed.setText(String.valueOf(bed)));
+                bedGrid.add(cell);
+            }
+            JComponent box = (JComponent) bedGrid.getParent();
+            ((javax.swing.border.TitledBorder) box.getBorder()).setTitle(w.name + ": " + BedRegistry.freeCount(w) + " of " + w.beds + " free");
+            box.repaint();
+        }
+        bedGrid.revalidate(); bedGrid.repaint();
+    }
+
+    private void suggestBed() {
+        BedRegistry.Ward w = BedRegistry.ward(String.valueOf(cmbWard.getSelectedItem()));
+        if(w == null) return;
+        int from = txtWardBed.getText().isEmpty() ? 1 : Integer.parseInt(txtWardBed.getText());
+        int next = BedRegistry.nextFree(w, from);
+        if(next == -1) JOptionPane.showMessageDialog(this, w.name + " is full.");
+        else txtWardBed.setText(String.valueOf(next));
     }
 
     // 4. BILLING PANEL
     private JPanel createBillingPanel() {
         JPanel p = new JPanel(null); p.setOpaque(false);
-        JPanel top = new JPanel(new GridLayout(3, 4, 10, 5)); 
-        top.setBounds(50, 20, 1100, 100); top.setBackground(new Color(255,255,255,240)); top.setBorder(BorderFactory.createEmptyBorder(10,10,10,10));
+        JPanel top = UIUtils.createGlassPanel(new GridLayout(3, 4, 10, 5), new Color(255,255,255,240)); 
+        top.setBounds(50, 20, 1100, 100); top.setBorder(BorderFactory.createEmptyBorder(10,10,10,10));
 
         txtBillInvoice = new JTextField(); txtBillInvoice.setEditable(false); txtBillInvoice.setFont(new Font("Segoe UI", Font.BOLD, 14));
         txtBillPid = new JTextField(); txtBillName = new JTextField(); txtBillName.setEditable(false);
@@ -539,13 +827,16 @@ private void handleBooking(boolean isEmail) {
         txtBillAddr = new JTextArea(2, 10); txtBillAddr.setEditable(false); txtBillAddr.setBorder(BorderFactory.createLineBorder(Color.GRAY));
         
         // --- VALIDATION ---
-        UIUtils.setNumericOnly(txtBillPid, 6);
+        UIUtils.setNumericOnly(txtBillPid, 9);
         // ------------------
 
         top.add(new JLabel("Invoice No (PK):")); top.add(txtBillInvoice);
         JPanel pidP = new JPanel(new BorderLayout()); pidP.setOpaque(false);
         JButton btnF = new JButton("Find"); UIUtils.styleButton(btnF, UIUtils.COLOR_BLUE); btnF.setPreferredSize(new Dimension(60, 25));
-        pidP.add(txtBillPid, BorderLayout.CENTER); pidP.add(btnF, BorderLayout.EAST);
+        JButton btnByName = new JButton("Name"); UIUtils.styleButton(btnByName, UIUtils.COLOR_BLUE); btnByName.setPreferredSize(new Dimension(70, 25));
+        JPanel pidBtns = new JPanel(new GridLayout(1, 2, 2, 0)); pidBtns.setOpaque(false); pidBtns.add(btnF); pidBtns.add(btnByName);
+        btnByName.addActionListener(e -> { String code = NameIndex.pick(this); if(code != null) { txtBillPid.setText(code); btnF.doClick(); } });
+        pidP.add(txtBillPid, BorderLayout.CENTER); pidP.add(pidBtns, BorderLayout.EAST);
         top.add(new JLabel("Patient Code:")); top.add(pidP);
 
         top.add(new JLabel("Name:")); top.add(txtBillName);
@@ -556,8 +847,8 @@ private void handleBooking(boolean isEmail) {
 
         loadNextInvoiceID();
 
-        JPanel cart = new JPanel(new FlowLayout(FlowLayout.LEFT, 15, 10)); 
-        cart.setBounds(50, 130, 1100, 60); cart.setBackground(new Color(255,255,255,240));
+        JPanel cart = UIUtils.createGlassPanel(new FlowLayout(FlowLayout.LEFT, 15, 10), new Color(255,255,255,240)); 
+        cart.setBounds(50, 130, 1100, 60);
         txtBillItem=new JTextField(15); txtBillQty=new JTextField("1",5); txtBillRate=new JTextField("0",8);
         
         // --- VALIDATION ---
@@ -590,14 +881,13 @@ private void handleBooking(boolean isEmail) {
 
         // Logic
         btnF.addActionListener(e -> {
-            try { Connection con=DBConnection.connect(); PreparedStatement pst=con.prepareStatement("SELECT * FROM patients WHERE patient_code=?"); 
-            pst.setString(1, txtBillPid.getText()); ResultSet rs=pst.executeQuery(); 
-            if(rs.next()) { 
-                txtBillName.setText(rs.getString("name"));
-                txtBillPhone.setText(rs.getString("phone"));
-                txtBillAddr.setText(rs.getString("address"));
-                txtBillEmail.setText(rs.getString("email"));
-            } else JOptionPane.showMessageDialog(this, "Not Found"); con.close(); } catch(Exception ex){}
+            java.util.Map<String, String> pt = lookupPatient(txtBillPid.getText());
+            if(pt != null) { 
+                txtBillName.setText(pt.get("name"));
+                txtBillPhone.setText(pt.get("phone"));
+                txtBillAddr.setText(pt.get("address"));
+                txtBillEmail.setText(pt.get("email"));
+            } else JOptionPane.showMessageDialog(this, "Not Found");
         });
 
         btnAdd.addActionListener(e -> {
@@ -639,41 +929,31 @@ private void handleBooking(boolean isEmail) {
     }
 
     private void loadNextInvoiceID() {
-        try { Connection con = DBConnection.connect();
-            ResultSet rs = con.createStatement().executeQuery("SELECT MAX(id) FROM bills");
-            if(rs.next()) txtBillInvoice.setText(String.valueOf(rs.getInt(1) + 1));
-            else txtBillInvoice.setText("1");
-            con.close();
-        } catch(Exception e) { txtBillInvoice.setText("1"); }
+        try {
+            if(pendingInvoiceId == -1) pendingInvoiceId = DBConnection.isOffline() ? LocalStore.provisionalInvoice() : IdAllocator.INVOICES.next();
+            txtBillInvoice.setText(String.valueOf(pendingInvoiceId));
+        } catch(Exception e) {
+            try { pendingInvoiceId = LocalStore.provisionalInvoice(); txtBillInvoice.setText(String.valueOf(pendingInvoiceId)); }
+            catch(Exception offline) { txtBillInvoice.setText(""); }
+        }
     }
 
     private void finalizeBill(boolean isEmail) {
         if(billModel.getRowCount() == 0 || txtBillName.getText().isEmpty()) return;
-        StringBuilder sb = new StringBuilder();
-        sb.append("      HOSPITAL INVOICE      \n");
-        sb.append("Invoice #: ").append(txtBillInvoice.getText()).append("\n");
-        sb.append("Date: ").append(new Date()).append("\n");
-        sb.append("Patient: ").append(txtBillName.getText()).append(" (ID: ").append(txtBillPid.getText()).append(")\n");
-        sb.append("Phone: ").append(txtBillPhone.getText()).append("\n");
-        sb.append("------------------------------------------------\n");
-        sb.append(String.format("%-20s %-5s %-10s %-10s\n", "Item", "Qty", "Rate", "Total"));
-        sb.append("------------------------------------------------\n");
+        StringBuilder sb = invoiceText(txtBillInvoice.getText(), new Date(), txtBillName.getText(), txtBillPid.getText(), txtBillPhone.getText(),
+                billModel, subTotal, txtBillDiscount.getText(), txtBillGrandTotal.getText());
         StringBuilder dbItems = new StringBuilder();
-        for(int i=0; i<billModel.getRowCount(); i++) {
-            sb.append(String.format("%-20s %-5s %-10s %-10s\n", billModel.getValueAt(i,0), billModel.getValueAt(i,1), billModel.getValueAt(i,2), billModel.getValueAt(i,3)));
-            dbItems.append(billModel.getValueAt(i,0)).append(", ");
-        }
-        sb.append("------------------------------------------------\n");
-        sb.append("Subtotal: ").append(subTotal).append("\n");
-        sb.append("Discount: ").append(txtBillDiscount.getText()).append("%\n");
-        sb.append("GRAND TOTAL: ").append(txtBillGrandTotal.getText()).append("\n");
+        for(int i=0; i<billModel.getRowCount(); i++) dbItems.append(billModel.getValueAt(i,0)).append(", ");
 
-        try { Connection con=DBConnection.connect(); 
-            String sql="INSERT INTO bills (patient_code, patient_name, bill_date, particulars, total_amount) VALUES (?,?,CURDATE(),?,?)";
-            PreparedStatement pst=con.prepareStatement(sql); 
-            pst.setLong(1, Long.parseLong(txtBillPid.getText())); pst.setString(2, txtBillName.getText());
-            pst.setString(3, dbItems.toString()); pst.setDouble(4, Double.parseDouble(txtBillGrandTotal.getText())); pst.executeUpdate(); con.close();
-        } catch(Exception ex) { JOptionPane.showMessageDialog(this, "DB Error: " + ex.getMessage()); return; }
+        boolean saved;
+        try {
+            saved = LocalStore.saveBill(Long.parseLong(txtBillInvoice.getText()), Long.parseLong(txtBillPid.getText()), txtBillName.getText(), dbItems.toString(), Double.parseDouble(txtBillGrandTotal.getText()), billModel);
+            pendingInvoiceId = -1;
+            AuditLog.record("bill.create", "bill", txtBillInvoice.getText(), "patient " + txtBillPid.getText() + ", Rs. " + txtBillGrandTotal.getText() + (saved ? "" : " (offline)"));
+        } catch(Exception ex) {
+            JOptionPane.showMessageDialog(this, "DB Error: " + ex.getMessage()); return;
+        }
+        if(!saved) sb.append("(Saved offline; invoice number confirmed once synced)\n");
 
         if(isEmail) {
             if(txtBillEmail.getText().isEmpty()) { JOptionPane.showMessageDialog(this, "Enter Email Address!"); return; }
@@ -688,6 +968,132 @@ private void handleBooking(boolean isEmail) {
         loadNextInvoiceID();
     }
     
+    static void insertPatient(Connection con, long code, String name, String address, String phone, String nationalId, int age, String sex, String email) throws SQLException {
+        PreparedStatement pst = con.prepareStatement("INSERT INTO patients (patient_code, name, address, phone, national_id, age, sex, email) VALUES (?,?,?,?,?,?,?,?)");
+        pst.setLong(1, code); pst.setString(2, name); pst.setString(3, address);
+        pst.setString(4, phone); pst.setString(5, nationalId); pst.setInt(6, age); 
+        pst.setString(7, sex); pst.setString(8, email);
+        pst.executeUpdate();
+    }
+
+    // Appointment plus its slot in one transaction; returns the appointment id, or -1 when the slot was
+    // taken / the session is full (nothing is saved then)
+    static long bookAppointment(Connection con, long pid, String name, String doctor, java.time.LocalDate date, int slot) throws SQLException {
+        long apptId = nextId(IdAllocator.APPOINTMENTS); // striped, so unique across branches
+        con.setAutoCommit(false);
+        PreparedStatement pst = con.prepareStatement("INSERT INTO appointments (id, patient_code, patient_name, doctor_name, appt_date) VALUES (?, ?, ?, ?, ?)");
+        pst.setLong(1, apptId);
+        pst.setLong(2, pid); 
+        pst.setString(3, name);
+        pst.setString(4, doctor); 
+        pst.setString(5, date.toString());
+        pst.executeUpdate(); 
+        if (!SlotScheduler.book(con, doctor, date, slot, apptId)) { con.rollback(); return -1; }
+        con.commit();
+        PatientTimeline.invalidate(String.valueOf(pid));
+        return apptId;
+    }
+
+    // Allocator failures surface as SQLExceptions, so LocalStore can tell a lost connection and queue the work
+    private static long nextId(IdAllocator ids) throws SQLException {
+        try { return ids.next(); }
+        catch (IllegalStateException e) {
+            if (e.getCause() instanceof SQLException) throw (SQLException) e.getCause();
+            throw new SQLTransientConnectionException(e.getMessage(), e);
+        }
+    }
+
+    // Bill header and its line items in one transaction
+    static void saveBill(Connection con, long invoiceId, long pid, String name, String particulars, double total, DefaultTableModel items) throws SQLException {
+        saveBill(con, invoiceId, pid, name, null, particulars, total, items);
+    }
+
+    // billDate null = today on the database clock (LocalStore passes the date a queued bill was made)
+    static void saveBill(Connection con, long invoiceId, long pid, String name, java.sql.Date billDate, String particulars, double total, DefaultTableModel items) throws SQLException {
+        BillItems.ensureSchema(con); // DDL commits implicitly, so keep it out of the transaction
+        con.setAutoCommit(false);
+        String sql="INSERT INTO bills (id, patient_code, patient_name, bill_date, particulars, total_amount) VALUES (?,?,?,COALESCE(?,CURDATE()),?,?)";
+        PreparedStatement pst=con.prepareStatement(sql);
+        pst.setLong(1, invoiceId); pst.setLong(2, pid); pst.setString(3, name); pst.setDate(4, billDate);
+        pst.setString(5, particulars); pst.setDouble(6, total); pst.executeUpdate();
+        BillItems.insertBatch(con, invoiceId, billDate, items);
+        con.commit();
+        PatientTimeline.invalidate(String.valueOf(pid));
+    }
+
+    // Admission plus its bed claim in one transaction; returns the admission id, or -1 when the bed is taken.
+    // A claim whose commit fails is released again, so the bed does not stay occupied on this desk.
+    static long admitPatient(Connection con, long pid, String name, BedRegistry.Ward w, int bed, String disease, java.sql.Date admitDate) throws SQLException {
+        long id = nextId(IdAllocator.ADMISSIONS);
+        con.setAutoCommit(false);
+        PreparedStatement pst = con.prepareStatement("INSERT INTO admissions (id, patient_code, patient_name, bed_no, disease, status, admit_date) VALUES (?,?,?,?,?, 'Admitted', COALESCE(?,CURDATE()))");
+        pst.setLong(1, id); pst.setLong(2, pid); pst.setString(3, name);
+        pst.setString(4, BedRegistry.bedLabel(w.name, bed)); pst.setString(5, disease); pst.setDate(6, admitDate);
+        pst.executeUpdate();
+        if(!BedRegistry.claim(con, w, bed, id)) { con.rollback(); return -1; }
+        try { con.commit(); }
+        catch(SQLException e) {
+            try { con.rollback(); } catch(SQLException ignored) {}
+            BedRegistry.release(BedRegistry.bedLabel(w.name, bed));
+            throw e;
+        }
+        PatientTimeline.invalidate(String.valueOf(pid));
+        return id;
+    }
+
+    // Printed / emailed invoice slip
+    static StringBuilder invoiceText(String invoiceNo, Date date, String name, String pid, String phone, DefaultTableModel items, double subTotal, String discount, String grandTotal) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("      HOSPITAL INVOICE      \n");
+        sb.append("Invoice #: ").append(invoiceNo).append("\n");
+        sb.append("Date: ").append(date).append("\n");
+        sb.append("Patient: ").append(name).append(" (ID: ").append(pid).append(")\n");
+        sb.append("Phone: ").append(phone).append("\n");
+        sb.append("------------------------------------------------\n");
+        sb.append(String.format("%-20s %-5s %-10s %-10s\n", "Item", "Qty", "Rate", "Total"));
+        sb.append("------------------------------------------------\n");
+        for(int i=0; i<items.getRowCount(); i++)
+            sb.append(String.format("%-20s %-5s %-10s %-10s\n", items.getValueAt(i,0), items.getValueAt(i,1), items.getValueAt(i,2), items.getValueAt(i,3)));
+        sb.append("------------------------------------------------\n");
+        sb.append("Subtotal: ").append(subTotal).append("\n");
+        sb.append("Discount: ").append(discount).append("%\n");
+        sb.append("GRAND TOTAL: ").append(grandTotal).append("\n");
+        return sb;
+    }
+
+    // Patient record by code (column name -> value), or null when there is no such patient
+    // Patient for a Find button; a code registered at several branches (legacy random codes) is put to the user
+    private java.util.Map<String, String> lookupPatient(String code) {
+        return LocalStore.findPatient(code, matches -> {
+            DefaultTableModel m = new DefaultTableModel(new String[]{"Branch", "Name", "Phone", "Age", "Sex", "Address"}, 0) {
+                public boolean isCellEditable(int r, int c) { return false; }
+            };
+            for(java.util.Map<String, String> p : matches) m.addRow(new Object[]{p.get("branch"), p.get("name"), p.get("phone"), p.get("age"), p.get("sex"), p.get("address")});
+            JTable t = new JTable(m); UIUtils.styleTable(t); t.setRowSelectionInterval(0, 0);
+            JScrollPane sp = new JScrollPane(t); sp.setPreferredSize(new Dimension(650, 160));
+            int ok = JOptionPane.showConfirmDialog(this, sp, "Patient code " + code.trim() + " is registered at " + matches.size() + " branches", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+            return ok == JOptionPane.OK_OPTION && t.getSelectedRow() != -1 ? matches.get(t.convertRowIndexToModel(t.getSelectedRow())) : null;
+        });
+    }
+
+    static java.util.Map<String, String> findPatient(Connection con, String code) throws SQLException {
+        try(PreparedStatement pst = con.prepareStatement("SELECT * FROM patients WHERE patient_code=?")) {
+            pst.setString(1, code);
+            ResultSet rs = pst.executeQuery();
+            if(!rs.next()) return null;
+            java.util.Map<String, String> p = new java.util.HashMap<>();
+            for(String col : new String[]{"patient_code", "name", "phone", "age", "sex", "national_id", "address", "email"}) p.put(col, rs.getString(col));
+            return p;
+        }
+    }
+
+    // The refresh timers would otherwise keep firing, and keep this frame alive, after logout
+    @Override
+    public void dispose() {
+        for(javax.swing.Timer t : timers) t.stop();
+        super.dispose();
+    }
+
     // --- HELPERS ---
     private void addLabel(JPanel p, String txt, int x, int y, GridBagConstraints gbc) {
         gbc.gridx = x; gbc.gridy = y; gbc.anchor = GridBagConstraints.EAST;
@@ -702,10 +1108,22 @@ private void handleBooking(boolean isEmail) {
         panel.add(sp, BorderLayout.NORTH);
         TableRowSorter<DefaultTableModel> sorter = new TableRowSorter<>(model);
         table.setRowSorter(sorter);
+        int nameCol = UIUtils.nameColumn(model);
         txt.addKeyListener(new KeyAdapter() { public void keyReleased(KeyEvent e) {
-            sorter.setRowFilter(RowFilter.regexFilter("(?i)" + txt.getText()));
+            sorter.setRowFilter(UIUtils.searchFilter(txt.getText(), nameCol));
         }});
     }
 
-    private String generateID() { return String.valueOf(100000 + new Random().nextInt(900000)); }
+    private String generateID() {
+        try { return String.valueOf(IdAllocator.PATIENT_CODES.next()); }
+        catch(Exception e) {
+            // Allocator block used up while offline: provisional code, replaced with a real one on sync
+            try { return String.valueOf(LocalStore.provisionalPatientCode()); }
+            catch(Exception offline) {
+                e.printStackTrace();
+                JOptionPane.showMessageDialog(this, "No patient code available: the database is unreachable and the offline journal could not be opened.\n" + offline.getMessage(), "Registration", JOptionPane.ERROR_MESSAGE);
+                return "";
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,171 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Month-end statement: every bill in a date range as one PDF page per invoice (more if it is long), plus a CSV ledger.
+// Rows are streamed with a forward-only cursor and only a small window of rendered invoices is
+// held at a time, so heap use does not grow with the number of bills. The PDF text is ASCII only (see pdfEscape).
+public class StatementExporter {
+
+    private static final int LINES_PER_PAGE = 60;
+    private static final int WRAP = 80;
+
+    // PDF object layout: 1 = page tree (written last), 2 = font, 3 = catalog, then page/content pairs
+    private static final int FIRST_PAGE_OBJ = 4;
+
+    private static class Bill {
+        long id; String code, name, date, particulars; double total;
+    }
+
+    private static class Rendered {
+        java.util.List<byte[]> pages = new java.util.ArrayList<>(); String csv; double total;
+    }
+
+    public interface Progress { void update(long done); }
+
+    public static long export(LocalDate from, LocalDate to, Path pdf, Path csv, Progress progress) throws Exception {
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        int window = threads * 4;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        Path xrefTmp = Files.createTempFile("statement-xref", ".tmp");
+        long count = 0;
+        long[] pages = {0};
+        double running = 0;
+
+        try (Connection con = DBConnection.connect();
+             ChannelWriter out = new ChannelWriter(pdf);
+             ChannelWriter xref = new ChannelWriter(xrefTmp);
+             ChannelWriter ledger = new ChannelWriter(csv)) {
+            if (con == null) throw new SQLException("Database not reachable");
+
+            out.write("%PDF-1.4\n");
+            xref.write(xrefEntry(out.position()));
+            out.write("2 0 obj\n<< /Type /Font /Subtype /Type1 /BaseFont /Courier >>\nendobj\n");
+            xref.write(xrefEntry(out.position()));
+            out.write("3 0 obj\n<< /Type /Catalog /Pages 1 0 R >>\nendobj\n");
+            ledger.write("invoice_no,bill_date,patient_code,patient_name,particulars,total_amount,running_total\n");
+
+            ArrayDeque<Future<Rendered>> inFlight = new ArrayDeque<>();
+            for (String table : Archiver.tablesFor(con, "bills", from, to)) { // archived years first, then the live table
+                try (PreparedStatement pst = con.prepareStatement(
+                        "SELECT id, patient_code, patient_name, bill_date, particulars, total_amount FROM " + table + " WHERE bill_date BETWEEN ? AND ? ORDER BY id",
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    pst.setFetchSize(Integer.MIN_VALUE); // MySQL: stream rows instead of buffering the result
+                    pst.setDate(1, Date.valueOf(from));
+                    pst.setDate(2, Date.valueOf(to));
+                    ResultSet rs = pst.executeQuery();
+                    while (rs.next()) {
+                        Bill b = new Bill();
+                        b.id = rs.getLong("id"); b.code = rs.getString("patient_code"); b.name = rs.getString("patient_name");
+                        b.date = rs.getString("bill_date"); b.particulars = rs.getString("particulars"); b.total = rs.getDouble("total_amount");
+                        inFlight.add(pool.submit(() -> render(b)));
+                        if (inFlight.size() >= window) {
+                            running = writeOne(inFlight.poll().get(), pages, running, out, xref, ledger); count++;
+                            if (progress != null && count % 1000 == 0) progress.update(count);
+                        }
+                    }
+                }
+            }
+            while (!inFlight.isEmpty()) { running = writeOne(inFlight.poll().get(), pages, running, out, xref, ledger); count++; }
+
+            // Page tree goes last because only now the page count is known
+            xref.flush(); // appended to the PDF below
+            long treeOffset = out.position();
+            out.write("1 0 obj\n<< /Type /Pages /Count " + pages[0] + " /Kids [");
+            StringBuilder kids = new StringBuilder();
+            for (long i = 0; i < pages[0]; i++) {
+                kids.append(FIRST_PAGE_OBJ + 2 * i).append(" 0 R ");
+                if (kids.length() > 8192) { out.write(kids.toString()); kids.setLength(0); }
+            }
+            out.write(kids.append("] >>\nendobj\n").toString());
+
+            long xrefOffset = out.position();
+            long objects = FIRST_PAGE_OBJ + 2 * pages[0];
+            out.write("xref\n0 2\n0000000000 65535 f \n" + xrefEntry(treeOffset) + "2 " + (objects - 2) + "\n");
+            out.append(xrefTmp);
+            out.write("trailer\n<< /Size " + objects + " /Root 3 0 R >>\nstartxref\n" + xrefOffset + "\n%%EOF\n");
+            ledger.write(",,,,TOTAL," + String.format("%.2f", running) + ",\n");
+        } finally {
+            pool.shutdownNow();
+            Files.deleteIfExists(xrefTmp);
+        }
+        if (progress != null) progress.update(count);
+        return count;
+    }
+
+    // Writes the bill's pages as the next page/content pairs; 'pages' is the running page count
+    private static double writeOne(Rendered r, long[] pages, double running, ChannelWriter out, ChannelWriter xref, ChannelWriter ledger) throws Exception {
+        for (byte[] page : r.pages) {
+            long pageObj = FIRST_PAGE_OBJ + 2 * pages[0]++, contentObj = pageObj + 1;
+            xref.write(xrefEntry(out.position()));
+            out.write(pageObj + " 0 obj\n<< /Type /Page /Parent 1 0 R /MediaBox [0 0 595 842] /Resources << /Font << /F1 2 0 R >> >> /Contents " + contentObj + " 0 R >>\nendobj\n");
+            xref.write(xrefEntry(out.position()));
+            out.write(contentObj + " 0 obj\n<< /Length " + page.length + " >>\nstream\n");
+            out.write(page);
+            out.write("\nendstream\nendobj\n");
+        }
+        running += r.total;
+        ledger.write(r.csv + "," + String.format("%.2f", running) + "\n");
+        return running;
+    }
+
+    // Runs on the pool: builds the page content stream and the ledger line for one bill
+    private static Rendered render(Bill b) {
+        StringBuilder text = new StringBuilder();
+        text.append("      HOSPITAL INVOICE      \n");
+        text.append("Invoice #: ").append(b.id).append("\n");
+        text.append("Date: ").append(b.date).append("\n");
+        text.append("Patient: ").append(b.name).append(" (ID: ").append(b.code).append(")\n");
+        text.append("------------------------------------------------\n");
+        text.append("Particulars:\n");
+        String items = b.particulars == null ? "" : b.particulars;
+        for (int i = 0; i < items.length(); i += WRAP) text.append("  ").append(items, i, Math.min(items.length(), i + WRAP)).append("\n");
+        text.append("------------------------------------------------\n");
+        text.append("GRAND TOTAL: ").append(String.format("%.2f", b.total)).append("\n");
+
+        // Long invoices continue on further pages, each headed with the invoice number
+        Rendered r = new Rendered();
+        StringBuilder page = new StringBuilder("BT /F1 10 Tf 12 TL 50 800 Td\n");
+        int lines = 0;
+        for (String line : text.toString().split("\n")) {
+            if (lines++ == LINES_PER_PAGE) {
+                r.pages.add(page.append("ET").toString().getBytes(StandardCharsets.ISO_8859_1));
+                page = new StringBuilder("BT /F1 10 Tf 12 TL 50 800 Td\n(Invoice #: " + b.id + " \\(continued\\)) Tj T*\n");
+                lines = 2;
+            }
+            page.append('(').append(pdfEscape(line)).append(") Tj T*\n");
+        }
+        r.pages.add(page.append("ET").toString().getBytes(StandardCharsets.ISO_8859_1));
+        r.total = b.total;
+        r.csv = b.id + "," + b.date + "," + b.code + "," + csvEscape(b.name) + "," + csvEscape(items) + "," + String.format("%.2f", b.total);
+        return r;
+    }
+
+    private static String xrefEntry(long offset) { return String.format("%010d 00000 n \n", offset); }
+
+    // The PDF uses the standard Courier font without an embedded one, so only printable ASCII is drawn: other
+    // characters (Devanagari names, accented letters, the rupee sign) print as '?'. The CSV ledger is UTF-8
+    // and keeps them as entered.
+    private static String pdfEscape(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (char c : s.toCharArray()) {
+            if (c == '(' || c == ')' || c == '\\') sb.append('\\').append(c);
+            else sb.append(c < 32 || c > 126 ? '?' : c);
+        }
+        return sb.toString();
+    }
+
+    static String csvEscape(String s) {
+        if (s == null) return "";
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0) return s;
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+}
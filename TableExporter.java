@@ -0,0 +1,165 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// Streams a core table to CSV or JSON Lines, optionally gzipped. Rows come from a forward-only streaming
+// cursor and go straight into a ChannelWriter, so heap use does not depend on the table size. Tables with
+// a date column can be limited to a date range; password columns are never exported. Archived years
+// (Archiver) are read first, then the live table, with the live table's columns.
+//   java -cp "lib/*:out" com.mycompany.hospitalmanagementsystem.TableExporter <table|all> <file|dir> [--format csv|jsonl] [--gzip] [--from YYYY-MM-DD] [--to YYYY-MM-DD]
+public class TableExporter {
+
+    public interface Progress { void update(long rows); }
+
+    // {table, date column or null}
+    public static final String[][] TABLES = {
+        {"patients", null},
+        {"appointments", "appt_date"},
+        {"admissions", "admit_date"},
+        {"prescriptions", "prescribed_date"},
+        {"bills", "bill_date"},
+        {"users", null},
+    };
+
+    private static final int PROGRESS_EVERY = 5000;
+
+    public static String dateColumn(String table) {
+        for (String[] t : TABLES) if (t[0].equals(table)) return t[1];
+        throw new IllegalArgumentException("Unknown table: " + table);
+    }
+
+    public static String fileName(String table, boolean jsonl, boolean gzip) { return table + (jsonl ? ".jsonl" : ".csv") + (gzip ? ".gz" : ""); }
+
+    // Returns the number of rows written. from/to may be null; they are ignored for tables without a date.
+    public static long export(String table, Path out, boolean jsonl, boolean gzip, LocalDate from, LocalDate to, Progress progress) throws Exception {
+        String dateCol = dateColumn(table);
+        StringBuilder where = new StringBuilder();
+        List<LocalDate> args = new ArrayList<>();
+        if (dateCol != null && from != null) { where.append(args.isEmpty() ? " WHERE " : " AND ").append(dateCol).append(" >= ?"); args.add(from); }
+        if (dateCol != null && to != null) { where.append(args.isEmpty() ? " WHERE " : " AND ").append(dateCol).append(" < ?"); args.add(to.plusDays(1)); }
+
+        long rows = 0;
+        try (Connection con = DBConnection.connect();
+             ChannelWriter w = gzip ? ChannelWriter.gzip(out) : new ChannelWriter(out)) {
+            if (con == null) throw new SQLException("Database not reachable");
+            List<String> names = new ArrayList<>();
+            List<Boolean> numeric = new ArrayList<>();
+            try (ResultSet rs = con.createStatement().executeQuery("SELECT * FROM " + table + " WHERE 1=0")) {
+                ResultSetMetaData md = rs.getMetaData();
+                for (int c = 1; c <= md.getColumnCount(); c++) {
+                    if (md.getColumnLabel(c).toLowerCase().contains("password")) continue;
+                    names.add(md.getColumnLabel(c)); numeric.add(isNumeric(md.getColumnType(c)));
+                }
+            }
+
+            StringBuilder line = new StringBuilder(256);
+            if (!jsonl) {
+                for (int i = 0; i < names.size(); i++) line.append(i > 0 ? "," : "").append(StatementExporter.csvEscape(names.get(i)));
+                w.write(line.append('\n').toString());
+            }
+            for (String t : Archiver.tablesFor(con, table, dateCol == null ? null : from, dateCol == null ? null : to)) {
+                try (PreparedStatement pst = con.prepareStatement("SELECT " + columns(con, t, names) + " FROM " + t + where, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    DBConnection.streamRows(pst);
+                    for (int i = 0; i < args.size(); i++) pst.setDate(i + 1, Date.valueOf(args.get(i)));
+                    ResultSet rs = pst.executeQuery();
+                    while (rs.next()) {
+                        line.setLength(0);
+                        if (jsonl) line.append('{');
+                        for (int i = 0; i < names.size(); i++) {
+                            String v = rs.getString(i + 1);
+                            if (jsonl) {
+                                if (i > 0) line.append(',');
+                                jsonString(line, names.get(i)).append(':');
+                                if (v == null) line.append("null");
+                                else if (numeric.get(i)) line.append(v);
+                                else jsonString(line, v);
+                            } else {
+                                if (i > 0) line.append(',');
+                                line.append(StatementExporter.csvEscape(v));
+                            }
+                        }
+                        w.write(line.append(jsonl ? "}\n" : "\n").toString());
+                        if (++rows % PROGRESS_EVERY == 0 && progress != null) progress.update(rows);
+                    }
+                }
+            }
+        }
+        if (progress != null) progress.update(rows);
+        return rows;
+    }
+
+    // The live table's columns as a select list for 't'; an archive table older than a live column gives NULL for it
+    private static String columns(Connection con, String t, List<String> names) throws SQLException {
+        Set<String> has = new HashSet<>();
+        try (ResultSet rs = con.createStatement().executeQuery("SELECT * FROM " + t + " WHERE 1=0")) {
+            ResultSetMetaData md = rs.getMetaData();
+            for (int c = 1; c <= md.getColumnCount(); c++) has.add(md.getColumnLabel(c).toLowerCase(Locale.ROOT));
+        }
+        StringBuilder sb = new StringBuilder();
+        for (String n : names) sb.append(sb.length() > 0 ? ", " : "").append(has.contains(n.toLowerCase(Locale.ROOT)) ? n : "NULL AS " + n);
+        return sb.toString();
+    }
+
+    private static boolean isNumeric(int type) {
+        switch (type) {
+            case Types.TINYINT: case Types.SMALLINT: case Types.INTEGER: case Types.BIGINT:
+            case Types.DECIMAL: case Types.NUMERIC: case Types.FLOAT: case Types.REAL: case Types.DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    static StringBuilder jsonString(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        return sb.append('"');
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: TableExporter <table|all> <file|dir> [--format csv|jsonl] [--gzip] [--from YYYY-MM-DD] [--to YYYY-MM-DD]");
+            return;
+        }
+        System.setProperty("java.awt.headless", "true");
+        boolean jsonl = false, gzip = false;
+        LocalDate from = null, to = null;
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--format": jsonl = args[++i].equalsIgnoreCase("jsonl"); break;
+                case "--gzip": gzip = true; break;
+                case "--from": from = LocalDate.parse(args[++i]); break;
+                case "--to": to = LocalDate.parse(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        List<String> tables = new ArrayList<>();
+        if (args[0].equals("all")) for (String[] t : TABLES) tables.add(t[0]); else tables.add(args[0]);
+        for (String table : tables) {
+            Path out = args[0].equals("all") ? Paths.get(args[1]).resolve(fileName(table, jsonl, gzip)) : Paths.get(args[1]);
+            long t0 = System.nanoTime();
+            long n = export(table, out, jsonl, gzip, from, to, rows -> System.out.print("\r" + table + ": " + rows + " rows"));
+            System.out.printf("\r%s: %d rows -> %s (%.1f s)%n", table, n, out, (System.nanoTime() - t0) / 1e9);
+        }
+    }
+}
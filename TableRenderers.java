@@ -0,0 +1,148 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import java.awt.*;
+import java.text.DecimalFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.swing.*;
+import javax.swing.border.Border;
+import javax.swing.event.TableModelEvent;
+import javax.swing.table.*;
+
+// Shared cell renderers for every dashboard table. Fonts, borders and colors are created once, one renderer
+// instance serves all tables, and text that needs formatting is computed once per distinct value, so
+// scrolling a large table paints without allocating per cell.
+public class TableRenderers {
+
+    public static final int ROW_HEIGHT = 30;
+    public static final Font FONT_CELL = new Font("Segoe UI", Font.PLAIN, 14);
+    public static final Font FONT_HEADER = new Font("Segoe UI", Font.BOLD, 14);
+    public static final Color COLOR_SELECTION = new Color(173, 216, 230);
+    private static final Border HEADER_BORDER = BorderFactory.createMatteBorder(0, 0, 1, 1, Color.WHITE);
+
+    private static final int AUTO_SIZE_SAMPLE = 200;   // rows measured per column
+    private static final int COLUMN_PADDING = 24;
+    private static final int TEXT_CACHE_MAX = 4096;
+
+    // --- HEADER ---
+    public static final TableCellRenderer HEADER = new DefaultTableCellRenderer() {
+        {
+            setBackground(UIUtils.COLOR_TEAL); setForeground(Color.WHITE); setFont(FONT_HEADER);
+            setHorizontalAlignment(JLabel.CENTER); setOpaque(true); setBorder(HEADER_BORDER);
+        }
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+            setText(value == null ? "" : value.toString());
+            return this;
+        }
+    };
+
+    // --- PLAIN TEXT (centered) ---
+    public static final DefaultTableCellRenderer CENTER = centered(new DefaultTableCellRenderer());
+
+    // --- NUMBERS: amounts get grouping and two decimals, text values are passed through ---
+    public static final DefaultTableCellRenderer NUMERIC = centered(new DefaultTableCellRenderer() {
+        private final DecimalFormat amount = new DecimalFormat("#,##0.00");
+        private final DecimalFormat whole = new DecimalFormat("#,##0");
+        private final Map<Object, String> text = lru();
+        @Override protected void setValue(Object value) {
+            if (!(value instanceof Number)) { super.setValue(value); return; }
+            setText(text.computeIfAbsent(value, v -> v instanceof Double || v instanceof Float || v instanceof java.math.BigDecimal
+                    ? amount.format(v) : whole.format(v)));
+        }
+    });
+
+    // --- DATES: java.sql.Date / LocalDate / timestamps shown as yyyy-MM-dd (HH:mm) ---
+    public static final DefaultTableCellRenderer DATE = centered(new DefaultTableCellRenderer() {
+        private final DateTimeFormatter day = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+        private final DateTimeFormatter stamp = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+        private final Map<Object, String> text = lru();
+        @Override protected void setValue(Object value) {
+            if (value instanceof java.sql.Timestamp) setText(text.computeIfAbsent(value, v -> ((java.sql.Timestamp) v).toLocalDateTime().format(stamp)));
+            else if (value instanceof java.sql.Date) setText(text.computeIfAbsent(value, v -> ((java.sql.Date) v).toLocalDate().format(day)));
+            else if (value instanceof LocalDate) setText(text.computeIfAbsent(value, v -> ((LocalDate) v).format(day)));
+            else if (value instanceof LocalDateTime) setText(text.computeIfAbsent(value, v -> ((LocalDateTime) v).format(stamp)));
+            else super.setValue(value);
+        }
+    });
+
+    // --- STATUS: colored text, one precomputed color per status the tables show ---
+    private static final Map<String, Color> STATUS_COLORS = new HashMap<>();
+    static {
+        Color green = new Color(40, 140, 70), red = UIUtils.COLOR_RED, amber = new Color(200, 120, 0), blue = UIUtils.COLOR_BLUE, gray = new Color(110, 110, 110);
+        STATUS_COLORS.put("Active", green); STATUS_COLORS.put("Disabled", red);     // users, doctors, staff
+        STATUS_COLORS.put("Pending", amber); STATUS_COLORS.put("Advised", green);   // appointments
+        STATUS_COLORS.put("Admitted", blue);                                        // admissions
+        STATUS_COLORS.put("Discharged", gray);
+    }
+
+    public static final DefaultTableCellRenderer STATUS = centered(new DefaultTableCellRenderer() {
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+            super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+            if (isSelected) return this; // selection colors already set by super
+            Color c = value == null ? null : STATUS_COLORS.get(value.toString());
+            setForeground(c != null ? c : table.getForeground()); // renderer is shared, reset after a colored cell
+            return this;
+        }
+    });
+
+    private static DefaultTableCellRenderer centered(DefaultTableCellRenderer r) { r.setHorizontalAlignment(JLabel.CENTER); return r; }
+
+    private static Map<Object, String> lru() {
+        return new LinkedHashMap<Object, String>(256, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<Object, String> eldest) { return size() > TEXT_CACHE_MAX; }
+        };
+    }
+
+    // Picks the renderer from the column title, the same titles the dashboards already use
+    public static TableCellRenderer forColumn(String title) {
+        String t = title.toLowerCase();
+        if (t.equals("status")) return STATUS;
+        if (t.contains("date")) return DATE;
+        if (t.equals("qty") || t.contains("qty ") || t.equals("rate") || t.equals("total") || t.equals("revenue") || t.equals("bills") || t.equals("age")) return NUMERIC;
+        return CENTER;
+    }
+
+    public static void install(JTable table) {
+        table.setRowHeight(ROW_HEIGHT);
+        table.setFont(FONT_CELL);
+        table.getTableHeader().setDefaultRenderer(HEADER);
+        table.setSelectionBackground(COLOR_SELECTION);
+        table.setSelectionForeground(Color.BLACK);
+        TableColumnModel cols = table.getColumnModel();
+        for (int i = 0; i < cols.getColumnCount(); i++) {
+            Object title = cols.getColumn(i).getHeaderValue();
+            cols.getColumn(i).setCellRenderer(forColumn(title == null ? "" : title.toString()));
+        }
+        // Re-size once after each burst of row changes (a refill fires one event per row)
+        boolean[] queued = {false};
+        table.getModel().addTableModelListener(e -> {
+            if (queued[0] || e.getType() == TableModelEvent.UPDATE && e.getFirstRow() != TableModelEvent.HEADER_ROW && e.getFirstRow() == e.getLastRow()) return;
+            queued[0] = true;
+            SwingUtilities.invokeLater(() -> { queued[0] = false; autoSize(table); });
+        });
+    }
+
+    // Preferred column widths from the header and an evenly spaced sample of rows instead of every row.
+    // With the default auto-resize mode the widths act as proportions of the available space.
+    public static void autoSize(JTable table) {
+        int rows = table.getRowCount();
+        int step = Math.max(1, rows / AUTO_SIZE_SAMPLE);
+        TableColumnModel cols = table.getColumnModel();
+        FontMetrics fm = table.getFontMetrics(table.getFont());
+        for (int c = 0; c < cols.getColumnCount(); c++) {
+            TableColumn col = cols.getColumn(c);
+            int width = HEADER.getTableCellRendererComponent(table, col.getHeaderValue(), false, false, -1, c).getPreferredSize().width;
+            for (int r = 0; r < rows; r += step) {
+                Component comp = table.prepareRenderer(table.getCellRenderer(r, c), r, c);
+                width = Math.max(width, comp instanceof JLabel ? fm.stringWidth(((JLabel) comp).getText()) : comp.getPreferredSize().width);
+            }
+            col.setPreferredWidth(width + COLUMN_PADDING);
+        }
+    }
+}
@@ -4,13 +4,11 @@ import com.formdev.flatlaf.FlatClientProperties;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.plaf.basic.BasicButtonUI;
-import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.JTableHeader;
 import java.awt.*;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.image.BufferedImage;
-import java.net.URL;
+import java.awt.image.VolatileImage;
 import java.util.UUID;
 import java.util.regex.Pattern;
 import java.util.Random;
@@ -29,6 +27,7 @@ public class UIUtils {
     public static final Color COLOR_ACCENT = new Color(0, 123, 255);     
     public static final Color COLOR_BACKGROUND = new Color(240, 242, 245); 
     public static final Color COLOR_TEXT_HEADER = new Color(45, 45, 45);
+    public static final Color COLOR_FALLBACK_BG = new Color(240, 248, 255);
     
     public static final Font FONT_HEADER = new Font("Segoe UI", Font.BOLD, 24);
     public static final Font FONT_GENERAL = new Font("Segoe UI", Font.PLAIN, 14);
@@ -74,24 +73,97 @@ public class UIUtils {
     
 
     public static JPanel createBackgroundPanel(String imageName) {
-        return new JPanel() {
+        return new BackgroundPanel(imageName);
+    }
+
+    // Background image scaled once per panel size and blitted from a VolatileImage on every repaint
+    @SuppressWarnings("serial")
+    static class BackgroundPanel extends JPanel {
+        private final String imageName;
+        private BufferedImage scaled;
+        private VolatileImage vram;
+
+        BackgroundPanel(String imageName) { this.imageName = imageName; }
+
+        // Current scaled image, rebuilt only when the panel size changed
+        BufferedImage scaledImage() {
+            int w = getWidth(), h = getHeight();
+            if (scaled == null || scaled.getWidth() != w || scaled.getHeight() != h) {
+                scaled = ImageCache.scaled(imageName, w, h);
+                vram = null;
+            }
+            return scaled;
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            BufferedImage img = scaledImage();
+            if (img == null) {
+                g.setColor(COLOR_FALLBACK_BG);
+                g.fillRect(0, 0, getWidth(), getHeight());
+                return;
+            }
+            GraphicsConfiguration gc = getGraphicsConfiguration();
+            if (gc == null) { g.drawImage(img, 0, 0, null); return; }
+            do {
+                int state = vram == null ? VolatileImage.IMAGE_INCOMPATIBLE : vram.validate(gc);
+                if (state == VolatileImage.IMAGE_INCOMPATIBLE) vram = gc.createCompatibleVolatileImage(img.getWidth(), img.getHeight());
+                if (state != VolatileImage.IMAGE_OK) {
+                    Graphics2D vg = vram.createGraphics(); vg.drawImage(img, 0, 0, null); vg.dispose();
+                }
+                g.drawImage(vram, 0, 0, null);
+            } while (vram.contentsLost());
+        }
+    }
+
+    // Translucent "glass" panel. Instead of being non-opaque (which makes every repaint inside it, e.g.
+    // a table scroll, repaint the background underneath too) it is opaque and paints a cached composite
+    // of the background region behind it plus the tint. The composite is rebuilt on move/resize only.
+    public static JPanel createGlassPanel(LayoutManager layout, Color tint) {
+        return new JPanel(layout) {
+            private BufferedImage composite;
+            private BufferedImage compositeSource;
+            private Point compositeAt;
+
+            { setOpaque(true); }
+
             @Override
             protected void paintComponent(Graphics g) {
-                super.paintComponent(g);
-                try {
-                    URL imgUrl = getClass().getResource("/images/" + imageName);
-                    if (imgUrl != null) {
-                        ImageIcon img = new ImageIcon(imgUrl);
-                        g.drawImage(img.getImage(), 0, 0, getWidth(), getHeight(), this);
-                    } else {
-                        g.setColor(new Color(240, 248, 255));
-                        g.fillRect(0, 0, getWidth(), getHeight());
-                    }
-                } catch (Exception e) { e.printStackTrace(); }
+                int w = getWidth(), h = getHeight();
+                if (w <= 0 || h <= 0) return;
+                BackgroundPanel bg = (BackgroundPanel) SwingUtilities.getAncestorOfClass(BackgroundPanel.class, this);
+                BufferedImage src = bg == null ? null : bg.scaledImage();
+                Point at = bg == null ? new Point() : SwingUtilities.convertPoint(this, 0, 0, bg);
+                if (composite == null || composite.getWidth() != w || composite.getHeight() != h || compositeSource != src || !at.equals(compositeAt)) {
+                    composite = ImageCache.compatible(w, h, Transparency.OPAQUE);
+                    Graphics2D cg = composite.createGraphics();
+                    cg.setColor(COLOR_FALLBACK_BG);
+                    cg.fillRect(0, 0, w, h);
+                    if (src != null) cg.drawImage(src, 0, 0, w, h, at.x, at.y, at.x + w, at.y + h, null);
+                    cg.setColor(tint);
+                    cg.fillRect(0, 0, w, h);
+                    cg.dispose();
+                    compositeSource = src; compositeAt = at;
+                }
+                g.drawImage(composite, 0, 0, null);
             }
         };
     }
 
+    // Adds a tab whose content is only built the first time the tab is selected
+    public static void addLazyTab(JTabbedPane tabs, String title, java.util.function.Supplier<? extends JComponent> factory) {
+        JPanel holder = new JPanel(new BorderLayout()); holder.setOpaque(false);
+        tabs.addTab(title, holder);
+        Runnable build = () -> {
+            if (holder.getComponentCount() > 0) return;
+            holder.add(factory.get(), BorderLayout.CENTER);
+            holder.revalidate(); holder.repaint();
+        };
+        tabs.addChangeListener(e -> { if (tabs.getSelectedComponent() == holder) build.run(); });
+        if (tabs.getSelectedComponent() == holder) build.run();
+    }
+
     public static void styleButton(JButton btn, Color bgColor) {
         btn.setFont(new Font("Segoe UI", Font.BOLD, 14));
         btn.setBackground(bgColor);             
@@ -112,29 +184,41 @@ public class UIUtils {
     }
 
     public static void styleTable(JTable table) {
-        table.setRowHeight(30);
-        table.setFont(new Font("Segoe UI", Font.PLAIN, 14));
         table.getTableHeader().putClientProperty("FlatLaf.style", "hoverBackground: null; pressedBackground: null; separatorColor: #ffffff");
-        JTableHeader header = table.getTableHeader();
-        header.setDefaultRenderer(new DefaultTableCellRenderer() {
-            @Override
-            public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
-                JLabel l = (JLabel) super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
-                l.setBackground(COLOR_TEAL);
-                l.setForeground(Color.WHITE);
-                l.setFont(new Font("Segoe UI", Font.BOLD, 14));
-                l.setHorizontalAlignment(JLabel.CENTER);
-                l.setOpaque(true);
-                l.setBorder(BorderFactory.createMatteBorder(0, 0, 1, 1, Color.WHITE));
-                return l;
+        TableRenderers.install(table);
+    }
+
+    // Case-insensitive row filter for the "Search" boxes; null (no filtering) for empty text, and
+    // text that is not a valid pattern (e.g. a lone "(") is matched literally instead of throwing
+    public static <M, I> RowFilter<M, I> searchFilter(String text) {
+        if (text == null || text.isEmpty()) return null;
+        try { return RowFilter.regexFilter("(?i)" + text); }
+        catch (java.util.regex.PatternSyntaxException e) { return RowFilter.regexFilter("(?i)" + Pattern.quote(text)); }
+    }
+
+    // searchFilter that also matches the name column across spellings ("laxmi shreshta" finds "Lakshmi Shrestha")
+    public static <M extends javax.swing.table.TableModel> RowFilter<M, Integer> searchFilter(String text, int nameColumn) {
+        RowFilter<M, Integer> plain = searchFilter(text);
+        if (plain == null || nameColumn < 0 || !text.chars().allMatch(c -> Character.isLetter(c) || c == ' ')) return plain;
+        String[] words = NameIndex.fold(text).split(" ");
+        if (words[0].isEmpty()) return plain;
+        RowFilter<M, Integer> fuzzy = new RowFilter<M, Integer>() {
+            @Override public boolean include(Entry<? extends M, ? extends Integer> entry) {
+                String name = NameIndex.fold(entry.getStringValue(nameColumn));
+                for (String w : words) if (!name.contains(w)) return false;
+                return true;
             }
-        });
-        table.setSelectionBackground(new Color(173, 216, 230)); 
-        table.setSelectionForeground(Color.BLACK);
-        DefaultTableCellRenderer centerRenderer = new DefaultTableCellRenderer();
-        centerRenderer.setHorizontalAlignment(JLabel.CENTER);
-        for (int i = 0; i < table.getColumnCount(); i++)
-            table.getColumnModel().getColumn(i).setCellRenderer(centerRenderer);
+        };
+        return RowFilter.orFilter(java.util.Arrays.asList(plain, fuzzy));
+    }
+
+    // Index of the "Name" / "Patient Name" column, or -1
+    public static int nameColumn(javax.swing.table.TableModel model) {
+        for (int c = 0; c < model.getColumnCount(); c++) {
+            String title = model.getColumnName(c).trim();
+            if (title.equalsIgnoreCase("Name") || title.equalsIgnoreCase("Patient Name")) return c;
+        }
+        return -1;
     }
 
     public static String generatePassword() {
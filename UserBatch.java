@@ -0,0 +1,147 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.Component;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Admin actions on several users at once: one JDBC batch in one transaction per action, then the rows of the
+// admin tables are updated in place instead of reloading them.
+public class UserBatch {
+
+    // One statement, one batch entry per id; returns the ids the database actually changed
+    private static Set<Integer> run(String sql, List<Integer> ids, Object... leadingArgs) throws SQLException {
+        Set<Integer> changed = new HashSet<>();
+        try (Connection con = DBConnection.connect()) {
+            if (con == null) throw new SQLException("Database not reachable");
+            con.setAutoCommit(false);
+            try (PreparedStatement pst = con.prepareStatement(sql)) {
+                for (int id : ids) {
+                    for (int i = 0; i < leadingArgs.length; i++) pst.setObject(i + 1, leadingArgs[i]);
+                    pst.setInt(leadingArgs.length + 1, id);
+                    pst.addBatch();
+                }
+                int[] counts = pst.executeBatch();
+                con.commit();
+                for (int i = 0; i < counts.length; i++) if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) changed.add(ids.get(i));
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            }
+        }
+        return changed;
+    }
+
+    public static Set<Integer> setActive(List<Integer> ids, boolean active) throws SQLException {
+        return audit(active ? "user.activate" : "user.deactivate", null, run("UPDATE users SET is_active=? WHERE id=? AND role<>'admin'", ids, active));
+    }
+
+    public static Set<Integer> delete(List<Integer> ids) throws SQLException {
+        return audit("user.delete", null, run("DELETE FROM users WHERE id=? AND role<>'admin'", ids));
+    }
+
+    // Doctors only; staff have no department
+    public static Set<Integer> reassignDepartment(List<Integer> ids, String department) throws SQLException {
+        return audit("user.department", department, run("UPDATE users SET department=? WHERE id=? AND role='doctor'", ids, department));
+    }
+
+    // New password for each user (who must change it at next login), committed together; the emails go out
+    // afterwards on one background thread
+    public static Set<Integer> resendCredentials(List<Integer> ids) throws SQLException {
+        List<String[]> mails = new ArrayList<>(); // {email, name, username, password}
+        Set<Integer> changed = new HashSet<>();
+        try (Connection con = DBConnection.connect()) {
+            if (con == null) throw new SQLException("Database not reachable");
+            StringBuilder in = new StringBuilder();
+            for (int id : ids) in.append(in.length() > 0 ? "," : "").append(id);
+            List<Object[]> users = new ArrayList<>();
+            ResultSet rs = con.createStatement().executeQuery("SELECT id, name, username, email FROM users WHERE role<>'admin' AND id IN (" + in + ")");
+            while (rs.next()) users.add(new Object[]{rs.getInt("id"), rs.getString("name"), rs.getString("username"), rs.getString("email")});
+            con.setAutoCommit(false);
+            try (PreparedStatement pst = con.prepareStatement("UPDATE users SET password=?, requires_password=TRUE WHERE id=?")) {
+                for (Object[] u : users) {
+                    String pass = UIUtils.generatePassword();
+                    pst.setString(1, pass); pst.setInt(2, (Integer) u[0]);
+                    pst.addBatch();
+                    mails.add(new String[]{(String) u[3], (String) u[1], (String) u[2], pass});
+                    changed.add((Integer) u[0]);
+                }
+                pst.executeBatch();
+                con.commit();
+            } catch (SQLException e) {
+                con.rollback();
+                throw e;
+            }
+        }
+        new Thread(() -> {
+            for (String[] m : mails) if (m[0] != null && m[0].contains("@")) Email.sendPasswordEmail(m[0], m[1], m[2], m[3]);
+        }).start();
+        return audit("user.resend_credentials", null, changed);
+    }
+
+    // One journal entry per user the database actually changed
+    private static Set<Integer> audit(String action, String details, Set<Integer> changed) {
+        for (int id : changed) AuditLog.record(action, "user", id, details);
+        return changed;
+    }
+
+    // ---------------------------------------------------------------- table helpers
+
+    // User ids of the selected rows (column 'idCol' of the model), whatever the sort / filter
+    public static List<Integer> selectedIds(JTable t, int idCol) {
+        List<Integer> ids = new ArrayList<>();
+        for (int r : t.getSelectedRows()) ids.add(Integer.parseInt(t.getModel().getValueAt(t.convertRowIndexToModel(r), idCol).toString()));
+        return ids;
+    }
+
+    // Sets 'col' to 'value' on the rows of the changed ids
+    public static void setColumn(DefaultTableModel m, int idCol, Set<Integer> ids, int col, Object value) {
+        for (int i = 0; i < m.getRowCount(); i++) if (ids.contains(Integer.parseInt(m.getValueAt(i, idCol).toString()))) m.setValueAt(value, i, col);
+    }
+
+    public static void removeRows(DefaultTableModel m, int idCol, Set<Integer> ids) {
+        for (int i = m.getRowCount() - 1; i >= 0; i--) if (ids.contains(Integer.parseInt(m.getValueAt(i, idCol).toString()))) m.removeRow(i);
+    }
+
+    // Activate / Deactivate / Delete / Resend Login buttons (and Set Department when deptCol >= 0) for a user table
+    public static JPanel actions(Component parent, JTable t, DefaultTableModel m, int idCol, int statusCol, int deptCol, String[] departments) {
+        JPanel acts = new JPanel(); acts.setOpaque(false);
+        JButton bOn = new JButton("Activate"); UIUtils.styleButton(bOn, new java.awt.Color(40, 167, 69));
+        JButton bOff = new JButton("Deactivate"); UIUtils.styleButton(bOff, java.awt.Color.GRAY);
+        JButton bDel = new JButton("Delete"); UIUtils.styleButton(bDel, UIUtils.COLOR_RED);
+        JButton bMail = new JButton("Resend Login"); UIUtils.styleButton(bMail, UIUtils.COLOR_BLUE);
+        acts.add(bOn); acts.add(bOff); acts.add(bDel); acts.add(bMail);
+        bOn.addActionListener(e -> apply(parent, t, idCol, null, ids -> setColumn(m, idCol, setActive(ids, true), statusCol, "Active")));
+        bOff.addActionListener(e -> apply(parent, t, idCol, "Deactivate", ids -> setColumn(m, idCol, setActive(ids, false), statusCol, "Disabled")));
+        bDel.addActionListener(e -> apply(parent, t, idCol, "Delete", ids -> removeRows(m, idCol, delete(ids))));
+        bMail.addActionListener(e -> apply(parent, t, idCol, "Reset the password of and email", ids -> {
+            Set<Integer> done = resendCredentials(ids);
+            JOptionPane.showMessageDialog(parent, "New passwords set for " + done.size() + " user(s); emails are being sent.");
+        }));
+        if (deptCol >= 0) {
+            JButton bDept = new JButton("Set Department"); UIUtils.styleButton(bDept, UIUtils.COLOR_ORANGE); bDept.setForeground(java.awt.Color.BLACK);
+            acts.add(bDept);
+            bDept.addActionListener(e -> {
+                if (t.getSelectedRowCount() == 0) { JOptionPane.showMessageDialog(parent, "Select one or more rows first."); return; }
+                Object dept = JOptionPane.showInputDialog(parent, "New department for " + t.getSelectedRowCount() + " doctor(s):", "Set Department", JOptionPane.QUESTION_MESSAGE, null, departments, departments[0]);
+                if (dept != null) apply(parent, t, idCol, null, ids -> setColumn(m, idCol, reassignDepartment(ids, dept.toString()), deptCol, dept));
+            });
+        }
+        return acts;
+    }
+
+    interface Action { void run(List<Integer> ids) throws SQLException; }
+
+    // Runs 'action' on the selected ids after an optional confirmation ("<verb> N user(s)?")
+    private static void apply(Component parent, JTable t, int idCol, String confirmVerb, Action action) {
+        List<Integer> ids = selectedIds(t, idCol);
+        if (ids.isEmpty()) { JOptionPane.showMessageDialog(parent, "Select one or more rows first."); return; }
+        if (confirmVerb != null && JOptionPane.showConfirmDialog(parent, confirmVerb + " " + ids.size() + " user(s)?", "Confirm", JOptionPane.YES_NO_OPTION) != JOptionPane.YES_OPTION) return;
+        try { action.run(ids); }
+        catch (SQLException ex) { ex.printStackTrace(); JOptionPane.showMessageDialog(parent, "Nothing was changed: " + ex.getMessage()); }
+    }
+}
@@ -0,0 +1,298 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.GridLayout;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.*;
+
+// Ward census, length of stay and bed turnover, built from one streaming pass over admissions (archives
+// included) into primitive per-day / per-ward / per-disease counters. Later refreshes only read the admissions
+// rows whose updated_at is past the last pass (minus an overlap for transactions that committed late), and
+// replace what those rows counted before, so inserts in any id order, late offline replays and edits of closed
+// stays are all picked up; a refresh costs a few hundred rows no matter how many years of history there are.
+// Deletes (and archiving) show up as a changed row count / id sum and trigger a full rebuild.
+// Days are epoch days from MySQL TO_DAYS(), never Date objects.
+// A stay that changes ward while open is counted in its latest ward for its whole length (admissions has no
+// transfer date). Length of stay is discharge - admit in days, with same-day stays counted as 1.
+public class WardCensus {
+
+    private static final int TO_EPOCH_DAY = 719528; // TO_DAYS('1970-01-01')
+    private static final int YEARS_KEPT = 15;       // older days fold into the first slot
+
+    private static final int base = (int) LocalDate.now().toEpochDay() - YEARS_KEPT * 366;
+    private static int days = (int) LocalDate.now().toEpochDay() - base + 400;
+
+    private static final int OPEN = Integer.MIN_VALUE;      // discharge day of a stay still open
+    private static final long OVERLAP_MS = 10 * 60 * 1000L;
+
+    private static Timestamp since = null;                  // updated_at watermark for the next pass
+    private static long liveIdSum = 0;
+    private static boolean loaded = false, schemaReady = false;
+
+    private static final Map<String, Integer> wardIdx = new HashMap<>(), diseaseIdx = new HashMap<>();
+    private static final List<String> wardNames = new ArrayList<>(), diseaseNames = new ArrayList<>();
+    // [ward][day]
+    private static int[][] admits = new int[0][], discharges = new int[0][], delta = new int[0][];
+    private static long[][] losByDischargeDay = new long[0][];
+    // [disease]
+    private static int[] diseaseDischarges = new int[16];
+    private static long[] diseaseLos = new long[16];
+    // Live admissions rows: id -> {ward, disease, admit day, discharge day or OPEN}; ward -1 = no admit date, not counted
+    private static final Map<Long, int[]> live = new HashMap<>();
+
+    // ---------------------------------------------------------------- accumulate
+
+    private static int day(int epochDay) { return Math.max(0, epochDay - base); }
+
+    private static int ward(String bedNo) {
+        int dash = bedNo == null ? -1 : bedNo.lastIndexOf('-');
+        String name = dash > 0 ? bedNo.substring(0, dash) : "Other";
+        Integer i = wardIdx.get(name);
+        if (i != null) return i;
+        i = wardNames.size();
+        wardIdx.put(name, i); wardNames.add(name);
+        admits = Arrays.copyOf(admits, i + 1); admits[i] = new int[days];
+        discharges = Arrays.copyOf(discharges, i + 1); discharges[i] = new int[days];
+        delta = Arrays.copyOf(delta, i + 1); delta[i] = new int[days];
+        losByDischargeDay = Arrays.copyOf(losByDischargeDay, i + 1); losByDischargeDay[i] = new long[days];
+        return i;
+    }
+
+    private static int disease(String disease) {
+        String key = disease == null || disease.trim().isEmpty() ? "(not recorded)" : disease.trim().toLowerCase(Locale.ROOT);
+        Integer i = diseaseIdx.get(key);
+        if (i != null) return i;
+        i = diseaseNames.size();
+        diseaseIdx.put(key, i); diseaseNames.add(disease == null || disease.trim().isEmpty() ? key : disease.trim());
+        if (i == diseaseDischarges.length) { diseaseDischarges = Arrays.copyOf(diseaseDischarges, i * 2); diseaseLos = Arrays.copyOf(diseaseLos, i * 2); }
+        return i;
+    }
+
+    private static void ensureDay(int d) {
+        if (d < days) return;
+        days = d + 400;
+        for (int w = 0; w < wardNames.size(); w++) {
+            admits[w] = Arrays.copyOf(admits[w], days); discharges[w] = Arrays.copyOf(discharges[w], days);
+            delta[w] = Arrays.copyOf(delta[w], days); losByDischargeDay[w] = Arrays.copyOf(losByDischargeDay[w], days);
+        }
+    }
+
+    private static void admit(int w, int admitDay) {
+        int a = day(admitDay); ensureDay(a);
+        admits[w][a]++; delta[w][a]++;
+    }
+
+    private static void discharge(int w, int dis, int admitDay, int dischargeDay) {
+        int d = day(dischargeDay); ensureDay(d);
+        int los = Math.max(1, dischargeDay - admitDay);
+        discharges[w][d]++; delta[w][d]--; losByDischargeDay[w][d] += los;
+        diseaseDischarges[dis]++; diseaseLos[dis] += los;
+    }
+
+    private static void unAdmit(int w, int admitDay) { int a = day(admitDay); admits[w][a]--; delta[w][a]--; }
+
+    private static void unDischarge(int w, int dis, int admitDay, int dischargeDay) {
+        int d = day(dischargeDay);
+        int los = Math.max(1, dischargeDay - admitDay);
+        discharges[w][d]--; delta[w][d]++; losByDischargeDay[w][d] -= los;
+        diseaseDischarges[dis]--; diseaseLos[dis] -= los;
+    }
+
+    private static void add(int[] s) {
+        if (s[0] < 0) return;
+        admit(s[0], s[2]);
+        if (s[3] != OPEN) discharge(s[0], s[1], s[2], s[3]);
+    }
+
+    private static void remove(int[] s) {
+        if (s[0] < 0) return;
+        unAdmit(s[0], s[2]);
+        if (s[3] != OPEN) unDischarge(s[0], s[1], s[2], s[3]);
+    }
+
+    // Archived stays are closed and never change, so they only go into the counters. A live row replaces
+    // whatever it counted on an earlier pass.
+    private static void row(boolean archived, long id, int admitDay, boolean admitNull, int dischargeDay, boolean dischargeNull, String bedNo, String disease) {
+        int[] s = admitNull ? new int[]{-1, -1, 0, OPEN} : new int[]{ward(bedNo), disease(disease), admitDay, dischargeNull ? OPEN : dischargeDay};
+        if (archived) { add(s); return; }
+        int[] old = live.put(id, s);
+        if (old != null) remove(old);
+        else liveIdSum += id;
+        add(s);
+    }
+
+    // ---------------------------------------------------------------- refresh
+
+    public static synchronized void refresh() throws SQLException {
+        try (Connection con = DBConnection.connect()) {
+            if (con == null) throw new SQLException("Database not reachable");
+            ensureSchema(con);
+            ResultSet rs = con.createStatement().executeQuery("SELECT CURRENT_TIMESTAMP");
+            rs.next();
+            Timestamp now = rs.getTimestamp(1);
+            if (!loaded) for (String t : Archiver.archives(con, "admissions")) stream(con, t, true, null); // archives only hold closed stays
+            stream(con, "admissions", false, loaded ? since : null);
+            if (loaded && !unchangedRows(con)) { reset(); refresh(); return; } // deleted or archived since the last pass
+            since = new Timestamp(now.getTime() - OVERLAP_MS);
+            loaded = true;
+        } catch (SQLException e) {
+            reset(); // a half-applied pass would be counted twice; rebuild next time
+            throw e;
+        }
+    }
+
+    private static void reset() {
+        since = null; liveIdSum = 0; loaded = false;
+        wardIdx.clear(); diseaseIdx.clear(); wardNames.clear(); diseaseNames.clear(); live.clear();
+        admits = new int[0][]; discharges = new int[0][]; delta = new int[0][]; losByDischargeDay = new long[0][];
+        diseaseDischarges = new int[16]; diseaseLos = new long[16];
+    }
+
+    // updated_at is kept by the database on every insert and update, whichever terminal or replay wrote the row
+    private static void ensureSchema(Connection con) throws SQLException {
+        if (schemaReady) return;
+        if (!con.getMetaData().getColumns(con.getCatalog(), null, "admissions", "updated_at").next()) {
+            con.createStatement().executeUpdate("ALTER TABLE admissions ADD COLUMN updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP");
+            con.createStatement().executeUpdate("CREATE INDEX idx_admissions_updated ON admissions (updated_at)");
+        }
+        schemaReady = true;
+    }
+
+    private static final String COLS = "id, TO_DAYS(admit_date) - " + TO_EPOCH_DAY + ", TO_DAYS(discharge_date) - " + TO_EPOCH_DAY + ", bed_no, disease";
+
+    // Every row of 'table', or only those written at or after 'after'
+    private static void stream(Connection con, String table, boolean archived, Timestamp after) throws SQLException {
+        String sql = "SELECT " + COLS + " FROM " + table + (after == null ? "" : " WHERE updated_at >= ?");
+        try (PreparedStatement pst = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            DBConnection.streamRows(pst);
+            if (after != null) pst.setTimestamp(1, after);
+            ResultSet rs = pst.executeQuery();
+            while (rs.next()) {
+                long id = rs.getLong(1);
+                int admitDay = rs.getInt(2); boolean admitNull = rs.wasNull();
+                int dischargeDay = rs.getInt(3); boolean dischargeNull = rs.wasNull();
+                row(archived, id, admitDay, admitNull, dischargeDay, dischargeNull, rs.getString(4), rs.getString(5));
+            }
+        }
+    }
+
+    // Same rows as the ones counted: a delete (or an insert that committed too late for the overlap) changes
+    // the count or the id sum
+    private static boolean unchangedRows(Connection con) throws SQLException {
+        ResultSet rs = con.createStatement().executeQuery("SELECT COUNT(*), COALESCE(SUM(id), 0) FROM admissions");
+        rs.next();
+        return rs.getLong(1) == live.size() && rs.getLong(2) == liveIdSum;
+    }
+
+    // ---------------------------------------------------------------- reports
+
+    // {Ward, Beds, In Now, Occupancy %, Admissions, Discharges, Avg LOS (days), Turnover (discharges per bed)} over the last 'period' days
+    public static synchronized List<Object[]> wardReport(int period) {
+        Map<String, Integer> beds = new HashMap<>();
+        for (BedRegistry.Ward w : BedRegistry.wards()) beds.put(w.name, w.beds);
+        int today = day((int) LocalDate.now().toEpochDay()), from = Math.max(0, today - period + 1);
+        List<Object[]> rows = new ArrayList<>();
+        int[] openPerWard = new int[wardNames.size()];
+        for (int[] s : live.values()) if (s[0] >= 0 && s[3] == OPEN) openPerWard[s[0]]++;
+        for (int w = 0; w < wardNames.size(); w++) {
+            long a = 0, d = 0, los = 0;
+            for (int i = from; i <= today && i < days; i++) { a += admits[w][i]; d += discharges[w][i]; los += losByDischargeDay[w][i]; }
+            int b = beds.getOrDefault(wardNames.get(w), 0);
+            rows.add(new Object[]{wardNames.get(w), b, openPerWard[w], b == 0 ? "-" : String.format("%.0f%%", 100.0 * openPerWard[w] / b), a, d,
+                    d == 0 ? "-" : String.format("%.1f", (double) los / d), b == 0 ? "-" : String.format("%.2f", (double) d / b)});
+        }
+        rows.sort((x, y) -> x[0].toString().compareTo(y[0].toString()));
+        return rows;
+    }
+
+    // {Disease, Discharges, Avg LOS (days), In Now} over all history, most discharges first
+    public static synchronized List<Object[]> losByDisease() {
+        int[] openPer = new int[diseaseNames.size()];
+        for (int[] s : live.values()) if (s[0] >= 0 && s[3] == OPEN) openPer[s[1]]++;
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < diseaseNames.size(); i++) {
+            if (diseaseDischarges[i] == 0 && openPer[i] == 0) continue;
+            rows.add(new Object[]{diseaseNames.get(i), diseaseDischarges[i], diseaseDischarges[i] == 0 ? "-" : String.format("%.1f", (double) diseaseLos[i] / diseaseDischarges[i]), openPer[i]});
+        }
+        rows.sort((x, y) -> Integer.compare((Integer) y[1], (Integer) x[1]));
+        return rows;
+    }
+
+    // {Date, Census (in at end of day), Admissions, Discharges} for the last 'period' days, newest first
+    public static synchronized List<Object[]> dailyCensus(int period) {
+        int today = day((int) LocalDate.now().toEpochDay()), from = Math.max(0, today - period + 1);
+        long census = 0;
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i <= today && i < days; i++) {
+            long a = 0, d = 0;
+            for (int w = 0; w < wardNames.size(); w++) { census += delta[w][i]; a += admits[w][i]; d += discharges[w][i]; }
+            if (i >= from) rows.add(new Object[]{LocalDate.ofEpochDay(base + i).toString(), census, a, d});
+        }
+        Collections.reverse(rows);
+        return rows;
+    }
+
+    // ---------------------------------------------------------------- tab
+
+    public static JPanel createPanel() {
+        JPanel p = new JPanel(new BorderLayout(10, 10)); p.setOpaque(false);
+        p.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        DefaultTableModel wm = new DefaultTableModel(new String[]{"Ward", "Beds", "In Now", "Occupancy", "Admissions", "Discharges", "Avg LOS (days)", "Turnover"}, 0);
+        DefaultTableModel lm = new DefaultTableModel(new String[]{"Disease", "Discharges", "Avg LOS (days)", "In Now"}, 0);
+        DefaultTableModel cm = new DefaultTableModel(new String[]{"Date", "Census", "Admissions", "Discharges"}, 0);
+        JTable wt = new JTable(wm), lt = new JTable(lm), ct = new JTable(cm);
+        UIUtils.styleTable(wt); UIUtils.styleTable(lt); UIUtils.styleTable(ct);
+        lt.setAutoCreateRowSorter(true);
+
+        JPanel wp = new JPanel(new BorderLayout()); wp.setBorder(BorderFactory.createTitledBorder("Wards")); wp.add(new JScrollPane(wt));
+        JPanel lp = new JPanel(new BorderLayout()); lp.setBorder(BorderFactory.createTitledBorder("Length of Stay by Disease (all history)")); lp.add(new JScrollPane(lt));
+        JPanel cp = new JPanel(new BorderLayout()); cp.setBorder(BorderFactory.createTitledBorder("Daily Census")); cp.add(new JScrollPane(ct));
+        JPanel bottom = new JPanel(new GridLayout(1, 2, 10, 10)); bottom.setOpaque(false); bottom.add(lp); bottom.add(cp);
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT, wp, bottom); split.setResizeWeight(0.4); split.setOpaque(false);
+        p.add(split, BorderLayout.CENTER);
+
+        JComboBox<String> cPeriod = new JComboBox<>(new String[]{"Last 7 days", "Last 30 days", "Last 90 days", "Last 365 days"}); cPeriod.setSelectedIndex(1);
+        JButton bRef = new JButton("Refresh"); UIUtils.styleButton(bRef, UIUtils.COLOR_TEAL);
+        JLabel lInfo = new JLabel(" "); lInfo.setFont(UIUtils.FONT_GENERAL);
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT, 15, 5)); top.setOpaque(false);
+        top.add(new JLabel("Period:")); top.add(cPeriod); top.add(bRef); top.add(lInfo);
+        p.add(top, BorderLayout.NORTH);
+
+        Runnable show = () -> {
+            int period = new int[]{7, 30, 90, 365}[cPeriod.getSelectedIndex()];
+            wm.setRowCount(0); for (Object[] r : wardReport(period)) wm.addRow(r);
+            lm.setRowCount(0); for (Object[] r : losByDisease()) lm.addRow(r);
+            cm.setRowCount(0); for (Object[] r : dailyCensus(period)) cm.addRow(r);
+        };
+        bRef.addActionListener(e -> {
+            bRef.setEnabled(false); bRef.setText("Refreshing...");
+            new Thread(() -> {
+                long t0 = System.nanoTime();
+                String info;
+                try { refresh(); info = String.format("Updated %s (%.1f s)", new java.text.SimpleDateFormat("HH:mm:ss").format(new java.util.Date()), (System.nanoTime() - t0) / 1e9); }
+                catch (SQLException ex) { ex.printStackTrace(); info = "Refresh failed: " + ex.getMessage(); }
+                String msg = info;
+                SwingUtilities.invokeLater(() -> { show.run(); lInfo.setText(msg); bRef.setText("Refresh"); bRef.setEnabled(true); });
+            }).start();
+        });
+        cPeriod.addActionListener(e -> show.run());
+        bRef.doClick();
+        return p;
+    }
+
+    //   java -cp "lib/*:out" com.mycompany.hospitalmanagementsystem.WardCensus [days]
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        int period = args.length > 0 ? Integer.parseInt(args[0]) : 30;
+        long t0 = System.nanoTime();
+        refresh();
+        System.out.printf("Census built in %.2f s (%d live admissions)%n", (System.nanoTime() - t0) / 1e9, live.size());
+        for (Object[] r : wardReport(period)) System.out.println(Arrays.toString(r));
+        for (Object[] r : losByDisease()) System.out.println(Arrays.toString(r));
+    }
+}
@@ -0,0 +1,65 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.sql.Connection;
+import javax.swing.*;
+
+// Uses the time the user spends typing on the login screen: opens DB connections, decodes and pre-scales the backgrounds, loads reference data and touches the Swing/FlatLaf
+// delegates the dashboards use. Also times click-to-usable-dashboard.
+public class Warmup {
+
+    private static final String[] BACKGROUNDS = {"login_bg.jpg", "hms.jpg", "staff_bg.jpg"};
+    private static final int WARM_CONNECTIONS = 3;
+
+    private static volatile long clickNanos = 0;
+    private static volatile long lastStartupMillis = -1;
+
+    public static void start() {
+        Dimension screen = GraphicsEnvironment.isHeadless() ? new Dimension(0, 0) : Toolkit.getDefaultToolkit().getScreenSize();
+        Thread t = new Thread(() -> {
+            for (String img : BACKGROUNDS) ImageCache.get(img);
+            ImageCache.scaled("login_bg.jpg", screen.width, screen.height); // login frame is maximized
+            try {
+                Connection con = DBConnection.connect();
+                if (con != null) {
+                    ReferenceData.load(con);
+                    DBConnection.release(con);
+                }
+                DBConnection.warm(WARM_CONNECTIONS);
+            } catch (Exception e) { System.err.println("Warm-up skipped: " + e.getMessage()); }
+        }, "login-warmup");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        t.start();
+
+        // UI delegates must be created on the EDT; do it once the login screen has painted
+        SwingUtilities.invokeLater(() -> {
+            JTabbedPane tabs = new JTabbedPane();
+            JTable table = new JTable(new Object[][]{{"x"}}, new Object[]{"x"});
+            UIUtils.styleTable(table);
+            tabs.addTab("x", new JScrollPane(table));
+            tabs.getPreferredSize();
+            table.getTableHeader().getPreferredSize();
+            new JComboBox<>(new String[]{"x"}).getPreferredSize();
+        });
+    }
+
+    public static void markClick() { clickNanos = System.nanoTime(); }
+
+    // Logs click-to-usable once the dashboard window has opened and its first paint has been processed
+    public static void trackUsable(JFrame frame, String name) {
+        frame.addWindowListener(new WindowAdapter() {
+            @Override public void windowOpened(WindowEvent e) {
+                SwingUtilities.invokeLater(() -> {
+                    if (clickNanos == 0) return;
+                    lastStartupMillis = (System.nanoTime() - clickNanos) / 1_000_000;
+                    clickNanos = 0;
+                });
+            }
+        });
+    }
+
+    public static long lastStartupMillis() { return lastStartupMillis; }
+}
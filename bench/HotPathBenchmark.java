@@ -0,0 +1,195 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import java.sql.*;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import javax.swing.RowFilter;
+import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableRowSorter;
+import org.openjdk.jmh.annotations.*;
+
+// JMH benchmarks for the hot paths of the desks:
+//   mvn -Pbench package
+//   java -Djava.awt.headless=true -jar target/benchmarks.jar HotPathBenchmark -rf json -rff hotpath-bench.json
+// SampleTime mode times individual calls, so the report (and the JSON) carries p50 / p90 / p99 / p99.9 per
+// benchmark. Database paths run the real queries against an embedded H2 database in MySQL mode, so the
+// numbers include the JDBC driver and the query but not the network.
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@org.openjdk.jmh.annotations.Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class HotPathBenchmark {
+
+    private static final String[] FIRST = {"Ram", "Sita", "Hari", "Gita", "Bishnu", "Kamala", "Sunil", "Anita", "Prakash", "Sarita"};
+    private static final String[] LAST = {"Sharma", "Thapa", "Gurung", "Karki", "Shrestha", "Adhikari", "Rai", "Tamang", "Poudel", "Khadka"};
+
+    // Romanisation variants on purpose, as they come in from the desks
+    private static final String[] NEPALI_FIRST = {"Ram", "Sita", "Hari", "Gita", "Bishnu", "Vishnu", "Laxmi", "Lakshmi", "Krishna", "Krisna", "Deepak", "Dipak",
+            "Sunita", "Suneeta", "Prakash", "Parkash", "Kamala", "Bimala", "Shyam", "Syam", "Hari Prasad", "Maya", "Nirmala", "Rajendra", "Sarita", "Anita"};
+    private static final String[] NEPALI_LAST = {"Sharma", "Sarma", "Thapa", "Gurung", "Karki", "Shrestha", "Shreshta", "Adhikari", "Adhikary", "Rai", "Tamang",
+            "Poudel", "Paudel", "Khadka", "Chhetri", "Kshetri", "Bhattarai", "Bhatarai", "Magar", "Basnet", "Basnyat", "Koirala", "Maharjan", "Dahal"};
+
+    private static String name(Random r) { return FIRST[r.nextInt(FIRST.length)] + " " + LAST[r.nextInt(LAST.length)]; }
+
+    // ---------------------------------------------------------------- states
+
+    // Embedded database with 100k patients and 5k appointments (with slots); DBConnection hands out its connections
+    @State(Scope.Benchmark)
+    public static class Db {
+        static final int PATIENTS = 100_000, APPOINTMENTS = 5_000;
+        Connection con;
+        final DefaultTableModel apptModel = new DefaultTableModel(new String[]{"ID", "PID", "Patient Name", "Doctor", "Date", "Status"}, 0);
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            String url = "jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+            DBConnection.useFactory(() -> DriverManager.getConnection(url));
+            con = DriverManager.getConnection(url);
+            Statement st = con.createStatement();
+            st.executeUpdate("CREATE TABLE patients (patient_code BIGINT PRIMARY KEY, name VARCHAR(100), address VARCHAR(200), phone VARCHAR(20), "
+                    + "national_id VARCHAR(40), age INT, sex VARCHAR(10), email VARCHAR(100))");
+            st.executeUpdate("CREATE TABLE appointments (id INT AUTO_INCREMENT PRIMARY KEY, patient_code BIGINT, patient_name VARCHAR(100), "
+                    + "doctor_name VARCHAR(100), appt_date DATE, status VARCHAR(20))");
+            Random r = new Random(5);
+            PreparedStatement p = con.prepareStatement("INSERT INTO patients VALUES (?,?,?,?,?,?,?,?)");
+            for (int i = 0; i < PATIENTS; i++) {
+                p.setLong(1, 100000 + i); p.setString(2, name(r)); p.setString(3, "Ward " + (i % 32) + ", Kathmandu");
+                p.setString(4, "98" + (10000000 + r.nextInt(89999999))); p.setString(5, "NID" + i); p.setInt(6, 1 + r.nextInt(90));
+                p.setString(7, i % 2 == 0 ? "M" : "F"); p.setString(8, "p" + i + "@mail.com");
+                p.addBatch();
+                if (i % 1000 == 999) p.executeBatch();
+            }
+            SlotScheduler.load(); // creates appointment_slots
+            String[] status = {"Pending", "Advised"}; // the statuses the desks write; a cancel deletes the row
+            PreparedStatement a = con.prepareStatement("INSERT INTO appointments (id, patient_code, patient_name, doctor_name, appt_date, status) VALUES (?,?,?,?,?,?)");
+            PreparedStatement s = con.prepareStatement("INSERT INTO appointment_slots (doctor_name, appt_date, slot, appointment_id) VALUES (?,?,?,?)");
+            for (int i = 1; i <= APPOINTMENTS; i++) {
+                String doctor = "Dr. " + LAST[r.nextInt(LAST.length)];
+                Date day = Date.valueOf(LocalDate.of(2024, 1, 1).plusDays(r.nextInt(365)));
+                a.setInt(1, i); a.setLong(2, 100000 + r.nextInt(PATIENTS)); a.setString(3, name(r)); a.setString(4, doctor);
+                a.setDate(5, day); a.setString(6, status[r.nextInt(status.length)]);
+                a.addBatch();
+                if (i % 4 != 0) { s.setString(1, doctor); s.setDate(2, day); s.setInt(3, i % SlotScheduler.SLOTS_PER_DAY); s.setInt(4, i); s.addBatch(); }
+            }
+            a.executeBatch();
+            try { s.executeBatch(); } catch (BatchUpdateException dup) { /* a few (doctor, day, slot) collisions are fine */ }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws SQLException { con.createStatement().execute("SHUTDOWN"); }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Search {
+        final DefaultTableModel model = new DefaultTableModel(new String[]{"Patient Code", "Name", "Phone", "Age", "Sex", "Nat ID", "Address", "Email"}, 0);
+        TableRowSorter<DefaultTableModel> sorter;
+        final String[] terms = {"sha", "thapa", "9841", "Kathmandu", "p123"};
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Random r = new Random(7);
+            for (int i = 0; i < 50_000; i++) model.addRow(new Object[]{String.valueOf(100000 + i), name(r), "98" + (10000000 + r.nextInt(89999999)), String.valueOf(1 + r.nextInt(90)),
+                    i % 2 == 0 ? "M" : "F", "NID" + i, "Ward " + (i % 32) + ", Kathmandu", "p" + i + "@mail.com"});
+            sorter = new TableRowSorter<>(model);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Invoice {
+        final DefaultTableModel items = new DefaultTableModel(new String[]{"Item", "Qty", "Rate", "Total"}, 0);
+        final java.util.Date now = new java.util.Date();
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            for (int i = 0; i < 12; i++) items.addRow(new Object[]{"Service " + i, String.valueOf(1 + i % 3), "500.0", String.valueOf(500.0 * (1 + i % 3))});
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Names {
+        final String[] queries = {"laxmi shreshta", "Lakshmi Shrestha", "bishnu paudel", "krishna", "sita adhikary", "gur", "hari prasad khadka"};
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Random r = new Random(13);
+            for (int i = 0; i < 500_000; i++) NameIndex.put(100000 + i, NEPALI_FIRST[r.nextInt(NEPALI_FIRST.length)] + " " + NEPALI_LAST[r.nextInt(NEPALI_LAST.length)]);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Medicines {
+        final String[] queries = {"am", "amox", "azithromycin 1", "pa", "paracetamol 2", "ce", "cetirizine 5", "te", "me", "metro"};
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Random r = new Random(17);
+            String[] stems = {"Amoxi", "Azithro", "Cefi", "Cipro", "Para", "Ibu", "Metro", "Panto", "Omepra", "Cetiri", "Losar", "Telmi", "Atorva", "Glime", "Metfor", "Predni"};
+            String[] ends = {"cillin", "mycin", "xime", "floxacin", "cetamol", "profen", "nidazole", "prazole", "zine", "tan", "statin", "piride", "min", "solone"};
+            List<MedicineCatalog.Medicine> meds = new ArrayList<>();
+            for (int i = 0; i < 50_000; i++) meds.add(new MedicineCatalog.Medicine(i, stems[i % stems.length] + ends[(i / stems.length) % ends.length] + " " + (i / (stems.length * ends.length) + 1) * 5 + "mg",
+                    "Tablet", "1-0-1", "5 days", r.nextInt(1000)));
+            MedicineCatalog.install(meds);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Codes {
+        final Random r = new Random(11);
+        String next() { return String.valueOf(100000 + r.nextInt(Db.PATIENTS)); }
+    }
+
+    // ---------------------------------------------------------------- benchmarks
+
+    // loadApptTable: query rows -> model
+    @Benchmark
+    public Object apptTablePopulate(Db db) throws SQLException {
+        List<Object[]> rows = StaffDashboard.queryAppts(db.con);
+        db.apptModel.setRowCount(0);
+        for (Object[] row : rows) db.apptModel.addRow(row);
+        return db.apptModel;
+    }
+
+    // Find buttons: one patient by code
+    @Benchmark
+    public Object patientLookup(Db db, Codes codes) throws SQLException {
+        return StaffDashboard.findPatient(db.con, codes.next());
+    }
+
+    // addSearch: one keystroke in a search box over 50k rows, with the spelling-tolerant name column
+    @Benchmark
+    public int searchFilter(Search s) {
+        RowFilter<DefaultTableModel, Integer> f = UIUtils.searchFilter(s.terms[s.next++ % s.terms.length], 1);
+        s.sorter.setRowFilter(f);
+        return s.sorter.getViewRowCount();
+    }
+
+    // finalizeBill: invoice slip text
+    @Benchmark
+    public String invoiceRender(Invoice inv) {
+        return StaffDashboard.invoiceText("100045", inv.now, "Ram Sharma", "100123", "9841000000", inv.items, 12000, "10", "10800.00").toString();
+    }
+
+    // Login screen captcha (190x45)
+    @Benchmark
+    public Object captcha() {
+        return UIUtils.generateCaptchaImage();
+    }
+
+    // Find by Name picker over 500k names
+    @Benchmark
+    public Object nameSearch(Names n) {
+        return NameIndex.search(n.queries[n.next++ % n.queries.length], 30);
+    }
+
+    // Rx autocomplete, per keystroke, over 50k medicines
+    @Benchmark
+    public Object medicineSuggest(Medicines m) {
+        return MedicineCatalog.suggest("Dr. Bench", m.queries[m.next++ % m.queries.length], 8);
+    }
+}
@@ -0,0 +1,89 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ArchiverTest {
+
+    private static final int OLD = LocalDate.now().getYear() - 3;
+
+    private static long count(Statement st, String sql) throws SQLException {
+        ResultSet rs = st.executeQuery(sql);
+        rs.next();
+        return rs.getLong(1);
+    }
+
+    private static void admit(Statement st, int id, String disease, String discharged) throws SQLException {
+        st.executeUpdate("INSERT INTO admissions (id, patient_code, patient_name, bed_no, disease, status, admit_date, discharge_date) VALUES ("
+                + id + ", 100000, 'Ram Thapa', 'General-1', '" + disease + "', 'Discharged', DATE '" + discharged + "', DATE '" + discharged + "')");
+    }
+
+    @Test
+    void movesOldRowsIntoAnArchiveWithFewerColumns() throws Exception {
+        try (Connection con = TestDb.install(); Statement st = con.createStatement()) {
+            // archive made before 'disease' was added to admissions
+            st.executeUpdate("CREATE TABLE admissions_archive_" + OLD + " (id INT PRIMARY KEY, patient_code BIGINT, patient_name VARCHAR(100), "
+                    + "bed_no VARCHAR(40), status VARCHAR(20), admit_date DATE, discharge_date DATE)");
+            admit(st, 1, "Typhoid", OLD + "-03-01");
+            admit(st, 2, "Dengue", OLD + "-08-15");
+            admit(st, 3, "Fracture", LocalDate.now().toString());
+
+            assertEquals(2, Archiver.archive(con, "admissions"));
+
+            assertEquals(1, count(st, "SELECT COUNT(*) FROM admissions"));
+            assertEquals(2, count(st, "SELECT COUNT(*) FROM admissions_archive_" + OLD));
+            ResultSet rs = st.executeQuery("SELECT disease FROM admissions_archive_" + OLD + " WHERE id=2");
+            assertTrue(rs.next());
+            assertEquals("Dengue", rs.getString(1), "column added to the archive and copied");
+        }
+    }
+
+    @Test
+    void nothingIsDeletedWhenTheCopyFails() throws Exception {
+        try (Connection con = TestDb.install(); Statement st = con.createStatement()) {
+            st.executeUpdate("CREATE TABLE admissions_archive_" + OLD + " (id INT PRIMARY KEY, patient_code BIGINT, patient_name VARCHAR(100), "
+                    + "bed_no VARCHAR(40), disease VARCHAR(200), status VARCHAR(20), admit_date DATE, discharge_date DATE)");
+            st.executeUpdate("INSERT INTO admissions_archive_" + OLD + " (id, patient_name) VALUES (1, 'someone else')");
+            admit(st, 1, "Typhoid", OLD + "-03-01");
+
+            assertThrows(SQLIntegrityConstraintViolationException.class, () -> Archiver.archive(con, "admissions"));
+
+            assertEquals(1, count(st, "SELECT COUNT(*) FROM admissions"), "live row kept");
+            assertEquals(1, count(st, "SELECT COUNT(*) FROM admissions_archive_" + OLD + " WHERE patient_name='someone else'"));
+        }
+    }
+
+    @Test
+    void dateRangeExportIncludesArchivedRows() throws Exception {
+        try (Connection con = TestDb.install(); Statement st = con.createStatement()) {
+            st.executeUpdate("CREATE TABLE admissions_archive_" + OLD + " (id INT PRIMARY KEY, patient_code BIGINT, patient_name VARCHAR(100), "
+                    + "bed_no VARCHAR(40), disease VARCHAR(200), status VARCHAR(20), admit_date DATE, discharge_date DATE)"); // H2 has no CREATE TABLE ... LIKE
+            admit(st, 1, "Typhoid", OLD + "-03-01");
+            admit(st, 2, "Dengue", LocalDate.now().toString());
+            Archiver.archive(con, "admissions");
+            // a live column the archive table does not have yet
+            st.executeUpdate("ALTER TABLE admissions ADD COLUMN ward_note VARCHAR(40)");
+
+            Path out = Files.createTempFile("admissions", ".csv");
+            try {
+                assertEquals(2, TableExporter.export("admissions", out, false, false, LocalDate.of(OLD, 1, 1), LocalDate.now(), null));
+                List<String> lines = Files.readAllLines(out);
+                assertTrue(lines.get(0).endsWith(",ward_note"), lines.get(0));
+                assertTrue(lines.get(1).contains("Typhoid"), "archived year first");
+                assertEquals(1, TableExporter.export("admissions", out, false, false, LocalDate.now(), null, null), "range outside the archive");
+            } finally {
+                Files.delete(out);
+            }
+        }
+    }
+}
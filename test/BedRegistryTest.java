@@ -0,0 +1,72 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class BedRegistryTest {
+
+    @Test
+    void bedsOutsideTheWardAreSkippedOnLoad() throws Exception {
+        try (Connection con = TestDb.install(); Statement st = con.createStatement()) {
+            st.executeUpdate("CREATE TABLE wards (name VARCHAR(40) PRIMARY KEY, bed_count INT NOT NULL)");
+            st.executeUpdate("INSERT INTO wards VALUES ('ICU', 8), ('General', 30)");
+            st.executeUpdate("CREATE TABLE bed_occupancy (ward VARCHAR(40) NOT NULL, bed INT NOT NULL, admission_id INT NOT NULL, PRIMARY KEY (ward, bed))");
+            st.executeUpdate("INSERT INTO bed_occupancy VALUES ('ICU', 12, 1), ('General', 0, 2), ('ICU', 3, 3), ('Gone', 1, 4)");
+
+            BedRegistry.reload();
+
+            BedRegistry.Ward icu = BedRegistry.ward("ICU");
+            assertNotNull(icu, "ward list loaded despite the bad rows");
+            assertFalse(BedRegistry.isFree(icu, 3));
+            assertEquals(7, BedRegistry.freeCount(icu));
+            assertEquals(30, BedRegistry.freeCount(BedRegistry.ward("General")));
+            assertEquals(Set.of("ICU-12 (outside 1..8)", "General-0 (outside 1..30)"), new HashSet<>(BedRegistry.ignoredBeds()));
+        }
+    }
+
+    @Test
+    void admissionWhoseCommitFailsGivesTheBedBack() throws Exception {
+        try (Connection con = TestDb.install(); Statement st = con.createStatement()) {
+            st.executeUpdate("CREATE TABLE wards (name VARCHAR(40) PRIMARY KEY, bed_count INT NOT NULL)");
+            st.executeUpdate("INSERT INTO wards VALUES ('ICU', 8)");
+            BedRegistry.reload();
+            BedRegistry.Ward icu = BedRegistry.ward("ICU");
+            Connection failing = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, (p, m, a) -> {
+                if (m.getName().equals("commit")) throw new SQLException("connection lost");
+                try { return m.invoke(con, a); } catch (InvocationTargetException e) { throw e.getCause(); }
+            });
+
+            assertThrows(SQLException.class, () -> StaffDashboard.admitPatient(failing, 1, "Ram Thapa", icu, 4, "fever", null));
+            assertTrue(BedRegistry.isFree(icu, 4));
+            con.setAutoCommit(true);
+            ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM bed_occupancy");
+            rs.next();
+            assertEquals(0, rs.getInt(1), "claim rolled back");
+        }
+    }
+
+    @Test
+    void claimRejectsBedsOutsideTheWard() throws Exception {
+        try (Connection con = TestDb.install(); Statement st = con.createStatement()) {
+            st.executeUpdate("CREATE TABLE wards (name VARCHAR(40) PRIMARY KEY, bed_count INT NOT NULL)");
+            st.executeUpdate("INSERT INTO wards VALUES ('ICU', 8)");
+            st.executeUpdate("CREATE TABLE bed_occupancy (ward VARCHAR(40) NOT NULL, bed INT NOT NULL, admission_id INT NOT NULL, PRIMARY KEY (ward, bed))");
+            BedRegistry.reload();
+            BedRegistry.Ward icu = BedRegistry.ward("ICU");
+
+            assertFalse(BedRegistry.claim(con, icu, 0, 10));
+            assertFalse(BedRegistry.claim(con, icu, 9, 11));
+            assertTrue(BedRegistry.claim(con, icu, 8, 12));
+            assertFalse(BedRegistry.claim(con, icu, 8, 13), "second claim of the same bed");
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class IdAllocatorTest {
+
+    private static long[] sequence(Statement st, String name) throws Exception {
+        ResultSet rs = st.executeQuery("SELECT next_val, stride FROM id_sequences WHERE name='" + name + "'");
+        assertTrue(rs.next());
+        return new long[]{rs.getLong(1), rs.getLong(2)};
+    }
+
+    @Test
+    void changingTheStrideKeepsNewIdsAboveEveryIdHandedOut() throws Exception {
+        try (Connection con = TestDb.install(); Statement st = con.createStatement()) {
+            // table from before sharding: next_val is an id
+            st.executeUpdate("CREATE TABLE id_sequences (name VARCHAR(40) PRIMARY KEY, next_val BIGINT NOT NULL)");
+            st.executeUpdate("INSERT INTO id_sequences VALUES ('patient_code', 100500)");
+            IdAllocator.ensureTable(con);
+            assertArrayEquals(new long[]{100500, 1}, sequence(st, "patient_code"));
+
+            assertEquals(1, IdAllocator.restride(con, "patient_code", 16));
+            long[] seq = sequence(st, "patient_code");
+            assertEquals(16, seq[1]);
+            assertTrue(seq[0] * 16 > 100499, "branch 0's next id is above the last one handed out");
+            assertTrue(seq[0] * 16 < 100500 + 16, "and does not jump by the stride: " + seq[0] * 16);
+            assertEquals(0, IdAllocator.restride(con, "patient_code", 16), "migrated once");
+
+            // wider stride later: slot 6282 on stride 16 may have handed out up to 6282 * 16 - 1
+            long before = seq[0] * 16 - 1;
+            IdAllocator.restride(con, "patient_code", 32);
+            seq = sequence(st, "patient_code");
+            assertTrue(seq[0] * 32 > before);
+            assertTrue(seq[0] * 32 <= before + 32);
+        }
+    }
+
+    @Test
+    void reservedBlocksSkipCodesAlreadyInUse() throws Exception {
+        try (Connection con = TestDb.install(); Statement st = con.createStatement()) {
+            st.executeUpdate("INSERT INTO patients (patient_code, name) VALUES (100002, 'legacy'), (100005, 'legacy')");
+            IdAllocator codes = new IdAllocator("test_codes", "SELECT 100000", "SELECT patient_code FROM patients WHERE patient_code BETWEEN ? AND ?", 10);
+            long[] got = codes.reserveRange(10);
+            assertEquals(10, got.length);
+            assertTrue(Arrays.stream(got).noneMatch(c -> c == 100002 || c == 100005), Arrays.toString(got));
+            assertEquals(10, Arrays.stream(got).distinct().count());
+            assertTrue(Arrays.stream(got).allMatch(c -> c >= 100000 && c < 1000000));
+        }
+    }
+
+    @Test
+    void aBlockLeftShortByTakenCodesFetchesTheNextOneAhead() throws Exception {
+        try (Connection con = TestDb.install(); Statement st = con.createStatement()) {
+            for (int c = 100000; c < 100009; c++) st.executeUpdate("INSERT INTO patients (patient_code, name) VALUES (" + c + ", 'legacy')");
+            IdAllocator codes = new IdAllocator("short_codes", "SELECT 100000", "SELECT patient_code FROM patients WHERE patient_code BETWEEN ? AND ?", 10);
+            assertEquals(100009, codes.next(), "one code left in the first block, below the low-water mark of 2");
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!codes.hasStandby() && System.currentTimeMillis() < deadline) Thread.sleep(20);
+            assertEquals(100020, sequence(st, "short_codes")[0], "second block reserved in the background");
+            assertEquals(100010, codes.next());
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class LoadSimulatorTest {
+
+    // Separate JVM: the stub installs itself as DBConnection's source and the lazy schema flags would carry
+    // its fake schema into the other tests
+    @Test
+    void stubRunHasNoFailedOperations() throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process p = new ProcessBuilder(java, "-Djava.awt.headless=true", "-cp", System.getProperty("java.class.path"),
+                LoadSimulator.class.getName(), "--stub", "--stub-latency", "1", "--terminals", "6", "--duration", "2", "--think", "20")
+                .redirectErrorStream(true).start();
+        String out = new String(p.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(p.waitFor(60, TimeUnit.SECONDS), out);
+        assertEquals(0, p.exitValue(), out);
+        assertTrue(out.matches("(?s).*\\nprescribe\\s+[1-9].*"), "prescriptions ran against booked appointments:\n" + out);
+    }
+}
@@ -0,0 +1,86 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+// One database for the class: LocalStore creates sync_log once per process
+class LocalStoreTest {
+
+    private static Connection con;
+
+    @BeforeAll
+    static void setUp() throws SQLException {
+        con = TestDb.install();
+        LocalStore.open();
+        LocalStore.drain(con); // anything a previous run left in the journal
+        LocalStore.takeConflicts();
+    }
+
+    @AfterAll
+    static void tearDown() throws SQLException { con.close(); }
+
+    private static long count(String sql) throws SQLException {
+        try (Statement st = con.createStatement()) {
+            ResultSet rs = st.executeQuery(sql);
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    @Test
+    void replayingAnEntryTwiceWritesItOnce() throws Exception {
+        List<String> entry = Arrays.asList("7001", "patient", "100501", "Hari Gurung", "Lalitpur", "9800000001", "", "41", "Male", "");
+
+        LocalStore.apply(con, entry);
+        LocalStore.apply(con, entry);
+
+        assertEquals(1, count("SELECT COUNT(*) FROM patients WHERE patient_code=100501"));
+        assertEquals(1, count("SELECT COUNT(*) FROM sync_log WHERE seq=7001"));
+    }
+
+    @Test
+    void queuedRegistrationThatAlreadyReachedTheDatabaseIsDropped() throws Exception {
+        // the online insert committed, then the connection dropped before the desk heard back
+        StaffDashboard.insertPatient(con, 100502, "Sita Karki", "Pokhara", "9800000002", "", 30, "Female", "");
+        LocalStore.queue("patient", "100502", "Sita Karki", "Pokhara", "9800000002", "", "30", "Female", "");
+        assertEquals(1, LocalStore.pending());
+
+        LocalStore.drain(con);
+
+        assertEquals(0, LocalStore.pending());
+        assertEquals(1, count("SELECT COUNT(*) FROM patients WHERE name='Sita Karki'"), "no second copy under a new code");
+        assertEquals(1, count("SELECT COUNT(*) FROM sync_log WHERE result=100502"));
+        assertTrue(LocalStore.takeConflicts().isEmpty());
+    }
+
+    @Test
+    void queuedBookingIntoAFullDayIsLoggedAsNotBooked() throws Exception {
+        LocalDate day = LocalDate.now().plusDays(5);
+        SlotScheduler.reload();
+        try (PreparedStatement pst = con.prepareStatement("INSERT INTO appointment_slots (doctor_name, appt_date, slot, appointment_id) VALUES (?,?,?,?)")) {
+            for (int slot = 0; slot < SlotScheduler.SLOTS_PER_DAY; slot++) {
+                pst.setString(1, "Dr. Full"); pst.setDate(2, Date.valueOf(day)); pst.setInt(3, slot); pst.setInt(4, 5000 + slot);
+                pst.executeUpdate();
+            }
+        }
+        LocalStore.apply(con, Arrays.asList("7003", "appt", "100501", "Hari Gurung", "Dr. Full", day.toString(), "4"));
+
+        assertEquals(1, count("SELECT COUNT(*) FROM sync_log WHERE seq=7003 AND result=-1"));
+        assertEquals(0, count("SELECT COUNT(*) FROM appointments WHERE doctor_name='Dr. Full'"));
+        List<String> conflicts = LocalStore.takeConflicts();
+        assertEquals(1, conflicts.size(), conflicts.toString());
+        assertTrue(conflicts.get(0).endsWith("no free slot left"), conflicts.get(0));
+    }
+}
@@ -0,0 +1,31 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class MedicineCatalogTest {
+
+    @Test
+    void parsesNumberedLinesIntoItems() {
+        List<String[]> items = MedicineCatalog.parse("1. Amoxicillin 500mg - 1-0-1 - 5 days\n  2) Paracetamol 500mg - SOS\nDrink plenty of water\n");
+        assertEquals(2, items.size());
+        assertArrayEquals(new String[]{"1", "Amoxicillin 500mg", "1-0-1", "5 days"}, items.get(0));
+        assertArrayEquals(new String[]{"2", "Paracetamol 500mg", "SOS", ""}, items.get(1));
+    }
+
+    @Test
+    void numberWithoutAMedicineIsNotAnItem() {
+        List<String[]> items = MedicineCatalog.parse("1. Cetirizine 10mg - 0-0-1 - 3 days\n2. \n3.\n4)   \t\n");
+        assertEquals(1, items.size());
+        assertEquals("Cetirizine 10mg", items.get(0)[1]);
+    }
+
+    @Test
+    void windowsLineEndingsAreTrimmed() {
+        List<String[]> items = MedicineCatalog.parse("1. Metformin 500mg - 1-0-1 - 30 days\r\n2. \r\n");
+        assertEquals(1, items.size());
+        assertEquals("30 days", items.get(0)[3]);
+    }
+}
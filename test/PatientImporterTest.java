@@ -0,0 +1,43 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PatientImporterTest {
+
+    @TempDir Path dir;
+
+    @Test
+    void resumeIsRefusedWhenTheBatchSizeOrTheFileChanged() throws Exception {
+        Path csv = dir.resolve("patients.csv");
+        Files.write(csv, List.of("name,phone,age", "Ram Thapa,9800000001,40", "Sita Rai,9800000002,35"), StandardCharsets.UTF_8);
+        String print = PatientImporter.fingerprint(csv, Files.readAllLines(csv));
+        try (Connection con = TestDb.install(); Statement st = con.createStatement()) {
+            // table from before the fingerprint was kept, with a batch done by that version
+            st.executeUpdate("CREATE TABLE patient_import_batches (source VARCHAR(255) NOT NULL, batch INT NOT NULL, rows_imported INT NOT NULL, "
+                    + "imported_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, PRIMARY KEY (source, batch))");
+            st.executeUpdate("INSERT INTO patient_import_batches (source, batch, rows_imported) VALUES ('old.csv', 0, 1)");
+            PatientImporter.ensureSchema(con);
+            assertThrows(IllegalStateException.class, () -> PatientImporter.doneBatches(con, "old.csv", 1, print));
+
+            st.executeUpdate("INSERT INTO patient_import_batches (source, batch, rows_imported, batch_size, fingerprint) VALUES ('p.csv', 0, 1, 1, '" + print + "')");
+            assertEquals(Set.of(0), PatientImporter.doneBatches(con, "p.csv", 1, print));
+            assertEquals(Set.of(), PatientImporter.doneBatches(con, "other.csv", 1, print));
+            assertThrows(IllegalStateException.class, () -> PatientImporter.doneBatches(con, "p.csv", 2, print), "other --batch");
+
+            Files.write(csv, List.of("name,phone,age", "Sita Rai,9800000002,35", "Ram Thapa,9800000001,40"), StandardCharsets.UTF_8);
+            String edited = PatientImporter.fingerprint(csv, Files.readAllLines(csv));
+            assertNotEquals(print, edited, "same size, lines swapped");
+            assertThrows(IllegalStateException.class, () -> PatientImporter.doneBatches(con, "p.csv", 1, edited));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+
+class SlotSchedulerTest {
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(3);
+
+    @Test
+    void sessionCapacityCountsBookingsFromOtherDesks() throws Exception {
+        try (Connection con = TestDb.install()) {
+            SlotScheduler.reload();
+            // 20 morning bookings made on another terminal after this one loaded its bitmap
+            PreparedStatement pst = con.prepareStatement("INSERT INTO appointment_slots (doctor_name, appt_date, slot, appointment_id) VALUES (?,?,?,?)");
+            for (int slot = 0; slot < 20; slot++) {
+                pst.setString(1, "Dr. Rai"); pst.setDate(2, Date.valueOf(DAY)); pst.setInt(3, slot); pst.setInt(4, 1000 + slot);
+                pst.executeUpdate();
+            }
+            assertTrue(SlotScheduler.isFree("Dr. Rai", DAY, 22), "local bitmap has not seen them yet");
+
+            con.setAutoCommit(false);
+            assertFalse(SlotScheduler.book(con, "Dr. Rai", DAY, 22, 1), "morning session already holds 20");
+            con.rollback();
+            assertFalse(SlotScheduler.isFree("Dr. Rai", DAY, 23), "bitmap refreshed from the database by the booking");
+
+            int afternoon = SlotScheduler.slotOf("14:00");
+            assertTrue(SlotScheduler.book(con, "Dr. Rai", DAY, afternoon, 2));
+            con.commit();
+            assertFalse(SlotScheduler.isFree("Dr. Rai", DAY, afternoon));
+        }
+    }
+
+    @Test
+    void releaseOnlyFreesTheSlotOnceCommitted() throws Exception {
+        try (Connection con = TestDb.install()) {
+            SlotScheduler.reload();
+            int slot = SlotScheduler.slotOf("10:00");
+            con.setAutoCommit(false);
+            assertTrue(SlotScheduler.book(con, "Dr. Karki", DAY, slot, 7));
+            con.commit();
+
+            Runnable freed = SlotScheduler.release(con, 7);
+            con.rollback();
+            assertFalse(SlotScheduler.isFree("Dr. Karki", DAY, slot), "rolled back, still booked");
+
+            freed = SlotScheduler.release(con, 7);
+            con.commit();
+            freed.run();
+            assertTrue(SlotScheduler.isFree("Dr. Karki", DAY, slot));
+        }
+    }
+
+    @Test
+    void rescheduleSeesBookingsCommittedAfterTheReleaseRead() throws Exception {
+        try (Connection con = TestDb.install(); Connection other = DBConnection.connect()) {
+            SlotScheduler.reload();
+            LocalDate from = DAY.plusDays(1);
+            con.setAutoCommit(false);
+            assertTrue(SlotScheduler.book(con, "Dr. Rai", from, SlotScheduler.slotOf("10:00"), 9));
+            con.commit();
+
+            // Another desk fills the morning session between the release and the booking of the reschedule.
+            // (H2 has no InnoDB-style current reads, so this runs READ COMMITTED; on MySQL the FOR UPDATE read
+            // in book() is what makes the rows visible after release() has fixed the snapshot.)
+            Runnable freed = SlotScheduler.release(con, 9);
+            PreparedStatement pst = other.prepareStatement("INSERT INTO appointment_slots (doctor_name, appt_date, slot, appointment_id) VALUES (?,?,?,?)");
+            for (int slot = 0; slot < 20; slot++) {
+                pst.setString(1, "Dr. Rai"); pst.setDate(2, Date.valueOf(DAY)); pst.setInt(3, slot); pst.setInt(4, 2000 + slot);
+                pst.executeUpdate();
+            }
+            assertTrue(SlotScheduler.isFree("Dr. Rai", DAY, 22), "full at the database, not in memory");
+            assertFalse(SlotScheduler.book(con, "Dr. Rai", DAY, 22, 9), "morning session already holds 20");
+            con.rollback();
+            assertNotNull(freed);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Embedded H2 database (MySQL mode) with the hospital's base tables, installed as DBConnection's source so
+// the code under test runs its real SQL. Each call gets a fresh, empty database.
+final class TestDb {
+
+    private static int next = 0;
+
+    private TestDb() {}
+
+    static Connection install() throws SQLException {
+        String url = "jdbc:h2:mem:hms" + (++next) + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        DBConnection.useFactory(() -> DriverManager.getConnection(url));
+        Archiver.clearTableCache();
+        Connection con = DriverManager.getConnection(url);
+        try (Statement st = con.createStatement()) {
+            st.executeUpdate("CREATE TABLE patients (patient_code BIGINT PRIMARY KEY, name VARCHAR(100), address VARCHAR(200), phone VARCHAR(20), "
+                    + "national_id VARCHAR(40), age INT, sex VARCHAR(10), email VARCHAR(100))");
+            st.executeUpdate("CREATE TABLE appointments (id INT AUTO_INCREMENT PRIMARY KEY, patient_code BIGINT, patient_name VARCHAR(100), "
+                    + "doctor_name VARCHAR(100), appt_date DATE, status VARCHAR(20) DEFAULT 'Pending')");
+            st.executeUpdate("CREATE TABLE admissions (id INT AUTO_INCREMENT PRIMARY KEY, patient_code BIGINT, patient_name VARCHAR(100), "
+                    + "bed_no VARCHAR(40), disease VARCHAR(200), status VARCHAR(20), admit_date DATE, discharge_date DATE)");
+            st.executeUpdate("CREATE TABLE bills (id BIGINT PRIMARY KEY, patient_code BIGINT, patient_name VARCHAR(100), bill_date DATE, "
+                    + "particulars TEXT, total_amount DECIMAL(12,2))");
+            // MySQL's TO_DAYS() (days since year 0), which H2 lacks
+            st.executeUpdate("CREATE ALIAS TO_DAYS AS 'Long toDays(java.sql.Date d) { return d == null ? null : d.toLocalDate().toEpochDay() + 719528; }'");
+            st.executeUpdate("CREATE TABLE prescriptions (id INT AUTO_INCREMENT PRIMARY KEY, patient_code BIGINT, doctor_name VARCHAR(100), "
+                    + "diagnosis TEXT, medicines TEXT, advice TEXT, prescribed_date DATE DEFAULT CURRENT_DATE)");
+        }
+        return con;
+    }
+}
@@ -0,0 +1,51 @@
+package com.mycompany.hospitalmanagementsystem;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class WardCensusTest {
+
+    private static Object[] ward(String name) {
+        for (Object[] r : WardCensus.wardReport(365)) if (r[0].equals(name)) return r;
+        return null;
+    }
+
+    private static Object[] disease(String name) {
+        for (Object[] r : WardCensus.losByDisease()) if (r[0].equals(name)) return r;
+        return null;
+    }
+
+    @Test
+    void laterPassesPickUpOutOfOrderIdsEditsAndDeletes() throws Exception {
+        try (Connection con = TestDb.install(); Statement st = con.createStatement()) {
+            st.executeUpdate("INSERT INTO admissions (id, patient_code, bed_no, disease, status, admit_date, discharge_date) VALUES "
+                    + "(10, 1, 'ICU-1', 'Dengue', 'Discharged', CURRENT_DATE - INTERVAL '5' DAY, CURRENT_DATE - INTERVAL '2' DAY), "
+                    + "(20, 2, 'ICU-2', 'Typhoid', 'Admitted', CURRENT_DATE - INTERVAL '1' DAY, NULL)");
+            WardCensus.refresh();
+            assertEquals(1, ward("ICU")[2], "one stay open");
+            assertEquals(1, disease("Dengue")[1]);
+
+            // Lower id committed after a higher one was seen (hi/lo blocks, offline replay)
+            st.executeUpdate("INSERT INTO admissions (id, patient_code, bed_no, disease, status, admit_date) VALUES (15, 3, 'ICU-3', 'Dengue', 'Admitted', CURRENT_DATE)");
+            // Closed stay corrected afterwards
+            st.executeUpdate("UPDATE admissions SET disease='Malaria' WHERE id=10");
+            WardCensus.refresh();
+            assertEquals(2, ward("ICU")[2]);
+            assertEquals(3L, ward("ICU")[4], "admissions in the period");
+            assertEquals(0, disease("Dengue")[1], "the corrected stay is no longer a Dengue discharge");
+            assertEquals(1, disease("Dengue")[3], "the new stay is open");
+            assertEquals(1, disease("Malaria")[1]);
+
+            st.executeUpdate("DELETE FROM admissions WHERE id=20");
+            WardCensus.refresh();
+            assertEquals(1, ward("ICU")[2]);
+            assertEquals(2L, ward("ICU")[4]);
+            List<Object[]> census = WardCensus.dailyCensus(1);
+            assertEquals(1L, census.get(0)[1], "in at the end of today");
+        }
+    }
+}